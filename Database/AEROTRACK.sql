@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS sequenze;
 DROP TABLE IF EXISTS prenotazioni;
 DROP TABLE IF EXISTS voli;
 DROP TABLE IF EXISTS passeggeri;
@@ -32,7 +33,12 @@ CREATE TABLE IF NOT EXISTS voli (
     stato VARCHAR(20) DEFAULT 'PROGRAMMATO',
     data_volo DATE NOT NULL,
     FOREIGN KEY(partenza) REFERENCES aeroporti(codice),
-    FOREIGN KEY(destinazione) REFERENCES aeroporti(codice)
+    FOREIGN KEY(destinazione) REFERENCES aeroporti(codice),
+    -- Indici per la ricerca dei voli: ordinamento e keyset pagination su (data_volo, orario_partenza, codice)
+    INDEX idx_voli_data (data_volo, orario_partenza, codice),
+    INDEX idx_voli_partenza_data (partenza, data_volo, orario_partenza, codice),
+    INDEX idx_voli_destinazione_data (destinazione, data_volo, orario_partenza, codice),
+    INDEX idx_voli_stato_data (stato, data_volo, orario_partenza, codice)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Creazione della tabella prenotazioni
@@ -41,6 +47,23 @@ CREATE TABLE IF NOT EXISTS prenotazioni (
     documento_passeggero VARCHAR(100) NOT NULL,
     codice_volo VARCHAR(100) NOT NULL,
     cancellata BOOLEAN DEFAULT FALSE,
+    -- 1 se la prenotazione è attiva, NULL se cancellata: l'indice univoco ignora i NULL,
+    -- quindi vincola solo le prenotazioni attive (MySQL non ha indici parziali)
+    attiva TINYINT GENERATED ALWAYS AS (IF(cancellata, NULL, 1)) STORED,
     FOREIGN KEY(codice_volo) REFERENCES voli(codice),
-    FOREIGN KEY(documento_passeggero) REFERENCES passeggeri(documento)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
\ No newline at end of file
+    FOREIGN KEY(documento_passeggero) REFERENCES passeggeri(documento),
+    -- Le prenotazioni di un passeggero si cercano con il prefisso (documento_passeggero) di questo indice
+    UNIQUE KEY uq_prenotazione_attiva (documento_passeggero, codice_volo, attiva),
+    -- Prenotazioni di un volo (lista passeggeri), ordinate per codice
+    INDEX idx_prenotazioni_volo (codice_volo, codice_prenotazione)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Creazione della tabella sequenze (allocazione a blocchi dei codici, es. PR1000, PR1001, ...)
+-- valore è il primo numero non ancora assegnato. Se la riga manca (database creato prima di questa tabella)
+-- l'applicazione la crea alla prima prenotazione, dopo il codice più alto già salvato.
+CREATE TABLE IF NOT EXISTS sequenze (
+    nome VARCHAR(50) PRIMARY KEY,
+    valore BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO sequenze (nome, valore) VALUES ('prenotazioni', 1000);
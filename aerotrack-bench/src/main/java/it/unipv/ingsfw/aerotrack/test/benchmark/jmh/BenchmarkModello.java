@@ -0,0 +1,224 @@
+package it.unipv.ingsfw.aerotrack.test.benchmark.jmh;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.test.benchmark.GeneratoreDati;
+import it.unipv.ingsfw.aerotrack.test.benchmark.SuiteBenchmark;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.CalcolaDistanza;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark JMH del modello: gli stessi casi di {@link SuiteBenchmark}, sugli stessi dati
+ * generati da {@link GeneratoreDati} con un seme fisso. Ogni benchmark gira in JVM separate (fork)
+ * e i risultati passano da un Blackhole o dal valore restituito, così la JIT non può eliminarli.
+ *
+ * Uso: {@code java -cp aerotrack-bench/target/aerotrack-bench.jar org.openjdk.jmh.Main BenchmarkModello -rf json}
+ * (risultati in jmh-result.json). Le dimensioni dei dati si cambiano con -p, ad esempio
+ * {@code -p voli=10000 -p prenotazioni=100000} per la scala ridotta della suite.
+ * I benchmark dei servizi sul database restano in SuiteBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BenchmarkModello {
+
+    private static final long SEME = 42;
+
+    /** Voli creati da ogni invocazione di {@link #costruzioneVoli}. */
+    private static final int VOLI_COSTRUITI = 20_000;
+
+    /** Prenotazioni aggiunte al volo da ogni invocazione di {@link #aggiungiPrenotazione}. */
+    private static final int PRENOTAZIONI_AGGIUNTE = 5_000;
+
+    /** Aeroporti nuovi a ogni invocazione: le piste si occupano man mano che i voli vengono creati. */
+    @State(Scope.Thread)
+    public static class AeroportiLiberi {
+        List<Aeroporto> aeroporti;
+        LocalTime[] orari;
+
+        @Setup(Level.Invocation)
+        public void prepara() {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            aeroporti = generatore.aeroporti(50);
+            orari = generatore.orari(VOLI_COSTRUITI);
+        }
+    }
+
+    /** Voli ricostruiti come se letti dal database, con un orario di confronto per ognuno. */
+    @State(Scope.Thread)
+    public static class VoliCaricati {
+        @Param("100000")
+        int voli;
+
+        List<Volo> elenco;
+        LocalTime[] orari;
+        int prossimo;
+
+        @Setup(Level.Trial)
+        public void prepara() {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            elenco = generatore.voli(generatore.aeroporti(500), voli);
+            orari = generatore.orari(voli);
+        }
+    }
+
+    /** Aeroporti di cui si calcolano le distanze, una coppia per invocazione. */
+    @State(Scope.Thread)
+    public static class CoppieAeroporti {
+        @Param("1000")
+        int aeroporti;
+
+        List<Aeroporto> elenco;
+        int primo;
+        int secondo;
+
+        @Setup(Level.Trial)
+        public void prepara() {
+            elenco = new GeneratoreDati(SEME).aeroporti(aeroporti);
+        }
+    }
+
+    /** File CSV di aeroporti, scritto una volta per tutte le misure. */
+    @State(Scope.Benchmark)
+    public static class FileAeroporti {
+        @Param("10000")
+        int righe;
+
+        Path file;
+
+        @Setup(Level.Trial)
+        public void prepara() throws IOException {
+            file = Files.createTempFile("aerotrack-jmh-aeroporti", ".csv");
+            CSVUtils.esportaAeroporti(new GeneratoreDati(SEME).aeroporti(righe), file.toString());
+        }
+
+        @TearDown(Level.Trial)
+        public void elimina() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Volo senza prenotazioni e prenotazioni da aggiungere, nuovi a ogni invocazione. */
+    @State(Scope.Thread)
+    public static class VoloLibero {
+        Volo volo;
+        List<Prenotazione> prenotazioni;
+
+        @Setup(Level.Invocation)
+        public void prepara() {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            List<Volo> voli = generatore.voli(generatore.aeroporti(2), 1);
+            volo = voli.get(0);
+            prenotazioni = generatore.prenotazioni(generatore.passeggeri(PRENOTAZIONI_AGGIUNTE), voli, PRENOTAZIONI_AGGIUNTE);
+        }
+    }
+
+    /** Prenotazioni caricate in memoria, in cui si cerca un documento diverso a ogni invocazione. */
+    @State(Scope.Thread)
+    public static class PrenotazioniCaricate {
+        @Param("1000000")
+        int prenotazioni;
+
+        List<Passeggero> passeggeri;
+        List<Prenotazione> elenco;
+        int ricerca;
+
+        @Setup(Level.Trial)
+        public void prepara() {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            passeggeri = generatore.passeggeri(prenotazioni / 5);
+            elenco = generatore.prenotazioni(passeggeri,
+                    generatore.voli(generatore.aeroporti(500), prenotazioni / 200), prenotazioni);
+        }
+    }
+
+    /** Costruzione di voli con assegnazione della pista su aeroporti sempre più occupati (tempo per volo). */
+    @Benchmark
+    @OperationsPerInvocation(VOLI_COSTRUITI)
+    public void costruzioneVoli(AeroportiLiberi dati, Blackhole pozzo) {
+        List<Aeroporto> elenco = dati.aeroporti;
+        LocalTime[] orari = dati.orari;
+        for (int i = 0; i < orari.length; i++) {
+            Aeroporto partenza = elenco.get(i % elenco.size());
+            Aeroporto destinazione = elenco.get((i * 7 + 1) % elenco.size());
+            if (partenza == destinazione) destinazione = elenco.get((i + 1) % elenco.size());
+            pozzo.consume(new Volo("BM" + i, partenza, destinazione, orari[i], 850, GeneratoreDati.DATA));
+        }
+    }
+
+    /** Calcolo dello stato di un volo con ritardo a un orario casuale. */
+    @Benchmark
+    public Volo.StatoVolo calcolaStato(VoliCaricati dati) {
+        int i = dati.prossimo;
+        dati.prossimo = i + 1 == dati.voli ? 0 : i + 1;
+        return dati.elenco.get(i).calcolaStato(dati.orari[i]);
+    }
+
+    /** Distanza tra due aeroporti, scorrendo tutte le coppie. */
+    @Benchmark
+    public double calcolaDistanza(CoppieAeroporti dati) {
+        Aeroporto a1 = dati.elenco.get(dati.primo);
+        Aeroporto a2 = dati.elenco.get(dati.secondo);
+        if (++dati.secondo == dati.aeroporti) {
+            dati.secondo = 0;
+            dati.primo = dati.primo + 1 == dati.aeroporti ? 0 : dati.primo + 1;
+        }
+        return CalcolaDistanza.calcolaDistanza(a1, a2);
+    }
+
+    /** Importazione dell'intero file CSV di aeroporti (tempo per file). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Aeroporto> importaAeroporti(FileAeroporti dati) throws IOException {
+        return CSVUtils.importaAeroporti(dati.file.toString());
+    }
+
+    /** Aggiunta delle prenotazioni a un volo, con il controllo dei duplicati (tempo per prenotazione). */
+    @Benchmark
+    @OperationsPerInvocation(PRENOTAZIONI_AGGIUNTE)
+    public int aggiungiPrenotazione(VoloLibero dati) {
+        for (Prenotazione p : dati.prenotazioni) {
+            dati.volo.aggiungiPrenotazione(p);
+        }
+        return dati.volo.getPrenotazioni().size();
+    }
+
+    /**
+     * Ricerca delle prenotazioni di un documento tra quelle caricate, con lo stesso filtro
+     * di PrenotazioneService#trovaPrenotazioniPerDocumento (tempo per ricerca).
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Prenotazione> filtroDocumento(PrenotazioniCaricate dati) {
+        String documento = dati.passeggeri.get(dati.ricerca * 997 % dati.passeggeri.size()).getDocumento();
+        dati.ricerca = dati.ricerca + 1 == dati.passeggeri.size() ? 0 : dati.ricerca + 1;
+        return dati.elenco.stream()
+                .filter(p -> p.getPasseggero().getDocumento().equalsIgnoreCase(documento))
+                .collect(Collectors.toList());
+    }
+}
@@ -40,4 +40,11 @@ public class PrenotazioneController {
     public List<Prenotazione> trovaPrenotazioniPerDocumento(String documento) {
         return prenotazioneService.trovaPrenotazioniPerDocumento(documento);
     }
+
+    /**
+     * Trova le prenotazioni di un volo.
+     */
+    public List<Prenotazione> trovaPrenotazioniPerVolo(String codiceVolo) {
+        return prenotazioneService.trovaPrenotazioniPerVolo(codiceVolo);
+    }
 }
\ No newline at end of file
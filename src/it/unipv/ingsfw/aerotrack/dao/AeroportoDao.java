@@ -1,22 +1,50 @@
 package it.unipv.ingsfw.aerotrack.dao;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.sql.*;
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.MappaIdentita;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
 
 /**
  * Data Access Object per la gestione degli aeroporti nel database MySQL.
  * Gestisce tutte le operazioni CRUD (Create, Read, Update, Delete) sugli aeroporti.
  * Implementa IAeroportoDao.
+ *
+ * Gli aeroporti letti vengono tenuti in memoria in una {@link MappaIdentita}, da cui leggono sia
+ * {@link #cercaPerCodice(String)} sia {@link #getTuttiAeroporti()}: per ogni codice esiste una sola
+ * istanza di Aeroporto, che conserva l'occupazione delle piste, finché la riga sul database non cambia.
+ * Gli aeroporti non vengono mai eliminati per fare spazio, perché un'istanza riletta avrebbe le piste
+ * libere; sono dati di riferimento, quindi la memoria usata resta limitata.
+ * Le scritture fatte da questo DAO aggiornano o invalidano la mappa; le modifiche fatte sul database
+ * da altri diventano visibili al più dopo la durata configurata (chiave cache.aeroporti.ttlSec).
  */
 public class AeroportoDao implements IAeroportoDao {
 
+    private static final long DEFAULT_CACHE_TTL_SEC = 300;
+
     private static AeroportoDao instance;
-    private Map<String, Aeroporto> aeroportiCache = new HashMap<>();
-    private AeroportoDao() {}
+    private final MappaIdentita<String, Aeroporto> aeroporti;
+
+    private AeroportoDao() {
+        Duration durata = Duration.ofSeconds(DBConnection.getImpostazione("cache.aeroporti.ttlSec", DEFAULT_CACHE_TTL_SEC));
+        aeroporti = new MappaIdentita<>("aeroporti", durata, this::leggiAeroporto, this::leggiTutti,
+                Aeroporto::getCodice, AeroportoDao::stessiDati);
+    }
+
+    private static final String INSERT_QUERY = """
+            INSERT INTO aeroporti (codice, nome, latitudine, longitudine, numeroPiste)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                nome = VALUES(nome),
+                latitudine = VALUES(latitudine),
+                longitudine = VALUES(longitudine),
+                numeroPiste = VALUES(numeroPiste)
+            """;
 
     public static AeroportoDao getInstance() {
         if (instance == null) {
@@ -33,61 +61,60 @@ public class AeroportoDao implements IAeroportoDao {
     @Override
     public void aggiungiAeroporto(Aeroporto a) {
         if (a == null) throw new IllegalArgumentException("L'aeroporto non può essere null");
-        String insertQuery = """
-            INSERT INTO aeroporti (codice, nome, latitudine, longitudine, numeroPiste)
-            VALUES (?, ?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-                nome = VALUES(nome),
-                latitudine = VALUES(latitudine),
-                longitudine = VALUES(longitudine),
-                numeroPiste = VALUES(numeroPiste)
-            """;
         try (Connection conn = DBConnection.startConnection("aerotrack");
-             PreparedStatement ps = conn.prepareStatement(insertQuery)) {
-            ps.setString(1, a.getCodice());
-            ps.setString(2, a.getNome());
-            ps.setDouble(3, a.getLatitudine());
-            ps.setDouble(4, a.getLongitudine());
-            ps.setInt(5, a.getNumeroPiste());
+             PreparedStatement ps = conn.prepareStatement(INSERT_QUERY)) {
+            impostaParametri(ps, a);
             ps.executeUpdate();
-            aeroportiCache.put(a.getCodice(), a);
+            aeroporti.put(a.getCodice(), a);
         } catch (SQLException e) {
             System.err.println("Errore inserimento aeroporto: " + e.getMessage());
         }
     }
 
     /**
-     * Restituisce tutti gli aeroporti nel database.
+     * Aggiunge o aggiorna più aeroporti con scritture batch, confermando un blocco alla volta
+     * (vedi {@link DBConnection#getDimensioneBatch()}).
+     * Gli aeroporti scritti vengono invalidati in memoria e saranno riletti dal database alla prossima
+     * richiesta, insieme all'elenco completo; chi ha già i dati salvati mantiene la sua istanza.
      *
-     * @return lista di Aeroporti.
+     * @param aeroporti Aeroporti da aggiungere/aggiornare.
+     * @return true se tutti salvati, false altrimenti (i blocchi già confermati restano salvati).
      */
     @Override
-    public List<Aeroporto> getTuttiAeroporti() {
-        List<Aeroporto> listaAeroporti = new ArrayList<>();
-        String query = "SELECT * FROM aeroporti ORDER BY codice";
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-            	String codice = rs.getString("codice");
-                Aeroporto a;
-                if (aeroportiCache.containsKey(codice)) {
-                    a = aeroportiCache.get(codice);
-                } else {
-                    a = new Aeroporto(
-                        codice,
-                        rs.getString("nome"),
-                        rs.getDouble("latitudine"),
-                        rs.getDouble("longitudine"),
-                        rs.getInt("numeroPiste"));
-                    aeroportiCache.put(codice, a);
-                }
-                listaAeroporti.add(a);
-            }
+    public boolean aggiungiAeroporti(Collection<Aeroporto> nuovi) {
+        if (nuovi == null) throw new IllegalArgumentException("La lista degli aeroporti non può essere null");
+        if (nuovi.isEmpty()) return true;
+        try {
+            ScritturaBatch.esegui(INSERT_QUERY, nuovi, this::impostaParametri, false);
+            return true;
         } catch (SQLException e) {
-            System.err.println("Errore recupero aeroporti: " + e.getMessage());
+            System.err.println("Errore inserimento aeroporti: " + e.getMessage());
+            return false;
+        } finally {
+            // Anche in caso di errore: i blocchi confermati sono già sul database
+            for (Aeroporto a : nuovi) {
+                aeroporti.invalida(a.getCodice());
+            }
         }
-        return listaAeroporti;
+    }
+
+    private void impostaParametri(PreparedStatement ps, Aeroporto a) throws SQLException {
+        ps.setString(1, a.getCodice());
+        ps.setString(2, a.getNome());
+        ps.setDouble(3, a.getLatitudine());
+        ps.setDouble(4, a.getLongitudine());
+        ps.setInt(5, a.getNumeroPiste());
+    }
+
+    /**
+     * Restituisce tutti gli aeroporti nel database, dalla memoria se l'elenco è stato letto da meno
+     * della durata configurata. Le istanze sono le stesse restituite da {@link #cercaPerCodice(String)}.
+     *
+     * @return lista di Aeroporti ordinata per codice (una copia, modificabile dal chiamante).
+     */
+    @Override
+    public List<Aeroporto> getTuttiAeroporti() {
+        return aeroporti.tutti();
     }
 
     /**
@@ -101,29 +128,7 @@ public class AeroportoDao implements IAeroportoDao {
         if (codice == null || codice.isEmpty()) {
             throw new IllegalArgumentException("Il codice aeroporto non può essere null o vuoto");
         }
-        codice = codice.toUpperCase();
-        if (aeroportiCache.containsKey(codice)) {
-            return aeroportiCache.get(codice);
-        }
-        String selectQuery = "SELECT * FROM aeroporti WHERE codice = ?";
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             PreparedStatement ps = conn.prepareStatement(selectQuery)) {
-            ps.setString(1, codice);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-            	Aeroporto a = new Aeroporto(
-                        rs.getString("codice"),
-                        rs.getString("nome"),
-                        rs.getDouble("latitudine"),
-                        rs.getDouble("longitudine"),
-                        rs.getInt("numeroPiste"));
-            	aeroportiCache.put(codice, a);
-            	return a;
-            }
-        } catch (SQLException e) {
-            System.err.println("Errore ricerca aeroporto: " + e.getMessage());
-        }
-        return null;
+        return aeroporti.get(codice.toUpperCase());
     }
 
     /**
@@ -141,11 +146,105 @@ public class AeroportoDao implements IAeroportoDao {
              PreparedStatement ps = conn.prepareStatement(delQuery)) {
             ps.setString(1, codice.toUpperCase());
             boolean ok = ps.executeUpdate() > 0;
-            if (ok) aeroportiCache.remove(codice.toUpperCase());
+            if (ok) {
+                aeroporti.rimuovi(codice.toUpperCase());
+            }
             return ok;
         } catch (SQLException e) {
             System.err.println("Errore durante la rimozione dell'aeroporto: " + e.getMessage());
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Svuota la tabella aeroporti e la cache. Da usare solo per test!
+     *
+     * @return true se svuotata, false in caso di errore (es. voli che usano gli aeroporti)
+     */
+    @Override
+    public boolean svuota() {
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM aeroporti");
+            aeroporti.svuota();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore durante lo svuotamento della tabella aeroporti: " + e.getMessage());
+            svuotaCache();
+            return false;
+        }
+    }
+
+    /**
+     * Fa rileggere gli aeroporti in memoria alla prossima richiesta. Da chiamare dopo modifiche
+     * alla tabella fatte senza passare da questo DAO.
+     */
+    public void svuotaCache() {
+        aeroporti.invalidaTutto();
+    }
+
+    /**
+     * Restituisce le statistiche degli aeroporti in memoria.
+     */
+    @Override
+    public List<StatisticheCache> getStatisticheCache() {
+        return List.of(aeroporti.statistiche());
+    }
+
+    // Metodi interni
+
+    /** Caricatore della mappa: legge un aeroporto dal database, null se non esiste o in caso di errore. */
+    private Aeroporto leggiAeroporto(String codice) {
+        String selectQuery = "SELECT * FROM aeroporti WHERE codice = ?";
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(selectQuery)) {
+            ps.setString(1, codice);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return creaAeroporto(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca aeroporto: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Caricatore dell'elenco completo. Gli aeroporti letti vengono uniti dalla mappa a quelli
+     * già presenti, così l'elenco e {@link #cercaPerCodice(String)} restituiscono le stesse istanze.
+     *
+     * @return aeroporti letti, null in caso di errore
+     */
+    private List<Aeroporto> leggiTutti() {
+        List<Aeroporto> listaAeroporti = new ArrayList<>();
+        String query = "SELECT * FROM aeroporti";
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                listaAeroporti.add(creaAeroporto(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore recupero aeroporti: " + e.getMessage());
+            return null;
+        }
+        return listaAeroporti;
+    }
+
+    private static Aeroporto creaAeroporto(ResultSet rs) throws SQLException {
+        return new Aeroporto(
+                rs.getString("codice"),
+                rs.getString("nome"),
+                rs.getDouble("latitudine"),
+                rs.getDouble("longitudine"),
+                rs.getInt("numeroPiste"));
+    }
+
+    /** True se i due aeroporti hanno gli stessi dati sul database (l'occupazione delle piste non conta). */
+    private static boolean stessiDati(Aeroporto a, Aeroporto b) {
+        return Objects.equals(a.getNome(), b.getNome())
+                && Double.compare(a.getLatitudine(), b.getLatitudine()) == 0
+                && Double.compare(a.getLongitudine(), b.getLongitudine()) == 0
+                && a.getNumeroPiste() == b.getNumeroPiste();
+    }
+}
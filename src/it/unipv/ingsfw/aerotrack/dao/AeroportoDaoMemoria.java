@@ -0,0 +1,119 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
+
+/**
+ * DAO Singleton degli aeroporti per il profilo memoria: i dati sono in {@link ArchivioMemoria}.
+ * Implementa IAeroportoDao con la stessa semantica di {@link AeroportoDao}, compreso il vincolo
+ * che impedisce di rimuovere un aeroporto usato da un volo.
+ */
+public class AeroportoDaoMemoria implements IAeroportoDao {
+
+    private static AeroportoDaoMemoria instance;
+    private final ArchivioMemoria archivio = ArchivioMemoria.getInstance();
+
+    private AeroportoDaoMemoria() {}
+
+    public static synchronized AeroportoDaoMemoria getInstance() {
+        if (instance == null) {
+            instance = new AeroportoDaoMemoria();
+        }
+        return instance;
+    }
+
+    /**
+     * Aggiunge o aggiorna un aeroporto.
+     *
+     * @param a Aeroporto da aggiungere/aggiornare.
+     */
+    @Override
+    public void aggiungiAeroporto(Aeroporto a) {
+        if (a == null) throw new IllegalArgumentException("L'aeroporto non può essere null");
+        archivio.aeroporti.put(ArchivioMemoria.chiave(a.getCodice()), a);
+        archivio.modificato();
+    }
+
+    /**
+     * Aggiunge o aggiorna più aeroporti.
+     *
+     * @return sempre true
+     */
+    @Override
+    public boolean aggiungiAeroporti(Collection<Aeroporto> aeroporti) {
+        if (aeroporti == null) throw new IllegalArgumentException("La lista degli aeroporti non può essere null");
+        for (Aeroporto a : aeroporti) {
+            archivio.aeroporti.put(ArchivioMemoria.chiave(a.getCodice()), a);
+        }
+        archivio.modificato();
+        return true;
+    }
+
+    /**
+     * @return lista di Aeroporti ordinata per codice (una copia, modificabile dal chiamante).
+     */
+    @Override
+    public List<Aeroporto> getTuttiAeroporti() {
+        return new ArrayList<>(archivio.aeroporti.values());
+    }
+
+    @Override
+    public Aeroporto cercaPerCodice(String codice) {
+        if (codice == null || codice.isEmpty()) {
+            throw new IllegalArgumentException("Il codice aeroporto non può essere null o vuoto");
+        }
+        return archivio.aeroporti.get(ArchivioMemoria.chiave(codice));
+    }
+
+    /**
+     * Rimuove un aeroporto tramite codice.
+     *
+     * @return true se rimosso, false se non esiste o se un volo parte o arriva all'aeroporto
+     */
+    @Override
+    public boolean rimuoviAeroporto(String codice) {
+        if (codice == null || codice.isEmpty())
+            throw new IllegalArgumentException("Il codice aeroporto non può essere null o vuoto");
+        synchronized (archivio) {
+            if (archivio.isAeroportoUsato(codice)) {
+                System.err.println("Errore durante la rimozione dell'aeroporto: l'aeroporto " + codice + " è usato da alcuni voli");
+                return false;
+            }
+            boolean ok = archivio.aeroporti.remove(ArchivioMemoria.chiave(codice)) != null;
+            if (ok) archivio.modificato();
+            return ok;
+        }
+    }
+
+    /**
+     * Rimuove tutti gli aeroporti. Da usare solo per test!
+     *
+     * @return true se svuotata, false se ci sono voli
+     */
+    @Override
+    public boolean svuota() {
+        synchronized (archivio) {
+            if (!archivio.voli.isEmpty()) {
+                System.err.println("Errore durante lo svuotamento della tabella aeroporti: ci sono voli che usano gli aeroporti");
+                return false;
+            }
+            archivio.aeroporti.clear();
+            archivio.modificato();
+            return true;
+        }
+    }
+
+    /**
+     * Gli aeroporti in memoria non passano da una cache.
+     *
+     * @return lista vuota
+     */
+    @Override
+    public List<StatisticheCache> getStatisticheCache() {
+        return List.of();
+    }
+}
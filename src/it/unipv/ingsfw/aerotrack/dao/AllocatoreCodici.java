@@ -0,0 +1,129 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Allocatore di codici numerici univoci basato sulla tabella sequenze (algoritmo hi/lo).
+ *
+ * Ogni istanza prenota sul database un blocco di valori consecutivi con un solo UPDATE
+ * e poi li distribuisce in memoria senza lock (AtomicLong); solo quando il blocco è
+ * esaurito ne prenota un altro. L'UPDATE blocca la riga della sequenza fino al commit,
+ * quindi più istanze dell'applicazione sullo stesso database ricevono blocchi disgiunti.
+ * I valori di un blocco non usati (es. alla chiusura dell'applicazione) vengono persi:
+ * i codici sono univoci ma non necessariamente consecutivi.
+ */
+public class AllocatoreCodici {
+
+    private final int dimensioneBlocco;
+    // Prenota un blocco della dimensione data e restituisce il primo valore successivo al blocco
+    private final LongUnaryOperator prenotaBlocco;
+    private volatile Blocco corrente = new Blocco(0, 0);
+
+    /**
+     * Crea un allocatore sulla sequenza indicata.
+     *
+     * @param sequenza nome della riga nella tabella sequenze
+     * @param dimensioneBlocco numero di valori prenotati a ogni accesso al database
+     * @param queryValoreIniziale query con un solo valore: il primo da assegnare se la sequenza
+     *        non esiste ancora, calcolato dai codici già salvati perché i nuovi non li ripetano
+     */
+    public AllocatoreCodici(String sequenza, int dimensioneBlocco, String queryValoreIniziale) {
+        this(dimensioneBlocco, n -> prenotaSuDatabase(sequenza, n, queryValoreIniziale));
+    }
+
+    AllocatoreCodici(int dimensioneBlocco, LongUnaryOperator prenotaBlocco) {
+        if (dimensioneBlocco <= 0) throw new IllegalArgumentException("La dimensione del blocco deve essere maggiore di 0");
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.prenotaBlocco = prenotaBlocco;
+    }
+
+    /**
+     * Restituisce il prossimo codice. Accede al database solo quando il blocco corrente è esaurito.
+     *
+     * @throws RuntimeException se non è possibile prenotare un nuovo blocco
+     */
+    public long prossimo() {
+        while (true) {
+            Blocco b = corrente;
+            long valore = b.prossimo.getAndIncrement();
+            if (valore < b.fine) return valore;
+            rinnova(b);
+        }
+    }
+
+    /**
+     * Prenota un nuovo blocco se quello esaurito è ancora il corrente
+     * (un altro thread può averlo già sostituito).
+     */
+    private synchronized void rinnova(Blocco esaurito) {
+        if (corrente != esaurito) return;
+        long fine = prenotaBlocco.applyAsLong(dimensioneBlocco);
+        corrente = new Blocco(fine - dimensioneBlocco, fine);
+    }
+
+    /**
+     * Prenota sulla tabella sequenze i valori [valore, valore + n) e restituisce valore + n.
+     */
+    private static long prenotaSuDatabase(String sequenza, long n, String queryValoreIniziale) {
+        try (Connection conn = DBConnection.startConnection("aerotrack")) {
+            if (conn == null) throw new SQLException("Connessione al database non disponibile");
+            conn.setAutoCommit(false);
+            try {
+                long fine = incrementa(conn, sequenza, n);
+                if (fine < 0) {
+                    // Prima prenotazione: crea la sequenza dopo i codici già salvati
+                    // (se un'altra istanza l'ha appena creata l'INSERT non fa nulla)
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "INSERT IGNORE INTO sequenze (nome, valore) VALUES (?, (" + queryValoreIniziale + "))")) {
+                        ps.setString(1, sequenza);
+                        ps.executeUpdate();
+                    }
+                    fine = incrementa(conn, sequenza, n);
+                }
+                conn.commit();
+                return fine;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Errore nella prenotazione dei codici della sequenza " + sequenza, e);
+        }
+    }
+
+    /**
+     * Incrementa la sequenza di n e ne legge il nuovo valore nella stessa transazione.
+     *
+     * @return nuovo valore della sequenza, -1 se la sequenza non esiste
+     */
+    private static long incrementa(Connection conn, String sequenza, long n) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE sequenze SET valore = valore + ? WHERE nome = ?")) {
+            ps.setLong(1, n);
+            ps.setString(2, sequenza);
+            if (ps.executeUpdate() == 0) return -1;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT valore FROM sequenze WHERE nome = ?")) {
+            ps.setString(1, sequenza);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** Blocco di valori [prossimo, fine) prenotato sul database. */
+    private static final class Blocco {
+        final AtomicLong prossimo;
+        final long fine;
+
+        Blocco(long inizio, long fine) {
+            this.prossimo = new AtomicLong(inizio);
+            this.fine = fine;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.CursoreVoli;
+import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.LettoreCSVMappato;
+
+/**
+ * Archivio in memoria dei dati usato dai DAO del profilo memoria (vedi {@link FabbricaDao}).
+ *
+ * Ogni tabella è una mappa concorrente ordinata come le letture dei DAO JDBC, affiancata da indici
+ * secondari aggiornati a ogni scrittura:
+ * - voli per codice, per (data, orario, codice) e per aeroporto di partenza e di destinazione
+ * - prenotazioni per documento del passeggero (senza distinzione tra maiuscole e minuscole) e per volo
+ * Le letture non usano lock e vedono le scritture già completate. Le scritture si sincronizzano
+ * sull'archivio, così indici e vincoli (chiavi esterne, una sola prenotazione attiva per passeggero
+ * e volo) restano coerenti. I DAO restituiscono le istanze salvate, non copie.
+ *
+ * Se è configurata la chiave memoria.snapshot.cartella, all'avvio viene caricata l'ultima fotografia
+ * dei dati salvata nella cartella; ogni memoria.snapshot.intervalloSec secondi (default 60), se i dati
+ * sono cambiati, e alla chiusura della JVM ne viene salvata una nuova, in file CSV con le colonne
+ * di {@link CSVUtils}.
+ */
+final class ArchivioMemoria {
+
+    private static final long DEFAULT_INTERVALLO_SNAPSHOT_SEC = 60;
+    private static final String FILE_AEROPORTI = "aeroporti.csv";
+    private static final String FILE_VOLI = "voli.csv";
+    private static final String FILE_PASSEGGERI = "passeggeri.csv";
+    private static final String FILE_PRENOTAZIONI = "prenotazioni.csv";
+
+    /** Ordinamento dei voli delle ricerche: data, orario di partenza e codice. */
+    static final Comparator<CursoreVoli> ORDINE_VOLI = Comparator.comparing(CursoreVoli::data)
+            .thenComparing(CursoreVoli::orario).thenComparing(CursoreVoli::codice);
+
+    private static ArchivioMemoria instance;
+
+    // Tabelle, con chiave in maiuscolo
+    final ConcurrentSkipListMap<String, Aeroporto> aeroporti = new ConcurrentSkipListMap<>();
+    final ConcurrentHashMap<String, Volo> voli = new ConcurrentHashMap<>();
+    final ConcurrentSkipListMap<String, Passeggero> passeggeri = new ConcurrentSkipListMap<>();
+    final ConcurrentSkipListMap<String, Prenotazione> prenotazioni = new ConcurrentSkipListMap<>();
+
+    // Indici secondari dei voli
+    final ConcurrentSkipListMap<CursoreVoli, Volo> voliOrdinati = new ConcurrentSkipListMap<>(ORDINE_VOLI);
+    private final Map<String, ConcurrentSkipListMap<CursoreVoli, Volo>> voliPerPartenza = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<CursoreVoli, Volo>> voliPerDestinazione = new ConcurrentHashMap<>();
+
+    // Indici secondari delle prenotazioni
+    private final Map<String, Set<Prenotazione>> prenotazioniPerDocumento = new ConcurrentHashMap<>();
+    private final Map<String, Set<Prenotazione>> prenotazioniPerVolo = new ConcurrentHashMap<>();
+
+    // Numero di scritture, per salvare una fotografia solo se i dati sono cambiati
+    private final AtomicLong versione = new AtomicLong();
+    private final Path cartellaSnapshot;
+    private long versioneSalvata;
+
+    private ArchivioMemoria(Path cartellaSnapshot) {
+        this.cartellaSnapshot = cartellaSnapshot;
+    }
+
+    /**
+     * Restituisce l'archivio, creandolo (e caricando l'ultima fotografia, se configurata) alla prima richiesta.
+     */
+    static synchronized ArchivioMemoria getInstance() {
+        if (instance == null) {
+            String cartella = null;
+            try {
+                cartella = DBConnection.getConfig().getProperty("memoria.snapshot.cartella");
+            } catch (IOException e) {
+                System.err.println("Errore lettura configurazione: " + e.getMessage());
+            }
+            if (cartella == null || cartella.isBlank()) {
+                instance = new ArchivioMemoria(null);
+            } else {
+                instance = new ArchivioMemoria(Path.of(cartella.trim()));
+                // Se la fotografia non è leggibile non se ne salvano altre, per non sovrascriverla con dati parziali
+                if (instance.carica()) {
+                    instance.avviaSnapshot(DBConnection.getImpostazione("memoria.snapshot.intervalloSec",
+                            DEFAULT_INTERVALLO_SNAPSHOT_SEC));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** Chiave delle tabelle: il codice in maiuscolo, come il confronto del database. */
+    static String chiave(String codice) {
+        return codice.toUpperCase(Locale.ROOT);
+    }
+
+    /** Registra una modifica dei dati, da salvare con la prossima fotografia. */
+    void modificato() {
+        versione.incrementAndGet();
+    }
+
+    // Voli (le scritture vanno eseguite con il lock dell'archivio)
+
+    /** Salva il volo, sostituendo negli indici quello con lo stesso codice. */
+    void inserisciVolo(Volo v) {
+        Volo precedente = voli.put(chiave(v.getCodice()), v);
+        if (precedente != null) rimuoviDagliIndici(precedente);
+        CursoreVoli posizione = CursoreVoli.dopo(v);
+        voliOrdinati.put(posizione, v);
+        voliPerPartenza.computeIfAbsent(chiave(v.getPartenza().getCodice()), k -> new ConcurrentSkipListMap<>(ORDINE_VOLI))
+                .put(posizione, v);
+        voliPerDestinazione.computeIfAbsent(chiave(v.getDestinazione().getCodice()), k -> new ConcurrentSkipListMap<>(ORDINE_VOLI))
+                .put(posizione, v);
+        modificato();
+    }
+
+    /** Rimuove il volo con il codice indicato e lo restituisce, null se non esiste. */
+    Volo rimuoviVolo(String codice) {
+        Volo v = voli.remove(chiave(codice));
+        if (v != null) {
+            rimuoviDagliIndici(v);
+            modificato();
+        }
+        return v;
+    }
+
+    private void rimuoviDagliIndici(Volo v) {
+        CursoreVoli posizione = CursoreVoli.dopo(v);
+        voliOrdinati.remove(posizione, v);
+        Map<CursoreVoli, Volo> partenze = voliPerPartenza.get(chiave(v.getPartenza().getCodice()));
+        if (partenze != null) partenze.remove(posizione, v);
+        Map<CursoreVoli, Volo> arrivi = voliPerDestinazione.get(chiave(v.getDestinazione().getCodice()));
+        if (arrivi != null) arrivi.remove(posizione, v);
+    }
+
+    /** Voli in partenza dall'aeroporto, in ordine di data, orario e codice. */
+    ConcurrentSkipListMap<CursoreVoli, Volo> voliInPartenza(String codiceAeroporto) {
+        return voliPerPartenza.getOrDefault(chiave(codiceAeroporto), new ConcurrentSkipListMap<>(ORDINE_VOLI));
+    }
+
+    /** Voli in arrivo all'aeroporto, in ordine di data, orario e codice. */
+    ConcurrentSkipListMap<CursoreVoli, Volo> voliInArrivo(String codiceAeroporto) {
+        return voliPerDestinazione.getOrDefault(chiave(codiceAeroporto), new ConcurrentSkipListMap<>(ORDINE_VOLI));
+    }
+
+    /** True se almeno un volo parte o arriva all'aeroporto. */
+    boolean isAeroportoUsato(String codiceAeroporto) {
+        return !voliInPartenza(codiceAeroporto).isEmpty() || !voliInArrivo(codiceAeroporto).isEmpty();
+    }
+
+    // Prenotazioni (le scritture vanno eseguite con il lock dell'archivio)
+
+    /** Salva la prenotazione, sostituendo negli indici quella con lo stesso codice. */
+    void inserisciPrenotazione(Prenotazione p) {
+        Prenotazione precedente = prenotazioni.put(p.getCodicePrenotazione(), p);
+        if (precedente != null) {
+            prenotazioniDi(precedente.getPasseggero().getDocumento()).remove(precedente);
+            prenotazioniDelVolo(precedente.getVolo().getCodice()).remove(precedente);
+        }
+        prenotazioniPerDocumento.computeIfAbsent(chiave(p.getPasseggero().getDocumento()),
+                k -> ConcurrentHashMap.newKeySet()).add(p);
+        prenotazioniPerVolo.computeIfAbsent(chiave(p.getVolo().getCodice()),
+                k -> ConcurrentHashMap.newKeySet()).add(p);
+        modificato();
+    }
+
+    /** Prenotazioni (anche cancellate) del passeggero con il documento indicato. */
+    Collection<Prenotazione> prenotazioniDi(String documento) {
+        return prenotazioniPerDocumento.getOrDefault(chiave(documento), Set.of());
+    }
+
+    /** Prenotazioni (anche cancellate) del volo con il codice indicato. */
+    Collection<Prenotazione> prenotazioniDelVolo(String codiceVolo) {
+        return prenotazioniPerVolo.getOrDefault(chiave(codiceVolo), Set.of());
+    }
+
+    /**
+     * True se il passeggero ha sul volo una prenotazione attiva diversa da quella indicata.
+     * Il costo dipende solo dal numero di prenotazioni del passeggero.
+     */
+    boolean haPrenotazioneAttiva(String documento, String codiceVolo, Prenotazione esclusa) {
+        String volo = chiave(codiceVolo);
+        for (Prenotazione p : prenotazioniDi(documento)) {
+            if (!p.isCancellata() && !p.equals(esclusa) && chiave(p.getVolo().getCodice()).equals(volo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Svuota la tabella prenotazioni e i suoi indici. */
+    void svuotaPrenotazioni() {
+        prenotazioni.clear();
+        prenotazioniPerDocumento.clear();
+        prenotazioniPerVolo.clear();
+        modificato();
+    }
+
+    /** Svuota la tabella voli e i suoi indici. */
+    void svuotaVoli() {
+        voli.clear();
+        voliOrdinati.clear();
+        voliPerPartenza.clear();
+        voliPerDestinazione.clear();
+        modificato();
+    }
+
+    // Fotografie su disco
+
+    private void avviaSnapshot(long intervalloSec) {
+        if (intervalloSec > 0) {
+            ScheduledExecutorService pianificatore = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "aerotrack-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            pianificatore.scheduleWithFixedDelay(this::salvaSeModificato, intervalloSec, intervalloSec, TimeUnit.SECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::salvaSeModificato, "aerotrack-snapshot-chiusura"));
+    }
+
+    /**
+     * Salva una fotografia dei dati se sono cambiati dall'ultima. Ogni file viene scritto accanto
+     * a quello precedente e lo sostituisce solo quando è completo.
+     */
+    void salvaSeModificato() {
+        if (cartellaSnapshot == null) return;
+        synchronized (cartellaSnapshot) {
+            List<Aeroporto> elencoAeroporti;
+            List<Volo> elencoVoli;
+            List<Passeggero> elencoPasseggeri;
+            List<Prenotazione> elencoPrenotazioni;
+            long v;
+            // Copia coerente delle tabelle; la scrittura dei file avviene senza bloccare le scritture
+            synchronized (this) {
+                v = versione.get();
+                if (v == versioneSalvata) return;
+                elencoAeroporti = new ArrayList<>(aeroporti.values());
+                elencoVoli = new ArrayList<>(voliOrdinati.values());
+                elencoPasseggeri = new ArrayList<>(passeggeri.values());
+                elencoPrenotazioni = new ArrayList<>(prenotazioni.values());
+            }
+            try {
+                Files.createDirectories(cartellaSnapshot);
+                scrivi(FILE_AEROPORTI, file -> CSVUtils.esportaAeroporti(elencoAeroporti, file));
+                scrivi(FILE_VOLI, file -> CSVUtils.esporta(file, CSVUtils.COLONNE_VOLI,
+                        azione -> { elencoVoli.forEach(azione); return true; }, CSVUtils::rigaVolo));
+                scrivi(FILE_PASSEGGERI, file -> CSVUtils.esporta(file, CSVUtils.COLONNE_PASSEGGERI,
+                        azione -> { elencoPasseggeri.forEach(azione); return true; }, CSVUtils::rigaPasseggero));
+                scrivi(FILE_PRENOTAZIONI, file -> CSVUtils.esporta(file, CSVUtils.COLONNE_PRENOTAZIONI,
+                        azione -> { elencoPrenotazioni.forEach(azione); return true; }, CSVUtils::rigaPrenotazione));
+                versioneSalvata = v;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Errore salvataggio dei dati in memoria: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Scrittura di un file della fotografia. */
+    @FunctionalInterface
+    private interface Scrittura {
+        void scrivi(String file) throws IOException;
+    }
+
+    private void scrivi(String nome, Scrittura scrittura) throws IOException {
+        Path file = cartellaSnapshot.resolve(nome);
+        Path temporaneo = cartellaSnapshot.resolve(nome + ".tmp");
+        scrittura.scrivi(temporaneo.toString());
+        Files.move(temporaneo, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carica l'ultima fotografia salvata, se esiste. Voli e prenotazioni che riferiscono dati
+     * mancanti vengono scartati; l'occupazione delle piste è ricostruita dai voli caricati.
+     *
+     * @return true se la fotografia è stata caricata o non esiste, false in caso di errore
+     */
+    private synchronized boolean carica() {
+        try {
+            Path file = cartellaSnapshot.resolve(FILE_AEROPORTI);
+            if (!Files.exists(file)) return true;
+            for (Aeroporto a : CSVUtils.importaAeroporti(file.toString())) {
+                aeroporti.put(chiave(a.getCodice()), a);
+            }
+
+            file = cartellaSnapshot.resolve(FILE_VOLI);
+            if (Files.exists(file)) {
+                LettoreCSVMappato.leggi(file.toString(), CSVUtils.COLONNE_VOLI, riga -> {
+                    Aeroporto partenza = aeroporti.get(chiave(riga.testo(1)));
+                    Aeroporto destinazione = aeroporti.get(chiave(riga.testo(2)));
+                    if (partenza == null || destinazione == null) return;
+                    inserisciVolo(Volo.ripristina(riga.testo(0), partenza, destinazione, LocalTime.parse(riga.testo(4)),
+                            riga.decimale(5), LocalDate.parse(riga.testo(3)), riga.intero(6) - 1,
+                            LocalTime.parse(riga.testo(7)), Volo.StatoVolo.valueOf(riga.testo(8))));
+                });
+                Map<Aeroporto, List<Volo>> voliPerAeroporto = new HashMap<>();
+                for (Volo v : voli.values()) {
+                    voliPerAeroporto.computeIfAbsent(v.getPartenza(), a -> new ArrayList<>()).add(v);
+                    voliPerAeroporto.computeIfAbsent(v.getDestinazione(), a -> new ArrayList<>()).add(v);
+                }
+                voliPerAeroporto.forEach(Aeroporto::ricostruisciOccupazione);
+            }
+
+            file = cartellaSnapshot.resolve(FILE_PASSEGGERI);
+            if (Files.exists(file)) {
+                LettoreCSVMappato.leggi(file.toString(), CSVUtils.COLONNE_PASSEGGERI, riga -> {
+                    Passeggero p = new Passeggero(riga.testo(1), riga.testo(2), riga.testo(0));
+                    passeggeri.put(chiave(p.getDocumento()), p);
+                });
+            }
+
+            file = cartellaSnapshot.resolve(FILE_PRENOTAZIONI);
+            if (Files.exists(file)) {
+                LettoreCSVMappato.leggi(file.toString(), CSVUtils.COLONNE_PRENOTAZIONI, riga -> {
+                    Passeggero passeggero = passeggeri.get(chiave(riga.testo(1)));
+                    Volo volo = riga.testo(4).isEmpty() ? null : voli.get(chiave(riga.testo(4)));
+                    if (passeggero == null || volo == null) return;
+                    inserisciPrenotazione(new Prenotazione(riga.testo(0), passeggero, volo,
+                            Boolean.parseBoolean(riga.testo(5))));
+                });
+            }
+            versioneSalvata = versione.get();
+            System.out.println("Dati in memoria caricati da " + cartellaSnapshot + ": " + aeroporti.size()
+                    + " aeroporti, " + voli.size() + " voli, " + passeggeri.size() + " passeggeri, "
+                    + prenotazioni.size() + " prenotazioni.");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Errore caricamento dei dati in memoria da " + cartellaSnapshot + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool di connessioni JDBC verso un singolo schema.
+ * Le connessioni fisiche vengono riutilizzate: la close() sulla connessione
+ * restituita da {@link #getConnection()} la rimette nel pool invece di chiuderla.
+ *
+ * Gestisce:
+ * - dimensione massima (le richieste oltre il limite attendono fino a maxWaitMs)
+ * - validazione della connessione al prestito
+ * - chiusura delle connessioni inattive da più di idleTimeoutMs
+ * - segnalazione delle connessioni non restituite entro leakThresholdMs (0 per disattivarla);
+ *   lo stack del prestito, costoso da catturare, è registrato solo con tracciaPrestiti
+ */
+class ConnectionPool {
+
+    private final String schema;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+    private final boolean tracciaPrestiti;
+    private final int validationTimeoutSec;
+
+    // Limita il numero di connessioni in uso contemporaneamente
+    private final Semaphore permessi;
+    // Connessioni libere, usate in ordine LIFO (la più recente è la più "calda"). Protetta da this.
+    private final Deque<ConnessioneInattiva> inattive = new ArrayDeque<>();
+    // Connessioni attualmente prestate, con l'istante e (se richiesto) lo stack del prestito
+    private final Map<Connection, Prestito> inUso = new ConcurrentHashMap<>();
+
+    // Statistiche
+    private final AtomicLong richieste = new AtomicLong();
+    private final AtomicLong attesaTotaleNanos = new AtomicLong();
+    private final AtomicLong attesaMassimaNanos = new AtomicLong();
+    private final AtomicLong timeout = new AtomicLong();
+    private final AtomicLong connessioniCreate = new AtomicLong();
+    private final AtomicLong connessioniChiuse = new AtomicLong();
+    private final AtomicLong leakRilevati = new AtomicLong();
+
+    private volatile boolean chiuso = false;
+
+    ConnectionPool(String schema, String url, String username, String password,
+                   int maxSize, long maxWaitMs, long idleTimeoutMs, long leakThresholdMs, boolean tracciaPrestiti,
+                   int validationTimeoutSec) {
+        if (maxSize <= 0) throw new IllegalArgumentException("La dimensione del pool deve essere maggiore di 0");
+        this.schema = schema;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxWaitMs = maxWaitMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.tracciaPrestiti = tracciaPrestiti && leakThresholdMs > 0;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.permessi = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Prende in prestito una connessione dal pool, creandone una nuova se non ce ne sono di libere.
+     *
+     * @return connessione da chiudere con close() al termine dell'uso
+     * @throws SQLException se il pool è chiuso, se l'attesa supera maxWaitMs o se la connessione non può essere aperta
+     */
+    Connection getConnection() throws SQLException {
+        if (chiuso) throw new SQLException("Pool di connessioni chiuso per lo schema " + schema);
+
+        long inizio = System.nanoTime();
+        try {
+            if (!permessi.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                timeout.incrementAndGet();
+                throw new SQLTimeoutException("Nessuna connessione disponibile per lo schema " + schema
+                        + " entro " + maxWaitMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa di una connessione interrotta", e);
+        }
+        registraAttesa(System.nanoTime() - inizio);
+
+        try {
+            Connection fisica = prendiConnessioneValida();
+            Connection proxy = creaProxy(fisica);
+            inUso.put(fisica, new Prestito(System.currentTimeMillis(),
+                    tracciaPrestiti ? new Throwable("Connessione presa in prestito qui") : null));
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Restituisce le statistiche correnti del pool.
+     */
+    StatistichePool getStatistiche() {
+        int libere;
+        synchronized (this) {
+            libere = inattive.size();
+        }
+        long n = richieste.get();
+        return new StatistichePool(
+                schema,
+                maxSize,
+                inUso.size(),
+                libere,
+                permessi.getQueueLength(),
+                n,
+                n == 0 ? 0 : attesaTotaleNanos.get() / 1_000_000.0 / n,
+                attesaMassimaNanos.get() / 1_000_000.0,
+                timeout.get(),
+                connessioniCreate.get(),
+                connessioniChiuse.get(),
+                leakRilevati.get());
+    }
+
+    /**
+     * Manutenzione periodica: chiude le connessioni inattive scadute e segnala i possibili leak.
+     */
+    void manutenzione() {
+        long adesso = System.currentTimeMillis();
+
+        // Eviction delle connessioni inattive da troppo tempo
+        synchronized (this) {
+            Iterator<ConnessioneInattiva> it = inattive.iterator();
+            while (it.hasNext()) {
+                ConnessioneInattiva c = it.next();
+                if (adesso - c.restituitaIl() > idleTimeoutMs) {
+                    it.remove();
+                    chiudiFisica(c.connessione());
+                }
+            }
+        }
+
+        // Rilevamento dei leak: ogni prestito viene segnalato una sola volta
+        if (leakThresholdMs <= 0) return;
+        for (Prestito p : inUso.values()) {
+            if (adesso - p.presaIl > leakThresholdMs && p.segnalato.compareAndSet(false, true)) {
+                leakRilevati.incrementAndGet();
+                System.err.println("Possibile leak di connessione sullo schema " + schema
+                        + ": in uso da " + (adesso - p.presaIl) + " ms"
+                        + (p.origine == null ? " (db.pool.leakStackTrace=true per sapere dove è stata presa)" : ""));
+                if (p.origine != null) p.origine.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Chiude il pool e tutte le connessioni libere.
+     * Le connessioni in uso vengono chiuse fisicamente quando restituite.
+     */
+    void chiudi() {
+        chiuso = true;
+        synchronized (this) {
+            for (ConnessioneInattiva c : inattive) {
+                chiudiFisica(c.connessione());
+            }
+            inattive.clear();
+        }
+    }
+
+    // Metodi interni
+
+    private Connection prendiConnessioneValida() throws SQLException {
+        while (true) {
+            ConnessioneInattiva libera;
+            synchronized (this) {
+                libera = inattive.pollFirst();
+            }
+            if (libera == null) {
+                return apriFisica();
+            }
+            if (isValida(libera.connessione())) {
+                return libera.connessione();
+            }
+            chiudiFisica(libera.connessione());
+        }
+    }
+
+    private boolean isValida(Connection c) {
+        try {
+            return !c.isClosed() && c.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection apriFisica() throws SQLException {
+        Connection c = DriverManager.getConnection(url, username, password);
+        connessioniCreate.incrementAndGet();
+        System.out.println("Connessione al database avvenuta con successo!");
+        return c;
+    }
+
+    private void chiudiFisica(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException e) {
+            System.err.println("Errore chiusura connessione: " + e.getMessage());
+        }
+        connessioniChiuse.incrementAndGet();
+    }
+
+    /**
+     * Rimette nel pool la connessione fisica, ripristinandone lo stato di default.
+     */
+    private void restituisci(Connection fisica) {
+        inUso.remove(fisica);
+        try {
+            boolean riutilizzabile = !chiuso && !fisica.isClosed();
+            if (riutilizzabile && !fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (riutilizzabile) {
+                synchronized (this) {
+                    inattive.addFirst(new ConnessioneInattiva(fisica, System.currentTimeMillis()));
+                }
+            } else {
+                chiudiFisica(fisica);
+            }
+        } catch (SQLException e) {
+            chiudiFisica(fisica);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    private void registraAttesa(long nanos) {
+        richieste.incrementAndGet();
+        attesaTotaleNanos.addAndGet(nanos);
+        attesaMassimaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Crea il proxy della connessione: close() restituisce al pool, gli altri metodi sono delegati.
+     */
+    private Connection creaProxy(Connection fisica) {
+        AtomicBoolean restituita = new AtomicBoolean(false);
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (restituita.compareAndSet(false, true)) restituisci(fisica);
+                    return null;
+                case "isClosed":
+                    return restituita.get() || fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + schema + "] " + fisica;
+                default:
+                    if (restituita.get()) throw new SQLException("Connessione già restituita al pool");
+                    return invoca(fisica, method, args);
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoca(Connection fisica, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(fisica, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Connessione libera con l'istante in cui è tornata nel pool. */
+    private record ConnessioneInattiva(Connection connessione, long restituitaIl) {}
+
+    /** Informazioni su un prestito in corso, usate per il rilevamento dei leak. */
+    private static class Prestito {
+        final long presaIl;
+        // Stack del prestito, null se non tracciato
+        final Throwable origine;
+        final AtomicBoolean segnalato = new AtomicBoolean(false);
+
+        Prestito(long presaIl, Throwable origine) {
+            this.presaIl = presaIl;
+            this.origine = origine;
+        }
+    }
+}
@@ -3,54 +3,88 @@ package it.unipv.ingsfw.aerotrack.dao;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Classe per la gestione della connessione al database per il progetto Aerotrack.
  * Contiene metodi per aprire, chiudere e verificare lo stato della connessione al database.
- * La connessione viene configurata tramite un file di proprietà.
+ * La connessione viene configurata tramite un file di proprietà, letto una sola volta.
+ * Le connessioni sono gestite da un pool per schema: chiudere la connessione ottenuta
+ * la restituisce al pool senza chiudere la sessione MySQL.
+ * Il database usato (MySQL o H2 nello stesso processo) dipende dal {@link ProfiloDatabase}.
  */
 public class DBConnection {
 	// Percorso del file di configurazione
     private static final String CONFIG_FILE = "properties/dbconfig.properties";
 
+    // Valori di default dei parametri del pool
+    private static final int DEFAULT_MAX_SIZE = 10;
+    private static final long DEFAULT_MAX_WAIT_MS = 30_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 300_000;
+    private static final long DEFAULT_LEAK_THRESHOLD_MS = 60_000;
+    private static final int DEFAULT_VALIDATION_TIMEOUT_SEC = 2;
+    private static final long INTERVALLO_MANUTENZIONE_MS = 10_000;
+    // Righe inviate con un singolo executeBatch dalle scritture in blocco
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Configurazione caricata una sola volta
+    private static Properties config;
+    // Un pool per ogni schema
+    private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+    // Thread di manutenzione (eviction e rilevamento leak), avviato al primo pool
+    private static ScheduledExecutorService manutenzione;
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private DBConnection() {}
+
     /**
-     * Metodo per ottenere una nuova connessione al database leggendo i parametri dal file di configurazione.
-     * 
+     * Metodo per ottenere una connessione al database dal pool dello schema indicato.
+     * La connessione va chiusa al termine dell'uso (anche tramite try-with-resources)
+     * per restituirla al pool.
+     *
      * @param schema Il nome dello schema (database) da utilizzare
      * @return La connessione pronta all'uso, oppure null in caso di errore.
      */
     public static Connection startConnection(String schema) {
-        Properties props = new Properties();
-
-        try (FileInputStream inputStream = new FileInputStream(CONFIG_FILE)) {
-            // Carica le proprietà dal file di configurazione
-            props.load(inputStream);
-
-            String dbUrl = props.getProperty("db.url") + "/" + schema + "?serverTimezone=Europe/Rome";
-            String dbUsername = props.getProperty("db.username");
-            String dbPassword = props.getProperty("db.password");
-            String dbDriver = props.getProperty("db.driver");
-
-            // Carica il driver JDBC
-            Class.forName(dbDriver);
-
-            // Crea e restituisce la connessione
-            Connection conn = DriverManager.getConnection(dbUrl, dbUsername, dbPassword);
-            System.out.println("Connessione al database avvenuta con successo!");
-            return conn;
-
+        try {
+            return getPool(schema).getConnection();
         } catch (IOException | SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    /**
+     * Prepara una query di sola lettura i cui risultati vengono letti dal server una riga alla volta
+     * (streaming di Connector/J, a blocchi con H2), invece di essere caricati tutti in memoria all'esecuzione.
+     * Finché il ResultSet è aperto la connessione non può eseguire altre istruzioni.
+     *
+     * @param conn connessione su cui eseguire la query
+     * @param query query da preparare
+     */
+    static PreparedStatement preparaLetturaStreaming(Connection conn, String query) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            ProfiloDatabase.da(getConfig()).impostaLetturaStreaming(ps);
+        } catch (IOException e) {
+            ps.close();
+            throw new SQLException("Configurazione del database non leggibile", e);
+        }
+        return ps;
+    }
+
     /**
      * Chiude la connessione, se aperta.
-     * 
+     * Per le connessioni del pool equivale alla restituzione al pool.
+     *
      * @param conn la connessione da chiudere
      */
     public static void closeConnection(Connection conn) {
@@ -63,4 +97,146 @@ public class DBConnection {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce le statistiche del pool associato allo schema.
+     *
+     * @param schema nome dello schema
+     * @return statistiche del pool, oppure null se per lo schema non è ancora stato creato un pool
+     */
+    public static StatistichePool getStatistiche(String schema) {
+        ConnectionPool pool = pools.get(schema);
+        return pool != null ? pool.getStatistiche() : null;
+    }
+
+    /**
+     * Restituisce il numero di righe inviate con un singolo executeBatch dalle scritture
+     * in blocco dei DAO (chiave db.batch.size).
+     */
+    public static int getDimensioneBatch() {
+        try {
+            int dimensione = getInt(getConfig(), "db.batch.size", DEFAULT_BATCH_SIZE);
+            return dimensione > 0 ? dimensione : DEFAULT_BATCH_SIZE;
+        } catch (IOException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    /**
+     * Restituisce un'impostazione numerica del file di configurazione.
+     *
+     * @param chiave nome della proprietà
+     * @param predefinito valore usato se la proprietà manca, non è un numero o il file non è leggibile
+     */
+    public static long getImpostazione(String chiave, long predefinito) {
+        try {
+            return getLong(getConfig(), chiave, predefinito);
+        } catch (IOException | NumberFormatException e) {
+            return predefinito;
+        }
+    }
+
+    /**
+     * Chiude tutti i pool e le connessioni inattive. Da usare alla chiusura dell'applicazione.
+     */
+    public static synchronized void chiudiPool() {
+        for (ConnectionPool pool : pools.values()) {
+            pool.chiudi();
+        }
+        pools.clear();
+        if (manutenzione != null) {
+            manutenzione.shutdownNow();
+            manutenzione = null;
+        }
+    }
+
+    // Metodi interni
+
+    private static ConnectionPool getPool(String schema) throws IOException, SQLException, ClassNotFoundException {
+        ConnectionPool pool = pools.get(schema);
+        if (pool != null) return pool;
+        synchronized (DBConnection.class) {
+            pool = pools.get(schema);
+            if (pool == null) {
+                pool = creaPool(schema);
+                pools.put(schema, pool);
+                avviaManutenzione();
+            }
+            return pool;
+        }
+    }
+
+    private static ConnectionPool creaPool(String schema) throws IOException, SQLException, ClassNotFoundException {
+        Properties props = getConfig();
+        ProfiloDatabase profilo = ProfiloDatabase.da(props);
+
+        String dbUrl = profilo.url(props, schema);
+        String dbUsername = props.getProperty("db.username");
+        String dbPassword = props.getProperty("db.password");
+
+        // Carica il driver JDBC
+        Class.forName(profilo.driver(props));
+
+        ConnectionPool pool = new ConnectionPool(
+                schema,
+                dbUrl,
+                dbUsername != null ? dbUsername.trim() : null,
+                dbPassword != null ? dbPassword.trim() : null,
+                getInt(props, "db.pool.maxSize", DEFAULT_MAX_SIZE),
+                getLong(props, "db.pool.maxWaitMs", DEFAULT_MAX_WAIT_MS),
+                getLong(props, "db.pool.idleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS),
+                getLong(props, "db.pool.leakThresholdMs", DEFAULT_LEAK_THRESHOLD_MS),
+                Boolean.parseBoolean(props.getProperty("db.pool.leakStackTrace", "false").trim()),
+                getInt(props, "db.pool.validationTimeoutSec", DEFAULT_VALIDATION_TIMEOUT_SEC));
+        // Crea lo schema se il profilo lo prevede (database H2 nuovo)
+        try (Connection conn = pool.getConnection()) {
+            profilo.inizializza(conn, props);
+        } catch (SQLException | IOException e) {
+            pool.chiudi();
+            throw e;
+        }
+        return pool;
+    }
+
+    /**
+     * Carica le proprietà dal file di configurazione alla prima richiesta.
+     */
+    static synchronized Properties getConfig() throws IOException {
+        if (config == null) {
+            Properties props = new Properties();
+            try (FileInputStream inputStream = new FileInputStream(CONFIG_FILE)) {
+                props.load(inputStream);
+            }
+            config = props;
+        }
+        return config;
+    }
+
+    private static synchronized void avviaManutenzione() {
+        if (manutenzione != null) return;
+        manutenzione = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "aerotrack-pool-manutenzione");
+            t.setDaemon(true);
+            return t;
+        });
+        manutenzione.scheduleWithFixedDelay(() -> {
+            for (ConnectionPool pool : pools.values()) {
+                try {
+                    pool.manutenzione();
+                } catch (RuntimeException e) {
+                    System.err.println("Errore manutenzione pool: " + e.getMessage());
+                }
+            }
+        }, INTERVALLO_MANUTENZIONE_MS, INTERVALLO_MANUTENZIONE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static int getInt(Properties props, String chiave, int predefinito) {
+        String valore = props.getProperty(chiave);
+        return valore != null ? Integer.parseInt(valore.trim()) : predefinito;
+    }
+
+    private static long getLong(Properties props, String chiave, long predefinito) {
+        String valore = props.getProperty(chiave);
+        return valore != null ? Long.parseLong(valore.trim()) : predefinito;
+    }
+}
@@ -0,0 +1,58 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.io.IOException;
+
+/**
+ * Sceglie all'avvio l'implementazione dei DAO usata dai servizi.
+ *
+ * Con db.profilo=memoria (nel file di configurazione o con {@code -Ddb.profilo=memoria}) i dati
+ * restano nella memoria del processo ({@link ArchivioMemoria}), eventualmente salvati su disco
+ * a intervalli regolari; con qualsiasi altro profilo si usano i DAO JDBC sul database
+ * del {@link ProfiloDatabase} indicato. La scelta è fatta alla prima richiesta e non cambia più.
+ */
+public final class FabbricaDao {
+
+    /** Valore di db.profilo che seleziona i DAO in memoria. */
+    public static final String PROFILO_MEMORIA = "memoria";
+
+    private static Boolean inMemoria;
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private FabbricaDao() {}
+
+    /** @return DAO degli aeroporti del profilo configurato */
+    public static IAeroportoDao aeroporti() {
+        return isInMemoria() ? AeroportoDaoMemoria.getInstance() : AeroportoDao.getInstance();
+    }
+
+    /** @return DAO dei voli del profilo configurato */
+    public static IVoloDao voli() {
+        return isInMemoria() ? VoloDaoMemoria.getInstance() : VoloDao.getInstance();
+    }
+
+    /** @return DAO dei passeggeri del profilo configurato */
+    public static IPasseggeroDao passeggeri() {
+        return isInMemoria() ? PasseggeroDaoMemoria.getInstance() : PasseggeroDao.getInstance();
+    }
+
+    /** @return DAO delle prenotazioni del profilo configurato */
+    public static IPrenotazioneDao prenotazioni() {
+        return isInMemoria() ? PrenotazioneDaoMemoria.getInstance() : PrenotazioneDao.getInstance();
+    }
+
+    /**
+     * @return true se i DAO tengono i dati in memoria invece che su database
+     */
+    public static synchronized boolean isInMemoria() {
+        if (inMemoria == null) {
+            String profilo;
+            try {
+                profilo = ProfiloDatabase.nome(DBConnection.getConfig());
+            } catch (IOException e) {
+                profilo = System.getProperty("db.profilo", "");
+            }
+            inMemoria = profilo.equalsIgnoreCase(PROFILO_MEMORIA);
+        }
+        return inMemoria;
+    }
+}
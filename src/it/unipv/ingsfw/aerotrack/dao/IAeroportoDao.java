@@ -1,6 +1,8 @@
 package it.unipv.ingsfw.aerotrack.dao;
 
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -8,7 +10,10 @@ import java.util.List;
  */
 public interface IAeroportoDao {
     void aggiungiAeroporto(Aeroporto a);
+    boolean aggiungiAeroporti(Collection<Aeroporto> aeroporti);
     List<Aeroporto> getTuttiAeroporti();
     Aeroporto cercaPerCodice(String codice);
     boolean rimuoviAeroporto(String codice);
+    boolean svuota();
+    List<StatisticheCache> getStatisticheCache();
 }
\ No newline at end of file
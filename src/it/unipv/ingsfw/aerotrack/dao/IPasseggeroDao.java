@@ -1,13 +1,18 @@
 package it.unipv.ingsfw.aerotrack.dao;
 
 import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interfaccia per operazioni CRUD sui passeggeri.
  */
 public interface IPasseggeroDao {
     boolean aggiungiPasseggero(Passeggero passeggero);
+    boolean aggiungiPasseggeri(Collection<Passeggero> passeggeri);
     Passeggero cercaPerDocumento(String documento);
     List<Passeggero> getTuttiPasseggeri();
+    boolean perOgniPasseggero(Consumer<Passeggero> azione);
+    boolean svuota();
 }
\ No newline at end of file
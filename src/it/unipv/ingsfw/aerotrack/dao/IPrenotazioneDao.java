@@ -1,12 +1,24 @@
 package it.unipv.ingsfw.aerotrack.dao;
 
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
 import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interfaccia per operazioni CRUD sulle prenotazioni.
  */
 public interface IPrenotazioneDao {
     boolean aggiungiPrenotazione(Prenotazione prenotazione);
+    boolean aggiungiPrenotazioni(Collection<Prenotazione> prenotazioni);
+    void aggiorna(Prenotazione p) throws SQLException;
     List<Prenotazione> getTuttePrenotazioni();
+    List<Prenotazione> cercaPerDocumento(String documento);
+    List<Prenotazione> cercaPerVolo(String codiceVolo);
+    boolean perOgniPrenotazione(Consumer<Prenotazione> azione);
+    IndicePagine<String> indicizzaPagine(String testo, int dimensione);
+    List<Prenotazione> cercaPrenotazioni(String testo, String dopo, int dimensione);
+    boolean svuota();
 }
\ No newline at end of file
@@ -1,14 +1,31 @@
 package it.unipv.ingsfw.aerotrack.dao;
 
+import it.unipv.ingsfw.aerotrack.models.CriteriRicercaVoli;
+import it.unipv.ingsfw.aerotrack.models.CursoreVoli;
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
+import it.unipv.ingsfw.aerotrack.models.PaginaVoli;
 import it.unipv.ingsfw.aerotrack.models.Volo;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Interfaccia per operazioni CRUD sui voli.
  */
 public interface IVoloDao {
     boolean aggiungiVolo(Volo v);
+    boolean aggiungiVoli(Collection<Volo> voli);
+    boolean aggiornaVolo(Volo volo);
     List<Volo> getTuttiVoli();
+    boolean ricostruisciOccupazione();
+    boolean perOgniVolo(Consumer<Volo> azione);
     Volo cercaPerCodice(String codice);
+    Set<String> codiciEsistenti(Collection<String> codici);
+    PaginaVoli cercaVoli(CriteriRicercaVoli criteri, CursoreVoli dopo, int dimensione);
+    IndicePagine<CursoreVoli> indicizzaPagine(CriteriRicercaVoli criteri, int dimensione);
     boolean rimuoviVolo(String codice);
+    boolean svuota();
+    StatisticheCache getStatisticheCache();
 }
\ No newline at end of file
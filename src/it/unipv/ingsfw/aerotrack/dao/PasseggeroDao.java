@@ -4,7 +4,9 @@ import it.unipv.ingsfw.aerotrack.models.Passeggero;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * DAO Singleton per la gestione dei passeggeri.
@@ -41,6 +43,35 @@ public class PasseggeroDao implements IPasseggeroDao {
         }
     }
     
+    /**
+     * Aggiunge più passeggeri con scritture batch, confermando un blocco alla volta
+     * (vedi {@link DBConnection#getDimensioneBatch()}). I passeggeri già presenti vengono aggiornati.
+     * 
+     * @param passeggeri Passeggeri da aggiungere/aggiornare.
+     * @return true se tutti salvati, false altrimenti (i blocchi già confermati restano salvati).
+     */
+    @Override
+    public boolean aggiungiPasseggeri(Collection<Passeggero> passeggeri) {
+        if (passeggeri == null) throw new IllegalArgumentException("La lista dei passeggeri non può essere null");
+        if (passeggeri.isEmpty()) return true;
+        String insertQuery = """
+            INSERT INTO passeggeri (documento, nome, cognome)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE nome = VALUES(nome), cognome = VALUES(cognome)
+            """;
+        try {
+            ScritturaBatch.esegui(insertQuery, passeggeri, (ps, p) -> {
+                ps.setString(1, p.getDocumento());
+                ps.setString(2, p.getNome());
+                ps.setString(3, p.getCognome());
+            }, false);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore inserimento passeggeri: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Aggiorna nome e cognome di un passeggero esistente.
      */
@@ -102,4 +133,44 @@ public class PasseggeroDao implements IPasseggeroDao {
         }
         return passeggeri;
     }
+
+    /**
+     * Passa all'azione tutti i passeggeri del database, ordinati per documento,
+     * leggendoli dal server una riga alla volta. L'azione non deve accedere al database.
+     *
+     * @param azione azione da eseguire per ogni passeggero
+     * @return true se tutti i passeggeri sono stati letti, false in caso di errore
+     */
+    @Override
+    public boolean perOgniPasseggero(Consumer<Passeggero> azione) {
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = DBConnection.preparaLetturaStreaming(conn,
+                     "SELECT * FROM passeggeri ORDER BY documento");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                azione.accept(new Passeggero(rs.getString("nome"), rs.getString("cognome"), rs.getString("documento")));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore lettura passeggeri: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Svuota la tabella passeggeri. Da usare solo per test!
+     *
+     * @return true se svuotata, false in caso di errore (es. prenotazioni dei passeggeri)
+     */
+    @Override
+    public boolean svuota() {
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM passeggeri");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore durante lo svuotamento della tabella passeggeri: " + e.getMessage());
+            return false;
+        }
+    }
 }
\ No newline at end of file
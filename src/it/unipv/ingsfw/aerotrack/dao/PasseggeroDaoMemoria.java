@@ -0,0 +1,115 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+
+/**
+ * DAO Singleton dei passeggeri per il profilo memoria: i dati sono in {@link ArchivioMemoria}.
+ * Implementa IPasseggeroDao con la stessa semantica di {@link PasseggeroDao}.
+ */
+public class PasseggeroDaoMemoria implements IPasseggeroDao {
+
+    private static PasseggeroDaoMemoria instance;
+    private final ArchivioMemoria archivio = ArchivioMemoria.getInstance();
+
+    private PasseggeroDaoMemoria() {}
+
+    public static synchronized PasseggeroDaoMemoria getInstance() {
+        if (instance == null) {
+            instance = new PasseggeroDaoMemoria();
+        }
+        return instance;
+    }
+
+    /**
+     * Aggiunge un passeggero o, se già esistente, ne aggiorna nome e cognome.
+     *
+     * @return sempre true
+     */
+    @Override
+    public boolean aggiungiPasseggero(Passeggero passeggero) {
+        if (passeggero == null) throw new IllegalArgumentException("Il passeggero non può essere null");
+        synchronized (archivio) {
+            salva(passeggero);
+        }
+        return true;
+    }
+
+    /**
+     * Aggiunge più passeggeri. I passeggeri già presenti vengono aggiornati.
+     *
+     * @return sempre true
+     */
+    @Override
+    public boolean aggiungiPasseggeri(Collection<Passeggero> passeggeri) {
+        if (passeggeri == null) throw new IllegalArgumentException("La lista dei passeggeri non può essere null");
+        synchronized (archivio) {
+            for (Passeggero p : passeggeri) {
+                salva(p);
+            }
+        }
+        return true;
+    }
+
+    /** Salva il passeggero; se nome o cognome cambiano, le sue prenotazioni passano alla nuova istanza. */
+    private void salva(Passeggero passeggero) {
+        Passeggero precedente = archivio.passeggeri.put(ArchivioMemoria.chiave(passeggero.getDocumento()), passeggero);
+        archivio.modificato();
+        if (precedente != null && !(precedente.getNome().equals(passeggero.getNome())
+                && precedente.getCognome().equals(passeggero.getCognome()))) {
+            for (Prenotazione p : List.copyOf(archivio.prenotazioniDi(passeggero.getDocumento()))) {
+                archivio.inserisciPrenotazione(new Prenotazione(p.getCodicePrenotazione(), passeggero, p.getVolo(),
+                        p.isCancellata()));
+            }
+        }
+    }
+
+    @Override
+    public Passeggero cercaPerDocumento(String documento) {
+        if (documento == null) return null;
+        return archivio.passeggeri.get(ArchivioMemoria.chiave(documento));
+    }
+
+    /**
+     * @return lista dei passeggeri ordinata per documento (una copia, modificabile dal chiamante).
+     */
+    @Override
+    public List<Passeggero> getTuttiPasseggeri() {
+        return new ArrayList<>(archivio.passeggeri.values());
+    }
+
+    /**
+     * Passa all'azione tutti i passeggeri, ordinati per documento.
+     *
+     * @param azione azione da eseguire per ogni passeggero
+     * @return sempre true
+     */
+    @Override
+    public boolean perOgniPasseggero(Consumer<Passeggero> azione) {
+        archivio.passeggeri.values().forEach(azione);
+        return true;
+    }
+
+    /**
+     * Rimuove tutti i passeggeri. Da usare solo per test!
+     *
+     * @return true se svuotata, false se ci sono prenotazioni
+     */
+    @Override
+    public boolean svuota() {
+        synchronized (archivio) {
+            if (!archivio.prenotazioni.isEmpty()) {
+                System.err.println("Errore durante lo svuotamento della tabella passeggeri: ci sono prenotazioni dei passeggeri");
+                return false;
+            }
+            archivio.passeggeri.clear();
+            archivio.modificato();
+            return true;
+        }
+    }
+}
@@ -2,7 +2,11 @@ package it.unipv.ingsfw.aerotrack.dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import it.unipv.ingsfw.aerotrack.models.*;
 
 /**
@@ -12,9 +16,20 @@ import it.unipv.ingsfw.aerotrack.models.*;
 public class PrenotazioneDao implements IPrenotazioneDao {
     private static PrenotazioneDao instance;
     private final VoloDao voloDao = VoloDao.getInstance();
-    private final PasseggeroDao passeggeroDao = PasseggeroDao.getInstance();
 
-    private PrenotazioneDao() {}
+    /** Numero di codici prenotazione riservati a ogni accesso alla tabella sequenze. */
+    private static final int BLOCCO_CODICI = 1000;
+
+    /** Primo codice se la sequenza non esiste ancora: segue il più alto tra quelli già salvati. */
+    private static final String PRIMO_CODICE_QUERY = """
+            SELECT COALESCE(MAX(CAST(SUBSTRING(codice_prenotazione, 3) AS SIGNED)) + 1, 1000)
+            FROM prenotazioni WHERE codice_prenotazione LIKE 'PR%'
+            """;
+
+    private PrenotazioneDao() {
+        // I codici delle nuove prenotazioni sono univoci anche tra più istanze dell'applicazione
+        Prenotazione.setGeneratoreCodici(new AllocatoreCodici("prenotazioni", BLOCCO_CODICI, PRIMO_CODICE_QUERY)::prossimo);
+    }
 
     public static PrenotazioneDao getInstance() {
         if (instance == null) {
@@ -23,33 +38,103 @@ public class PrenotazioneDao implements IPrenotazioneDao {
         return instance;
     }
 
+    /** Indice univoco che impedisce due prenotazioni attive dello stesso passeggero sullo stesso volo. */
+    static final String VINCOLO_PRENOTAZIONE_ATTIVA = "uq_prenotazione_attiva";
+
+    private static final String INSERT_QUERY = """
+            INSERT INTO prenotazioni (codice_prenotazione, documento_passeggero, codice_volo, cancellata)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    /**
+     * Prenotazioni con passeggero e volo, lette con una sola query in join.
+     * Il join sui passeggeri è esterno: una prenotazione senza passeggero (possibile solo se
+     * il vincolo di chiave esterna non è applicato) viene segnalata e scartata, non persa in silenzio.
+     */
+    private static final String SELECT_QUERY = """
+            SELECT p.codice_prenotazione, p.cancellata, p.documento_passeggero,
+                   pa.documento, pa.nome, pa.cognome,
+                   v.codice, v.partenza, v.destinazione, v.orario_partenza, v.velocita,
+                   v.pista_assegnata, v.ritardo, v.stato, v.data_volo
+            FROM prenotazioni p
+            LEFT JOIN passeggeri pa ON pa.documento = p.documento_passeggero
+            LEFT JOIN voli v ON v.codice = p.codice_volo
+            """;
+
     /**
      * Aggiunge una nuova prenotazione.
+     * L'unicità della prenotazione attiva per passeggero e volo è garantita dal database
+     * (indice {@value #VINCOLO_PRENOTAZIONE_ATTIVA}): il controllo e l'inserimento
+     * avvengono in un'unica istruzione, anche con più inserimenti concorrenti.
      * 
      * @param prenotazione La prenotazione da aggiungere.
      * @return true se aggiunta, false altrimenti.
+     * @throws PrenotazioneDuplicataException se il passeggero ha già una prenotazione attiva sul volo
      */
     @Override
     public boolean aggiungiPrenotazione(Prenotazione prenotazione) {
         if (prenotazione == null) 
         	throw new IllegalArgumentException("La prenotazione non può essere null");
-        String insertQuery = """
-            INSERT INTO prenotazioni (codice_prenotazione, documento_passeggero, codice_volo, cancellata)
-            VALUES (?, ?, ?, ?)
-            """;
         try (Connection conn = DBConnection.startConnection("aerotrack");
-             PreparedStatement ps = conn.prepareStatement(insertQuery)) {
-            ps.setString(1, prenotazione.getCodicePrenotazione());
-            ps.setString(2, prenotazione.getPasseggero().getDocumento());
-            ps.setString(3, prenotazione.getVolo() != null ? prenotazione.getVolo().getCodice() : null);
-            ps.setBoolean(4, prenotazione.isCancellata());
+             PreparedStatement ps = conn.prepareStatement(INSERT_QUERY)) {
+            impostaParametri(ps, prenotazione);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
+            if (isPrenotazioneDuplicata(e)) {
+                throw new PrenotazioneDuplicataException();
+            }
             System.err.println("Errore inserimento prenotazione: " + e.getMessage());
             return false;
         }
     }
-    
+
+    /**
+     * Aggiunge più prenotazioni con scritture batch, confermando un blocco alla volta
+     * (vedi {@link DBConnection#getDimensioneBatch()}). Passeggeri e voli devono essere già salvati.
+     * 
+     * @param prenotazioni Prenotazioni da aggiungere.
+     * @return true se tutte salvate, false altrimenti (i blocchi già confermati restano salvati).
+     * @throws PrenotazioneDuplicataException se un passeggero ha già una prenotazione attiva sul volo
+     *         (i blocchi precedenti restano salvati)
+     */
+    @Override
+    public boolean aggiungiPrenotazioni(Collection<Prenotazione> prenotazioni) {
+        if (prenotazioni == null) throw new IllegalArgumentException("La lista delle prenotazioni non può essere null");
+        if (prenotazioni.isEmpty()) return true;
+        try {
+            ScritturaBatch.esegui(INSERT_QUERY, prenotazioni, this::impostaParametri, false);
+            return true;
+        } catch (SQLException e) {
+            if (isPrenotazioneDuplicata(e)) {
+                throw new PrenotazioneDuplicataException();
+            }
+            System.err.println("Errore inserimento prenotazioni: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void impostaParametri(PreparedStatement ps, Prenotazione prenotazione) throws SQLException {
+        ps.setString(1, prenotazione.getCodicePrenotazione());
+        ps.setString(2, prenotazione.getPasseggero().getDocumento());
+        ps.setString(3, prenotazione.getVolo() != null ? prenotazione.getVolo().getCodice() : null);
+        ps.setBoolean(4, prenotazione.isCancellata());
+    }
+
+    /**
+     * Riconosce la violazione dell'indice sulle prenotazioni attive
+     * (stato SQL 23000/23505, con il nome dell'indice nel messaggio).
+     */
+    private boolean isPrenotazioneDuplicata(SQLException e) {
+        String stato = e.getSQLState();
+        String messaggio = e.getMessage();
+        return stato != null && stato.startsWith("23") && messaggio != null
+                && messaggio.toLowerCase().contains(VINCOLO_PRENOTAZIONE_ATTIVA);
+    }
+
+    /**
+     * Aggiorna lo stato (attiva o cancellata) di una prenotazione già salvata.
+     */
+    @Override
     public void aggiorna(Prenotazione p) throws SQLException {
     	try (Connection conn = DBConnection.startConnection("aerotrack");
     		     PreparedStatement stmt = conn.prepareStatement("UPDATE prenotazioni SET cancellata=? WHERE codice_prenotazione=?")) {
@@ -61,40 +146,282 @@ public class PrenotazioneDao implements IPrenotazioneDao {
 
     /**
      * Restituisce tutte le prenotazioni.
+     * Prenotazioni, passeggeri e voli vengono letti con una sola query in join
+     * (più quella sugli aeroporti), indipendentemente dal numero di righe.
+     * Passeggeri e voli condivisi da più prenotazioni sono la stessa istanza.
      * 
      * @return lista delle prenotazioni.
      */
     @Override
     public List<Prenotazione> getTuttePrenotazioni() {
-        List<Prenotazione> prenotazioni = new ArrayList<>();
-        int maxCodiceNumerico = 1000;
-        String query = "SELECT * FROM prenotazioni";
         try (Connection conn = DBConnection.startConnection("aerotrack");
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-            	Passeggero passeggero = passeggeroDao.cercaPerDocumento(rs.getString("documento_passeggero"));
-                Volo volo = null;
-                try {
-                    volo = voloDao.cercaPerCodice(rs.getString("codice_volo"));
-                } catch (Exception ignored) {}
-                String codice = rs.getString("codice_prenotazione");
-                boolean cancellata = rs.getBoolean("cancellata");
-                prenotazioni.add(new Prenotazione(codice, passeggero, volo, cancellata));
-
-                // aggiorna il massimo valore del codice
-                if (codice != null && codice.startsWith("PR")) {
+             ResultSet rs = stmt.executeQuery(SELECT_QUERY)) {
+            return leggiPrenotazioni(rs);
+        } catch (SQLException e) {
+            System.err.println("Errore recupero prenotazioni: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Restituisce le prenotazioni (anche cancellate) del passeggero con il documento indicato,
+     * senza distinzione tra maiuscole e minuscole, ordinate per codice.
+     * La query usa l'indice {@value #VINCOLO_PRENOTAZIONE_ATTIVA}, che inizia con il documento:
+     * il costo dipende dalle prenotazioni del passeggero, non da quelle totali.
+     *
+     * @param documento documento del passeggero
+     * @return prenotazioni del passeggero, lista vuota in caso di errore
+     */
+    @Override
+    public List<Prenotazione> cercaPerDocumento(String documento) {
+        return cercaPer("p.documento_passeggero", documento);
+    }
+
+    /**
+     * Restituisce le prenotazioni (anche cancellate) del volo con il codice indicato, ordinate per codice.
+     * La query usa l'indice idx_prenotazioni_volo: il costo dipende dalle prenotazioni del volo.
+     *
+     * @param codiceVolo codice del volo
+     * @return prenotazioni del volo, lista vuota in caso di errore
+     */
+    @Override
+    public List<Prenotazione> cercaPerVolo(String codiceVolo) {
+        return cercaPer("p.codice_volo", codiceVolo);
+    }
+
+    /** Prenotazioni con la colonna indicata uguale al valore (in maiuscolo, come documenti e codici salvati). */
+    private List<Prenotazione> cercaPer(String colonna, String valore) {
+        if (valore == null || valore.isEmpty()) return new ArrayList<>();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(SELECT_QUERY + " WHERE " + colonna + " = ? ORDER BY p.codice_prenotazione")) {
+            ps.setString(1, valore.toUpperCase());
+            try (ResultSet rs = ps.executeQuery()) {
+                return leggiPrenotazioni(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca prenotazioni: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Costruisce le prenotazioni delle righe del ResultSet (colonne di {@link #SELECT_QUERY}).
+     * Passeggeri e voli condivisi da più prenotazioni sono la stessa istanza.
+     * Sono cercati solo gli aeroporti dei voli presenti nelle righe, quindi il costo
+     * non dipende dal numero totale di aeroporti.
+     */
+    private List<Prenotazione> leggiPrenotazioni(ResultSet rs) throws SQLException {
+        List<Prenotazione> prenotazioni = new ArrayList<>();
+
+        // Identity map: ogni passeggero, volo e aeroporto viene ricostruito o cercato una sola volta
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        Map<String, Passeggero> passeggeri = new HashMap<>();
+        Map<String, Volo> voli = new HashMap<>();
+
+        while (rs.next()) {
+            if (senzaPasseggero(rs)) continue;
+            String documento = rs.getString("documento");
+            Passeggero passeggero = passeggeri.get(documento);
+            if (passeggero == null) {
+                passeggero = new Passeggero(rs.getString("nome"), rs.getString("cognome"), documento);
+                passeggeri.put(documento, passeggero);
+            }
+
+            Volo volo = null;
+            String codiceVolo = rs.getString("codice");
+            if (codiceVolo != null) {
+                volo = voli.get(codiceVolo);
+                if (volo == null && !voli.containsKey(codiceVolo)) {
                     try {
-                        int num = Integer.parseInt(codice.substring(2));
-                        if (num >= maxCodiceNumerico) maxCodiceNumerico = num + 1;
-                    } catch (NumberFormatException ignored) {}
+                        voloDao.risolviAeroporti(rs, aeroporti);
+                        volo = voloDao.creaVolo(rs, aeroporti);
+                    } catch (Exception ignored) {}
+                    voli.put(codiceVolo, volo);
                 }
             }
-            // aggiorna il contatore statico
-            Prenotazione.aggiornaContatore(maxCodiceNumerico);
-        } catch (SQLException e) {
-            System.err.println("Errore recupero prenotazioni: " + e.getMessage());
+
+            String codice = rs.getString("codice_prenotazione");
+            boolean cancellata = rs.getBoolean("cancellata");
+            prenotazioni.add(new Prenotazione(codice, passeggero, volo, cancellata));
         }
         return prenotazioni;
     }
-}    
\ No newline at end of file
+
+    /**
+     * True se la riga corrente (colonne di {@link #SELECT_QUERY}) non ha un passeggero:
+     * la prenotazione viene segnalata e va scartata.
+     */
+    private static boolean senzaPasseggero(ResultSet rs) throws SQLException {
+        if (rs.getString("documento") != null) return false;
+        System.err.println("Errore lettura prenotazione " + rs.getString("codice_prenotazione")
+                + ": passeggero " + rs.getString("documento_passeggero") + " inesistente, prenotazione scartata");
+        return true;
+    }
+
+    /**
+     * Passa all'azione tutte le prenotazioni del database, ordinate per codice,
+     * leggendole dal server una riga alla volta: la memoria usata non dipende dal numero
+     * di prenotazioni. Le prenotazioni consecutive dello stesso volo condividono l'istanza
+     * del volo. L'azione non deve accedere al database.
+     *
+     * @param azione azione da eseguire per ogni prenotazione
+     * @return true se tutte le prenotazioni sono state lette, false in caso di errore
+     */
+    @Override
+    public boolean perOgniPrenotazione(Consumer<Prenotazione> azione) {
+        Map<String, Aeroporto> aeroporti = voloDao.getMappaAeroporti();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = DBConnection.preparaLetturaStreaming(conn,
+                     SELECT_QUERY + " ORDER BY p.codice_prenotazione");
+             ResultSet rs = ps.executeQuery()) {
+            Volo volo = null;
+            while (rs.next()) {
+                if (senzaPasseggero(rs)) continue;
+                String codiceVolo = rs.getString("codice");
+                if (codiceVolo == null) {
+                    volo = null;
+                } else if (volo == null || !volo.getCodice().equals(codiceVolo)) {
+                    volo = voloDao.creaVolo(rs, aeroporti);
+                }
+                Passeggero passeggero = new Passeggero(rs.getString("nome"), rs.getString("cognome"), rs.getString("documento"));
+                azione.accept(new Prenotazione(rs.getString("codice_prenotazione"), passeggero, volo,
+                        rs.getBoolean("cancellata")));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore lettura prenotazioni: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Calcola con una sola query il numero di prenotazioni che contengono il testo indicato
+     * e il codice di inizio di ogni pagina, così che {@link #cercaPrenotazioni} possa leggere
+     * direttamente qualsiasi pagina.
+     *
+     * @param testo testo cercato in codice, nome, cognome e documento del passeggero e codice del volo
+     *        (senza distinzione tra maiuscole e minuscole); null o vuoto per tutte le prenotazioni
+     * @param dimensione numero di prenotazioni per pagina
+     * @return indice delle pagine, vuoto in caso di errore
+     */
+    @Override
+    public IndicePagine<String> indicizzaPagine(String testo, int dimensione) {
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        StringBuilder query = new StringBuilder("""
+                SELECT codice_prenotazione, n, totale FROM (
+                    SELECT p.codice_prenotazione,
+                           ROW_NUMBER() OVER (ORDER BY p.codice_prenotazione) AS n,
+                           COUNT(*) OVER () AS totale
+                    FROM prenotazioni p
+                    LEFT JOIN passeggeri pa ON pa.documento = p.documento_passeggero
+                    WHERE 1 = 1""");
+        List<Object> parametri = new ArrayList<>();
+        aggiungiFiltro(testo, query, parametri);
+        // Solo l'ultima riga di ogni pagina, più l'ultima in assoluto per il totale
+        query.append(") t WHERE MOD(n, ?) = 0 OR n = totale ORDER BY n");
+        parametri.add(dimensione);
+
+        int righe = 0;
+        List<String> confini = new ArrayList<>();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < parametri.size(); i++) {
+                ps.setObject(i + 1, parametri.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    righe = rs.getInt("totale");
+                    if (rs.getLong("n") % dimensione == 0) {
+                        confini.add(rs.getString("codice_prenotazione"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore indicizzazione prenotazioni: " + e.getMessage());
+            return IndicePagine.vuoto(dimensione);
+        }
+        return new IndicePagine<>(righe, dimensione, confini);
+    }
+
+    /**
+     * Cerca le prenotazioni che contengono il testo indicato, una pagina alla volta, ordinate per codice.
+     * Le pagine sono lette con keyset pagination sulla chiave primaria, quindi il costo di una pagina
+     * non dipende da quante ne precedono.
+     *
+     * @param testo testo cercato (vedi {@link #indicizzaPagine}); null o vuoto per tutte le prenotazioni
+     * @param dopo codice dell'ultima prenotazione della pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di prenotazioni della pagina
+     * @return prenotazioni della pagina, lista vuota in caso di errore
+     */
+    @Override
+    public List<Prenotazione> cercaPrenotazioni(String testo, String dopo, int dimensione) {
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        StringBuilder query = new StringBuilder(SELECT_QUERY).append(" WHERE 1 = 1");
+        List<Object> parametri = new ArrayList<>();
+        aggiungiFiltro(testo, query, parametri);
+        if (dopo != null) {
+            query.append(" AND p.codice_prenotazione > ?");
+            parametri.add(dopo);
+        }
+        query.append(" ORDER BY p.codice_prenotazione LIMIT ?");
+        parametri.add(dimensione);
+
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < parametri.size(); i++) {
+                ps.setObject(i + 1, parametri.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return leggiPrenotazioni(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca prenotazioni: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Aggiunge alla query (che termina con una clausola WHERE sulle tabelle p e pa) la condizione
+     * sul testo cercato e i relativi parametri.
+     */
+    private static void aggiungiFiltro(String testo, StringBuilder query, List<Object> parametri) {
+        if (testo == null || testo.isBlank()) return;
+        // I caratteri speciali di LIKE nel testo vanno cercati letteralmente
+        String modello = "%" + testo.trim().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        query.append(" AND (LOWER(p.codice_prenotazione) LIKE ? OR LOWER(pa.nome) LIKE ?"
+                + " OR LOWER(pa.cognome) LIKE ? OR LOWER(pa.documento) LIKE ? OR LOWER(p.codice_volo) LIKE ?)");
+        for (int i = 0; i < 5; i++) {
+            parametri.add(modello);
+        }
+    }
+
+    /**
+     * Svuota la tabella prenotazioni. Da usare solo per test!
+     *
+     * @return true se svuotata, false in caso di errore
+     */
+    @Override
+    public boolean svuota() {
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM prenotazioni");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore durante lo svuotamento della tabella prenotazioni: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Eccezione custom: il passeggero ha già una prenotazione attiva sul volo. */
+    public static class PrenotazioneDuplicataException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PrenotazioneDuplicataException() {
+            super("Questo passeggero ha già una prenotazione attiva su questo volo!");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
+import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+
+/**
+ * DAO Singleton delle prenotazioni per il profilo memoria: i dati sono in {@link ArchivioMemoria}.
+ * Implementa IPrenotazioneDao con la stessa semantica di {@link PrenotazioneDao}: passeggero e volo
+ * devono esistere e un passeggero può avere una sola prenotazione attiva per volo. Il controllo
+ * usa l'indice delle prenotazioni per documento, quindi il suo costo non dipende dal numero
+ * totale di prenotazioni.
+ */
+public class PrenotazioneDaoMemoria implements IPrenotazioneDao {
+
+    private static final String PREFISSO_CODICE = "PR";
+    private static final long PRIMO_CODICE = 1000;
+
+    private static PrenotazioneDaoMemoria instance;
+    private final ArchivioMemoria archivio = ArchivioMemoria.getInstance();
+
+    private PrenotazioneDaoMemoria() {
+        // I nuovi codici seguono il più alto tra quelli delle prenotazioni caricate
+        long prossimo = PRIMO_CODICE;
+        for (String codice : archivio.prenotazioni.keySet()) {
+            if (!codice.startsWith(PREFISSO_CODICE)) continue;
+            try {
+                prossimo = Math.max(prossimo, Long.parseLong(codice.substring(PREFISSO_CODICE.length())) + 1);
+            } catch (NumberFormatException ignored) {}
+        }
+        Prenotazione.setGeneratoreCodici(new AtomicLong(prossimo)::getAndIncrement);
+    }
+
+    public static synchronized PrenotazioneDaoMemoria getInstance() {
+        if (instance == null) {
+            instance = new PrenotazioneDaoMemoria();
+        }
+        return instance;
+    }
+
+    /**
+     * Aggiunge una nuova prenotazione.
+     *
+     * @param prenotazione La prenotazione da aggiungere.
+     * @return true se aggiunta, false se passeggero o volo non esistono o il codice è già usato.
+     * @throws PrenotazioneDao.PrenotazioneDuplicataException se il passeggero ha già una prenotazione attiva sul volo
+     */
+    @Override
+    public boolean aggiungiPrenotazione(Prenotazione prenotazione) {
+        if (prenotazione == null)
+            throw new IllegalArgumentException("La prenotazione non può essere null");
+        synchronized (archivio) {
+            String errore = verifica(prenotazione);
+            if (errore != null) {
+                System.err.println("Errore inserimento prenotazione: " + errore);
+                return false;
+            }
+            if (!prenotazione.isCancellata() && archivio.haPrenotazioneAttiva(prenotazione.getPasseggero().getDocumento(),
+                    prenotazione.getVolo().getCodice(), null)) {
+                throw new PrenotazioneDao.PrenotazioneDuplicataException();
+            }
+            archivio.inserisciPrenotazione(prenotazione);
+            return true;
+        }
+    }
+
+    /**
+     * Aggiunge più prenotazioni: o vengono salvate tutte o nessuna.
+     *
+     * @param prenotazioni Prenotazioni da aggiungere.
+     * @return true se tutte salvate, false se una non è valida (nessuna viene salvata).
+     * @throws PrenotazioneDao.PrenotazioneDuplicataException se un passeggero ha già una prenotazione attiva
+     *         sul volo (nessuna prenotazione viene salvata)
+     */
+    @Override
+    public boolean aggiungiPrenotazioni(Collection<Prenotazione> prenotazioni) {
+        if (prenotazioni == null) throw new IllegalArgumentException("La lista delle prenotazioni non può essere null");
+        synchronized (archivio) {
+            Set<String> codici = new HashSet<>();
+            Set<String> attive = new HashSet<>();
+            for (Prenotazione p : prenotazioni) {
+                String errore = verifica(p);
+                if (errore == null && !codici.add(p.getCodicePrenotazione())) {
+                    errore = "codice " + p.getCodicePrenotazione() + " ripetuto";
+                }
+                if (errore != null) {
+                    System.err.println("Errore inserimento prenotazioni: " + errore);
+                    return false;
+                }
+                if (p.isCancellata()) continue;
+                String documento = p.getPasseggero().getDocumento();
+                String volo = p.getVolo().getCodice();
+                if (!attive.add(ArchivioMemoria.chiave(documento) + "|" + ArchivioMemoria.chiave(volo))
+                        || archivio.haPrenotazioneAttiva(documento, volo, null)) {
+                    throw new PrenotazioneDao.PrenotazioneDuplicataException();
+                }
+            }
+            for (Prenotazione p : prenotazioni) {
+                archivio.inserisciPrenotazione(p);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Verifica i vincoli della tabella prenotazioni, esclusa l'unicità della prenotazione attiva.
+     *
+     * @return descrizione del vincolo violato, null se la prenotazione è valida
+     */
+    private String verifica(Prenotazione p) {
+        if (archivio.prenotazioni.containsKey(p.getCodicePrenotazione())) {
+            return "codice " + p.getCodicePrenotazione() + " già usato";
+        }
+        if (!archivio.passeggeri.containsKey(ArchivioMemoria.chiave(p.getPasseggero().getDocumento()))) {
+            return "passeggero " + p.getPasseggero().getDocumento() + " inesistente";
+        }
+        if (p.getVolo() == null || !archivio.voli.containsKey(ArchivioMemoria.chiave(p.getVolo().getCodice()))) {
+            return "volo della prenotazione " + p.getCodicePrenotazione() + " inesistente";
+        }
+        return null;
+    }
+
+    /**
+     * Aggiorna lo stato (attiva o cancellata) di una prenotazione già salvata.
+     * Se la prenotazione indicata non è l'istanza salvata, questa viene sostituita.
+     *
+     * @throws PrenotazioneDao.PrenotazioneDuplicataException se la prenotazione torna attiva
+     *         e il passeggero ha già un'altra prenotazione attiva sul volo
+     */
+    @Override
+    public void aggiorna(Prenotazione p) {
+        synchronized (archivio) {
+            Prenotazione salvata = archivio.prenotazioni.get(p.getCodicePrenotazione());
+            if (salvata == null) return;
+            if (!p.isCancellata() && archivio.haPrenotazioneAttiva(salvata.getPasseggero().getDocumento(),
+                    salvata.getVolo().getCodice(), salvata)) {
+                throw new PrenotazioneDao.PrenotazioneDuplicataException();
+            }
+            if (salvata != p && salvata.isCancellata() != p.isCancellata()) {
+                archivio.inserisciPrenotazione(new Prenotazione(salvata.getCodicePrenotazione(), salvata.getPasseggero(),
+                        salvata.getVolo(), p.isCancellata()));
+            } else {
+                archivio.modificato();
+            }
+        }
+    }
+
+    /**
+     * @return lista delle prenotazioni ordinata per codice (una copia, modificabile dal chiamante).
+     */
+    @Override
+    public List<Prenotazione> getTuttePrenotazioni() {
+        return new ArrayList<>(archivio.prenotazioni.values());
+    }
+
+    /**
+     * Restituisce le prenotazioni (anche cancellate) del passeggero con il documento indicato,
+     * senza distinzione tra maiuscole e minuscole, ordinate per codice.
+     * Le prenotazioni sono lette dall'indice per documento: il costo dipende solo dal loro numero.
+     */
+    @Override
+    public List<Prenotazione> cercaPerDocumento(String documento) {
+        if (documento == null || documento.isEmpty()) return new ArrayList<>();
+        return ordinate(archivio.prenotazioniDi(documento));
+    }
+
+    /**
+     * Restituisce le prenotazioni (anche cancellate) del volo con il codice indicato, ordinate per codice.
+     * Le prenotazioni sono lette dall'indice per volo: il costo dipende solo dal loro numero.
+     */
+    @Override
+    public List<Prenotazione> cercaPerVolo(String codiceVolo) {
+        if (codiceVolo == null || codiceVolo.isEmpty()) return new ArrayList<>();
+        return ordinate(archivio.prenotazioniDelVolo(codiceVolo));
+    }
+
+    private static List<Prenotazione> ordinate(Collection<Prenotazione> prenotazioni) {
+        List<Prenotazione> lista = new ArrayList<>(prenotazioni);
+        lista.sort(Comparator.comparing(Prenotazione::getCodicePrenotazione));
+        return lista;
+    }
+
+    /**
+     * Passa all'azione tutte le prenotazioni, ordinate per codice.
+     *
+     * @param azione azione da eseguire per ogni prenotazione
+     * @return sempre true
+     */
+    @Override
+    public boolean perOgniPrenotazione(Consumer<Prenotazione> azione) {
+        archivio.prenotazioni.values().forEach(azione);
+        return true;
+    }
+
+    /**
+     * Calcola il numero di prenotazioni che contengono il testo indicato e il codice di inizio
+     * di ogni pagina (vedi {@link PrenotazioneDao#indicizzaPagine}).
+     *
+     * @param testo testo cercato in codice, nome, cognome e documento del passeggero e codice del volo
+     *        (senza distinzione tra maiuscole e minuscole); null o vuoto per tutte le prenotazioni
+     * @param dimensione numero di prenotazioni per pagina
+     * @return indice delle pagine
+     */
+    @Override
+    public IndicePagine<String> indicizzaPagine(String testo, int dimensione) {
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        String filtro = filtro(testo);
+        int righe = 0;
+        List<String> confini = new ArrayList<>();
+        for (Prenotazione p : archivio.prenotazioni.values()) {
+            if (!contiene(p, filtro)) continue;
+            if (++righe % dimensione == 0) {
+                confini.add(p.getCodicePrenotazione());
+            }
+        }
+        return new IndicePagine<>(righe, dimensione, confini);
+    }
+
+    /**
+     * Cerca le prenotazioni che contengono il testo indicato, una pagina alla volta, ordinate per codice.
+     * La lettura parte dal codice indicato, quindi il costo di una pagina non dipende da quante ne precedono.
+     *
+     * @param testo testo cercato (vedi {@link #indicizzaPagine}); null o vuoto per tutte le prenotazioni
+     * @param dopo codice dell'ultima prenotazione della pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di prenotazioni della pagina
+     * @return prenotazioni della pagina
+     */
+    @Override
+    public List<Prenotazione> cercaPrenotazioni(String testo, String dopo, int dimensione) {
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        String filtro = filtro(testo);
+        Map<String, Prenotazione> successive = dopo == null ? archivio.prenotazioni
+                : archivio.prenotazioni.tailMap(dopo, false);
+        List<Prenotazione> pagina = new ArrayList<>();
+        for (Prenotazione p : successive.values()) {
+            if (pagina.size() == dimensione) break;
+            if (contiene(p, filtro)) pagina.add(p);
+        }
+        return pagina;
+    }
+
+    /** Testo cercato in minuscolo, null se va restituita ogni prenotazione. */
+    private static String filtro(String testo) {
+        return testo == null || testo.isBlank() ? null : testo.trim().toLowerCase();
+    }
+
+    private static boolean contiene(Prenotazione p, String filtro) {
+        if (filtro == null) return true;
+        Passeggero passeggero = p.getPasseggero();
+        Volo volo = p.getVolo();
+        return p.getCodicePrenotazione().toLowerCase().contains(filtro)
+                || passeggero.getNome().toLowerCase().contains(filtro)
+                || passeggero.getCognome().toLowerCase().contains(filtro)
+                || passeggero.getDocumento().toLowerCase().contains(filtro)
+                || (volo != null && volo.getCodice().toLowerCase().contains(filtro));
+    }
+
+    /**
+     * Rimuove tutte le prenotazioni. Da usare solo per test!
+     *
+     * @return sempre true
+     */
+    @Override
+    public boolean svuota() {
+        synchronized (archivio) {
+            archivio.svuotaPrenotazioni();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Database su cui lavorano i DAO, scelto con la chiave db.profilo del file di configurazione
+ * (o con la proprietà di sistema omonima, ad esempio {@code -Ddb.profilo=h2}).
+ *
+ * <ul>
+ *   <li>{@link #MYSQL} (predefinito): server MySQL indicato da db.url, db.driver, db.username e db.password.</li>
+ *   <li>{@link #H2}: database H2 nello stesso processo, in modalità di compatibilità MySQL.
+ *       Di default è in memoria (un database per schema, vuoto a ogni avvio); con db.h2.url si può
+ *       indicare un prefisso diverso, ad esempio {@code jdbc:h2:file:./dati/} per salvarlo su file.
+ *       Alla prima connessione, se le tabelle non esistono, viene eseguito lo script dello schema
+ *       (db.h2.script, default Database/AEROTRACK.sql). Richiede il driver H2 nel classpath.</li>
+ * </ul>
+ * Le query dei DAO sono le stesse per entrambi i profili. Con db.profilo=memoria i DAO non usano
+ * alcun database (vedi {@link FabbricaDao}).
+ */
+enum ProfiloDatabase {
+
+    MYSQL {
+        @Override
+        String url(Properties props, String schema) {
+            String url = props.getProperty("db.url").trim() + "/" + schema + "?serverTimezone=Europe/Rome";
+            // Connector/J riscrive i batch di INSERT in istruzioni multi-riga (un solo round trip per batch)
+            if (Boolean.parseBoolean(props.getProperty("db.rewriteBatchedStatements", "true").trim())) {
+                url += "&rewriteBatchedStatements=true";
+            }
+            return url;
+        }
+
+        @Override
+        String driver(Properties props) {
+            return props.getProperty("db.driver").trim();
+        }
+
+        @Override
+        void impostaLetturaStreaming(PreparedStatement ps) throws SQLException {
+            // Valore speciale di Connector/J: una riga alla volta dal server
+            ps.setFetchSize(Integer.MIN_VALUE);
+        }
+    },
+
+    H2 {
+        @Override
+        String url(Properties props, String schema) {
+            String prefisso = props.getProperty("db.h2.url", "jdbc:h2:mem:").trim();
+            // Il database in memoria resta aperto finché la JVM è attiva, anche senza connessioni
+            return prefisso + schema + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+        }
+
+        @Override
+        String driver(Properties props) {
+            return "org.h2.Driver";
+        }
+
+        @Override
+        void impostaLetturaStreaming(PreparedStatement ps) throws SQLException {
+            // H2 legge i risultati grandi a blocchi senza caricarli tutti in memoria
+            ps.setFetchSize(DIMENSIONE_BLOCCO_LETTURA);
+        }
+
+        @Override
+        void inizializza(Connection conn, Properties props) throws SQLException, IOException {
+            try (ResultSet rs = conn.getMetaData().getTables(null, null, "aeroporti", null)) {
+                if (rs.next()) return;
+            }
+            Path script = Path.of(props.getProperty("db.h2.script", SCRIPT_SCHEMA).trim());
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String istruzione : istruzioni(Files.readString(script, StandardCharsets.UTF_8))) {
+                    stmt.execute(adattaDialetto(istruzione));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    };
+
+    /** Script dello schema eseguito alla creazione di un database H2. */
+    static final String SCRIPT_SCHEMA = "Database/AEROTRACK.sql";
+    private static final int DIMENSIONE_BLOCCO_LETTURA = 1000;
+
+    /** URL JDBC per lo schema indicato. */
+    abstract String url(Properties props, String schema);
+
+    /** Classe del driver JDBC. */
+    abstract String driver(Properties props);
+
+    /** Imposta la query perché i risultati siano letti un po' alla volta. */
+    abstract void impostaLetturaStreaming(PreparedStatement ps) throws SQLException;
+
+    /**
+     * Prepara il database alla prima connessione del pool (di default non fa nulla).
+     */
+    void inizializza(Connection conn, Properties props) throws SQLException, IOException {
+    }
+
+    /**
+     * Profilo indicato dalla proprietà di sistema db.profilo o, se assente, dalla configurazione.
+     *
+     * @throws IllegalArgumentException se il profilo non esiste
+     */
+    static ProfiloDatabase da(Properties props) {
+        String nome = nome(props);
+        try {
+            return valueOf(nome.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Profilo database sconosciuto: " + nome);
+        }
+    }
+
+    /**
+     * Nome del profilo indicato dalla proprietà di sistema db.profilo o, se assente, dalla configurazione
+     * (anche quando non è un profilo di database, come quello in memoria di {@link FabbricaDao}).
+     */
+    static String nome(Properties props) {
+        return System.getProperty("db.profilo", props.getProperty("db.profilo", "mysql")).trim();
+    }
+
+    /**
+     * Divide uno script SQL nelle singole istruzioni, scartando i commenti di riga.
+     */
+    static List<String> istruzioni(String script) {
+        StringBuilder senzaCommenti = new StringBuilder();
+        for (String riga : script.split("\\R")) {
+            int commento = riga.indexOf("--");
+            senzaCommenti.append(commento >= 0 ? riga.substring(0, commento) : riga).append('\n');
+        }
+        List<String> istruzioni = new ArrayList<>();
+        for (String istruzione : senzaCommenti.toString().split(";")) {
+            if (!istruzione.isBlank()) istruzioni.add(istruzione.trim());
+        }
+        return istruzioni;
+    }
+
+    /**
+     * Adatta un'istruzione DDL di MySQL alla modalità di compatibilità di H2: rimuove le opzioni
+     * di tabella (ENGINE, CHARSET), riscrive IF(condizione, a, b) come CASE, toglie STORED dalle
+     * colonne calcolate e rende esplicito il valore di default delle colonne TIME.
+     */
+    static String adattaDialetto(String istruzione) {
+        return istruzione
+                .replaceAll("(?i)\\)\\s*ENGINE\\s*=\\s*\\w+(\\s+DEFAULT)?(\\s+CHARSET\\s*=\\s*\\w+)?\\s*$", ")")
+                .replaceAll("(?i)\\bIF\\(([^,()]+),([^,()]+),([^,()]+)\\)", "CASE WHEN $1 THEN $2 ELSE $3 END")
+                .replaceAll("(?i)(GENERATED ALWAYS AS \\(.*\\))\\s+STORED", "$1")
+                .replaceAll("(?i)\\bTIME\\s+DEFAULT\\s+0\\b", "TIME DEFAULT '00:00:00'");
+    }
+}
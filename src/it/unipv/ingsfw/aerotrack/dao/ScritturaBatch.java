@@ -0,0 +1,75 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Scrittura di molte righe con una sola istruzione preparata, inviata a blocchi
+ * con addBatch/executeBatch. Con rewriteBatchedStatements (attivo di default, vedi
+ * {@link DBConnection}) Connector/J invia ogni blocco come un'unica INSERT multi-riga.
+ *
+ * Due modalità di transazione:
+ * - transazione unica: tutte le righe o nessuna (i blocchi limitano solo la memoria del driver);
+ * - un commit per blocco: adatta agli import molto grandi, in caso di errore restano
+ *   salvati i blocchi già confermati.
+ */
+final class ScritturaBatch {
+
+    /** Imposta i parametri dell'istruzione per un elemento. */
+    @FunctionalInterface
+    interface Parametri<T> {
+        void imposta(PreparedStatement ps, T elemento) throws SQLException;
+    }
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private ScritturaBatch() {}
+
+    /**
+     * Esegue la query per ogni elemento, a blocchi di {@link DBConnection#getDimensioneBatch()} righe.
+     *
+     * @param query istruzione da eseguire
+     * @param elementi elementi da scrivere
+     * @param parametri imposta i parametri dell'istruzione per un elemento
+     * @param transazioneUnica true per scrivere tutto in una transazione, false per un commit per blocco
+     * @return numero di elementi scritti
+     * @throws SQLException in caso di errore; il messaggio indica quanti elementi erano già stati confermati
+     */
+    static <T> int esegui(String query, Collection<T> elementi, Parametri<T> parametri, boolean transazioneUnica)
+            throws SQLException {
+        int dimensioneBlocco = DBConnection.getDimensioneBatch();
+        int confermati = 0;
+        try (Connection conn = DBConnection.startConnection("aerotrack")) {
+            if (conn == null) throw new SQLException("Connessione al database non disponibile");
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+                int inBlocco = 0;
+                int scritti = 0;
+                for (T elemento : elementi) {
+                    parametri.imposta(ps, elemento);
+                    ps.addBatch();
+                    if (++inBlocco == dimensioneBlocco) {
+                        ps.executeBatch();
+                        scritti += inBlocco;
+                        inBlocco = 0;
+                        if (!transazioneUnica) {
+                            conn.commit();
+                            confermati = scritti;
+                        }
+                    }
+                }
+                if (inBlocco > 0) {
+                    ps.executeBatch();
+                    scritti += inBlocco;
+                }
+                conn.commit();
+                return scritti;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException(e.getMessage() + " (elementi già salvati: " + confermati + ")",
+                        e.getSQLState(), e.getErrorCode(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+/**
+ * Fotografia dello stato di un pool di connessioni.
+ *
+ * @param schema               schema servito dal pool
+ * @param dimensioneMassima    numero massimo di connessioni in uso contemporaneamente
+ * @param attive               connessioni attualmente in prestito
+ * @param inattive             connessioni aperte e libere
+ * @param inAttesa             thread in attesa di una connessione
+ * @param richieste            prestiti totali concessi
+ * @param attesaMediaMs        attesa media per ottenere una connessione (ms)
+ * @param attesaMassimaMs      attesa massima registrata (ms)
+ * @param timeout              richieste scadute senza ottenere una connessione
+ * @param connessioniCreate    connessioni fisiche aperte dall'avvio
+ * @param connessioniChiuse    connessioni fisiche chiuse dall'avvio
+ * @param leakRilevati         prestiti segnalati come possibili leak
+ */
+public record StatistichePool(
+        String schema,
+        int dimensioneMassima,
+        int attive,
+        int inattive,
+        int inAttesa,
+        long richieste,
+        double attesaMediaMs,
+        double attesaMassimaMs,
+        long timeout,
+        long connessioniCreate,
+        long connessioniChiuse,
+        long leakRilevati) {
+
+    @Override
+    public String toString() {
+        return String.format("Pool[%s] attive=%d inattive=%d max=%d inAttesa=%d richieste=%d attesaMedia=%.3fms attesaMax=%.3fms timeout=%d leak=%d",
+                schema, attive, inattive, dimensioneMassima, inAttesa, richieste, attesaMediaMs, attesaMassimaMs, timeout, leakRilevati);
+    }
+}
@@ -5,24 +5,52 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.sql.Time;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import it.unipv.ingsfw.aerotrack.models.CriteriRicercaVoli;
+import it.unipv.ingsfw.aerotrack.models.CursoreVoli;
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
+import it.unipv.ingsfw.aerotrack.models.PaginaVoli;
 import it.unipv.ingsfw.aerotrack.models.Volo;
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.CacheLRU;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
 
 /**
  * DAO Singleton per la gestione dei voli nel database MySQL.
  * Implementa IVoloDao.
  * Gestisce tutte le operazioni CRUD sui voli.
+ *
+ * I voli cercati per codice sono tenuti in una cache in memoria (chiavi cache.voli.maxSize
+ * e cache.voli.ttlSec del file di configurazione): le ricerche ripetute dello stesso volo
+ * restituiscono la stessa istanza senza accedere al database. I voli salvati o aggiornati
+ * singolarmente sono scritti anche in cache, quelli rimossi o salvati in blocco ne vengono tolti.
  */
 public class VoloDao implements IVoloDao {
+    private static final int DEFAULT_CACHE_MAX_SIZE = 10_000;
+    private static final long DEFAULT_CACHE_TTL_SEC = 60;
+    // Codici cercati con una sola query da codiciEsistenti
+    private static final int CODICI_PER_QUERY = 500;
+
     private static VoloDao instance;
     private final AeroportoDao aeroportoDao = AeroportoDao.getInstance();
+    private final CacheLRU<String, Volo> voliCache;
 
-    private VoloDao() {}
+    private VoloDao() {
+        int dimensione = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                DBConnection.getImpostazione("cache.voli.maxSize", DEFAULT_CACHE_MAX_SIZE)));
+        Duration durata = Duration.ofSeconds(DBConnection.getImpostazione("cache.voli.ttlSec", DEFAULT_CACHE_TTL_SEC));
+        voliCache = new CacheLRU<>("voli", dimensione, durata, this::leggiVolo, VoloDao::stessiDati);
+    }
 
     public static VoloDao getInstance() {
         if (instance == null) {
@@ -31,6 +59,26 @@ public class VoloDao implements IVoloDao {
         return instance;
     }
 
+    private static final String INSERT_QUERY = """
+            INSERT INTO voli (codice, partenza, destinazione, orario_partenza, velocita, pista_assegnata, ritardo, stato, data_volo)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                partenza = VALUES(partenza),
+                destinazione = VALUES(destinazione),
+                orario_partenza = VALUES(orario_partenza),
+                velocita = VALUES(velocita),
+                pista_assegnata = VALUES(pista_assegnata),
+                ritardo = VALUES(ritardo),
+                stato = VALUES(stato),
+                data_volo = VALUES(data_volo)
+            """;
+
+    // Inserimento senza aggiornamento: un codice già presente fa fallire la scrittura
+    private static final String INSERT_NUOVI_QUERY = """
+            INSERT INTO voli (codice, partenza, destinazione, orario_partenza, velocita, pista_assegnata, ritardo, stato, data_volo)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
     /**
      * Aggiunge o aggiorna un volo.
      * 
@@ -40,37 +88,92 @@ public class VoloDao implements IVoloDao {
     @Override
     public boolean aggiungiVolo(Volo v) {
         if (v == null) throw new IllegalArgumentException("Il volo non può essere null");
-        String insertQuery = """
-                INSERT INTO voli (codice, partenza, destinazione, orario_partenza, velocita, pista_assegnata, ritardo, stato, data_volo)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                ON DUPLICATE KEY UPDATE
-                    partenza = VALUES(partenza),
-                    destinazione = VALUES(destinazione),
-                    orario_partenza = VALUES(orario_partenza),
-                    velocita = VALUES(velocita),
-                    pista_assegnata = VALUES(pista_assegnata),
-                    ritardo = VALUES(ritardo),
-                    stato = VALUES(stato),
-                    data_volo = VALUES(data_volo)
-                """;
-            try (Connection conn = DBConnection.startConnection("aerotrack");
-                 PreparedStatement ps = conn.prepareStatement(insertQuery)) {
-            	ps.setString(1, v.getCodice());
-            	ps.setString(2, v.getPartenza().getCodice());
-            	ps.setString(3, v.getDestinazione().getCodice());
-            	ps.setTime(4, java.sql.Time.valueOf(v.getOrarioPartenza()));
-            	ps.setDouble(5, v.getVelocita());
-            	ps.setInt(6, v.getPistaAssegnata() + 1);
-            	ps.setTime(7, java.sql.Time.valueOf(v.getRitardo())); 
-            	ps.setString(8, v.getStato() != null ? v.getStato().name() : "PROGRAMMATO");
-            	ps.setDate(9, java.sql.Date.valueOf(v.getDataVolo()));
-                return ps.executeUpdate() > 0;
-            } catch (SQLException e) {
-                System.err.println("Errore inserimento volo: " + e.getMessage());
-                return false;
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(INSERT_QUERY)) {
+            impostaParametri(ps, v);
+            boolean ok = ps.executeUpdate() > 0;
+            if (ok) voliCache.put(v.getCodice(), v);
+            return ok;
+        } catch (SQLException e) {
+            System.err.println("Errore inserimento volo: " + e.getMessage());
+            voliCache.invalida(v.getCodice());
+            return false;
+        }
+    }
+
+    /**
+     * Aggiunge più voli nuovi con scritture batch in una sola transazione:
+     * o vengono salvati tutti o nessuno. I voli già presenti non vengono sovrascritti:
+     * se un codice esiste già sul database la scrittura fallisce e nessun volo viene salvato
+     * (i codici esistenti si possono escludere prima con {@link #codiciEsistenti(Collection)}).
+     * I voli non vengono messi in cache, per non scartare quelli usati di recente durante
+     * un'importazione: le eventuali copie in cache vengono eliminate.
+     *
+     * @param voli Voli da aggiungere.
+     * @return true se riuscita, false altrimenti.
+     */
+    @Override
+    public boolean aggiungiVoli(Collection<Volo> voli) {
+        if (voli == null) throw new IllegalArgumentException("La lista dei voli non può essere null");
+        if (voli.isEmpty()) return true;
+        try {
+            ScritturaBatch.esegui(INSERT_NUOVI_QUERY, voli, this::impostaParametri, true);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore inserimento voli: " + e.getMessage());
+            return false;
+        } finally {
+            for (Volo v : voli) {
+                voliCache.invalida(v.getCodice());
             }
-        }    
-    
+        }
+    }
+
+    private void impostaParametri(PreparedStatement ps, Volo v) throws SQLException {
+        ps.setString(1, v.getCodice());
+        ps.setString(2, v.getPartenza().getCodice());
+        ps.setString(3, v.getDestinazione().getCodice());
+        ps.setTime(4, java.sql.Time.valueOf(v.getOrarioPartenza()));
+        ps.setDouble(5, v.getVelocita());
+        ps.setInt(6, v.getPistaAssegnata() + 1);
+        ps.setTime(7, java.sql.Time.valueOf(v.getRitardo()));
+        ps.setString(8, v.getStato() != null ? v.getStato().name() : "PROGRAMMATO");
+        ps.setDate(9, java.sql.Date.valueOf(v.getDataVolo()));
+    }
+
+    /**
+     * Restituisce i codici, tra quelli indicati, dei voli già presenti sul database.
+     * I codici sono cercati a blocchi con una query per blocco, senza leggere i voli.
+     *
+     * @param codici codici da cercare
+     * @return codici esistenti (vuoto anche in caso di errore)
+     */
+    @Override
+    public Set<String> codiciEsistenti(Collection<String> codici) {
+        Set<String> esistenti = new HashSet<>();
+        if (codici == null || codici.isEmpty()) return esistenti;
+        List<String> daCercare = new ArrayList<>(codici);
+        try (Connection conn = DBConnection.startConnection("aerotrack")) {
+            for (int inizio = 0; inizio < daCercare.size(); inizio += CODICI_PER_QUERY) {
+                List<String> blocco = daCercare.subList(inizio, Math.min(inizio + CODICI_PER_QUERY, daCercare.size()));
+                String query = "SELECT codice FROM voli WHERE codice IN ("
+                        + String.join(", ", Collections.nCopies(blocco.size(), "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(query)) {
+                    for (int i = 0; i < blocco.size(); i++) {
+                        ps.setString(i + 1, blocco.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            esistenti.add(rs.getString("codice"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca codici voli: " + e.getMessage());
+        }
+        return esistenti;
+    }
 
     /**
      * Restituisce tutti i voli nel database.
@@ -80,59 +183,169 @@ public class VoloDao implements IVoloDao {
     @Override
     public List<Volo> getTuttiVoli() {
         List<Volo> listaVoli = new ArrayList<>();
+        caricaVoli(listaVoli);
+        return listaVoli;
+    }
+
+    /**
+     * Ricostruisce liste dei voli e occupazione delle piste di tutti gli aeroporti a partire dai voli salvati,
+     * come {@link #getTuttiVoli()} ma senza restituire i voli.
+     *
+     * @return true se ricostruita, false in caso di errore (l'occupazione resta quella precedente)
+     */
+    @Override
+    public boolean ricostruisciOccupazione() {
+        return caricaVoli(new ArrayList<>());
+    }
+
+    /**
+     * Legge tutti i voli nella lista e, se la lettura riesce, ricostruisce l'occupazione delle piste
+     * una volta per aeroporto.
+     *
+     * @return true se letti, false in caso di errore
+     */
+    private boolean caricaVoli(List<Volo> listaVoli) {
         // Carica tutti gli aeroporti una sola volta in una mappa
-        Map<String, Aeroporto> aeroporti = new HashMap<>();
-        for (Aeroporto a : aeroportoDao.getTuttiAeroporti()) {
-            aeroporti.put(a.getCodice(), a);
-        } 
-        
-        
+        Map<String, Aeroporto> aeroporti = getMappaAeroporti();
+
         String query = "SELECT * FROM voli";
         try (Connection conn = DBConnection.startConnection("aerotrack");
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
-            	Aeroporto partenza = aeroporti.get(rs.getString("partenza"));
-                Aeroporto destinazione = aeroporti.get(rs.getString("destinazione"));
-                if (partenza != null && destinazione != null) {
-                	LocalDate dataVolo = rs.getDate("data_volo").toLocalDate();
-                	LocalTime orarioPartenza = rs.getTime("orario_partenza").toLocalTime();
-
-                	int pista = rs.getInt("pista_assegnata");
-                	Volo v = new Volo(
-                		    rs.getString("codice"),
-                		    partenza,
-                		    destinazione,
-                		    orarioPartenza,
-                		    rs.getDouble("velocita"),
-                		    dataVolo
-                		);
-                		v.setPistaAssegnata(rs.getInt("pista_assegnata"));
-
-                		Time ritardoDb = rs.getTime("ritardo");
-                		if (ritardoDb != null) {
-                		    v.setRitardo(ritardoDb.toLocalTime());
-                		} else {
-                		    v.setRitardo(LocalTime.of(0, 0));
-                		}
-
-                		String statoDb = rs.getString("stato");
-                		if (statoDb != null) {
-                		    v.setStato(Volo.StatoVolo.valueOf(statoDb));
-                		} else {
-                		    v.setStato(Volo.StatoVolo.PROGRAMMATO);
-                		}
-
-                		listaVoli.add(v);
-
+                Volo v = creaVolo(rs, aeroporti);
+                if (v != null) {
+                    listaVoli.add(v);
                 }
             }
+            ricostruisciOccupazione(aeroporti, listaVoli);
+            return true;
         } catch (SQLException e) {
             System.err.println("Errore recupero voli: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Passa all'azione tutti i voli del database, ordinati per data, orario di partenza e codice,
+     * leggendoli dal server una riga alla volta: la memoria usata non dipende dal numero di voli.
+     * I voli non sono registrati negli aeroporti. L'azione non deve accedere al database.
+     *
+     * @param azione azione da eseguire per ogni volo
+     * @return true se tutti i voli sono stati letti, false in caso di errore
+     */
+    @Override
+    public boolean perOgniVolo(Consumer<Volo> azione) {
+        Map<String, Aeroporto> aeroporti = getMappaAeroporti();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = DBConnection.preparaLetturaStreaming(conn,
+                     "SELECT * FROM voli ORDER BY data_volo, orario_partenza, codice");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Volo v = creaVolo(rs, aeroporti);
+                if (v != null) azione.accept(v);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore lettura voli: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ricostruisce un volo dalla riga corrente del ResultSet.
+     * Le colonne vengono lette per nome, quindi il metodo funziona anche su query in join
+     * che selezionano le colonne della tabella voli.
+     * Il volo viene ripristinato con pista, ritardo e stato salvati, senza ricalcolare
+     * l'assegnazione delle piste e senza modificare gli aeroporti.
+     *
+     * @param rs ResultSet posizionato sulla riga del volo
+     * @param aeroporti mappa codice -> aeroporto usata per risolvere partenza e destinazione
+     * @return Volo ricostruito, null se uno degli aeroporti non è presente nella mappa
+     */
+    Volo creaVolo(ResultSet rs, Map<String, Aeroporto> aeroporti) throws SQLException {
+        Aeroporto partenza = aeroporti.get(rs.getString("partenza"));
+        Aeroporto destinazione = aeroporti.get(rs.getString("destinazione"));
+        if (partenza == null || destinazione == null) {
+            return null;
+        }
+        LocalDate dataVolo = rs.getDate("data_volo").toLocalDate();
+        LocalTime orarioPartenza = rs.getTime("orario_partenza").toLocalTime();
+
+        // Sul database la pista è salvata a partire da 1 (0 = non assegnata)
+        int pista = Math.max(rs.getInt("pista_assegnata") - 1, -1);
+
+        Time ritardoDb = rs.getTime("ritardo");
+        String statoDb = rs.getString("stato");
+
+        return Volo.ripristina(
+                rs.getString("codice"),
+                partenza,
+                destinazione,
+                orarioPartenza,
+                rs.getDouble("velocita"),
+                dataVolo,
+                pista,
+                ritardoDb != null ? ritardoDb.toLocalTime() : LocalTime.of(0, 0),
+                statoDb != null ? Volo.StatoVolo.valueOf(statoDb) : Volo.StatoVolo.PROGRAMMATO
+        );
+    }
+
+    /**
+     * Aggiunge alla mappa partenza e destinazione del volo nella riga corrente del ResultSet, se non
+     * sono già presenti, cercandole per codice (vedi {@link AeroportoDao#cercaPerCodice(String)}).
+     * Un codice senza aeroporto resta nella mappa associato a null, così non viene cercato di nuovo.
+     * Serve a leggere pochi voli senza caricare tutti gli aeroporti con {@link #getMappaAeroporti()}.
+     *
+     * @param rs ResultSet posizionato sulla riga del volo
+     * @param aeroporti mappa codice -> aeroporto da passare a {@link #creaVolo(ResultSet, Map)}
+     */
+    void risolviAeroporti(ResultSet rs, Map<String, Aeroporto> aeroporti) throws SQLException {
+        for (String colonna : new String[]{"partenza", "destinazione"}) {
+            String codice = rs.getString(colonna);
+            if (codice != null && !codice.isEmpty() && !aeroporti.containsKey(codice)) {
+                aeroporti.put(codice, aeroportoDao.cercaPerCodice(codice));
+            }
+        }
+    }
+
+    /**
+     * Ricostruisce liste dei voli e occupazione delle piste di ogni aeroporto a partire dai voli caricati.
+     */
+    private void ricostruisciOccupazione(Map<String, Aeroporto> aeroporti, List<Volo> voli) {
+        Map<Aeroporto, List<Volo>> voliPerAeroporto = new HashMap<>();
+        for (Aeroporto a : aeroporti.values()) {
+            voliPerAeroporto.put(a, new ArrayList<>());
+        }
+        for (Volo v : voli) {
+            voliPerAeroporto.get(v.getPartenza()).add(v);
+            if (!v.getDestinazione().equals(v.getPartenza())) {
+                voliPerAeroporto.get(v.getDestinazione()).add(v);
+            }
+        }
+        for (Map.Entry<Aeroporto, List<Volo>> e : voliPerAeroporto.entrySet()) {
+            e.getKey().ricostruisciOccupazione(e.getValue());
         }
-        return listaVoli;
     }
 
+    /**
+     * Restituisce gli aeroporti indicizzati per codice, caricati con una sola query.
+     */
+    Map<String, Aeroporto> getMappaAeroporti() {
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        for (Aeroporto a : aeroportoDao.getTuttiAeroporti()) {
+            aeroporti.put(a.getCodice(), a);
+        }
+        return aeroporti;
+    }
+
+    /**
+     * Aggiorna ritardo, stato e data di un volo già salvato. Se il volo indicato non è l'istanza
+     * in cache, ritardo e stato vengono copiati su quella dopo la scrittura.
+     *
+     * @return true se aggiornato, false se il volo non esiste o in caso di errore
+     */
+    @Override
     public boolean aggiornaVolo(Volo volo) {
         String query = "UPDATE voli SET ritardo = ?, stato = ?, data_volo = ? WHERE codice = ?";
         try (Connection conn = DBConnection.startConnection("aerotrack");
@@ -143,17 +356,32 @@ public class VoloDao implements IVoloDao {
             stmt.setDate(3, Date.valueOf(volo.getDataVolo()));
             stmt.setString(4, volo.getCodice());
 
-            return stmt.executeUpdate() > 0;
+            boolean ok = stmt.executeUpdate() > 0;
+            if (ok) {
+                voliCache.aggiornaSePresente(volo.getCodice(), salvato -> {
+                    if (salvato != volo) {
+                        salvato.setRitardo(volo.getRitardo());
+                        salvato.setStato(volo.getStato());
+                    }
+                    return salvato;
+                });
+            } else {
+                voliCache.invalida(volo.getCodice());
+            }
+            return ok;
         } catch (SQLException e) {
             e.printStackTrace();
+            // Il volo potrebbe essere stato modificato in memoria: la prossima ricerca lo rilegge
+            voliCache.invalida(volo.getCodice());
             return false;
         }
     }
 
     
     /**
-     * Cerca un volo tramite codice.
-     * 
+     * Cerca un volo tramite codice, dalla cache se è stato letto o salvato da meno
+     * della durata configurata.
+     *
      * @param codice Codice volo.
      * @return Volo trovato, null se non esiste.
      */
@@ -161,28 +389,55 @@ public class VoloDao implements IVoloDao {
     public Volo cercaPerCodice(String codice) {
         if (codice == null || codice.isEmpty())
             throw new IllegalArgumentException("Il codice volo non può essere null o vuoto");
+        return voliCache.get(codice.toUpperCase());
+    }
+
+    /**
+     * Svuota la tabella voli e la cache. Da usare solo per test!
+     *
+     * @return true se svuotata, false in caso di errore (es. prenotazioni sui voli)
+     */
+    @Override
+    public boolean svuota() {
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM voli");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Errore durante lo svuotamento della tabella voli: " + e.getMessage());
+            return false;
+        } finally {
+            svuotaCache();
+        }
+    }
+
+    /**
+     * Svuota la cache dei voli. Da chiamare dopo modifiche alla tabella fatte
+     * senza passare da questo DAO.
+     */
+    public void svuotaCache() {
+        voliCache.invalidaTutto();
+    }
+
+    /**
+     * Restituisce le statistiche della cache dei voli.
+     */
+    @Override
+    public StatisticheCache getStatisticheCache() {
+        return voliCache.statistiche();
+    }
+
+    /** Caricatore della cache: legge un volo dal database, null se non esiste o in caso di errore. */
+    private Volo leggiVolo(String codice) {
         String selectQuery = "SELECT * FROM voli WHERE codice = ?";
         try (Connection conn = DBConnection.startConnection("aerotrack");
              PreparedStatement ps = conn.prepareStatement(selectQuery)) {
-            ps.setString(1, codice.toUpperCase());
+            ps.setString(1, codice);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                Aeroporto partenza = aeroportoDao.cercaPerCodice(rs.getString("partenza"));
-                Aeroporto destinazione = aeroportoDao.cercaPerCodice(rs.getString("destinazione"));
-                if (partenza != null && destinazione != null) {
-                	Volo v = new Volo (                      
-                            rs.getString("codice"),
-                            partenza,
-                            destinazione,
-                            rs.getTime("orario_partenza").toLocalTime(),
-                            rs.getDouble("velocita"),
-                            rs.getDate("data_volo").toLocalDate()
-                        );
-                	v.setPistaAssegnata(rs.getInt("pista_assegnata"));
-                    v.setRitardo(rs.getTime("ritardo").toLocalTime());
-                    v.setStato(Volo.StatoVolo.valueOf(rs.getString("stato")));
-                        return v;
-                }
+                Map<String, Aeroporto> aeroporti = new HashMap<>();
+                risolviAeroporti(rs, aeroporti);
+                return creaVolo(rs, aeroporti);
             }
         } catch (SQLException e) {
             System.err.println("Errore ricerca volo: " + e.getMessage());
@@ -190,6 +445,170 @@ public class VoloDao implements IVoloDao {
         return null;
     }
 
+    /** True se i due voli hanno gli stessi dati sul database. */
+    private static boolean stessiDati(Volo a, Volo b) {
+        return a.getPartenza().equals(b.getPartenza())
+                && a.getDestinazione().equals(b.getDestinazione())
+                && a.getDataVolo().equals(b.getDataVolo())
+                && a.getOrarioPartenza().equals(b.getOrarioPartenza())
+                && Double.compare(a.getVelocita(), b.getVelocita()) == 0
+                && a.getPistaAssegnata() == b.getPistaAssegnata()
+                && a.getRitardo().equals(b.getRitardo())
+                && a.getStato() == b.getStato();
+    }
+
+    /**
+     * Cerca i voli che soddisfano i criteri, una pagina alla volta.
+     * I criteri sono tradotti in una query parametrica che sfrutta gli indici
+     * su (partenza | destinazione, data_volo, orario_partenza, codice); le pagine sono lette
+     * con keyset pagination, quindi il costo di una pagina non dipende da quante ne precedono.
+     * I voli restituiti non sono registrati negli aeroporti.
+     * 
+     * @param criteri criteri di ricerca
+     * @param dopo cursore restituito dalla pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di voli della pagina
+     * @return pagina di voli ordinati per data, orario di partenza e codice
+     */
+    @Override
+    public PaginaVoli cercaVoli(CriteriRicercaVoli criteri, CursoreVoli dopo, int dimensione) {
+        if (criteri == null) throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        StringBuilder query = new StringBuilder("SELECT * FROM voli WHERE 1 = 1");
+        List<Object> parametri = new ArrayList<>();
+        aggiungiCriteri(criteri, query, parametri);
+        if (dopo != null) {
+            // (data_volo, orario_partenza, codice) > cursore, scritto in forma espansa
+            // con una condizione di range su data_volo utilizzabile dall'indice
+            query.append(" AND data_volo >= ? AND (data_volo > ? OR (orario_partenza > ? OR (orario_partenza = ? AND codice > ?)))");
+            parametri.add(Date.valueOf(dopo.data()));
+            parametri.add(Date.valueOf(dopo.data()));
+            parametri.add(Time.valueOf(dopo.orario()));
+            parametri.add(Time.valueOf(dopo.orario()));
+            parametri.add(dopo.codice());
+        }
+        // Una riga in più per sapere se esiste la pagina successiva
+        query.append(" ORDER BY data_volo, orario_partenza, codice LIMIT ?");
+        parametri.add(dimensione + 1);
+
+        List<Volo> voli = new ArrayList<>();
+        // Solo gli aeroporti dei voli della pagina, letti dalla cache degli aeroporti
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < parametri.size(); i++) {
+                ps.setObject(i + 1, parametri.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    risolviAeroporti(rs, aeroporti);
+                    Volo v = creaVolo(rs, aeroporti);
+                    if (v != null) voli.add(v);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore ricerca voli: " + e.getMessage());
+            return new PaginaVoli(List.of(), null);
+        }
+
+        if (voli.size() <= dimensione) {
+            return new PaginaVoli(voli, null);
+        }
+        voli = voli.subList(0, dimensione);
+        return new PaginaVoli(new ArrayList<>(voli), CursoreVoli.dopo(voli.get(dimensione - 1)));
+    }
+
+    /**
+     * Calcola con una sola query il numero di voli che soddisfano i criteri e il cursore
+     * di inizio di ogni pagina, così che {@link #cercaVoli} possa leggere direttamente
+     * qualsiasi pagina. Vengono letti solo i campi della chiave di ordinamento.
+     *
+     * @param criteri criteri di ricerca
+     * @param dimensione numero di voli per pagina
+     * @return indice delle pagine, vuoto in caso di errore
+     */
+    @Override
+    public IndicePagine<CursoreVoli> indicizzaPagine(CriteriRicercaVoli criteri, int dimensione) {
+        if (criteri == null) throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        StringBuilder query = new StringBuilder("""
+                SELECT data_volo, orario_partenza, codice, n, totale FROM (
+                    SELECT data_volo, orario_partenza, codice,
+                           ROW_NUMBER() OVER (ORDER BY data_volo, orario_partenza, codice) AS n,
+                           COUNT(*) OVER () AS totale
+                    FROM voli WHERE 1 = 1""");
+        List<Object> parametri = new ArrayList<>();
+        aggiungiCriteri(criteri, query, parametri);
+        // Solo l'ultima riga di ogni pagina, più l'ultima in assoluto per il totale
+        query.append(") t WHERE MOD(n, ?) = 0 OR n = totale ORDER BY n");
+        parametri.add(dimensione);
+
+        int righe = 0;
+        List<CursoreVoli> confini = new ArrayList<>();
+        try (Connection conn = DBConnection.startConnection("aerotrack");
+             PreparedStatement ps = conn.prepareStatement(query.toString())) {
+            for (int i = 0; i < parametri.size(); i++) {
+                ps.setObject(i + 1, parametri.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    righe = rs.getInt("totale");
+                    if (rs.getLong("n") % dimensione == 0) {
+                        confini.add(new CursoreVoli(rs.getDate("data_volo").toLocalDate(),
+                                rs.getTime("orario_partenza").toLocalTime(), rs.getString("codice")));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Errore indicizzazione voli: " + e.getMessage());
+            return IndicePagine.vuoto(dimensione);
+        }
+        return new IndicePagine<>(righe, dimensione, confini);
+    }
+
+    /**
+     * Aggiunge alla query (che termina con una clausola WHERE) le condizioni dei criteri di ricerca
+     * e i relativi parametri.
+     */
+    private static void aggiungiCriteri(CriteriRicercaVoli criteri, StringBuilder query, List<Object> parametri) {
+        if (criteri.partenza() != null) {
+            query.append(" AND partenza = ?");
+            parametri.add(criteri.partenza().toUpperCase());
+        }
+        if (criteri.destinazione() != null) {
+            query.append(" AND destinazione = ?");
+            parametri.add(criteri.destinazione().toUpperCase());
+        }
+        if (criteri.dataDa() != null) {
+            query.append(" AND data_volo >= ?");
+            parametri.add(Date.valueOf(criteri.dataDa()));
+        }
+        if (criteri.dataA() != null) {
+            query.append(" AND data_volo <= ?");
+            parametri.add(Date.valueOf(criteri.dataA()));
+        }
+        if (criteri.orarioDa() != null && criteri.orarioA() != null && criteri.orarioA().isBefore(criteri.orarioDa())) {
+            // Fascia oraria a cavallo della mezzanotte
+            query.append(" AND (orario_partenza >= ? OR orario_partenza <= ?)");
+            parametri.add(Time.valueOf(criteri.orarioDa()));
+            parametri.add(Time.valueOf(criteri.orarioA()));
+        } else {
+            if (criteri.orarioDa() != null) {
+                query.append(" AND orario_partenza >= ?");
+                parametri.add(Time.valueOf(criteri.orarioDa()));
+            }
+            if (criteri.orarioA() != null) {
+                query.append(" AND orario_partenza <= ?");
+                parametri.add(Time.valueOf(criteri.orarioA()));
+            }
+        }
+        if (criteri.stato() != null) {
+            query.append(" AND stato = ?");
+            parametri.add(criteri.stato().name());
+        }
+    }
+
     /**
      * Rimuove un volo tramite codice.
      * 
@@ -207,6 +626,8 @@ public class VoloDao implements IVoloDao {
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Errore rimozione volo: " + e.getMessage());
+        } finally {
+            voliCache.invalida(codice.toUpperCase());
         }
         return false;
     }
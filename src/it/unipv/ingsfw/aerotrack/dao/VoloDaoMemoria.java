@@ -0,0 +1,358 @@
+package it.unipv.ingsfw.aerotrack.dao;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.Consumer;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.CriteriRicercaVoli;
+import it.unipv.ingsfw.aerotrack.models.CursoreVoli;
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
+import it.unipv.ingsfw.aerotrack.models.PaginaVoli;
+import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
+
+/**
+ * DAO Singleton dei voli per il profilo memoria: i dati sono in {@link ArchivioMemoria}.
+ * Implementa IVoloDao con la stessa semantica di {@link VoloDao}: un volo richiede che i suoi
+ * aeroporti esistano e non può essere rimosso se ha prenotazioni.
+ *
+ * Le ricerche partono dall'indice più selettivo tra quelli per aeroporto di partenza, per aeroporto
+ * di destinazione e quello generale, tutti ordinati per (data, orario, codice): l'intervallo di date
+ * e il cursore della pagina diventano un intervallo dell'indice e gli altri criteri vengono
+ * verificati solo sui voli dell'intervallo. I voli restituiti sono le istanze salvate.
+ */
+public class VoloDaoMemoria implements IVoloDao {
+
+    private static VoloDaoMemoria instance;
+    private final ArchivioMemoria archivio = ArchivioMemoria.getInstance();
+
+    private VoloDaoMemoria() {}
+
+    public static synchronized VoloDaoMemoria getInstance() {
+        if (instance == null) {
+            instance = new VoloDaoMemoria();
+        }
+        return instance;
+    }
+
+    /**
+     * Aggiunge o aggiorna un volo.
+     *
+     * @param v Volo da aggiungere/aggiornare.
+     * @return true se riuscita, false se un aeroporto del volo non esiste.
+     */
+    @Override
+    public boolean aggiungiVolo(Volo v) {
+        if (v == null) throw new IllegalArgumentException("Il volo non può essere null");
+        synchronized (archivio) {
+            if (!aeroportiEsistenti(v)) {
+                System.err.println("Errore inserimento volo: aeroporti del volo " + v.getCodice() + " inesistenti");
+                return false;
+            }
+            salva(v);
+            return true;
+        }
+    }
+
+    /**
+     * Aggiunge più voli nuovi: o vengono salvati tutti o nessuno.
+     * Come per {@link VoloDao#aggiungiVoli(Collection)}, i voli già presenti non vengono sovrascritti.
+     *
+     * @param voli Voli da aggiungere.
+     * @return true se riuscita, false se un aeroporto di un volo non esiste o un codice è già usato.
+     */
+    @Override
+    public boolean aggiungiVoli(Collection<Volo> voli) {
+        if (voli == null) throw new IllegalArgumentException("La lista dei voli non può essere null");
+        synchronized (archivio) {
+            Set<String> codici = new HashSet<>();
+            for (Volo v : voli) {
+                if (!aeroportiEsistenti(v)) {
+                    System.err.println("Errore inserimento voli: aeroporti del volo " + v.getCodice() + " inesistenti");
+                    return false;
+                }
+                String chiave = ArchivioMemoria.chiave(v.getCodice());
+                if (archivio.voli.containsKey(chiave) || !codici.add(chiave)) {
+                    System.err.println("Errore inserimento voli: codice " + v.getCodice() + " già usato");
+                    return false;
+                }
+            }
+            for (Volo v : voli) {
+                salva(v);
+            }
+            return true;
+        }
+    }
+
+    private boolean aeroportiEsistenti(Volo v) {
+        return archivio.aeroporti.containsKey(ArchivioMemoria.chiave(v.getPartenza().getCodice()))
+                && archivio.aeroporti.containsKey(ArchivioMemoria.chiave(v.getDestinazione().getCodice()));
+    }
+
+    /** Salva il volo; le prenotazioni di un volo sostituito passano alla nuova istanza. */
+    private void salva(Volo v) {
+        Volo precedente = archivio.voli.get(ArchivioMemoria.chiave(v.getCodice()));
+        archivio.inserisciVolo(v);
+        if (precedente != null && precedente != v) {
+            for (Prenotazione p : List.copyOf(archivio.prenotazioniDelVolo(v.getCodice()))) {
+                archivio.inserisciPrenotazione(new Prenotazione(p.getCodicePrenotazione(), p.getPasseggero(), v,
+                        p.isCancellata()));
+            }
+        }
+    }
+
+    /**
+     * Restituisce tutti i voli, ordinati per data, orario di partenza e codice, e ricostruisce
+     * l'occupazione delle piste di ogni aeroporto come {@link VoloDao#getTuttiVoli()}.
+     *
+     * @return lista dei voli.
+     */
+    @Override
+    public List<Volo> getTuttiVoli() {
+        List<Volo> listaVoli = new ArrayList<>(archivio.voliOrdinati.values());
+        ricostruisciOccupazione(listaVoli);
+        return listaVoli;
+    }
+
+    /**
+     * Ricostruisce liste dei voli e occupazione delle piste di tutti gli aeroporti a partire dai voli salvati.
+     *
+     * @return sempre true
+     */
+    @Override
+    public boolean ricostruisciOccupazione() {
+        ricostruisciOccupazione(new ArrayList<>(archivio.voliOrdinati.values()));
+        return true;
+    }
+
+    private void ricostruisciOccupazione(List<Volo> listaVoli) {
+        Map<Aeroporto, List<Volo>> voliPerAeroporto = new HashMap<>();
+        for (Aeroporto a : archivio.aeroporti.values()) {
+            voliPerAeroporto.put(a, new ArrayList<>());
+        }
+        for (Volo v : listaVoli) {
+            voliPerAeroporto.computeIfAbsent(v.getPartenza(), a -> new ArrayList<>()).add(v);
+            if (!v.getDestinazione().equals(v.getPartenza())) {
+                voliPerAeroporto.computeIfAbsent(v.getDestinazione(), a -> new ArrayList<>()).add(v);
+            }
+        }
+        voliPerAeroporto.forEach(Aeroporto::ricostruisciOccupazione);
+    }
+
+    /**
+     * Passa all'azione tutti i voli, ordinati per data, orario di partenza e codice.
+     *
+     * @param azione azione da eseguire per ogni volo
+     * @return sempre true
+     */
+    @Override
+    public boolean perOgniVolo(Consumer<Volo> azione) {
+        archivio.voliOrdinati.values().forEach(azione);
+        return true;
+    }
+
+    /**
+     * Aggiorna ritardo e stato di un volo già salvato. Se il volo indicato non è l'istanza salvata,
+     * i valori vengono copiati su quella.
+     *
+     * @return true se aggiornato, false se il volo non esiste
+     */
+    @Override
+    public boolean aggiornaVolo(Volo volo) {
+        synchronized (archivio) {
+            Volo salvato = archivio.voli.get(ArchivioMemoria.chiave(volo.getCodice()));
+            if (salvato == null) return false;
+            if (salvato != volo) {
+                salvato.setRitardo(volo.getRitardo());
+                salvato.setStato(volo.getStato());
+            }
+            archivio.modificato();
+            return true;
+        }
+    }
+
+    /**
+     * Cerca un volo tramite codice.
+     *
+     * @param codice Codice volo.
+     * @return Volo trovato, null se non esiste.
+     */
+    @Override
+    public Volo cercaPerCodice(String codice) {
+        if (codice == null || codice.isEmpty())
+            throw new IllegalArgumentException("Il codice volo non può essere null o vuoto");
+        return archivio.voli.get(ArchivioMemoria.chiave(codice));
+    }
+
+    /**
+     * Restituisce i codici, tra quelli indicati, dei voli già presenti.
+     */
+    @Override
+    public Set<String> codiciEsistenti(Collection<String> codici) {
+        Set<String> esistenti = new HashSet<>();
+        if (codici == null) return esistenti;
+        for (String codice : codici) {
+            if (archivio.voli.containsKey(ArchivioMemoria.chiave(codice))) {
+                esistenti.add(codice);
+            }
+        }
+        return esistenti;
+    }
+
+    /**
+     * Cerca i voli che soddisfano i criteri, una pagina alla volta (vedi {@link VoloDao#cercaVoli}).
+     * Il costo di una pagina non dipende da quante ne precedono.
+     *
+     * @param criteri criteri di ricerca
+     * @param dopo cursore restituito dalla pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di voli della pagina
+     * @return pagina di voli ordinati per data, orario di partenza e codice
+     */
+    @Override
+    public PaginaVoli cercaVoli(CriteriRicercaVoli criteri, CursoreVoli dopo, int dimensione) {
+        if (criteri == null) throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        List<Volo> voli = new ArrayList<>();
+        for (Volo v : intervallo(criteri, dopo).values()) {
+            if (!soddisfa(v, criteri)) continue;
+            if (voli.size() == dimensione) {
+                // Esiste almeno un volo dopo questa pagina
+                return new PaginaVoli(voli, CursoreVoli.dopo(voli.get(dimensione - 1)));
+            }
+            voli.add(v);
+        }
+        return new PaginaVoli(voli, null);
+    }
+
+    /**
+     * Calcola il numero di voli che soddisfano i criteri e il cursore di inizio di ogni pagina,
+     * così che {@link #cercaVoli} possa leggere direttamente qualsiasi pagina.
+     *
+     * @param criteri criteri di ricerca
+     * @param dimensione numero di voli per pagina
+     * @return indice delle pagine
+     */
+    @Override
+    public IndicePagine<CursoreVoli> indicizzaPagine(CriteriRicercaVoli criteri, int dimensione) {
+        if (criteri == null) throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        if (dimensione <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+
+        int righe = 0;
+        List<CursoreVoli> confini = new ArrayList<>();
+        for (Volo v : intervallo(criteri, null).values()) {
+            if (!soddisfa(v, criteri)) continue;
+            if (++righe % dimensione == 0) {
+                confini.add(CursoreVoli.dopo(v));
+            }
+        }
+        return new IndicePagine<>(righe, dimensione, confini);
+    }
+
+    /**
+     * Voli dell'indice più selettivo per i criteri, limitati all'intervallo di date e ai voli
+     * che seguono il cursore.
+     */
+    private NavigableMap<CursoreVoli, Volo> intervallo(CriteriRicercaVoli criteri, CursoreVoli dopo) {
+        ConcurrentNavigableMap<CursoreVoli, Volo> indice;
+        if (criteri.partenza() != null) {
+            indice = archivio.voliInPartenza(criteri.partenza());
+        } else if (criteri.destinazione() != null) {
+            indice = archivio.voliInArrivo(criteri.destinazione());
+        } else {
+            indice = archivio.voliOrdinati;
+        }
+
+        CursoreVoli da = criteri.dataDa() != null ? inizioGiorno(criteri.dataDa()) : null;
+        boolean daIncluso = true;
+        if (dopo != null && (da == null || ArchivioMemoria.ORDINE_VOLI.compare(dopo, da) >= 0)) {
+            da = dopo;
+            daIncluso = false;
+        }
+        CursoreVoli a = criteri.dataA() != null ? inizioGiorno(criteri.dataA().plusDays(1)) : null;
+        if (da != null && a != null && ArchivioMemoria.ORDINE_VOLI.compare(da, a) >= 0) {
+            return Collections.emptyNavigableMap();
+        }
+        if (da != null) indice = indice.tailMap(da, daIncluso);
+        if (a != null) indice = indice.headMap(a, false);
+        return indice;
+    }
+
+    /** Posizione che precede tutti i voli del giorno indicato. */
+    private static CursoreVoli inizioGiorno(LocalDate giorno) {
+        return new CursoreVoli(giorno, LocalTime.MIN, "");
+    }
+
+    /** True se il volo soddisfa i criteri diversi dall'intervallo di date. */
+    private static boolean soddisfa(Volo v, CriteriRicercaVoli criteri) {
+        if (criteri.partenza() != null && !v.getPartenza().getCodice().equalsIgnoreCase(criteri.partenza())) return false;
+        if (criteri.destinazione() != null && !v.getDestinazione().getCodice().equalsIgnoreCase(criteri.destinazione())) return false;
+        LocalTime orario = v.getOrarioPartenza();
+        if (criteri.orarioDa() != null && criteri.orarioA() != null && criteri.orarioA().isBefore(criteri.orarioDa())) {
+            // Fascia oraria a cavallo della mezzanotte
+            if (orario.isBefore(criteri.orarioDa()) && orario.isAfter(criteri.orarioA())) return false;
+        } else {
+            if (criteri.orarioDa() != null && orario.isBefore(criteri.orarioDa())) return false;
+            if (criteri.orarioA() != null && orario.isAfter(criteri.orarioA())) return false;
+        }
+        return criteri.stato() == null || v.getStato() == criteri.stato();
+    }
+
+    /**
+     * Rimuove un volo tramite codice.
+     *
+     * @param codice Codice volo.
+     * @return true se rimosso, false se non esiste o se ha prenotazioni.
+     */
+    @Override
+    public boolean rimuoviVolo(String codice) {
+        if (codice == null || codice.isEmpty())
+            throw new IllegalArgumentException("Il codice volo non può essere null o vuoto");
+        synchronized (archivio) {
+            if (!archivio.prenotazioniDelVolo(codice).isEmpty()) {
+                System.err.println("Errore rimozione volo: il volo " + codice + " ha delle prenotazioni");
+                return false;
+            }
+            return archivio.rimuoviVolo(codice) != null;
+        }
+    }
+
+    /**
+     * Rimuove tutti i voli. Da usare solo per test!
+     *
+     * @return true se svuotata, false se ci sono prenotazioni
+     */
+    @Override
+    public boolean svuota() {
+        synchronized (archivio) {
+            if (!archivio.prenotazioni.isEmpty()) {
+                System.err.println("Errore durante lo svuotamento della tabella voli: ci sono prenotazioni sui voli");
+                return false;
+            }
+            archivio.svuotaVoli();
+            return true;
+        }
+    }
+
+    /**
+     * I voli in memoria non passano da una cache.
+     *
+     * @return null
+     */
+    @Override
+    public StatisticheCache getStatisticheCache() {
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package it.unipv.ingsfw.aerotrack.facade;
 
 import java.util.List;
+import java.util.Map;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -56,6 +57,20 @@ public class AeroTrackFacade {
         voloService.creaVolo(codice, codicePartenza, codiceDestinazione, orario, velocita, dataVolo);
     }
     
+    /**
+     * Pianifica in blocco i voli di una giornata (es. import del piano voli).
+     */
+    public List<Volo> pianificaGiornata(LocalDate dataVolo, List<PianoVolo> piano) {
+        return voloService.pianificaGiornata(dataVolo, piano);
+    }
+    
+    /**
+     * Pianifica in blocco i voli di più giornate, elaborando in parallelo aeroporti e giorni indipendenti.
+     */
+    public List<Volo> pianificaInParallelo(Map<LocalDate, List<PianoVolo>> piano) {
+        return voloService.pianificaInParallelo(piano);
+    }
+    
     /**
      * Restituisce la lista di tutti i voli.
      */
@@ -86,6 +101,13 @@ public class AeroTrackFacade {
         return prenotazioneService.getTuttePrenotazioni();
     }
     
+    /**
+     * Restituisce le prenotazioni di un volo.
+     */
+    public List<Prenotazione> getPrenotazioniVolo(String codiceVolo) {
+        return prenotazioneService.trovaPrenotazioniPerVolo(codiceVolo);
+    }
+    
     /**
      * Svuota la tabella delle prenotazioni (da usare nei test per avere dati puliti).
      */
@@ -107,11 +129,12 @@ public class AeroTrackFacade {
             LocalDate dataEsempio = LocalDate.now();
             LocalTime oraEsempio = LocalTime.now();
             
-            // Voli di esempio
-            creaVolo("AZ101", "MXP", "FCO", oraEsempio, 850, dataEsempio);
-            creaVolo("AZ102", "FCO", "MXP", oraEsempio, 850, dataEsempio);
-            creaVolo("FR123", "LIN", "NAP", oraEsempio, 800, dataEsempio);
-            creaVolo("LH456", "MXP", "VCE", oraEsempio, 750, dataEsempio);
+            // Voli di esempio, salvati con un'unica scrittura batch
+            pianificaGiornata(dataEsempio, List.of(
+                    new PianoVolo("AZ101", "MXP", "FCO", oraEsempio, 850),
+                    new PianoVolo("AZ102", "FCO", "MXP", oraEsempio, 850),
+                    new PianoVolo("FR123", "LIN", "NAP", oraEsempio, 800),
+                    new PianoVolo("LH456", "MXP", "VCE", oraEsempio, 750)));
             
             // Prenotazioni di esempio
             prenotaVolo("Chiara", "Viale", "IT123456789", "AZ101");
@@ -1,9 +1,18 @@
 package it.unipv.ingsfw.aerotrack.models;
 
-import it.unipv.ingsfw.aerotrack.utils.CalcolaDistanza;
+import it.unipv.ingsfw.aerotrack.utils.CacheRotte;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
 /**
@@ -19,8 +28,20 @@ public class Aeroporto {
     private final double longitudine;
     private final int numeroPiste;
     private final List<Volo>[] piste;
-    private final List<Volo> voliInPartenza;
-    private final List<Volo> voliInArrivo;
+    private final Set<Volo> voliInPartenza;
+    private final Set<Volo> voliInArrivo;
+    private final IndicePiste indicePiste;
+    // I movimenti dei singoli voli prendono il lock in lettura (l'indice li sincronizza già per giorno),
+    // la ricostruzione dell'occupazione in scrittura: nessun volo può occupare piste mentre vengono svuotate
+    private final ReadWriteLock lockPiste = new ReentrantReadWriteLock();
+    
+    // Valori precalcolati per il calcolo delle distanze (formula di Haversine)
+    private final double latitudineRad;
+    private final double longitudineRad;
+    private final double cosLatitudine;
+    // Identificativo dell'istanza, usato come chiave nelle cache delle rotte
+    private final int id;
+    private static final AtomicInteger CONTATORE_ID = new AtomicInteger();
     
     
     /**
@@ -63,12 +84,25 @@ public class Aeroporto {
 		this.latitudine = latitudine;
 		this.longitudine = longitudine;
 		this.numeroPiste = numeroPiste;
-        piste = new ArrayList[numeroPiste];  
-        for (int i = 0; i < piste.length; i++) {
-            piste[i] = new ArrayList<>();
-        }
-        this.voliInPartenza = new ArrayList<>();     
-        this.voliInArrivo = new ArrayList<>();
+        // Strutture sincronizzate: la pianificazione parallela può registrare voli da più thread
+        piste = creaPiste(numeroPiste);
+        this.voliInPartenza = Collections.synchronizedSet(new LinkedHashSet<>());     
+        this.voliInArrivo = Collections.synchronizedSet(new LinkedHashSet<>());
+        this.indicePiste = new IndicePiste(numeroPiste);
+        this.latitudineRad = Math.toRadians(latitudine);
+        this.longitudineRad = Math.toRadians(longitudine);
+        this.cosLatitudine = Math.cos(latitudineRad);
+        this.id = CONTATORE_ID.incrementAndGet();
+	}
+	
+	
+	@SuppressWarnings("unchecked")
+	private static List<Volo>[] creaPiste(int numeroPiste) {
+		List<Volo>[] piste = (List<Volo>[]) new List<?>[numeroPiste];
+		for (int i = 0; i < piste.length; i++) {
+			piste[i] = Collections.synchronizedList(new ArrayList<>());
+		}
+		return piste;
 	}
 	
 	
@@ -108,6 +142,43 @@ public class Aeroporto {
 		return longitudine;
 	}
 	
+	/**
+     * Restituisce la latitudine dell'aeroporto in radianti (precalcolata).
+     * 
+     * @return Latitudine in radianti
+     */
+	public double getLatitudineRad() {
+		return latitudineRad;
+	}
+	
+	/**
+     * Restituisce la longitudine dell'aeroporto in radianti (precalcolata).
+     * 
+     * @return Longitudine in radianti
+     */
+	public double getLongitudineRad() {
+		return longitudineRad;
+	}
+	
+	/**
+     * Restituisce il coseno della latitudine (precalcolato), usato dalla formula di Haversine.
+     * 
+     * @return Coseno della latitudine
+     */
+	public double getCosLatitudine() {
+		return cosLatitudine;
+	}
+	
+	/**
+     * Restituisce l'identificativo di questa istanza, diverso per ogni aeroporto creato.
+     * Non è salvato sul database: serve come chiave per le cache in memoria.
+     * 
+     * @return Identificativo dell'istanza (maggiore di 0)
+     */
+	public int getId() {
+		return id;
+	}
+	
 	/**
      * Restituisce il numero totale di piste dell'aeroporto.
      * 
@@ -148,7 +219,7 @@ public class Aeroporto {
    
    /** Aggiunge un volo in partenza */
    public void aggiungiVoloInPartenza(Volo v) {
-       if (v != null && !voliInPartenza.contains(v)) {
+       if (v != null) {
            voliInPartenza.add(v);
        }
    }
@@ -157,22 +228,172 @@ public class Aeroporto {
     * Aggiunge un volo in arrivo.
     */
    public void aggiungiVoloInArrivo(Volo v) {
-       if (v != null && !voliInArrivo.contains(v)) {
+       if (v != null) {
            voliInArrivo.add(v);
        }
    }
    
    
+   /**
+    * Libera le piste occupate dal volo (es. volo cancellato).
+    * Il volo resta nelle liste dei voli in partenza/arrivo.
+    *
+    * @return true se il volo occupava almeno una pista
+    */
+   public boolean liberaPiste(Volo v) {
+       lockPiste.readLock().lock();
+       try {
+           boolean liberata = false;
+           for (List<Volo> pista : piste) {
+               liberata |= pista.remove(v);
+           }
+           return indicePiste.libera(v) || liberata;
+       } finally {
+           lockPiste.readLock().unlock();
+       }
+   }
+   
+   /**
+    * Rimuove il volo dalle liste dell'aeroporto e libera le piste che occupava (es. volo eliminato).
+    *
+    * @return true se il volo era registrato nell'aeroporto
+    */
+   public boolean rimuoviVolo(Volo v) {
+       boolean rimosso = voliInPartenza.remove(v) | voliInArrivo.remove(v);
+       return liberaPiste(v) || rimosso;
+   }
+   
+   /**
+    * Cerca la prima pista libera per un movimento (decollo o atterraggio) che inizia al minuto indicato.
+    * Una pista è occupata se un altro movimento inizia a meno di {@link IndicePiste#SEPARAZIONE} minuti.
+    *
+    * @param data giorno del movimento
+    * @param minuto minuto dalla mezzanotte
+    * @return indice della pista, -1 se nessuna pista è libera
+    */
+   public int cercaPistaLibera(LocalDate data, int minuto) {
+       return indicePiste.cercaPistaLibera(data, minuto);
+   }
+   
+   /**
+    * Cerca il primo minuto, a partire da quello indicato e nello stesso giorno,
+    * in cui almeno una pista è libera.
+    *
+    * @return pista e minuto trovati, null se nel resto del giorno tutte le piste sono occupate
+    */
+   public IndicePiste.Slot cercaPrimoSlotLibero(LocalDate data, int minuto) {
+       return indicePiste.cercaPrimoSlotLibero(data, minuto);
+   }
+   
+   /**
+    * Occupa la pista con un movimento del volo, anche se già occupata.
+    */
+   private void occupaPista(Volo v, int pista, LocalDate data, int minuto) {
+       piste[pista].add(v);
+       indicePiste.occupa(v, data, pista, minuto);
+   }
+   
+   /**
+    * Occupa la prima pista libera al minuto indicato. Usato da Volo durante l'assegnazione delle piste.
+    *
+    * @return indice della pista occupata, -1 se nessuna pista è libera
+    */
+   int occupaPistaLibera(Volo v, LocalDate data, int minuto) {
+       lockPiste.readLock().lock();
+       try {
+           int pista = indicePiste.occupaPistaLibera(v, data, minuto);
+           if (pista >= 0) {
+               piste[pista].add(v);
+           }
+           return pista;
+       } finally {
+           lockPiste.readLock().unlock();
+       }
+   }
+   
+   /**
+    * Occupa il primo slot libero a partire dal minuto indicato. Usato da Volo per il calcolo del ritardo.
+    *
+    * @return pista e minuto occupati, null se nel resto del giorno tutte le piste sono occupate
+    */
+   IndicePiste.Slot occupaPrimoSlotLibero(Volo v, LocalDate data, int minuto) {
+       lockPiste.readLock().lock();
+       try {
+           IndicePiste.Slot slot = indicePiste.occupaPrimoSlotLibero(v, data, minuto);
+           if (slot != null) {
+               piste[slot.pista()].add(v);
+           }
+           return slot;
+       } finally {
+           lockPiste.readLock().unlock();
+       }
+   }
+   
+   /**
+    * Ricostruisce in un'unica passata le liste dei voli e l'occupazione delle piste
+    * a partire dai voli che interessano questo aeroporto (es. dopo il caricamento dal database).
+    * Le liste precedenti vengono sostituite, quindi ricaricare gli stessi voli non le fa crescere.
+    * I voli in partenza occupano la pista già assegnata; ai voli in arrivo, in ordine di orario
+    * di arrivo, viene assegnata la prima pista libera (stesse regole del costruttore di Volo).
+    * Durante la ricostruzione gli altri thread non possono occupare o liberare piste di questo aeroporto.
+    *
+    * @param voli voli da considerare; quelli che non partono né arrivano qui vengono ignorati
+    */
+   public void ricostruisciOccupazione(Collection<Volo> voli) {
+       lockPiste.writeLock().lock();
+       try {
+           ricostruisci(voli);
+       } finally {
+           lockPiste.writeLock().unlock();
+       }
+   }
+
+   private void ricostruisci(Collection<Volo> voli) {
+       for (List<Volo> pista : piste) {
+           pista.clear();
+       }
+       voliInPartenza.clear();
+       voliInArrivo.clear();
+       indicePiste.svuota();
+
+       List<Volo> arrivi = new ArrayList<>();
+       for (Volo v : voli) {
+           // I voli cancellati o rimasti senza pista di decollo non occupano piste
+           boolean operativo = v.getPistaAssegnata() >= 0 && v.getStato() != Volo.StatoVolo.CANCELLATO;
+           if (v.getPartenza().equals(this)) {
+               voliInPartenza.add(v);
+               if (operativo && v.getPistaAssegnata() < numeroPiste) {
+                   occupaPista(v, v.getPistaAssegnata(), v.getDataVolo(), v.getMinutoPartenzaEffettivo());
+               }
+           }
+           if (v.getDestinazione().equals(this)) {
+               voliInArrivo.add(v);
+               if (operativo) {
+                   arrivi.add(v);
+               }
+           }
+       }
+
+       arrivi.sort(Comparator.comparingInt(Volo::getMinutoArrivo));
+       for (Volo v : arrivi) {
+           int minuto = v.getMinutoArrivo();
+           int pista = indicePiste.cercaPistaLibera(v.getDataVolo(), minuto);
+           if (pista >= 0) {
+               occupaPista(v, pista, v.getDataVolo(), minuto);
+           }
+       }
+   }
+   
    // Metodi Utils
    
    /**
-    * Calcola la distanza in km da un altro aeroporto
+    * Calcola la distanza in km da un altro aeroporto (usando la cache delle rotte)
     */
    public double calcolaDistanza(Aeroporto altroAeroporto) {
        if (altroAeroporto == null) {
            throw new IllegalArgumentException("L'aeroporto di destinazione non può essere null");
        }
-       return CalcolaDistanza.calcolaDistanza(this, altroAeroporto);
+       return CacheRotte.distanzaKm(this, altroAeroporto);
    }
    
    
@@ -0,0 +1,46 @@
+package it.unipv.ingsfw.aerotrack.models;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Criteri di ricerca dei voli, tradotti dal DAO dei voli
+ * in una query parametrica. Ogni criterio null non viene applicato.
+ * Il record è immutabile: i metodi con... restituiscono una copia con il criterio modificato.
+ *
+ * @param partenza     codice dell'aeroporto di partenza
+ * @param destinazione codice dell'aeroporto di destinazione
+ * @param dataDa       primo giorno (incluso)
+ * @param dataA        ultimo giorno (incluso)
+ * @param orarioDa     inizio della fascia oraria di partenza (incluso)
+ * @param orarioA      fine della fascia oraria di partenza (inclusa); se precede orarioDa la fascia scavalca la mezzanotte
+ * @param stato        stato del volo
+ */
+public record CriteriRicercaVoli(String partenza, String destinazione, LocalDate dataDa, LocalDate dataA,
+                                 LocalTime orarioDa, LocalTime orarioA, Volo.StatoVolo stato) {
+
+    /** Criteri vuoti: tutti i voli. */
+    public static CriteriRicercaVoli tutti() {
+        return new CriteriRicercaVoli(null, null, null, null, null, null, null);
+    }
+
+    public CriteriRicercaVoli conPartenza(String partenza) {
+        return new CriteriRicercaVoli(partenza, destinazione, dataDa, dataA, orarioDa, orarioA, stato);
+    }
+
+    public CriteriRicercaVoli conDestinazione(String destinazione) {
+        return new CriteriRicercaVoli(partenza, destinazione, dataDa, dataA, orarioDa, orarioA, stato);
+    }
+
+    public CriteriRicercaVoli conDate(LocalDate dataDa, LocalDate dataA) {
+        return new CriteriRicercaVoli(partenza, destinazione, dataDa, dataA, orarioDa, orarioA, stato);
+    }
+
+    public CriteriRicercaVoli conFasciaOraria(LocalTime orarioDa, LocalTime orarioA) {
+        return new CriteriRicercaVoli(partenza, destinazione, dataDa, dataA, orarioDa, orarioA, stato);
+    }
+
+    public CriteriRicercaVoli conStato(Volo.StatoVolo stato) {
+        return new CriteriRicercaVoli(partenza, destinazione, dataDa, dataA, orarioDa, orarioA, stato);
+    }
+}
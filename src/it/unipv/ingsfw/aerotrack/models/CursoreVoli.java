@@ -0,0 +1,20 @@
+package it.unipv.ingsfw.aerotrack.models;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Posizione nella ricerca paginata dei voli (keyset pagination): la pagina successiva
+ * contiene i voli che seguono (data_volo, orario_partenza, codice) nell'ordinamento.
+ *
+ * @param data   data dell'ultimo volo letto
+ * @param orario orario di partenza dell'ultimo volo letto
+ * @param codice codice dell'ultimo volo letto
+ */
+public record CursoreVoli(LocalDate data, LocalTime orario, String codice) {
+
+    /** Cursore posizionato dopo il volo indicato. */
+    public static CursoreVoli dopo(Volo v) {
+        return new CursoreVoli(v.getDataVolo(), v.getOrarioPartenza(), v.getCodice());
+    }
+}
@@ -0,0 +1,45 @@
+package it.unipv.ingsfw.aerotrack.models;
+
+import java.util.List;
+
+/**
+ * Posizioni di inizio delle pagine di una lettura con keyset pagination, calcolate in anticipo
+ * con una sola query: permettono di leggere direttamente qualsiasi pagina, senza scorrere
+ * quelle che la precedono e senza OFFSET.
+ * Le posizioni si riferiscono ai dati al momento del calcolo: righe aggiunte o rimosse dopo
+ * spostano il contenuto delle pagine ma non ne impediscono la lettura.
+ *
+ * @param righe            numero totale di righe
+ * @param dimensionePagina righe per pagina
+ * @param confini          cursore dell'ultima riga di ogni pagina completa, in ordine
+ * @param <C> tipo del cursore (ad esempio {@link CursoreVoli})
+ */
+public record IndicePagine<C>(int righe, int dimensionePagina, List<C> confini) {
+
+    public IndicePagine {
+        if (dimensionePagina <= 0) throw new IllegalArgumentException("La dimensione della pagina deve essere maggiore di 0");
+        confini = List.copyOf(confini);
+    }
+
+    /** Indice vuoto, senza righe. */
+    public static <C> IndicePagine<C> vuoto(int dimensionePagina) {
+        return new IndicePagine<>(0, dimensionePagina, List.of());
+    }
+
+    /** @return numero di pagine (l'ultima può essere incompleta) */
+    public int numeroPagine() {
+        return (righe + dimensionePagina - 1) / dimensionePagina;
+    }
+
+    /**
+     * Cursore da passare alla ricerca per leggere la pagina indicata.
+     *
+     * @return cursore dell'ultima riga della pagina precedente, null per la prima pagina
+     */
+    public C inizio(int pagina) {
+        if (pagina < 0 || pagina > confini.size()) {
+            throw new IndexOutOfBoundsException("Pagina inesistente: " + pagina);
+        }
+        return pagina == 0 ? null : confini.get(pagina - 1);
+    }
+}
@@ -0,0 +1,244 @@
+package it.unipv.ingsfw.aerotrack.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice di occupazione delle piste di un aeroporto, per giorno e per pista.
+ *
+ * Ogni movimento (decollo o atterraggio) che inizia al minuto s occupa la pista
+ * nell'intervallo [s - SEPARAZIONE, s + SEPARAZIONE]: un altro movimento non può
+ * iniziare in quell'intervallo. Per ogni pista e ogni giorno l'indice tiene un array
+ * di 1440 contatori (uno per minuto) e una bitmap dei minuti occupati, quindi:
+ * - "la pista è libera al minuto T?" costa un accesso alla bitmap;
+ * - "primo minuto libero dopo T" scorre al massimo 23 parole da 64 bit;
+ * - inserimento e rimozione aggiornano 61 contatori.
+ * Il costo non dipende dal numero di movimenti già presenti nel giorno.
+ *
+ * L'indice è thread-safe: ogni giorno ha un proprio lock, quindi giorni diversi
+ * dello stesso aeroporto possono essere pianificati in parallelo.
+ */
+public final class IndicePiste {
+
+    /** Minuti in un giorno. */
+    public static final int MINUTI_GIORNO = 24 * 60;
+
+    /** Separazione minima, in minuti, tra due movimenti sulla stessa pista. */
+    public static final int SEPARAZIONE = 30;
+
+    private final int numeroPiste;
+    private final Map<LocalDate, Giorno> giorni = new ConcurrentHashMap<>();
+    private final Map<Volo, List<Movimento>> movimenti = new ConcurrentHashMap<>();
+
+    IndicePiste(int numeroPiste) {
+        this.numeroPiste = numeroPiste;
+    }
+
+    /**
+     * Cerca la prima pista libera per un movimento che inizia al minuto indicato.
+     *
+     * @param data giorno del movimento
+     * @param minuto minuto di inizio dalla mezzanotte di data (oltre 1439 si passa ai giorni successivi)
+     * @return indice della pista libera, -1 se sono tutte occupate
+     */
+    int cercaPistaLibera(LocalDate data, int minuto) {
+        Giorno giorno = giorni.get(data.plusDays(minuto / MINUTI_GIORNO));
+        if (giorno == null) return 0;
+        synchronized (giorno) {
+            return giorno.pistaLibera(minuto % MINUTI_GIORNO);
+        }
+    }
+
+    /**
+     * Cerca, su tutte le piste, il primo minuto libero a partire da quello indicato nello stesso giorno.
+     * A parità di minuto viene scelta la pista con indice minore.
+     *
+     * @return lo slot trovato, null se nel resto del giorno non ci sono minuti liberi
+     */
+    Slot cercaPrimoSlotLibero(LocalDate data, int minuto) {
+        Giorno giorno = giorni.get(data.plusDays(minuto / MINUTI_GIORNO));
+        if (giorno == null) return new Slot(0, minuto % MINUTI_GIORNO);
+        synchronized (giorno) {
+            return giorno.primoSlotLibero(minuto % MINUTI_GIORNO);
+        }
+    }
+
+    /**
+     * Cerca la prima pista libera e, se esiste, la occupa con il movimento del volo.
+     * Ricerca e occupazione avvengono in modo atomico rispetto agli altri thread.
+     *
+     * @return indice della pista occupata, -1 se sono tutte occupate
+     */
+    int occupaPistaLibera(Volo volo, LocalDate data, int minuto) {
+        LocalDate giornoMovimento = data.plusDays(minuto / MINUTI_GIORNO);
+        minuto = minuto % MINUTI_GIORNO;
+        Giorno giorno = getGiorno(giornoMovimento);
+        int pista;
+        synchronized (giorno) {
+            pista = giorno.pistaLibera(minuto);
+            if (pista >= 0) giorno.aggiungi(pista, minuto, 1);
+        }
+        if (pista >= 0) registra(volo, new Movimento(giornoMovimento, pista, minuto));
+        return pista;
+    }
+
+    /**
+     * Cerca il primo slot libero a partire dal minuto indicato e, se esiste, lo occupa
+     * con il movimento del volo, in modo atomico rispetto agli altri thread.
+     *
+     * @return lo slot occupato, null se nel resto del giorno non ci sono minuti liberi
+     */
+    Slot occupaPrimoSlotLibero(Volo volo, LocalDate data, int minuto) {
+        LocalDate giornoMovimento = data.plusDays(minuto / MINUTI_GIORNO);
+        minuto = minuto % MINUTI_GIORNO;
+        Giorno giorno = getGiorno(giornoMovimento);
+        Slot slot;
+        synchronized (giorno) {
+            slot = giorno.primoSlotLibero(minuto);
+            if (slot != null) giorno.aggiungi(slot.pista(), slot.minuto(), 1);
+        }
+        if (slot != null) registra(volo, new Movimento(giornoMovimento, slot.pista(), slot.minuto()));
+        return slot;
+    }
+
+    /**
+     * Registra un movimento del volo sulla pista indicata, anche se la pista è già occupata.
+     */
+    void occupa(Volo volo, LocalDate data, int pista, int minuto) {
+        if (pista < 0 || pista >= numeroPiste)
+            throw new IllegalArgumentException("Pista non valida: " + pista);
+        LocalDate giornoMovimento = data.plusDays(minuto / MINUTI_GIORNO);
+        minuto = minuto % MINUTI_GIORNO;
+        Giorno giorno = getGiorno(giornoMovimento);
+        synchronized (giorno) {
+            giorno.aggiungi(pista, minuto, 1);
+        }
+        registra(volo, new Movimento(giornoMovimento, pista, minuto));
+    }
+
+    /**
+     * Libera tutti i movimenti registrati per il volo.
+     *
+     * @return true se il volo occupava almeno una pista
+     */
+    boolean libera(Volo volo) {
+        List<Movimento> mov = movimenti.remove(volo);
+        if (mov == null) return false;
+        for (Movimento m : mov) {
+            Giorno giorno = giorni.get(m.data());
+            if (giorno == null) continue;
+            synchronized (giorno) {
+                giorno.aggiungi(m.pista(), m.minuto(), -1);
+            }
+        }
+        return true;
+    }
+
+    /** Rimuove tutti i movimenti. */
+    void svuota() {
+        giorni.clear();
+        movimenti.clear();
+    }
+
+    private Giorno getGiorno(LocalDate data) {
+        return giorni.computeIfAbsent(data, d -> new Giorno(numeroPiste));
+    }
+
+    private void registra(Volo volo, Movimento movimento) {
+        movimenti.compute(volo, (v, lista) -> {
+            List<Movimento> nuova = lista == null ? new ArrayList<>(2) : lista;
+            nuova.add(movimento);
+            return nuova;
+        });
+    }
+
+    /** Slot libero trovato da {@link Aeroporto#cercaPrimoSlotLibero(LocalDate, int)}. */
+    public record Slot(int pista, int minuto) {}
+
+    private record Movimento(LocalDate data, int pista, int minuto) {}
+
+    /**
+     * Occupazione di tutte le piste in un giorno. Gli accessi vanno sincronizzati sull'oggetto.
+     */
+    private static final class Giorno {
+        private final OccupazionePista[] piste;
+
+        Giorno(int numeroPiste) {
+            this.piste = new OccupazionePista[numeroPiste];
+        }
+
+        int pistaLibera(int minuto) {
+            for (int i = 0; i < piste.length; i++) {
+                if (piste[i] == null || piste[i].isLibero(minuto)) return i;
+            }
+            return -1;
+        }
+
+        Slot primoSlotLibero(int minuto) {
+            Slot migliore = null;
+            for (int i = 0; i < piste.length; i++) {
+                int libero = piste[i] == null ? minuto : piste[i].primoLibero(minuto);
+                if (libero >= 0 && (migliore == null || libero < migliore.minuto())) {
+                    migliore = new Slot(i, libero);
+                    if (libero == minuto) break;
+                }
+            }
+            return migliore;
+        }
+
+        void aggiungi(int pista, int minuto, int delta) {
+            if (piste[pista] == null) piste[pista] = new OccupazionePista();
+            piste[pista].aggiungi(minuto, delta);
+            if (piste[pista].isVuota()) piste[pista] = null;
+        }
+    }
+
+    /**
+     * Occupazione di una pista in un giorno: contatore di movimenti che coprono ogni minuto
+     * e bitmap dei minuti con contatore maggiore di 0.
+     */
+    private static final class OccupazionePista {
+        private final short[] copertura = new short[MINUTI_GIORNO];
+        private final long[] occupati = new long[(MINUTI_GIORNO + 63) / 64];
+        private int movimenti = 0;
+
+        boolean isLibero(int minuto) {
+            return (occupati[minuto >>> 6] & (1L << minuto)) == 0;
+        }
+
+        /** @return primo minuto libero >= minuto, -1 se non ce ne sono entro la fine del giorno */
+        int primoLibero(int minuto) {
+            int parola = minuto >>> 6;
+            long liberi = ~occupati[parola] & (-1L << minuto);
+            while (true) {
+                if (liberi != 0) {
+                    int trovato = (parola << 6) + Long.numberOfTrailingZeros(liberi);
+                    return trovato < MINUTI_GIORNO ? trovato : -1;
+                }
+                if (++parola == occupati.length) return -1;
+                liberi = ~occupati[parola];
+            }
+        }
+
+        void aggiungi(int minuto, int delta) {
+            int da = Math.max(0, minuto - SEPARAZIONE);
+            int a = Math.min(MINUTI_GIORNO - 1, minuto + SEPARAZIONE);
+            for (int m = da; m <= a; m++) {
+                copertura[m] += delta;
+                if (copertura[m] == 0) {
+                    occupati[m >>> 6] &= ~(1L << m);
+                } else {
+                    occupati[m >>> 6] |= 1L << m;
+                }
+            }
+            movimenti += delta;
+        }
+
+        boolean isVuota() {
+            return movimenti == 0;
+        }
+    }
+}
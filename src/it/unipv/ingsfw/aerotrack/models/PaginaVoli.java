@@ -0,0 +1,17 @@
+package it.unipv.ingsfw.aerotrack.models;
+
+import java.util.List;
+
+/**
+ * Pagina di risultati della ricerca dei voli.
+ *
+ * @param voli       voli della pagina, ordinati per data, orario di partenza e codice
+ * @param successivo cursore da passare per leggere la pagina successiva, null se questa è l'ultima
+ */
+public record PaginaVoli(List<Volo> voli, CursoreVoli successivo) {
+
+    /** @return true se ci sono altri voli dopo questa pagina */
+    public boolean haSuccessiva() {
+        return successivo != null;
+    }
+}
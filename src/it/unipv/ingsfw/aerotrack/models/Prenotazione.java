@@ -1,6 +1,7 @@
 package it.unipv.ingsfw.aerotrack.models;
 
 import java.util.Objects;
+import java.util.function.LongSupplier;
 
 /**
  * Classe che rappresenta una prenotazione di un passeggero per un volo.
@@ -13,7 +14,13 @@ public class Prenotazione {
     private final Volo volo;
     private boolean cancellata;
     private final String codicePrenotazione;
-    private static int contatoreCodici = 1000;
+    // Generatore dei codici delle nuove prenotazioni, impostato dal DAO scelto all'avvio (allocatore
+    // sulla tabella sequenze o contatore dell'archivio in memoria). Senza DAO non si generano codici:
+    // un contatore locale darebbe gli stessi codici a più istanze dell'applicazione
+    private static volatile LongSupplier generatoreCodici = () -> {
+        throw new IllegalStateException("Generatore dei codici delle prenotazioni non impostato: "
+                + "le nuove prenotazioni vanno create dopo aver inizializzato il DAO delle prenotazioni");
+    };
     
     /**
      * Costruttore per creare una nuova prenotazione.
@@ -21,6 +28,7 @@ public class Prenotazione {
      * @param passeggero Passeggero che effettua la prenotazione
      * @param volo Volo prenotato
      * @throws IllegalArgumentException se il passeggero è null
+     * @throws IllegalStateException se il generatore dei codici non è stato impostato
      */
     public Prenotazione(Passeggero passeggero, Volo volo) {
         if (passeggero == null) 
@@ -28,9 +36,7 @@ public class Prenotazione {
         this.passeggero = passeggero;
         this.volo = volo;
         this.cancellata = false;
-        synchronized (Prenotazione.class) {
-            this.codicePrenotazione = "PR" + (contatoreCodici++);
-        }
+        this.codicePrenotazione = "PR" + generatoreCodici.getAsLong();
     }
     
     /**
@@ -52,9 +58,16 @@ public class Prenotazione {
 		this.cancellata = cancellata;
 	}
 	
-	// Aggiorna il contatore al massimo valore trovato in DB
-    public static void aggiornaContatore(int nuovoValore) {
-        contatoreCodici = nuovoValore;
+	/**
+     * Imposta il generatore dei codici delle nuove prenotazioni.
+     * 
+     * @param generatore generatore di valori numerici univoci
+     * @throws IllegalArgumentException se il generatore è null
+     */
+    public static void setGeneratoreCodici(LongSupplier generatore) {
+        if (generatore == null)
+            throw new IllegalArgumentException("Il generatore dei codici non può essere null");
+        generatoreCodici = generatore;
     }
     
 	 /**
@@ -1,11 +1,11 @@
 package it.unipv.ingsfw.aerotrack.models;
 
-import it.unipv.ingsfw.aerotrack.utils.CalcolaDistanza;
+import it.unipv.ingsfw.aerotrack.utils.CacheRotte;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -35,6 +35,20 @@ public class Volo{
     private StatoVolo stato;
     private int pistaAssegnata;
     private final LocalDate dataVolo;
+    
+    // Valori in minuti calcolati una sola volta, usati nei confronti al posto di LocalTime
+    private final int minutoPartenza;   // orario di partenza programmato, dalla mezzanotte
+    private final int tempoVolo;        // tempo di volo
+    private final double distanzaKm;    // distanza tra gli aeroporti, calcolata una sola volta
+    private int minutiRitardo;          // ritardo
+    private int minutoArrivo;           // occupazione della pista di atterraggio, dalla mezzanotte di dataVolo
+
+    /** Minuti di rullaggio tra l'inizio dell'occupazione della pista e il decollo. */
+    private static final int RULLAGGIO = 30;
+    /** Oltre questo ritardo il volo è considerato cancellato. */
+    private static final LocalTime RITARDO_MASSIMO = LocalTime.of(2, 0);
+    private static final long NANOS_MINUTO = 60_000_000_000L;
+    private static final long NANOS_GIORNO = 24 * 60 * NANOS_MINUTO;
 
     /**
      * Costruttore principale per creare un nuovo volo.
@@ -47,6 +61,17 @@ public class Volo{
      * @param velocita Velocità del volo
      */
     public Volo(String codice, Aeroporto partenza, Aeroporto destinazione, LocalTime orarioPartenza, double velocita, LocalDate data) {
+        this(codice, partenza, destinazione, orarioPartenza, velocita, data, -1, LocalTime.of(0, 0), StatoVolo.PROGRAMMATO);
+        assegnaPartenza();
+        assegnaArrivo();
+    }
+
+    /**
+     * Costruttore che inizializza il volo con uno stato già noto, senza assegnare piste
+     * e senza modificare gli aeroporti.
+     */
+    private Volo(String codice, Aeroporto partenza, Aeroporto destinazione, LocalTime orarioPartenza, double velocita, LocalDate data,
+                 int pistaAssegnata, LocalTime ritardo, StatoVolo stato) {
     	if (codice == null || codice.isEmpty())
             throw new IllegalArgumentException("Codice volo null");
         if (partenza == null || destinazione == null)
@@ -59,25 +84,70 @@ public class Volo{
         this.destinazione = destinazione;
         this.orarioPartenza = orarioPartenza;
         this.velocita = velocita;
-        this.ritardo = LocalTime.of(0, 0);
         this.dataVolo = data;
-        this.stato = StatoVolo.PROGRAMMATO;
+        this.stato = stato != null ? stato : StatoVolo.PROGRAMMATO;
         this.prenotazioni = new ArrayList<>();
-        this.pistaAssegnata = -1;
-        
-        // Cerca tra le piste dell'aeroporto di partenza la prima pista libera nell'orario di partenza
+        this.pistaAssegnata = pistaAssegnata;
+        this.minutoPartenza = orarioPartenza.toSecondOfDay() / 60;
+        this.distanzaKm = CacheRotte.distanzaKm(partenza, destinazione);
+        this.tempoVolo = (int) (distanzaKm / velocita * 60);
+        setRitardo(ritardo);
+    }
+
+    /**
+     * Ricostruisce un volo già pianificato a partire dal suo stato salvato (es. dal database).
+     * A differenza del costruttore pubblico non ricalcola pista e ritardo e non registra
+     * il volo negli aeroporti: l'occupazione delle piste va ricostruita a parte con
+     * {@link Aeroporto#ricostruisciOccupazione(java.util.Collection)}.
+     *
+     * @param pistaAssegnata indice (da 0) della pista di decollo, -1 se non assegnata
+     * @param ritardo ritardo salvato, null equivale a nessun ritardo
+     * @param stato stato salvato, null equivale a PROGRAMMATO
+     * @return il volo ripristinato
+     */
+    public static Volo ripristina(String codice, Aeroporto partenza, Aeroporto destinazione, LocalTime orarioPartenza, double velocita,
+                                  LocalDate data, int pistaAssegnata, LocalTime ritardo, StatoVolo stato) {
+        return new Volo(codice, partenza, destinazione, orarioPartenza, velocita, data, pistaAssegnata, ritardo, stato);
+    }
+
+    /**
+     * Crea un nuovo volo assegnando solo la pista di decollo (ed eventualmente il ritardo).
+     * La pista di atterraggio va assegnata in un secondo momento con {@link #assegnaArrivo()}:
+     * serve alla pianificazione in blocco, che tratta partenze e arrivi in fasi separate.
+     */
+    public static Volo pianificaPartenza(String codice, Aeroporto partenza, Aeroporto destinazione, LocalTime orarioPartenza,
+                                         double velocita, LocalDate data) {
+        Volo v = new Volo(codice, partenza, destinazione, orarioPartenza, velocita, data, -1, LocalTime.of(0, 0), StatoVolo.PROGRAMMATO);
+        v.assegnaPartenza();
+        return v;
+    }
+
+    /**
+     * Cerca tra le piste dell'aeroporto di partenza la prima pista libera nell'orario di partenza;
+     * se non ce ne sono calcola il ritardo. Registra il volo tra le partenze dell'aeroporto.
+     */
+    private void assegnaPartenza() {
         this.pistaAssegnata = assegnaPista(partenza, true);
         if (pistaAssegnata == -1) {
-            this.ritardo = calcolaRitardo();
+            setRitardo(calcolaRitardo());
             this.stato = StatoVolo.IN_RITARDO;
         }
-
-        // Cerca tra le piste dell'aeroporto di destinazione la prima pista libera nell'orario di arrivo
-        assegnaPista(destinazione, false);
-  
-     // Aggiorna le liste degli aeroporti
         partenza.aggiungiVoloInPartenza(this);
-        destinazione.aggiungiVoloInArrivo(this);  
+    }
+
+    /**
+     * Cerca tra le piste dell'aeroporto di destinazione la prima pista libera nell'orario di arrivo
+     * (un volo rimasto senza pista di decollo non atterra) e registra il volo tra gli arrivi.
+     *
+     * @return pista di atterraggio, -1 se non assegnata
+     */
+    public int assegnaArrivo() {
+        int pista = -1;
+        if (pistaAssegnata != -1) {
+            pista = assegnaPista(destinazione, false);
+        }
+        destinazione.aggiungiVoloInArrivo(this);
+        return pista;
     }
 
     /**
@@ -144,12 +214,13 @@ public class Volo{
     }
     
     /**
-     * Restituisce la lista delle prenotazioni del volo.
+     * Restituisce la lista delle prenotazioni del volo, come vista non modificabile
+     * (senza copiarla): riflette le prenotazioni aggiunte dopo la chiamata.
      * 
      * @return Lista delle prenotazioni
      */
     public List<Prenotazione> getPrenotazioni() {    
-        return new ArrayList<>(prenotazioni); 
+        return Collections.unmodifiableList(prenotazioni); 
     }
 
     /**
@@ -175,8 +246,15 @@ public class Volo{
         this.stato = stato;
     }
 
+    /**
+     * Imposta il ritardo e aggiorna i minuti di partenza effettiva e di arrivo.
+     * 
+     * @param ritardo nuovo ritardo, null equivale a nessun ritardo
+     */
     public void setRitardo(LocalTime ritardo) {
-        this.ritardo = ritardo;
+        this.ritardo = ritardo != null ? ritardo : LocalTime.MIDNIGHT;
+        this.minutiRitardo = this.ritardo.toSecondOfDay() / 60;
+        this.minutoArrivo = minutoPartenza + minutiRitardo + RULLAGGIO + tempoVolo;
     }
     
     public void setPistaAssegnata(int pista) {
@@ -215,139 +293,129 @@ public class Volo{
     }
     
     /**
-     * Calcola la distanza tra aeroporto di partenza e destinazione.
-     * Utilizza il metodo calcolaDistanza della classe Aeroporto.
+     * Restituisce la distanza tra aeroporto di partenza e destinazione,
+     * calcolata alla creazione del volo tramite la cache delle rotte.
      * 
      * @return Distanza in chilometri
      */
     public double getDistanzaKm() {
-        return CalcolaDistanza.calcolaDistanza(partenza, destinazione);
+        return distanzaKm;
     }
     
     /**
-     * Calcola il tempo totale di volo.
+     * Restituisce il tempo totale di volo, calcolato alla creazione del volo
+     * (distanza e velocità non cambiano).
      * @return Tempo di volo in minuti
      */
     public long calcolaTempo() {
-        double ore = getDistanzaKm() / velocita; // tempo in ore
-        long minuti = (long)(ore * 60);          // converto ore in minuti (interi)
-        return minuti;
+        return tempoVolo;
     }
     
     
+    /**
+     * Minuto (dalla mezzanotte di dataVolo) in cui il volo occupa la pista di decollo, ritardo compreso.
+     */
+    public int getMinutoPartenzaEffettivo() {
+        return minutoPartenza + minutiRitardo;
+    }
+
+    /**
+     * Minuto (dalla mezzanotte di dataVolo, può superare 1439) in cui il volo occupa la pista
+     * di atterraggio: partenza effettiva + 30 minuti di rullaggio + tempo di volo.
+     */
+    public int getMinutoArrivo() {
+        return minutoArrivo;
+    }
+    
     /**
      * Assegna la pista di partenza o atterraggio a seconda del valore isPartenza
-     * @return numero pista assegnata in partenza e null in destinazione
+     * @return numero pista assegnata, -1 se nessuna pista è libera
      */
     private int assegnaPista(Aeroporto aeroporto, boolean isPartenza) {
         // Orario di riferimento: partenza o arrivo a seconda del contesto
-        LocalTime mioOrario = isPartenza ? orarioPartenza
-                                         : orarioPartenza.plusMinutes(30 + calcolaTempo());
-
-        for (int i = 0; i < aeroporto.getNumeroPiste(); i++) {
-            boolean libera = true;
-
-            for (Volo v : aeroporto.getPiste()[i]) {
-            	if(v.getDataVolo().isEqual(dataVolo)) {
-            		if(v.getDataVolo().isEqual(dataVolo)) {
-             		   // Conflitto con altri voli in partenza sulla stessa pista
-            			if (v.getPartenza().equals(aeroporto)) {
-            				if (!(mioOrario.plusMinutes(30).isBefore(v.getOrarioPartenza()) ||
-            						mioOrario.isAfter(v.getOrarioPartenza().plusMinutes(30)))) {
-            					libera = false;
-            					break;
-            				}
-                	   }
-
-            			// Conflitto con voli in arrivo sulla stessa pista
-            			if (v.getDestinazione().equals(aeroporto)) {
-            				if (!(mioOrario.plusMinutes(30).isBefore(v.getOrarioPartenza().plusMinutes(30 + v.calcolaTempo())) ||
-            						mioOrario.isAfter(v.getOrarioPartenza().plusMinutes(30 + v.calcolaTempo())))) {
-            					libera = false;
-            					break;
-            				}
-            			}
-            		}  
-            	}
-            }
+        int mioMinuto = isPartenza ? getMinutoPartenzaEffettivo() : getMinutoArrivo();
 
-            // Se la pista è libera, assegna
-            if (libera) {
-                aeroporto.getPiste()[i].add(this);
-                return i;
-            }
-        }
-
-        return -1; // Nessuna pista disponibile
+        return aeroporto.occupaPistaLibera(this, dataVolo, mioMinuto);
     }
 
 
     /**
      * Calcola il ritardo solo se la pista non è assegnata.
+     * Cerca il primo minuto della giornata, a partire dall'orario di partenza,
+     * in cui una pista dell'aeroporto di partenza è libera e la assegna al volo.
+     * Se nel resto della giornata non ci sono piste libere il volo resta senza pista
+     * e il ritardo restituito è massimo (il volo risulterà cancellato).
      * 
      * @return Ritardo calcolato in ore
      */
     public LocalTime calcolaRitardo() {
-        // Prova prima ad assegnare direttamente il volo se c'è una pista libera
-        for (int i = 0; i < partenza.getNumeroPiste(); i++) {
-            boolean sovrapposto = false;
-
-            for (Volo v : partenza.getPiste()[i]) {
-
-                // Test sovrapposizione
-                if (!(orarioPartenza.plusMinutes(30).isBefore(v.getOrarioPartenza()) || orarioPartenza.isAfter(v.getOrarioPartenza().plusMinutes(30)))) {
-                    sovrapposto = true;
-                    break;
-                }
-            }
-
-            if (!sovrapposto) {
-                // Pista libera, assegna
-            	partenza.getPiste()[i].add(this);
-                this.pistaAssegnata = i;
-                return LocalTime.of(0, 0); // Nessun ritardo
-            }
+        int minuto = minutoPartenza;
+        IndicePiste.Slot slot = partenza.occupaPrimoSlotLibero(this, dataVolo, minuto);
+        if (slot == null) {
+            this.pistaAssegnata = -1;
+            return LocalTime.MAX;
         }
 
-        // Se tutte le piste sono occupate, cerca il primo orario disponibile dopo i 30 minuti di ciascuna pista
-        LocalTime primoDisponibile = LocalTime.MAX;
-        int pistaScelta = -1;
-
-        for (int i = 0; i < partenza.getNumeroPiste(); i++) {
-            for (Volo v : partenza.getPiste()[i]) {
-            	if(v.getDataVolo().isEqual(dataVolo)) {
-            		 if (v.getOrarioPartenza().plusMinutes(30).isAfter(orarioPartenza) && v.getOrarioPartenza().plusMinutes(30).isBefore(primoDisponibile)) {
-                         primoDisponibile = v.getOrarioPartenza().plusMinutes(30);
-                         pistaScelta = i;
-                     }
-            	}
-            }
-        }
-
-        // Calcola ritardo
-        Duration ritardo = Duration.between(orarioPartenza, primoDisponibile);
-        partenza.getPiste()[pistaScelta].add(this);
-        this.pistaAssegnata = pistaScelta;
+        this.pistaAssegnata = slot.pista();
 
-        return LocalTime.of((int) ritardo.toHours(), ritardo.toMinutesPart());
+        int ritardo = slot.minuto() - minuto;
+        return LocalTime.of(ritardo / 60, ritardo % 60);
     }
 
     
     /**
      * Calcola lo stato rispetto a un orario fittizio.
+     * I confronti sono fatti sui nanosecondi del giorno, senza creare oggetti LocalTime;
+     * come con LocalTime.plusMinutes, gli orari oltre la mezzanotte ricominciano da 00:00.
+     * Lo stato salvato del volo ({@link #getStato()}) non viene modificato.
      */
     public StatoVolo calcolaStato(LocalTime orario) {
-    	stato = StatoVolo.PROGRAMMATO;
-        if((ritardo.isAfter(LocalTime.of(2, 0)))) return StatoVolo.CANCELLATO;
-    	if ( orario.isAfter(orarioPartenza)
-            && orario.isBefore(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60))) return StatoVolo.IN_ATTESA;
-        if ((orario.equals(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60)) || orario.isAfter(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60))) 
-        	&& orario.isBefore(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))) return StatoVolo.IN_PARTENZA;
-        if ((orario.equals(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))) || orario.isAfter(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))
-            && orario.isBefore(orarioPartenza.plusMinutes(30 + calcolaTempo() + ritardo.toSecondOfDay() / 60))) return StatoVolo.IN_VOLO;
-        if (orario.isAfter(orarioPartenza.plusMinutes(30 + calcolaTempo() + ritardo.toSecondOfDay() / 60))) return StatoVolo.ATTERRATO;
+        if (ritardo.compareTo(RITARDO_MASSIMO) > 0) return StatoVolo.CANCELLATO;
 
-        return stato;
+        long adesso = orario.toNanoOfDay();
+        long partenzaProgrammata = orarioPartenza.toNanoOfDay();
+        long partenzaEffettiva = dopo(minutiRitardo);
+        long decollo = dopo(RULLAGGIO + minutiRitardo);
+        long atterraggio = dopo(RULLAGGIO + tempoVolo + minutiRitardo);
+
+    	if (adesso > partenzaProgrammata && adesso < partenzaEffettiva) return StatoVolo.IN_ATTESA;
+        if (adesso >= partenzaEffettiva && adesso < decollo) return StatoVolo.IN_PARTENZA;
+        if (adesso == decollo || (adesso > decollo && adesso < atterraggio)) return StatoVolo.IN_VOLO;
+        if (adesso > atterraggio) return StatoVolo.ATTERRATO;
+
+        return StatoVolo.PROGRAMMATO;
+    }
+
+    /**
+     * Primo orario successivo a quello indicato in cui {@link #calcolaStato} cambia risultato
+     * (fine della partenza programmata, partenza effettiva, decollo, atterraggio).
+     * Permette di ricalcolare lo stato solo quando cambia, invece che a intervalli regolari.
+     *
+     * @return orario del prossimo cambio di stato, null se lo stato non cambia più entro la giornata
+     */
+    public LocalTime prossimoCambioStato(LocalTime orario) {
+        if (ritardo.compareTo(RITARDO_MASSIMO) > 0) return null;
+
+        long adesso = orario.toNanoOfDay();
+        // Stessi confini di calcolaStato: con i confronti stretti lo stato cambia subito dopo l'istante
+        long[] confini = {
+                orarioPartenza.toNanoOfDay() + 1,
+                dopo(minutiRitardo),
+                dopo(RULLAGGIO + minutiRitardo),
+                dopo(RULLAGGIO + tempoVolo + minutiRitardo) + 1
+        };
+        long prossimo = Long.MAX_VALUE;
+        for (long confine : confini) {
+            if (confine > adesso && confine < prossimo) prossimo = confine;
+        }
+        return prossimo < NANOS_GIORNO ? LocalTime.ofNanoOfDay(prossimo) : null;
+    }
+
+    /**
+     * Orario (in nanosecondi del giorno) che segue di minuti l'orario di partenza programmato.
+     */
+    private long dopo(long minuti) {
+        return Math.floorMod(orarioPartenza.toNanoOfDay() + minuti * NANOS_MINUTO, NANOS_GIORNO);
     }
     
     /**
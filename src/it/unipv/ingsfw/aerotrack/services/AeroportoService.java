@@ -1,14 +1,14 @@
 package it.unipv.ingsfw.aerotrack.services;
 
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
-import it.unipv.ingsfw.aerotrack.dao.AeroportoDao;
+import java.util.function.Consumer;
 import it.unipv.ingsfw.aerotrack.dao.DBConnection;
+import it.unipv.ingsfw.aerotrack.dao.FabbricaDao;
+import it.unipv.ingsfw.aerotrack.dao.IAeroportoDao;
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
 import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
 
 /**
  * Service Singleton per la logica di business relativa agli aeroporti.
@@ -17,10 +17,10 @@ import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
 public class AeroportoService {
 	
 	private static AeroportoService instance;
-	private final AeroportoDao aeroportoDao;
+	private final IAeroportoDao aeroportoDao;
     
 	private AeroportoService() {
-        this.aeroportoDao = AeroportoDao.getInstance();
+        this.aeroportoDao = FabbricaDao.aeroporti();
     }
     
     /** @return istanza singleton */
@@ -35,12 +35,8 @@ public class AeroportoService {
 
     
     public void svuotaAeroporti() {
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("DELETE FROM aeroporti");
+        if (aeroportoDao.svuota()) {
             System.out.println("Tabella aeroporti svuotata.");
-        } catch (SQLException e) {
-            System.err.println("Errore durante lo svuotamento della tabella aeroporti: " + e.getMessage());
         }
     }
     
@@ -50,6 +46,16 @@ public class AeroportoService {
      * @throws IllegalArgumentException se i parametri non sono validi
      */
     public void aggiungiAeroporto(String codice, String nome, double latitudine, double longitudine, int numeroPiste) {
+        aeroportoDao.aggiungiAeroporto(creaAeroporto(codice, nome, latitudine, longitudine, numeroPiste));
+    }
+
+    /**
+     * Valida i parametri e crea l'aeroporto (codice in maiuscolo), senza salvarlo.
+     * Usato anche dall'importazione da CSV.
+     *
+     * @throws IllegalArgumentException se i parametri non sono validi
+     */
+    static Aeroporto creaAeroporto(String codice, String nome, double latitudine, double longitudine, int numeroPiste) {
         if (codice == null || codice.length() != 3) {
             throw new IllegalArgumentException("Codice aeroporto deve essere di 3 caratteri");
         }
@@ -60,8 +66,7 @@ public class AeroportoService {
             throw new IllegalArgumentException("Numero piste deve essere tra 1 e 10");
         }
         codice = codice.toUpperCase();
-        Aeroporto a = new Aeroporto(codice, nome, latitudine, longitudine, numeroPiste);
-        aeroportoDao.aggiungiAeroporto(a);
+        return new Aeroporto(codice, nome, latitudine, longitudine, numeroPiste);
     }    
     
     /**
@@ -80,13 +85,24 @@ public class AeroportoService {
 
     /**
      * Importa aeroporti da file CSV.
-     * Gli aeroporti importati vengono aggiunti tramite il service (con validazione).
+     * Il file viene letto in streaming e salvato a blocchi (vedi {@link ImportazioneAeroporti}):
+     * le righe non valide vengono scartate e riportate nell'esito, senza interrompere l'importazione.
+     *
+     * @return esito dell'importazione
+     * @throws IOException se il file non può essere letto
      */
-    public void importaAeroportiCSV(String filePath) throws IOException {
-        List<Aeroporto> importati = CSVUtils.importaAeroporti(filePath);
-        for (Aeroporto a : importati) {
-            aggiungiAeroporto(a.getCodice(), a.getNome(), a.getLatitudine(), a.getLongitudine(), a.getNumeroPiste());
-        }
+    public EsitoImportazione importaAeroportiCSV(String filePath) throws IOException {
+        return importaAeroportiCSV(filePath, null);
+    }
+
+    /**
+     * Come {@link #importaAeroportiCSV(String)}, notificando l'avanzamento dopo ogni blocco salvato.
+     *
+     * @param avanzamento riceve l'esito parziale (chiamato dal thread che esegue l'importazione)
+     */
+    public EsitoImportazione importaAeroportiCSV(String filePath, Consumer<EsitoImportazione> avanzamento)
+            throws IOException {
+        return new ImportazioneAeroporti(aeroportoDao, DBConnection.getDimensioneBatch()).importa(filePath, avanzamento);
     }
     
     /**
@@ -105,4 +121,12 @@ public class AeroportoService {
     public boolean rimuoviAeroporto(String codice) {
         return aeroportoDao.rimuoviAeroporto(codice);
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce le statistiche della cache degli aeroporti (richieste servite dalla memoria,
+     * caricamenti dal database, voci sfrattate...).
+     */
+    public List<StatisticheCache> getStatisticheCache() {
+        return aeroportoDao.getStatisticheCache();
+    }
+}
@@ -0,0 +1,28 @@
+package it.unipv.ingsfw.aerotrack.services;
+
+import java.util.List;
+
+/**
+ * Esito (parziale o finale) di un'importazione da file CSV.
+ *
+ * @param righeLette numero di righe di dati lette dal file (intestazione esclusa)
+ * @param importate  numero di righe salvate nel database
+ * @param saltate    numero di righe ignorate senza errore (es. aeroporti senza codice IATA)
+ * @param errori     numero di righe scartate per errore
+ * @param messaggi   messaggi dei primi errori, nella forma "riga N: motivo"
+ */
+public record EsitoImportazione(int righeLette, int importate, int saltate, int errori, List<String> messaggi) {
+
+    /** Numero massimo di messaggi di errore conservati. */
+    public static final int MESSAGGI_MASSIMI = 100;
+
+    public EsitoImportazione {
+        messaggi = List.copyOf(messaggi);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Righe lette: %d, importate: %d, saltate: %d, errori: %d",
+                righeLette, importate, saltate, errori);
+    }
+}
@@ -0,0 +1,244 @@
+package it.unipv.ingsfw.aerotrack.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import it.unipv.ingsfw.aerotrack.dao.IAeroportoDao;
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+
+/**
+ * Importazione in streaming di aeroporti da file CSV.
+ *
+ * Il file attraversa una pipeline di quattro stadi collegati da code limitate:
+ * 1. lettura delle righe dal file;
+ * 2. divisione delle righe in campi ({@link CSVUtils#dividiRiga(String)});
+ * 3. validazione e creazione degli aeroporti;
+ * 4. salvataggio a blocchi con {@link IAeroportoDao#aggiungiAeroporti(java.util.Collection)}.
+ * I primi tre stadi hanno un thread ciascuno, il salvataggio avviene nel thread chiamante.
+ * Le code limitate fanno attendere gli stadi più veloci, quindi la memoria usata
+ * non dipende dalla dimensione del file.
+ *
+ * Le righe non valide vengono contate e segnalate nell'esito senza interrompere l'importazione.
+ * Sono riconosciuti due formati, in base all'intestazione:
+ * - quello di {@link CSVUtils#esportaAeroporti(List, String)}: codice,nome,latitudine,longitudine,numeroPiste;
+ * - airports.csv di OurAirports: iata_code,name,latitude_deg,longitude_deg (1 pista per aeroporto;
+ *   gli aeroporti senza codice IATA vengono saltati).
+ */
+class ImportazioneAeroporti {
+
+    private static final int DIMENSIONE_CODE = 1024;
+    private static final int PISTE_DEFAULT = 1;
+
+    /** Elemento che segnala la fine dei dati su una coda. */
+    private static final Object FINE = new Object();
+
+    private final IAeroportoDao aeroportoDao;
+    private final int dimensioneBlocco;
+
+    private final AtomicInteger righeLette = new AtomicInteger();
+    private final AtomicInteger saltate = new AtomicInteger();
+    private final AtomicInteger errori = new AtomicInteger();
+    private final List<String> messaggi = Collections.synchronizedList(new ArrayList<>());
+    private int importate;
+    private volatile IOException erroreLettura;
+
+    /**
+     * @param aeroportoDao DAO su cui salvare gli aeroporti
+     * @param dimensioneBlocco numero di aeroporti salvati con una chiamata al DAO
+     */
+    ImportazioneAeroporti(IAeroportoDao aeroportoDao, int dimensioneBlocco) {
+        this.aeroportoDao = aeroportoDao;
+        this.dimensioneBlocco = dimensioneBlocco;
+    }
+
+    /** Posizione delle colonne usate nel file. */
+    private record Colonne(int codice, int nome, int latitudine, int longitudine, int piste) {}
+
+    /** Riga del file con il suo numero (1 = intestazione). */
+    private record Riga(int numero, String testo) {}
+
+    /** Riga divisa in campi. */
+    private record Campi(int numero, List<String> valori) {}
+
+    /**
+     * Importa il file e restituisce l'esito finale.
+     *
+     * @param filePath percorso del file CSV
+     * @param avanzamento riceve l'esito parziale dopo ogni blocco salvato (può essere null)
+     * @throws IOException se il file non può essere letto o l'intestazione non è riconosciuta
+     */
+    EsitoImportazione importa(String filePath, Consumer<EsitoImportazione> avanzamento) throws IOException {
+        BlockingQueue<Object> righe = new ArrayBlockingQueue<>(DIMENSIONE_CODE);
+        BlockingQueue<Object> campi = new ArrayBlockingQueue<>(DIMENSIONE_CODE);
+        BlockingQueue<Object> aeroporti = new ArrayBlockingQueue<>(DIMENSIONE_CODE);
+
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
+            String intestazione = reader.readLine();
+            if (intestazione == null) throw new IOException("File vuoto");
+            Colonne colonne = riconosciColonne(intestazione);
+
+            List<Thread> stadi = List.of(
+                    new Thread(() -> leggi(reader, righe), "import-aeroporti-lettura"),
+                    new Thread(() -> dividi(righe, campi), "import-aeroporti-divisione"),
+                    new Thread(() -> valida(campi, aeroporti, colonne), "import-aeroporti-validazione"));
+            try {
+                for (Thread t : stadi) {
+                    t.setDaemon(true);
+                    t.start();
+                }
+                salva(aeroporti, avanzamento);
+                for (Thread t : stadi) t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Importazione interrotta", e);
+            } finally {
+                // In caso di errore nel salvataggio gli stadi potrebbero restare bloccati sulle code
+                for (Thread t : stadi) t.interrupt();
+            }
+        }
+        if (erroreLettura != null) throw erroreLettura;
+        return esito();
+    }
+
+    private static Colonne riconosciColonne(String intestazione) throws IOException {
+        List<String> nomi = new ArrayList<>();
+        for (String nome : CSVUtils.dividiRiga(intestazione)) {
+            nomi.add(nome.trim().toLowerCase(Locale.ROOT));
+        }
+        if (nomi.contains("codice")) {
+            return new Colonne(nomi.indexOf("codice"), nomi.indexOf("nome"), nomi.indexOf("latitudine"),
+                    nomi.indexOf("longitudine"), nomi.indexOf("numeropiste"));
+        }
+        if (nomi.contains("iata_code")) {
+            return new Colonne(nomi.indexOf("iata_code"), nomi.indexOf("name"), nomi.indexOf("latitude_deg"),
+                    nomi.indexOf("longitude_deg"), -1);
+        }
+        throw new IOException("Intestazione non riconosciuta: " + intestazione);
+    }
+
+    // Stadio 1: lettura
+    private void leggi(BufferedReader reader, BlockingQueue<Object> uscita) {
+        try {
+            int numero = 1;
+            String testo;
+            while ((testo = reader.readLine()) != null) {
+                numero++;
+                if (testo.isBlank()) continue;
+                righeLette.incrementAndGet();
+                uscita.put(new Riga(numero, testo));
+            }
+        } catch (IOException e) {
+            erroreLettura = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        inviaFine(uscita);
+    }
+
+    // Stadio 2: divisione in campi
+    private void dividi(BlockingQueue<Object> ingresso, BlockingQueue<Object> uscita) {
+        try {
+            Object elemento;
+            while ((elemento = ingresso.take()) != FINE) {
+                Riga riga = (Riga) elemento;
+                uscita.put(new Campi(riga.numero(), CSVUtils.dividiRiga(riga.testo())));
+            }
+        } catch (InterruptedException e) {
+            return;
+        }
+        inviaFine(uscita);
+    }
+
+    // Stadio 3: validazione
+    private void valida(BlockingQueue<Object> ingresso, BlockingQueue<Object> uscita, Colonne colonne) {
+        try {
+            Object elemento;
+            while ((elemento = ingresso.take()) != FINE) {
+                Campi campi = (Campi) elemento;
+                String codice = valore(campi, colonne.codice());
+                if (codice.isEmpty() && colonne.piste() < 0) {
+                    saltate.incrementAndGet();
+                    continue;
+                }
+                try {
+                    int piste = colonne.piste() < 0 ? PISTE_DEFAULT : Integer.parseInt(valore(campi, colonne.piste()));
+                    uscita.put(AeroportoService.creaAeroporto(codice, valore(campi, colonne.nome()),
+                            Double.parseDouble(valore(campi, colonne.latitudine())),
+                            Double.parseDouble(valore(campi, colonne.longitudine())), piste));
+                } catch (IllegalArgumentException e) {
+                    // Comprende NumberFormatException
+                    registraErrore(campi.numero(), e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            return;
+        }
+        inviaFine(uscita);
+    }
+
+    // Stadio 4: salvataggio a blocchi
+    private void salva(BlockingQueue<Object> ingresso, Consumer<EsitoImportazione> avanzamento)
+            throws InterruptedException {
+        List<Aeroporto> blocco = new ArrayList<>(dimensioneBlocco);
+        Object elemento;
+        while ((elemento = ingresso.take()) != FINE) {
+            blocco.add((Aeroporto) elemento);
+            if (blocco.size() == dimensioneBlocco) salvaBlocco(blocco, avanzamento);
+        }
+        if (!blocco.isEmpty()) salvaBlocco(blocco, avanzamento);
+    }
+
+    private void salvaBlocco(List<Aeroporto> blocco, Consumer<EsitoImportazione> avanzamento) {
+        if (aeroportoDao.aggiungiAeroporti(blocco)) {
+            importate += blocco.size();
+        } else {
+            errori.addAndGet(blocco.size());
+            aggiungiMessaggio("blocco di " + blocco.size() + " aeroporti da " + blocco.get(0).getCodice()
+                    + ": errore di salvataggio nel database");
+        }
+        blocco.clear();
+        if (avanzamento != null) avanzamento.accept(esito());
+    }
+
+    private static String valore(Campi campi, int colonna) {
+        if (colonna < 0 || colonna >= campi.valori().size()) return "";
+        return campi.valori().get(colonna).trim();
+    }
+
+    private void registraErrore(int numero, String motivo) {
+        errori.incrementAndGet();
+        aggiungiMessaggio("riga " + numero + ": " + motivo);
+    }
+
+    private void aggiungiMessaggio(String messaggio) {
+        synchronized (messaggi) {
+            if (messaggi.size() < EsitoImportazione.MESSAGGI_MASSIMI) messaggi.add(messaggio);
+        }
+    }
+
+    private static void inviaFine(BlockingQueue<Object> coda) {
+        try {
+            coda.put(FINE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private EsitoImportazione esito() {
+        synchronized (messaggi) {
+            return new EsitoImportazione(righeLette.get(), importate, saltate.get(), errori.get(), messaggi);
+        }
+    }
+}
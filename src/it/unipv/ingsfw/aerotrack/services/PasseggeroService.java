@@ -1,17 +1,17 @@
 package it.unipv.ingsfw.aerotrack.services;
 
-import it.unipv.ingsfw.aerotrack.dao.DBConnection;
-import it.unipv.ingsfw.aerotrack.dao.PasseggeroDao;
+import it.unipv.ingsfw.aerotrack.dao.FabbricaDao;
+import it.unipv.ingsfw.aerotrack.dao.IPasseggeroDao;
 import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.LetturaCSVParallela;
 
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.io.IOException;
 import java.util.List;
 
 public class PasseggeroService {
 	private static PasseggeroService instance; 
-	private final PasseggeroDao passeggeroDao = PasseggeroDao.getInstance();
+	private final IPasseggeroDao passeggeroDao = FabbricaDao.passeggeri();
 
 
     private PasseggeroService() {}
@@ -48,12 +48,8 @@ public class PasseggeroService {
     }
     
     public void svuotaPasseggeri() {
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("DELETE FROM passeggeri");
+        if (passeggeroDao.svuota()) {
             System.out.println("Tabella passeggeri svuotata.");
-        } catch (SQLException e) {
-            System.err.println("Errore durante lo svuotamento della tabella passeggeri: " + e.getMessage());
         }
     }
 
@@ -73,4 +69,38 @@ public class PasseggeroService {
     public List<Passeggero> getTuttiPasseggeri() {
         return passeggeroDao.getTuttiPasseggeri();
     }
-}
\ No newline at end of file
+
+    /**
+     * Importa passeggeri da file CSV (colonne di {@link CSVUtils#COLONNE_PASSEGGERI}).
+     * Le righe sono convertite in parallelo a blocchi ({@link LetturaCSVParallela}) e ogni
+     * blocco è salvato con scritture batch; i passeggeri già presenti vengono aggiornati.
+     * Le righe non valide sono scartate e riportate nell'esito.
+     *
+     * @param filePath percorso del file CSV
+     * @return esito dell'importazione
+     * @throws IOException se il file non può essere letto o manca una colonna
+     */
+    public EsitoImportazione importaPasseggeriCSV(String filePath) throws IOException {
+        RiepilogoImportazione riepilogo = new RiepilogoImportazione();
+        LetturaCSVParallela.<Passeggero>leggi(filePath, CSVUtils.COLONNE_PASSEGGERI,
+                riga -> new Passeggero(riga.testo(1), riga.testo(2), riga.testo(0)), blocco -> {
+            riepilogo.letto(blocco);
+            if (blocco.elementi().isEmpty()) return;
+            if (passeggeroDao.aggiungiPasseggeri(blocco.elementi())) {
+                riepilogo.importate(blocco.elementi().size());
+            } else {
+                riepilogo.erroreBlocco(blocco.elementi().size(), blocco.riga(0), "errore di salvataggio nel database");
+            }
+        });
+        return riepilogo.esito();
+    }
+
+    /**
+     * Esporta tutti i passeggeri su file CSV, leggendoli dal database con un cursore.
+     *
+     * @throws IOException in caso di errori di scrittura o di lettura dal database
+     */
+    public void esportaPasseggeriCSV(String filePath) throws IOException {
+        CSVUtils.esporta(filePath, CSVUtils.COLONNE_PASSEGGERI, passeggeroDao::perOgniPasseggero, CSVUtils::rigaPasseggero);
+    }
+}
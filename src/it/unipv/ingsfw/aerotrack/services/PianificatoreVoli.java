@@ -0,0 +1,140 @@
+package it.unipv.ingsfw.aerotrack.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+
+/**
+ * Pianificazione parallela di un grande numero di voli.
+ *
+ * L'assegnazione della pista di decollo tocca solo l'aeroporto di partenza, quella
+ * di atterraggio solo l'aeroporto di destinazione. La pianificazione procede quindi in due fasi:
+ * 1. partenze: i voli sono divisi per (aeroporto di partenza, giorno) e ogni partizione
+ *    assegna piste e ritardi in ordine di orario, in parallelo con le altre;
+ * 2. arrivi: i voli sono divisi per aeroporto di destinazione e ogni partizione assegna
+ *    le piste di atterraggio in ordine di (giorno, minuto di arrivo, codice), in parallelo con le altre.
+ * L'ordine all'interno di ogni partizione è fissato, quindi il risultato non dipende
+ * dal numero di thread né dall'ordine di esecuzione delle partizioni.
+ *
+ * Rispetto alla creazione di un volo alla volta ({@link VoloService#creaVolo}) le partenze del blocco
+ * hanno la precedenza sugli arrivi dello stesso blocco nello stesso aeroporto.
+ * È usato da tutte le pianificazioni in blocco di {@link VoloService}, anche di una sola giornata,
+ * così lo stesso piano riceve sempre le stesse piste.
+ * I dati non vengono validati: è compito di {@link VoloService}.
+ */
+public class PianificatoreVoli {
+
+    private static final Comparator<PianoVolo> ORDINE_PARTENZE =
+            Comparator.comparing(PianoVolo::orario).thenComparing(PianoVolo::codice);
+
+    private static final Comparator<Volo> ORDINE_ARRIVI =
+            Comparator.comparing(Volo::getDataVolo)
+                    .thenComparingInt(Volo::getMinutoArrivo)
+                    .thenComparing(Volo::getCodice);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un pianificatore che usa il pool comune.
+     */
+    public PianificatoreVoli() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Crea un pianificatore che usa il pool indicato.
+     */
+    public PianificatoreVoli(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("Il pool non può essere null");
+        this.pool = pool;
+    }
+
+    /**
+     * Pianifica i voli assegnando piste e ritardi.
+     *
+     * @param piano voli da pianificare, per giorno
+     * @param aeroporti aeroporti indicizzati per codice, devono contenere partenza e destinazione di ogni volo
+     * @return i voli pianificati, ordinati per giorno, orario di partenza e codice
+     */
+    public List<Volo> pianifica(Map<LocalDate, List<PianoVolo>> piano, Map<String, Aeroporto> aeroporti) {
+        // Fase 1: partenze, una partizione per (aeroporto di partenza, giorno)
+        Map<Partizione, List<PianoVolo>> partenze = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, List<PianoVolo>> giorno : piano.entrySet()) {
+            for (PianoVolo p : giorno.getValue()) {
+                partenze.computeIfAbsent(new Partizione(p.codicePartenza(), giorno.getKey()), k -> new ArrayList<>()).add(p);
+            }
+        }
+
+        List<Callable<List<Volo>>> taskPartenze = new ArrayList<>(partenze.size());
+        for (Map.Entry<Partizione, List<PianoVolo>> e : partenze.entrySet()) {
+            LocalDate data = e.getKey().data();
+            List<PianoVolo> voliPartizione = e.getValue();
+            taskPartenze.add(() -> {
+                voliPartizione.sort(ORDINE_PARTENZE);
+                List<Volo> voli = new ArrayList<>(voliPartizione.size());
+                for (PianoVolo p : voliPartizione) {
+                    voli.add(Volo.pianificaPartenza(p.codice(), aeroporti.get(p.codicePartenza()),
+                            aeroporti.get(p.codiceDestinazione()), p.orario(), p.velocita(), data));
+                }
+                return voli;
+            });
+        }
+
+        List<Volo> voli = new ArrayList<>();
+        for (List<Volo> parziale : esegui(taskPartenze)) {
+            voli.addAll(parziale);
+        }
+
+        // Fase 2: arrivi, una partizione per aeroporto di destinazione (un arrivo può cadere il giorno dopo)
+        Map<Aeroporto, List<Volo>> arrivi = new LinkedHashMap<>();
+        for (Volo v : voli) {
+            arrivi.computeIfAbsent(v.getDestinazione(), k -> new ArrayList<>()).add(v);
+        }
+
+        List<Callable<Void>> taskArrivi = new ArrayList<>(arrivi.size());
+        for (List<Volo> voliPartizione : arrivi.values()) {
+            taskArrivi.add(() -> {
+                voliPartizione.sort(ORDINE_ARRIVI);
+                for (Volo v : voliPartizione) {
+                    v.assegnaArrivo();
+                }
+                return null;
+            });
+        }
+        esegui(taskArrivi);
+
+        voli.sort(Comparator.comparing(Volo::getDataVolo)
+                .thenComparing(Volo::getOrarioPartenza)
+                .thenComparing(Volo::getCodice));
+        return voli;
+    }
+
+    private <T> List<T> esegui(List<Callable<T>> task) {
+        List<T> risultati = new ArrayList<>(task.size());
+        for (Future<T> f : pool.invokeAll(task)) {
+            try {
+                risultati.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Pianificazione interrotta", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new RuntimeException("Errore nella pianificazione dei voli", e.getCause());
+            }
+        }
+        return risultati;
+    }
+
+    /** Chiave delle partizioni della fase delle partenze. */
+    private record Partizione(String codiceAeroporto, LocalDate data) {}
+}
@@ -0,0 +1,15 @@
+package it.unipv.ingsfw.aerotrack.services;
+
+import java.time.LocalTime;
+
+/**
+ * Riga del piano voli di una giornata, usata dalla pianificazione in blocco
+ * di {@link VoloService#pianificaGiornata(java.time.LocalDate, java.util.List)}.
+ *
+ * @param codice             codice del volo
+ * @param codicePartenza     codice IATA dell'aeroporto di partenza
+ * @param codiceDestinazione codice IATA dell'aeroporto di destinazione
+ * @param orario             orario programmato di partenza
+ * @param velocita           velocità in km/h
+ */
+public record PianoVolo(String codice, String codicePartenza, String codiceDestinazione, LocalTime orario, double velocita) {}
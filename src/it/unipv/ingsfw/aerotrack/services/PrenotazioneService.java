@@ -1,28 +1,37 @@
 package it.unipv.ingsfw.aerotrack.services;
 
-import java.sql.Connection;
-
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.sql.Statement;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.Map;
 import it.unipv.ingsfw.aerotrack.dao.*;
 import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.LetturaCSVParallela;
+import it.unipv.ingsfw.aerotrack.utils.RigaCSV;
 
 /**
  * Service Singleton per la logica di business delle prenotazioni.
  * Valida i dati e delega la persistenza al DAO.
  */
 public class PrenotazioneService {
-	
+
+    /** Numero massimo di prenotazioni lette con una sola pagina. */
+    public static final int DIMENSIONE_MASSIMA_PAGINA = 500;
+
 	private static PrenotazioneService instance;
-	private final PrenotazioneDao prenotazioneDao;
-    private final VoloDao voloDao;
+	private final IPrenotazioneDao prenotazioneDao;
+    private final IVoloDao voloDao;
     private final PasseggeroService passeggeroService = PasseggeroService.getInstance();
+    private final IPasseggeroDao passeggeroDao = FabbricaDao.passeggeri();
     
     private PrenotazioneService() {
-        this.prenotazioneDao = PrenotazioneDao.getInstance();
-        this.voloDao = VoloDao.getInstance();
+        this.prenotazioneDao = FabbricaDao.prenotazioni();
+        this.voloDao = FabbricaDao.voli();
     }
 
     /** @return istanza singleton */
@@ -36,29 +45,20 @@ public class PrenotazioneService {
      * Svuota la tabella prenotazioni. Da usare solo per test!
      */
     public void svuotaPrenotazioni() {
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("DELETE FROM prenotazioni");
+        if (prenotazioneDao.svuota()) {
             System.out.println("Tabella prenotazioni svuotata.");
-        } catch (SQLException e) {
-            System.err.println("Errore durante lo svuotamento della tabella prenotazioni: " + e.getMessage());
         }
     }
     /**
      * Crea una nuova prenotazione.
+     * Il controllo sulle prenotazioni doppie è fatto dal database al momento dell'inserimento,
+     * quindi il costo non dipende dal numero di prenotazioni esistenti.
      * 
      * @throws IllegalArgumentException se i dati non sono validi o il volo non esiste
+     * @throws PrenotazioneDao.PrenotazioneDuplicataException se il passeggero ha già una prenotazione attiva sul volo
      */
     public void creaPrenotazione(String nome, String cognome, String documento, String codiceVolo) {
         // Validazioni
-    	boolean alreadyBooked = getTuttePrenotazioni().stream()
-    	        .anyMatch(p -> p.getPasseggero().getDocumento().equals(documento) &&
-    	                       p.getVolo().getCodice().equals(codiceVolo) &&
-    	                       !p.isCancellata());
-    	    if (alreadyBooked) {
-    	        throw new RuntimeException("Questo passeggero ha già una prenotazione attiva su questo volo!");
-    	    }
-    	    
         if (nome == null || nome.isEmpty()) {
             throw new IllegalArgumentException("Nome non può essere vuoto");
         }
@@ -76,11 +76,121 @@ public class PrenotazioneService {
         passeggeroService.aggiungiPasseggero(passeggero);
         
         Prenotazione prenotazione = new Prenotazione(passeggero, volo);
-        volo.aggiungiPrenotazione(prenotazione); 
         boolean ok = prenotazioneDao.aggiungiPrenotazione(prenotazione);
         if (!ok) throw new RuntimeException("Errore nel salvataggio della prenotazione su database");
+        volo.aggiungiPrenotazione(prenotazione);
     }
     
+    /**
+     * Importa prenotazioni da file CSV (colonne di {@link CSVUtils#COLONNE_PRENOTAZIONI};
+     * un codice vuoto riceve un nuovo codice). Le righe sono convertite in parallelo a blocchi
+     * ({@link LetturaCSVParallela}); per ogni blocco i passeggeri vengono salvati (o aggiornati)
+     * e le prenotazioni inserite con scritture batch. I voli sono cercati una sola volta per codice.
+     * Righe non valide, voli inesistenti e prenotazioni attive duplicate sono scartati
+     * e riportati nell'esito, senza interrompere l'importazione.
+     *
+     * @param filePath percorso del file CSV
+     * @return esito dell'importazione
+     * @throws IOException se il file non può essere letto o manca una colonna
+     */
+    public EsitoImportazione importaPrenotazioniCSV(String filePath) throws IOException {
+        RiepilogoImportazione riepilogo = new RiepilogoImportazione();
+        Map<String, Volo> voli = new HashMap<>();
+        int dimensioneBatch = DBConnection.getDimensioneBatch();
+
+        LetturaCSVParallela.<RigaPrenotazione>leggi(filePath, CSVUtils.COLONNE_PRENOTAZIONI,
+                PrenotazioneService::convertiPrenotazione, blocco -> {
+            riepilogo.letto(blocco);
+            List<Prenotazione> prenotazioni = new ArrayList<>();
+            List<Long> righe = new ArrayList<>();
+            Map<String, Passeggero> passeggeri = new LinkedHashMap<>();
+            for (int i = 0; i < blocco.elementi().size(); i++) {
+                RigaPrenotazione riga = blocco.elementi().get(i);
+                if (!voli.containsKey(riga.codiceVolo())) {
+                    voli.put(riga.codiceVolo(), voloDao.cercaPerCodice(riga.codiceVolo()));
+                }
+                Volo volo = voli.get(riga.codiceVolo());
+                if (volo == null) {
+                    riepilogo.errore(blocco.riga(i), "Volo non trovato con codice: " + riga.codiceVolo());
+                    continue;
+                }
+                passeggeri.put(riga.passeggero().getDocumento(), riga.passeggero());
+                prenotazioni.add(riga.codice().isEmpty()
+                        ? new Prenotazione(riga.passeggero(), volo)
+                        : new Prenotazione(riga.codice(), riga.passeggero(), volo, riga.cancellata()));
+                righe.add(blocco.riga(i));
+            }
+            if (prenotazioni.isEmpty()) return;
+            if (!passeggeroDao.aggiungiPasseggeri(passeggeri.values())) {
+                riepilogo.erroreBlocco(prenotazioni.size(), righe.get(0), "errore nel salvataggio dei passeggeri");
+                return;
+            }
+            // Ogni gruppo è una sola transazione: se fallisce nessuna sua riga è salvata
+            for (int da = 0; da < prenotazioni.size(); da += dimensioneBatch) {
+                int a = Math.min(da + dimensioneBatch, prenotazioni.size());
+                salvaPrenotazioni(prenotazioni.subList(da, a), righe.subList(da, a), riepilogo);
+            }
+        });
+        return riepilogo.esito();
+    }
+
+    /** Riga di un file di prenotazioni importato da CSV. */
+    private record RigaPrenotazione(String codice, Passeggero passeggero, String codiceVolo, boolean cancellata) {}
+
+    /**
+     * Converte una riga CSV (codice, documento, nome, cognome, volo, cancellata).
+     * Chiamato in parallelo: non accede al database.
+     */
+    private static RigaPrenotazione convertiPrenotazione(RigaCSV riga) {
+        Passeggero passeggero = new Passeggero(riga.testo(2), riga.testo(3), riga.testo(1));
+        String codiceVolo = riga.testo(4).toUpperCase();
+        if (codiceVolo.isEmpty()) {
+            throw new IllegalArgumentException("Codice volo non può essere vuoto");
+        }
+        String cancellata = riga.testo(5);
+        if (!cancellata.isEmpty() && !cancellata.equalsIgnoreCase("true") && !cancellata.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("Valore di cancellata non valido: " + cancellata);
+        }
+        return new RigaPrenotazione(riga.testo(0), passeggero, codiceVolo, Boolean.parseBoolean(cancellata));
+    }
+
+    /**
+     * Salva un gruppo di prenotazioni con una scrittura batch; se fallisce (ad esempio per una
+     * prenotazione attiva duplicata) le salva una alla volta per scartare solo le righe non valide.
+     */
+    private void salvaPrenotazioni(List<Prenotazione> prenotazioni, List<Long> righe, RiepilogoImportazione riepilogo) {
+        try {
+            if (prenotazioneDao.aggiungiPrenotazioni(prenotazioni)) {
+                riepilogo.importate(prenotazioni.size());
+                return;
+            }
+        } catch (PrenotazioneDao.PrenotazioneDuplicataException e) {
+            // Si individuano le righe duplicate salvando una prenotazione alla volta
+        }
+        for (int i = 0; i < prenotazioni.size(); i++) {
+            try {
+                if (prenotazioneDao.aggiungiPrenotazione(prenotazioni.get(i))) {
+                    riepilogo.importate(1);
+                } else {
+                    riepilogo.errore(righe.get(i), "errore di salvataggio nel database");
+                }
+            } catch (PrenotazioneDao.PrenotazioneDuplicataException e) {
+                riepilogo.errore(righe.get(i), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Esporta tutte le prenotazioni su file CSV, leggendole dal database con un cursore
+     * invece di caricarle tutte con {@link #getTuttePrenotazioni()}.
+     *
+     * @throws IOException in caso di errori di scrittura o di lettura dal database
+     */
+    public void esportaPrenotazioniCSV(String filePath) throws IOException {
+        CSVUtils.esporta(filePath, CSVUtils.COLONNE_PRENOTAZIONI, prenotazioneDao::perOgniPrenotazione,
+                CSVUtils::rigaPrenotazione);
+    }
+
     /**
      * aggiorna lo stato della prenotazione.
      */
@@ -102,15 +212,64 @@ public class PrenotazioneService {
     }
     
     /**
-     * Trova prenotazioni per documento passeggero.
+     * Passa all'azione tutte le prenotazioni, ordinate per codice, leggendole dal database
+     * con un cursore: la prima arriva prima che le altre siano lette.
+     *
+     * @return true se tutte le prenotazioni sono state lette, false in caso di errore
+     */
+    public boolean perOgniPrenotazione(Consumer<Prenotazione> azione) {
+        return prenotazioneDao.perOgniPrenotazione(azione);
+    }
+
+    /**
+     * Calcola il numero di prenotazioni che contengono il testo e l'inizio di ogni pagina,
+     * per leggere le pagine con {@link #cercaPrenotazioni} in qualsiasi ordine.
+     *
+     * @param testo testo cercato in codice, passeggero e volo; null o vuoto per tutte le prenotazioni
+     * @param dimensione numero di prenotazioni per pagina (tra 1 e {@value #DIMENSIONE_MASSIMA_PAGINA})
+     */
+    public IndicePagine<String> indicizzaPrenotazioni(String testo, int dimensione) {
+        controllaDimensionePagina(dimensione);
+        return prenotazioneDao.indicizzaPagine(testo, dimensione);
+    }
+
+    /**
+     * Cerca le prenotazioni che contengono il testo, una pagina alla volta, ordinate per codice.
+     *
+     * @param testo testo cercato in codice, passeggero e volo; null o vuoto per tutte le prenotazioni
+     * @param dopo codice dell'ultima prenotazione della pagina precedente, null per la prima pagina
+     * @param dimensione numero massimo di prenotazioni (tra 1 e {@value #DIMENSIONE_MASSIMA_PAGINA})
+     */
+    public List<Prenotazione> cercaPrenotazioni(String testo, String dopo, int dimensione) {
+        controllaDimensionePagina(dimensione);
+        return prenotazioneDao.cercaPrenotazioni(testo, dopo, dimensione);
+    }
+
+    private static void controllaDimensionePagina(int dimensione) {
+        if (dimensione <= 0 || dimensione > DIMENSIONE_MASSIMA_PAGINA) {
+            throw new IllegalArgumentException("La dimensione della pagina deve essere tra 1 e " + DIMENSIONE_MASSIMA_PAGINA);
+        }
+    }
+
+    /**
+     * Trova prenotazioni per documento passeggero (senza distinzione tra maiuscole e minuscole),
+     * ordinate per codice. Il costo dipende dal numero di prenotazioni del passeggero.
      */
     public List<Prenotazione> trovaPrenotazioniPerDocumento(String documento) {
         if (documento == null || documento.isEmpty()) {
             throw new IllegalArgumentException("Documento non può essere vuoto");
         }
-        return prenotazioneDao.getTuttePrenotazioni()
-               .stream()
-               .filter(p -> p.getPasseggero().getDocumento().equalsIgnoreCase(documento))
-               .collect(Collectors.toList());
+        return prenotazioneDao.cercaPerDocumento(documento);
+    }
+
+    /**
+     * Trova le prenotazioni di un volo (lista passeggeri), ordinate per codice.
+     * Il costo dipende dal numero di prenotazioni del volo.
+     */
+    public List<Prenotazione> trovaPrenotazioniPerVolo(String codiceVolo) {
+        if (codiceVolo == null || codiceVolo.isEmpty()) {
+            throw new IllegalArgumentException("Il codice volo non può essere vuoto");
+        }
+        return prenotazioneDao.cercaPerVolo(codiceVolo);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package it.unipv.ingsfw.aerotrack.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unipv.ingsfw.aerotrack.utils.LetturaCSVParallela;
+
+/**
+ * Conteggi di un'importazione da CSV letta con {@link LetturaCSVParallela},
+ * aggiornati blocco per blocco dal thread che salva i dati.
+ */
+class RiepilogoImportazione {
+
+    private int righeLette;
+    private int importate;
+    private int errori;
+    private final List<String> messaggi = new ArrayList<>();
+
+    /** Registra le righe lette di un blocco e quelle scartate dalla conversione. */
+    void letto(LetturaCSVParallela.Blocco<?> blocco) {
+        righeLette += blocco.righeLette();
+        for (LetturaCSVParallela.Errore e : blocco.errori()) {
+            errore(e.riga(), e.motivo());
+        }
+    }
+
+    void importate(int numero) {
+        importate += numero;
+    }
+
+    /** Registra una riga scartata. */
+    void errore(long riga, String motivo) {
+        errori++;
+        messaggio("riga " + riga + ": " + motivo);
+    }
+
+    /** Registra un gruppo di righe non salvate, a partire dalla riga indicata. */
+    void erroreBlocco(int numero, long primaRiga, String motivo) {
+        errori += numero;
+        messaggio("blocco di " + numero + " righe dalla riga " + primaRiga + ": " + motivo);
+    }
+
+    EsitoImportazione esito() {
+        return new EsitoImportazione(righeLette, importate, 0, errori, messaggi);
+    }
+
+    private void messaggio(String messaggio) {
+        if (messaggi.size() < EsitoImportazione.MESSAGGI_MASSIMI) messaggi.add(messaggio);
+    }
+}
@@ -1,15 +1,23 @@
 package it.unipv.ingsfw.aerotrack.services;
 
-import java.sql.Connection;
-
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import it.unipv.ingsfw.aerotrack.dao.*;
 import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.LetturaCSVParallela;
+import it.unipv.ingsfw.aerotrack.utils.RigaCSV;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
 
 /**
  * Service Singleton per la logica di business dei voli.
@@ -17,13 +25,16 @@ import it.unipv.ingsfw.aerotrack.models.*;
  */
 public class VoloService {
 	
+	/** Numero massimo di voli letti con una singola pagina di ricerca. */
+	public static final int DIMENSIONE_MASSIMA_PAGINA = 500;
+	
 	private static VoloService instance;
-	private final VoloDao voloDao;
-    private final AeroportoDao aeroportoDao;
+	private final IVoloDao voloDao;
+    private final IAeroportoDao aeroportoDao;
     
     private VoloService() {
-        this.voloDao = VoloDao.getInstance();
-        this.aeroportoDao = AeroportoDao.getInstance();
+        this.voloDao = FabbricaDao.voli();
+        this.aeroportoDao = FabbricaDao.aeroporti();
     }
     
     public static VoloService getInstance() {
@@ -36,12 +47,8 @@ public class VoloService {
     }
     
     public void svuotaVoli() {
-        try (Connection conn = DBConnection.startConnection("aerotrack");
-             Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("DELETE FROM voli");
+        if (voloDao.svuota()) {
             System.out.println("Tabella voli svuotata.");
-        } catch (SQLException e) {
-            System.err.println("Errore durante lo svuotamento della tabella voli: " + e.getMessage());
         }
     }
     
@@ -52,21 +59,7 @@ public class VoloService {
      */
     public void creaVolo(String codice, String codicePartenza, String codiceDestinazione, LocalTime orario, double velocita, LocalDate dataVolo) {
         // Validazioni
-        if (codice == null || codice.isEmpty()) {
-            throw new IllegalArgumentException("Codice volo non può essere vuoto");
-        }
-        if (codicePartenza.equals(codiceDestinazione)) {
-            throw new IllegalArgumentException("Aeroporto di partenza e destinazione non possono essere uguali");
-        }
-        if (velocita <= 0 || velocita > 1200) {
-            throw new IllegalArgumentException("Velocità deve essere tra 1 e 1200 km/h");
-        }
-        if (dataVolo == null) {
-            throw new IllegalArgumentException("Data volo non può essere null");
-        }
-        if (orario == null) {
-            throw new IllegalArgumentException("Orario partenza non può essere null");
-        }
+        validaVolo(codice, codicePartenza, codiceDestinazione, orario, velocita, dataVolo);
 
         Aeroporto partenza = aeroportoDao.cercaPerCodice(codicePartenza);
         Aeroporto destinazione = aeroportoDao.cercaPerCodice(codiceDestinazione);
@@ -82,8 +75,156 @@ public class VoloService {
     }
     
     
+    /**
+     * Pianifica in blocco i voli di una giornata con le stesse due passate di {@link PianificatoreVoli}:
+     * prima le piste di decollo e i ritardi, in ordine di orario di partenza, poi le piste di
+     * atterraggio, in ordine di minuto di arrivo (e codice, a parità di orario). Il risultato non
+     * dipende dall'ordine del piano ed è lo stesso di {@link #pianificaInParallelo(Map)} con il solo
+     * giorno indicato. Tutti i voli sono salvati con una sola scrittura batch.
+     * 
+     * @param dataVolo giorno dei voli
+     * @param piano voli da pianificare
+     * @return i voli pianificati, in ordine di partenza
+     * @throws IllegalArgumentException se un volo del piano non è valido o ha il codice di un volo
+     *         già esistente (nessun volo viene pianificato)
+     */
+    public List<Volo> pianificaGiornata(LocalDate dataVolo, List<PianoVolo> piano) {
+        if (piano == null) {
+            throw new IllegalArgumentException("Il piano voli non può essere null");
+        }
+        if (dataVolo == null) {
+            throw new IllegalArgumentException("Data volo non può essere null");
+        }
+
+        // Validazione di tutto il piano prima di toccare le piste
+        Set<String> codici = new HashSet<>();
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        validaPiano(dataVolo, piano, codici, aeroporti);
+        verificaCodiciNuovi(codici);
+
+        List<Volo> voli = new PianificatoreVoli().pianifica(Map.of(dataVolo, piano), aeroporti);
+        salvaVoli(voli);
+        return voli;
+    }
+    
+    /**
+     * Pianifica in blocco i voli di più giornate, elaborando in parallelo gli aeroporti e i giorni
+     * indipendenti (vedi {@link PianificatoreVoli}). Il risultato è deterministico.
+     * Tutti i voli sono salvati con una sola scrittura batch.
+     * 
+     * @param piano voli da pianificare, per giorno
+     * @return i voli pianificati, ordinati per giorno, orario di partenza e codice
+     * @throws IllegalArgumentException se un volo del piano non è valido o ha il codice di un volo
+     *         già esistente (nessun volo viene pianificato)
+     */
+    public List<Volo> pianificaInParallelo(Map<LocalDate, List<PianoVolo>> piano) {
+        if (piano == null) {
+            throw new IllegalArgumentException("Il piano voli non può essere null");
+        }
+
+        Set<String> codici = new HashSet<>();
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        for (Map.Entry<LocalDate, List<PianoVolo>> giorno : piano.entrySet()) {
+            if (giorno.getValue() == null) {
+                throw new IllegalArgumentException("Il piano voli non può essere null");
+            }
+            validaPiano(giorno.getKey(), giorno.getValue(), codici, aeroporti);
+        }
+        verificaCodiciNuovi(codici);
+
+        List<Volo> voli = new PianificatoreVoli().pianifica(piano, aeroporti);
+        salvaVoli(voli);
+        return voli;
+    }
+    
+    /**
+     * Importa un piano voli da file CSV (colonne di {@link CSVUtils#COLONNE_VOLI}; pista, ritardo
+     * e stato, se presenti, vengono ignorati e ricalcolati dalla pianificazione).
+     * Le righe sono convertite in parallelo a blocchi ({@link LetturaCSVParallela}), risolvendo
+     * gli aeroporti su una mappa in memoria caricata una sola volta; ogni blocco è pianificato
+     * e salvato con {@link #pianificaInParallelo(Map)} mentre i successivi vengono convertiti.
+     * Le righe non valide, con aeroporti inesistenti o con codici già presenti nel file o tra i voli
+     * salvati sono scartate e riportate nell'esito.
+     *
+     * @param filePath percorso del file CSV
+     * @return esito dell'importazione
+     * @throws IOException se il file non può essere letto o manca una colonna
+     */
+    public EsitoImportazione importaVoliCSV(String filePath) throws IOException {
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        for (Aeroporto a : aeroportoDao.getTuttiAeroporti()) {
+            aeroporti.put(a.getCodice(), a);
+        }
+        RiepilogoImportazione riepilogo = new RiepilogoImportazione();
+        Set<String> codici = new HashSet<>();
+
+        LetturaCSVParallela.<RigaVolo>leggi(filePath, CSVUtils.COLONNE_VOLI.subList(0, 6),
+                riga -> convertiVolo(riga, aeroporti), blocco -> {
+            riepilogo.letto(blocco);
+            Map<LocalDate, List<PianoVolo>> piano = new TreeMap<>();
+            Set<String> esistenti = voloDao.codiciEsistenti(
+                    blocco.elementi().stream().map(riga -> riga.piano().codice()).toList());
+            int voli = 0;
+            for (int i = 0; i < blocco.elementi().size(); i++) {
+                RigaVolo riga = blocco.elementi().get(i);
+                if (!codici.add(riga.piano().codice())) {
+                    riepilogo.errore(blocco.riga(i), "Codice volo duplicato nel file: " + riga.piano().codice());
+                    continue;
+                }
+                if (esistenti.contains(riga.piano().codice())) {
+                    riepilogo.errore(blocco.riga(i), "Volo già esistente: " + riga.piano().codice());
+                    continue;
+                }
+                piano.computeIfAbsent(riga.data(), d -> new ArrayList<>()).add(riga.piano());
+                voli++;
+            }
+            if (voli == 0) return;
+            try {
+                riepilogo.importate(pianificaInParallelo(piano).size());
+            } catch (RuntimeException e) {
+                riepilogo.erroreBlocco(voli, blocco.riga(0), e.getMessage());
+            }
+        });
+        return riepilogo.esito();
+    }
+
+    /** Riga di un piano voli importato da CSV. */
+    private record RigaVolo(LocalDate data, PianoVolo piano) {}
+
+    /**
+     * Converte una riga CSV (codice, partenza, destinazione, data, orario, velocità).
+     * Chiamato in parallelo: usa solo la mappa degli aeroporti, in sola lettura.
+     */
+    private RigaVolo convertiVolo(RigaCSV riga, Map<String, Aeroporto> aeroporti) {
+        String codice = riga.testo(0).toUpperCase();
+        String partenza = riga.testo(1).toUpperCase();
+        String destinazione = riga.testo(2).toUpperCase();
+        LocalDate data = LocalDate.parse(riga.testo(3));
+        LocalTime orario = LocalTime.parse(riga.testo(4));
+        double velocita = riga.decimale(5);
+        validaVolo(codice, partenza, destinazione, orario, velocita, data);
+        for (String codiceAeroporto : new String[]{partenza, destinazione}) {
+            if (!aeroporti.containsKey(codiceAeroporto)) {
+                throw new IllegalArgumentException("Aeroporto non trovato: " + codiceAeroporto);
+            }
+        }
+        return new RigaVolo(data, new PianoVolo(codice, partenza, destinazione, orario, velocita));
+    }
+
+    /**
+     * Esporta tutti i voli su file CSV, leggendoli dal database con un cursore
+     * (vedi {@link IVoloDao#perOgniVolo(java.util.function.Consumer)}) senza caricarli tutti in memoria.
+     *
+     * @throws IOException in caso di errori di scrittura o di lettura dal database
+     */
+    public void esportaVoliCSV(String filePath) throws IOException {
+        CSVUtils.esporta(filePath, CSVUtils.COLONNE_VOLI, voloDao::perOgniVolo, CSVUtils::rigaVolo);
+    }
+    
     /**
      * Aggiorna lo stato e il ritardo di un volo con i valori dati.
+     * Sul database viene scritta una copia del volo: l'istanza condivisa (in cache e negli aeroporti)
+     * cambia solo se la scrittura riesce.
      */
     public boolean aggiornaStatoERitardo(String codice, LocalTime ritardo, Volo.StatoVolo stato) {
         Volo v = voloDao.cercaPerCodice(codice);
@@ -91,15 +232,24 @@ public class VoloService {
             throw new VoloNonTrovatoException(codice);
         }
 
-        v.setRitardo(ritardo);
-        v.setStato(stato);
-
-        return voloDao.aggiornaVolo(v);
+        Volo aggiornato = Volo.ripristina(v.getCodice(), v.getPartenza(), v.getDestinazione(), v.getOrarioPartenza(),
+                v.getVelocita(), v.getDataVolo(), v.getPistaAssegnata(), ritardo, stato);
+        boolean ok = voloDao.aggiornaVolo(aggiornato);
+        if (ok) {
+            v.setRitardo(aggiornato.getRitardo());
+            v.setStato(stato);
+        }
+        // Un volo cancellato non occupa più le piste
+        if (ok && stato == Volo.StatoVolo.CANCELLATO) {
+            v.getPartenza().liberaPiste(v);
+            v.getDestinazione().liberaPiste(v);
+        }
+        return ok;
     }
 
      
     /**
-     * Cerca un volo per codice.
+     * Cerca un volo per codice. Le ricerche ripetute sono servite dalla cache dei voli.
      */
     public Volo cercaVolo(String codice) {
         Volo v = voloDao.cercaPerCodice(codice);
@@ -116,22 +266,83 @@ public class VoloService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Cerca i voli che soddisfano i criteri, una pagina alla volta.
+     * 
+     * @param criteri criteri di ricerca
+     * @param dopo cursore della pagina precedente ({@link PaginaVoli#successivo()}), null per la prima pagina
+     * @param dimensione numero massimo di voli per pagina (tra 1 e {@value #DIMENSIONE_MASSIMA_PAGINA})
+     * @throws IllegalArgumentException se i criteri non sono coerenti
+     */
+    public PaginaVoli cercaVoli(CriteriRicercaVoli criteri, CursoreVoli dopo, int dimensione) {
+        if (criteri == null) {
+            throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        }
+        if (dimensione <= 0 || dimensione > DIMENSIONE_MASSIMA_PAGINA) {
+            throw new IllegalArgumentException("La dimensione della pagina deve essere tra 1 e " + DIMENSIONE_MASSIMA_PAGINA);
+        }
+        if (criteri.dataDa() != null && criteri.dataA() != null && criteri.dataA().isBefore(criteri.dataDa())) {
+            throw new IllegalArgumentException("La data finale non può precedere quella iniziale");
+        }
+        return voloDao.cercaVoli(criteri, dopo, dimensione);
+    }
+    
+    /**
+     * Calcola il numero di voli che soddisfano i criteri e l'inizio di ogni pagina,
+     * per leggere le pagine con {@link #cercaVoli} in qualsiasi ordine.
+     *
+     * @param dimensione numero di voli per pagina (tra 1 e {@value #DIMENSIONE_MASSIMA_PAGINA})
+     * @throws IllegalArgumentException se i criteri non sono coerenti
+     */
+    public IndicePagine<CursoreVoli> indicizzaVoli(CriteriRicercaVoli criteri, int dimensione) {
+        if (criteri == null) {
+            throw new IllegalArgumentException("I criteri di ricerca non possono essere null");
+        }
+        if (dimensione <= 0 || dimensione > DIMENSIONE_MASSIMA_PAGINA) {
+            throw new IllegalArgumentException("La dimensione della pagina deve essere tra 1 e " + DIMENSIONE_MASSIMA_PAGINA);
+        }
+        if (criteri.dataDa() != null && criteri.dataA() != null && criteri.dataA().isBefore(criteri.dataDa())) {
+            throw new IllegalArgumentException("La data finale non può precedere quella iniziale");
+        }
+        return voloDao.indicizzaPagine(criteri, dimensione);
+    }
+
+    /**
+     * Ricostruisce l'occupazione delle piste di tutti gli aeroporti a partire dai voli salvati.
+     * Va eseguita una volta prima di creare voli quando i voli non vengono letti con {@link #getTuttiVoli()}.
+     *
+     * @return true se ricostruita, false in caso di errore
+     */
+    public boolean ricostruisciOccupazionePiste() {
+        return voloDao.ricostruisciOccupazione();
+    }
+
+    /**
+     * Cerca tutti i voli che soddisfano i criteri, leggendoli a pagine.
+     */
+    public List<Volo> cercaTuttiVoli(CriteriRicercaVoli criteri) {
+        List<Volo> voli = new ArrayList<>();
+        CursoreVoli cursore = null;
+        do {
+            PaginaVoli pagina = cercaVoli(criteri, cursore, DIMENSIONE_MASSIMA_PAGINA);
+            voli.addAll(pagina.voli());
+            cursore = pagina.successivo();
+        } while (cursore != null);
+        return voli;
+    }
+
     /**
      * Trova voli per aeroporto di partenza.
      */
     public List<Volo> trovaVoliPerPartenza(String codiceAeroporto) {
-        return voloDao.getTuttiVoli().stream()
-                .filter(volo -> volo.getPartenza().getCodice().equalsIgnoreCase(codiceAeroporto))
-                .collect(Collectors.toList());
+        return cercaTuttiVoli(CriteriRicercaVoli.tutti().conPartenza(codiceAeroporto));
     }
     
     /**
      * Trova voli per aeroporto di destinazione.
      */
     public List<Volo> trovaVoliPerDestinazione(String codiceAeroporto) {
-        return voloDao.getTuttiVoli().stream()
-                .filter(volo -> volo.getDestinazione().getCodice().equalsIgnoreCase(codiceAeroporto))
-                .collect(Collectors.toList());
+        return cercaTuttiVoli(CriteriRicercaVoli.tutti().conDestinazione(codiceAeroporto));
     }
    
     /**
@@ -140,7 +351,98 @@ public class VoloService {
     public boolean rimuoviVolo(String codice) {
         Volo v = voloDao.cercaPerCodice(codice);
         if (v == null) throw new VoloNonTrovatoException(codice);
-        return voloDao.rimuoviVolo(codice);
+        boolean ok = voloDao.rimuoviVolo(codice);
+        if (ok) {
+            // Rimuove il volo dagli aeroporti liberando le piste occupate
+            v.getPartenza().rimuoviVolo(v);
+            v.getDestinazione().rimuoviVolo(v);
+        }
+        return ok;
+    }
+
+    /**
+     * Restituisce le statistiche della cache dei voli, null se i voli sono tenuti in memoria (profilo memoria).
+     */
+    public StatisticheCache getStatisticheCache() {
+        return voloDao.getStatisticheCache();
+    }
+
+    
+    /**
+     * Valida i voli di un giorno del piano e risolve gli aeroporti coinvolti.
+     * 
+     * @param codici codici già presenti nel piano, aggiornato con quelli del giorno
+     * @param aeroporti aeroporti già risolti, aggiornato con quelli del giorno
+     * @throws IllegalArgumentException se un volo non è valido, se un codice è duplicato o un aeroporto non esiste
+     */
+    private void validaPiano(LocalDate dataVolo, List<PianoVolo> piano, Set<String> codici, Map<String, Aeroporto> aeroporti) {
+        for (PianoVolo p : piano) {
+            validaVolo(p.codice(), p.codicePartenza(), p.codiceDestinazione(), p.orario(), p.velocita(), dataVolo);
+            if (!codici.add(p.codice())) {
+                throw new IllegalArgumentException("Codice volo duplicato nel piano: " + p.codice());
+            }
+            for (String codiceAeroporto : new String[]{p.codicePartenza(), p.codiceDestinazione()}) {
+                if (!aeroporti.containsKey(codiceAeroporto)) {
+                    Aeroporto a = aeroportoDao.cercaPerCodice(codiceAeroporto);
+                    if (a == null) {
+                        throw new IllegalArgumentException("Aeroporto non trovato: " + codiceAeroporto);
+                    }
+                    aeroporti.put(codiceAeroporto, a);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Verifica che nessun codice del piano appartenga a un volo già salvato: il piano non deve
+     * sovrascrivere voli esistenti, che continuano a occupare le loro piste.
+     *
+     * @throws IllegalArgumentException con l'elenco dei codici già esistenti
+     */
+    private void verificaCodiciNuovi(Set<String> codici) {
+        Set<String> esistenti = voloDao.codiciEsistenti(codici);
+        if (!esistenti.isEmpty()) {
+            throw new IllegalArgumentException("Voli già esistenti nel piano: " + String.join(", ", new TreeSet<>(esistenti)));
+        }
+    }
+
+    /**
+     * Salva i voli pianificati con una sola scrittura batch. Se il salvataggio fallisce
+     * annulla l'occupazione delle piste dei voli non salvati.
+     * 
+     * @throws RuntimeException se il salvataggio fallisce
+     */
+    private void salvaVoli(List<Volo> voli) {
+        if (!voloDao.aggiungiVoli(voli)) {
+            for (Volo v : voli) {
+                v.getPartenza().rimuoviVolo(v);
+                v.getDestinazione().rimuoviVolo(v);
+            }
+            throw new RuntimeException("Errore nell'inserimento dei voli");
+        }
+    }
+
+    /**
+     * Validazione comune dei dati di un nuovo volo.
+     * 
+     * @throws IllegalArgumentException se i dati non sono validi
+     */
+    private void validaVolo(String codice, String codicePartenza, String codiceDestinazione, LocalTime orario, double velocita, LocalDate dataVolo) {
+        if (codice == null || codice.isEmpty()) {
+            throw new IllegalArgumentException("Codice volo non può essere vuoto");
+        }
+        if (codicePartenza.equals(codiceDestinazione)) {
+            throw new IllegalArgumentException("Aeroporto di partenza e destinazione non possono essere uguali");
+        }
+        if (velocita <= 0 || velocita > 1200) {
+            throw new IllegalArgumentException("Velocità deve essere tra 1 e 1200 km/h");
+        }
+        if (dataVolo == null) {
+            throw new IllegalArgumentException("Data volo non può essere null");
+        }
+        if (orario == null) {
+            throw new IllegalArgumentException("Orario partenza non può essere null");
+        }
     }
 
     
@@ -0,0 +1,90 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Test manuale: misura tempo e byte allocati per chiamata di Volo.calcolaStato,
+ * confrontandolo con la versione precedente basata su LocalTime.plusMinutes.
+ * I byte allocati sono letti dal contatore per thread della JVM HotSpot
+ * (com.sun.management.ThreadMXBean), equivalente al profiler gc di JMH.
+ * Non usa il database.
+ */
+public class BenchmarkAllocazioni {
+
+    private static final int CHIAMATE = 2_000_000;
+    private static final int RIPETIZIONI = 5;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK ALLOCAZIONI calcolaStato ===");
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx)
+                || !mx.isThreadAllocatedMemorySupported()) {
+            System.out.println("Misura delle allocazioni non supportata da questa JVM");
+            return;
+        }
+        mx.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Aeroporto mxp = new Aeroporto("MXP", "Milano Malpensa", 45.63, 8.72, 4);
+        Aeroporto fco = new Aeroporto("FCO", "Roma Fiumicino", 41.80, 12.24, 4);
+        Volo volo = Volo.ripristina("AZ100", mxp, fco, LocalTime.of(10, 0), 850, LocalDate.of(2025, 7, 11),
+                0, LocalTime.of(0, 20), Volo.StatoVolo.PROGRAMMATO);
+
+        // Orari di prova distribuiti sulla giornata, creati prima della misura
+        LocalTime[] orari = new LocalTime[1024];
+        for (int i = 0; i < orari.length; i++) {
+            orari[i] = LocalTime.ofSecondOfDay((i * 84_373L) % 86_400);
+        }
+
+        // Le due versioni devono dare lo stesso stato per ogni minuto del giorno
+        int differenze = 0;
+        for (int m = 0; m < 24 * 60; m++) {
+            LocalTime t = LocalTime.ofSecondOfDay(m * 60L);
+            if (calcolaStatoPrecedente(volo, t) != volo.calcolaStato(t)) differenze++;
+        }
+        System.out.println("Stati diversi dalla versione precedente: " + differenze);
+
+        for (int r = 0; r < RIPETIZIONI; r++) {
+            long controllo = 0;
+
+            long byteInizio = mx.getThreadAllocatedBytes(thread);
+            long inizio = System.nanoTime();
+            for (int i = 0; i < CHIAMATE; i++) {
+                controllo += calcolaStatoPrecedente(volo, orari[i & 1023]).ordinal();
+            }
+            double nsPrecedente = (System.nanoTime() - inizio) / (double) CHIAMATE;
+            double bytePrecedente = (mx.getThreadAllocatedBytes(thread) - byteInizio) / (double) CHIAMATE;
+
+            byteInizio = mx.getThreadAllocatedBytes(thread);
+            inizio = System.nanoTime();
+            for (int i = 0; i < CHIAMATE; i++) {
+                controllo += volo.calcolaStato(orari[i & 1023]).ordinal();
+            }
+            double nsAttuale = (System.nanoTime() - inizio) / (double) CHIAMATE;
+            double byteAttuale = (mx.getThreadAllocatedBytes(thread) - byteInizio) / (double) CHIAMATE;
+
+            System.out.printf("giro %d: precedente=%.1f ns/op %.1f B/op, attuale=%.1f ns/op %.2f B/op (controllo %d)%n",
+                    r + 1, nsPrecedente, bytePrecedente, nsAttuale, byteAttuale, controllo);
+        }
+    }
+
+    /**
+     * calcolaStato come era prima dei campi in minuti: crea nuovi LocalTime a ogni confronto.
+     */
+    private static Volo.StatoVolo calcolaStatoPrecedente(Volo v, LocalTime orario) {
+        LocalTime orarioPartenza = v.getOrarioPartenza();
+        LocalTime ritardo = v.getRitardo();
+        if ((ritardo.isAfter(LocalTime.of(2, 0)))) return Volo.StatoVolo.CANCELLATO;
+        if (orario.isAfter(orarioPartenza)
+                && orario.isBefore(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60))) return Volo.StatoVolo.IN_ATTESA;
+        if ((orario.equals(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60)) || orario.isAfter(orarioPartenza.plusMinutes(ritardo.toSecondOfDay() / 60)))
+                && orario.isBefore(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))) return Volo.StatoVolo.IN_PARTENZA;
+        if ((orario.equals(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))) || orario.isAfter(orarioPartenza.plusMinutes(30 + ritardo.toSecondOfDay() / 60))
+                && orario.isBefore(orarioPartenza.plusMinutes(30 + v.calcolaTempo() + ritardo.toSecondOfDay() / 60))) return Volo.StatoVolo.IN_VOLO;
+        if (orario.isAfter(orarioPartenza.plusMinutes(30 + v.calcolaTempo() + ritardo.toSecondOfDay() / 60))) return Volo.StatoVolo.ATTERRATO;
+        return Volo.StatoVolo.PROGRAMMATO;
+    }
+}
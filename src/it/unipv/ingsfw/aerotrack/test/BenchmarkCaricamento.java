@@ -0,0 +1,96 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.dao.*;
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.services.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test manuale: misura il throughput del caricamento di passeggeri e prenotazioni,
+ * riga per riga e con le scritture batch dei DAO (db.batch.size, db.rewriteBatchedStatements).
+ * Il numero di prenotazioni si passa come argomento (default 1.000.000); il caricamento
+ * riga per riga è misurato su un campione ridotto e riportato in righe al secondo.
+ * ATTENZIONE: svuota le tabelle del database configurato.
+ */
+public class BenchmarkCaricamento {
+
+    private static final int PRENOTAZIONI_DEFAULT = 1_000_000;
+    private static final int CAMPIONE_RIGA_PER_RIGA = 5_000;
+    private static final int PRENOTAZIONI_PER_VOLO = 200;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : PRENOTAZIONI_DEFAULT;
+        System.out.println("=== BENCHMARK CARICAMENTO " + n + " PRENOTAZIONI ===");
+        System.out.println("Dimensione batch: " + DBConnection.getDimensioneBatch());
+
+        PasseggeroDao passeggeroDao = PasseggeroDao.getInstance();
+        PrenotazioneDao prenotazioneDao = PrenotazioneDao.getInstance();
+        List<Volo> voli = preparaVoli(Math.max(1, n / PRENOTAZIONI_PER_VOLO));
+
+        // Riga per riga, su un campione
+        svuotaPrenotazioniEPasseggeri();
+        int campione = Math.min(n, CAMPIONE_RIGA_PER_RIGA);
+        List<Passeggero> passeggeri = creaPasseggeri(0, campione);
+        List<Prenotazione> prenotazioni = creaPrenotazioni(passeggeri, voli);
+        long inizio = System.nanoTime();
+        for (Passeggero p : passeggeri) passeggeroDao.aggiungiPasseggero(p);
+        for (Prenotazione p : prenotazioni) prenotazioneDao.aggiungiPrenotazione(p);
+        stampa("riga per riga", campione, System.nanoTime() - inizio);
+
+        // Batch, su tutte le righe
+        svuotaPrenotazioniEPasseggeri();
+        passeggeri = creaPasseggeri(0, n);
+        prenotazioni = creaPrenotazioni(passeggeri, voli);
+        inizio = System.nanoTime();
+        boolean ok = passeggeroDao.aggiungiPasseggeri(passeggeri) && prenotazioneDao.aggiungiPrenotazioni(prenotazioni);
+        stampa("batch" + (ok ? "" : " (ERRORE)"), n, System.nanoTime() - inizio);
+    }
+
+    private static List<Volo> preparaVoli(int numeroVoli) {
+        PrenotazioneService.getInstance().svuotaPrenotazioni();
+        PasseggeroService.getInstance().svuotaPasseggeri();
+        VoloService voloService = VoloService.getInstance();
+        voloService.svuotaVoli();
+        AeroportoService aeroportoService = AeroportoService.getInstance();
+        aeroportoService.svuotaAeroporti();
+        aeroportoService.aggiungiAeroporto("MXP", "Milano Malpensa", 45.63, 8.72, 4);
+        aeroportoService.aggiungiAeroporto("FCO", "Roma Fiumicino", 41.80, 12.24, 4);
+
+        List<PianoVolo> piano = new ArrayList<>(numeroVoli);
+        for (int i = 0; i < numeroVoli; i++) {
+            piano.add(new PianoVolo("BM" + i, "MXP", "FCO", LocalTime.of(i % 24, i % 60), 850));
+        }
+        return voloService.pianificaGiornata(LocalDate.now(), piano);
+    }
+
+    private static void svuotaPrenotazioniEPasseggeri() {
+        PrenotazioneService.getInstance().svuotaPrenotazioni();
+        PasseggeroService.getInstance().svuotaPasseggeri();
+    }
+
+    private static List<Passeggero> creaPasseggeri(int da, int n) {
+        List<Passeggero> passeggeri = new ArrayList<>(n);
+        for (int i = da; i < da + n; i++) {
+            passeggeri.add(new Passeggero("Nome" + i, "Cognome" + i, "DOC" + i));
+        }
+        return passeggeri;
+    }
+
+    private static List<Prenotazione> creaPrenotazioni(List<Passeggero> passeggeri, List<Volo> voli) {
+        List<Prenotazione> prenotazioni = new ArrayList<>(passeggeri.size());
+        for (int i = 0; i < passeggeri.size(); i++) {
+            prenotazioni.add(new Prenotazione(passeggeri.get(i), voli.get(i % voli.size())));
+        }
+        return prenotazioni;
+    }
+
+    private static void stampa(String modalita, int righe, long nanos) {
+        double secondi = nanos / 1e9;
+        System.out.printf("%s: %d prenotazioni (+ passeggeri) in %.1f s = %.0f prenotazioni/s%n",
+                modalita, righe, secondi, righe / secondi);
+    }
+}
@@ -0,0 +1,106 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.utils.*;
+
+import java.util.Random;
+
+/**
+ * Test manuale: calcola l'intera matrice delle distanze di 4.000 aeroporti confrontando
+ * - la formula di Haversine a partire dai gradi (come prima dei valori precalcolati);
+ * - CalcolaDistanza con radianti e coseni precalcolati sull'aeroporto;
+ * - la cache delle rotte, sull'intera matrice (quasi solo calcoli) e su un insieme
+ *   di rotte che entra nella cache (quasi solo ritrovamenti).
+ * Non usa il database.
+ */
+public class BenchmarkDistanze {
+
+    private static final int AEROPORTI = 4_000;
+    private static final int AEROPORTI_FREQUENTI = 150;
+    private static final int RIPETIZIONI = 3;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK MATRICE DELLE DISTANZE ===");
+        Aeroporto[] aeroporti = creaAeroporti();
+        long coppie = (long) AEROPORTI * AEROPORTI;
+        long coppieFrequenti = (long) AEROPORTI_FREQUENTI * AEROPORTI_FREQUENTI;
+
+        for (int r = 0; r < RIPETIZIONI; r++) {
+            double controllo = 0;
+
+            long inizio = System.nanoTime();
+            for (Aeroporto a1 : aeroporti) {
+                for (Aeroporto a2 : aeroporti) {
+                    controllo += haversineDaGradi(a1, a2);
+                }
+            }
+            double nsGradi = (System.nanoTime() - inizio) / (double) coppie;
+
+            inizio = System.nanoTime();
+            for (Aeroporto a1 : aeroporti) {
+                for (Aeroporto a2 : aeroporti) {
+                    controllo -= CalcolaDistanza.calcolaDistanza(a1, a2);
+                }
+            }
+            double nsPrecalcolati = (System.nanoTime() - inizio) / (double) coppie;
+
+            CacheRotte.svuota();
+            inizio = System.nanoTime();
+            for (Aeroporto a1 : aeroporti) {
+                for (Aeroporto a2 : aeroporti) {
+                    controllo += CacheRotte.distanzaKm(a1, a2);
+                }
+            }
+            double nsCacheMatrice = (System.nanoTime() - inizio) / (double) coppie;
+            long trovateMatrice = CacheRotte.getTrovate();
+
+            // Rotte frequenti: prima passata per riempire la cache, poi misura
+            CacheRotte.svuota();
+            for (int i = 0; i < AEROPORTI_FREQUENTI; i++) {
+                for (int j = 0; j < AEROPORTI_FREQUENTI; j++) {
+                    controllo -= CacheRotte.distanzaKm(aeroporti[i], aeroporti[j]);
+                }
+            }
+            inizio = System.nanoTime();
+            for (int k = 0; k < 10; k++) {
+                for (int i = 0; i < AEROPORTI_FREQUENTI; i++) {
+                    for (int j = 0; j < AEROPORTI_FREQUENTI; j++) {
+                        controllo += CacheRotte.distanzaKm(aeroporti[i], aeroporti[j]) / 10;
+                    }
+                }
+            }
+            double nsCacheFrequenti = (System.nanoTime() - inizio) / (double) (coppieFrequenti * 10);
+
+            System.out.printf("giro %d: gradi=%.1f ns precalcolati=%.1f ns cache(matrice, %.0f%% trovate)=%.1f ns "
+                            + "cache(%d rotte frequenti)=%.1f ns (controllo %.3f)%n",
+                    r + 1, nsGradi, nsPrecalcolati, 100.0 * trovateMatrice / coppie, nsCacheMatrice,
+                    coppieFrequenti, nsCacheFrequenti, controllo);
+        }
+    }
+
+    private static Aeroporto[] creaAeroporti() {
+        Random random = new Random(42);
+        Aeroporto[] aeroporti = new Aeroporto[AEROPORTI];
+        for (int i = 0; i < AEROPORTI; i++) {
+            String codice = "" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            aeroporti[i] = new Aeroporto(codice, "Aeroporto " + i,
+                    -60 + random.nextDouble() * 130, -180 + random.nextDouble() * 360, 1 + random.nextInt(4));
+        }
+        return aeroporti;
+    }
+
+    /**
+     * Formula di Haversine come era prima dei valori precalcolati: converte i gradi a ogni chiamata.
+     */
+    private static double haversineDaGradi(Aeroporto a1, Aeroporto a2) {
+        double lat1 = Math.toRadians(a1.getLatitudine());
+        double lon1 = Math.toRadians(a1.getLongitudine());
+        double lat2 = Math.toRadians(a2.getLatitudine());
+        double lon2 = Math.toRadians(a2.getLongitudine());
+        double dLat = lat2 - lat1;
+        double dLon = lon2 - lon1;
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
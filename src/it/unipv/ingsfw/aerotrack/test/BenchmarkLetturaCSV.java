@@ -0,0 +1,116 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.utils.*;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Test manuale: confronta la lettura di un file CSV di aeroporti (codice, nome, latitudine,
+ * longitudine, numeroPiste)
+ * - con BufferedReader/FileReader e String.split, come faceva CSVUtils.importaAeroporti;
+ * - con BufferedReader e CSVUtils.dividiRiga;
+ * - con LettoreCSVMappato, che converte i numeri direttamente dai byte.
+ * Per ogni lettore riporta tempo per riga, MB/s e byte allocati per riga (contatore per thread
+ * della JVM HotSpot); la somma di controllo deve coincidere.
+ * Il numero di righe si passa come argomento (default 2.000.000); il file viene creato
+ * in una cartella temporanea e cancellato alla fine. Non usa il database.
+ */
+public class BenchmarkLetturaCSV {
+
+    private static final int RIGHE_DEFAULT = 2_000_000;
+    private static final int RIPETIZIONI = 3;
+
+    private interface Lettore {
+        double leggi(String filePath) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int righe = args.length > 0 ? Integer.parseInt(args[0]) : RIGHE_DEFAULT;
+        System.out.println("=== BENCHMARK LETTURA CSV " + righe + " RIGHE ===");
+        Path file = creaFile(righe);
+        double mb = Files.size(file) / (1024.0 * 1024.0);
+        System.out.printf("File: %.1f MB%n", mb);
+
+        com.sun.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean m
+                && m.isThreadAllocatedMemorySupported() ? m : null;
+        long thread = Thread.currentThread().getId();
+        try {
+            for (int r = 0; r < RIPETIZIONI; r++) {
+                System.out.println("giro " + (r + 1) + ":");
+                misura("BufferedReader + split", BenchmarkLetturaCSV::leggiConSplit, file, righe, mb, mx, thread);
+                misura("BufferedReader + dividiRiga", BenchmarkLetturaCSV::leggiConDividiRiga, file, righe, mb, mx, thread);
+                misura("LettoreCSVMappato", BenchmarkLetturaCSV::leggiMappato, file, righe, mb, mx, thread);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void misura(String nome, Lettore lettore, Path file, int righe, double mb,
+                               com.sun.management.ThreadMXBean mx, long thread) throws IOException {
+        long byteInizio = mx != null ? mx.getThreadAllocatedBytes(thread) : 0;
+        long inizio = System.nanoTime();
+        double controllo = lettore.leggi(file.toString());
+        long nanos = System.nanoTime() - inizio;
+        String allocati = mx != null
+                ? String.format(Locale.ROOT, "%.0f B/riga", (mx.getThreadAllocatedBytes(thread) - byteInizio) / (double) righe)
+                : "n.d.";
+        System.out.printf(Locale.ROOT, "  %-28s %6.1f ns/riga %7.1f MB/s %12s (controllo %.6f)%n",
+                nome, nanos / (double) righe, mb / (nanos / 1e9), allocati, controllo);
+    }
+
+    /** Lettura come era CSVUtils.importaAeroporti prima del lettore mappato. */
+    private static double leggiConSplit(String filePath) throws IOException {
+        double controllo = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] campi = line.split(",");
+                if (campi.length < 5) continue;
+                controllo += Double.parseDouble(campi[2]) + Double.parseDouble(campi[3]) + Integer.parseInt(campi[4]);
+            }
+        }
+        return controllo;
+    }
+
+    private static double leggiConDividiRiga(String filePath) throws IOException {
+        double controllo = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                java.util.List<String> campi = CSVUtils.dividiRiga(line);
+                if (campi.size() < 5) continue;
+                controllo += Double.parseDouble(campi.get(2)) + Double.parseDouble(campi.get(3)) + Integer.parseInt(campi.get(4));
+            }
+        }
+        return controllo;
+    }
+
+    private static double leggiMappato(String filePath) throws IOException {
+        double[] controllo = {0};
+        LettoreCSVMappato.leggi(filePath, null, riga -> {
+            if (riga.numeroCampi() < 5) return;
+            controllo[0] += riga.decimale(2) + riga.decimale(3) + riga.intero(4);
+        });
+        return controllo[0];
+    }
+
+    private static Path creaFile(int righe) throws IOException {
+        Path file = Files.createTempFile("aeroporti", ".csv");
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("codice,nome,latitudine,longitudine,numeroPiste");
+            for (int i = 0; i < righe; i++) {
+                String codice = "" + (char) ('A' + i / 676 % 26) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+                writer.printf(Locale.ROOT, "%s,Aeroporto %d,%.6f,%.6f,%d%n", codice, i,
+                        -60 + random.nextDouble() * 130, -180 + random.nextDouble() * 360, 1 + random.nextInt(4));
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,107 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.services.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test manuale: misura la pianificazione parallela di un grande piano voli
+ * al crescere dei thread (da 1 al numero di core) e verifica che piste e ritardi
+ * assegnati non dipendano dal numero di thread.
+ * Non usa il database: gli aeroporti vengono ricreati in memoria a ogni misura.
+ */
+public class BenchmarkPianificazione {
+
+    private static final int AEROPORTI = 40;
+    private static final int GIORNI = 7;
+    private static final int VOLI_PER_GIORNO = 20_000;
+    private static final int RIPETIZIONI = 3;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK PIANIFICAZIONE PARALLELA ===");
+        Map<LocalDate, List<PianoVolo>> piano = creaPiano();
+        int core = Runtime.getRuntime().availableProcessors();
+        System.out.printf("voli=%d aeroporti=%d giorni=%d core=%d%n",
+                GIORNI * VOLI_PER_GIORNO, AEROPORTI, GIORNI, core);
+
+        String riferimento = null;
+        double msSequenziale = 0;
+        for (int thread = 1; thread <= core; thread *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(thread);
+            double migliore = Double.MAX_VALUE;
+            String risultato = null;
+            for (int r = 0; r < RIPETIZIONI; r++) {
+                Map<String, Aeroporto> aeroporti = creaAeroporti();
+                long inizio = System.nanoTime();
+                List<Volo> voli = new PianificatoreVoli(pool).pianifica(piano, aeroporti);
+                migliore = Math.min(migliore, (System.nanoTime() - inizio) / 1_000_000.0);
+                risultato = impronta(voli);
+            }
+            pool.shutdown();
+
+            if (riferimento == null) {
+                riferimento = risultato;
+                msSequenziale = migliore;
+            }
+            System.out.printf("thread=%d tempo=%.1f ms speedup=%.2fx risultato %s%n",
+                    thread, migliore, msSequenziale / migliore,
+                    risultato.equals(riferimento) ? "identico" : "DIVERSO");
+
+            if (thread < core && thread * 2 > core) thread = core / 2;
+        }
+    }
+
+    private static Map<String, Aeroporto> creaAeroporti() {
+        Map<String, Aeroporto> aeroporti = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < AEROPORTI; i++) {
+            String codice = codice(i);
+            aeroporti.put(codice, new Aeroporto(codice, "Aeroporto " + i,
+                    35 + random.nextDouble() * 20, -5 + random.nextDouble() * 30, 2 + i % 4));
+        }
+        return aeroporti;
+    }
+
+    private static Map<LocalDate, List<PianoVolo>> creaPiano() {
+        Map<LocalDate, List<PianoVolo>> piano = new LinkedHashMap<>();
+        Random random = new Random(42);
+        LocalDate inizio = LocalDate.of(2025, 7, 11);
+        int n = 0;
+        for (int g = 0; g < GIORNI; g++) {
+            List<PianoVolo> voli = new ArrayList<>(VOLI_PER_GIORNO);
+            for (int i = 0; i < VOLI_PER_GIORNO; i++) {
+                int partenza = random.nextInt(AEROPORTI);
+                int destinazione = (partenza + 1 + random.nextInt(AEROPORTI - 1)) % AEROPORTI;
+                voli.add(new PianoVolo("BM" + n++, codice(partenza), codice(destinazione),
+                        LocalTime.of(random.nextInt(24), random.nextInt(60)), 600 + random.nextInt(300)));
+            }
+            piano.put(inizio.plusDays(g), voli);
+        }
+        return piano;
+    }
+
+    /** Codice IATA fittizio dell'i-esimo aeroporto (AAA, AAB, ...). */
+    private static String codice(int i) {
+        return "A" + (char) ('A' + i / 26) + (char) ('A' + i % 26);
+    }
+
+    /** Riassume pista e ritardo di tutti i voli per confrontare le esecuzioni. */
+    private static String impronta(List<Volo> voli) {
+        long h = 17;
+        for (Volo v : voli) {
+            h = h * 31 + v.getCodice().hashCode();
+            h = h * 31 + v.getPistaAssegnata();
+            h = h * 31 + v.getRitardo().toSecondOfDay();
+        }
+        return Long.toHexString(h);
+    }
+}
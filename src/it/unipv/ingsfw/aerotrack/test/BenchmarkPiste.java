@@ -0,0 +1,97 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test manuale: confronta la ricerca della prima pista libera con la scansione
+ * lineare delle liste delle piste (algoritmo precedente) e con l'indice di occupazione
+ * dell'aeroporto, al crescere dei movimenti giornalieri.
+ * Non usa il database.
+ */
+public class BenchmarkPiste {
+
+    private static final int[] MOVIMENTI_GIORNO = {10, 1_000, 100_000};
+    private static final int RICERCHE = 10_000;
+    private static final int RIPETIZIONI = 5;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK RICERCA PISTA LIBERA ===");
+        LocalDate data = LocalDate.of(2025, 7, 11);
+
+        for (int n : MOVIMENTI_GIORNO) {
+            Aeroporto mxp = new Aeroporto("MXP", "Milano Malpensa", 45.63, 8.72, 4);
+            Aeroporto fco = new Aeroporto("FCO", "Roma Fiumicino", 41.80, 12.24, 4);
+
+            // Movimenti in partenza distribuiti casualmente sulla giornata e sulle piste
+            Random random = new Random(42);
+            List<Volo> voli = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                voli.add(Volo.ripristina("BM" + i, mxp, fco, LocalTime.of(random.nextInt(24), random.nextInt(60)),
+                        850, data, i % mxp.getNumeroPiste(), null, null));
+            }
+            mxp.ricostruisciOccupazione(voli);
+
+            int[] minuti = new int[RICERCHE];
+            for (int i = 0; i < RICERCHE; i++) {
+                minuti[i] = random.nextInt(IndicePiste.MINUTI_GIORNO);
+            }
+            int ricercheScansione = n >= 100_000 ? RICERCHE / 100 : RICERCHE;
+
+            double nsScansione = Double.MAX_VALUE;
+            double nsIndice = Double.MAX_VALUE;
+            long controllo = 0;
+            for (int r = 0; r < RIPETIZIONI; r++) {
+                long inizio = System.nanoTime();
+                for (int i = 0; i < ricercheScansione; i++) {
+                    controllo += scansioneLineare(mxp, data, LocalTime.ofSecondOfDay(minuti[i] * 60L));
+                }
+                nsScansione = Math.min(nsScansione, (System.nanoTime() - inizio) / (double) ricercheScansione);
+
+                inizio = System.nanoTime();
+                for (int i = 0; i < RICERCHE; i++) {
+                    controllo += mxp.cercaPistaLibera(data, minuti[i]);
+                }
+                nsIndice = Math.min(nsIndice, (System.nanoTime() - inizio) / (double) RICERCHE);
+            }
+
+            System.out.printf("movimenti=%d scansione=%.1f ns/op indice=%.1f ns/op (controllo %d)%n",
+                    n, nsScansione, nsIndice, controllo);
+        }
+    }
+
+    /**
+     * Ricerca della prima pista libera come faceva Volo.assegnaPista prima dell'indice:
+     * scorre tutti i voli di ogni pista confrontando gli orari.
+     */
+    private static int scansioneLineare(Aeroporto aeroporto, LocalDate data, LocalTime mioOrario) {
+        for (int i = 0; i < aeroporto.getNumeroPiste(); i++) {
+            boolean libera = true;
+            for (Volo v : aeroporto.getPiste()[i]) {
+                if (v.getDataVolo().isEqual(data)) {
+                    if (v.getPartenza().equals(aeroporto)) {
+                        if (!(mioOrario.plusMinutes(30).isBefore(v.getOrarioPartenza()) ||
+                                mioOrario.isAfter(v.getOrarioPartenza().plusMinutes(30)))) {
+                            libera = false;
+                            break;
+                        }
+                    }
+                    if (v.getDestinazione().equals(aeroporto)) {
+                        if (!(mioOrario.plusMinutes(30).isBefore(v.getOrarioPartenza().plusMinutes(30 + v.calcolaTempo())) ||
+                                mioOrario.isAfter(v.getOrarioPartenza().plusMinutes(30 + v.calcolaTempo())))) {
+                            libera = false;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (libera) return i;
+        }
+        return -1;
+    }
+}
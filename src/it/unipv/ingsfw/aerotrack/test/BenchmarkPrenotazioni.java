@@ -0,0 +1,67 @@
+package it.unipv.ingsfw.aerotrack.test;
+
+import it.unipv.ingsfw.aerotrack.dao.*;
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.services.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Test manuale: verifica che il caricamento di tutte le prenotazioni usi un numero
+ * costante di accessi al database al crescere dei dati.
+ * Ogni accesso dei DAO prende una connessione dal pool, quindi il numero di richieste
+ * al pool durante getTuttePrenotazioni() corrisponde al numero di query eseguite.
+ * ATTENZIONE: svuota le tabelle del database configurato.
+ */
+public class BenchmarkPrenotazioni {
+
+    private static final int[] DIMENSIONI = {10, 100, 1000};
+    private static final int PRENOTAZIONI_PER_VOLO = 10;
+
+    public static void main(String[] args) {
+        System.out.println("=== BENCHMARK CARICAMENTO PRENOTAZIONI ===");
+
+        AeroportoService aeroportoService = AeroportoService.getInstance();
+        VoloService voloService = VoloService.getInstance();
+        PrenotazioneService prenotazioneService = PrenotazioneService.getInstance();
+        PasseggeroService passeggeroService = PasseggeroService.getInstance();
+        PasseggeroDao passeggeroDao = PasseggeroDao.getInstance();
+        PrenotazioneDao prenotazioneDao = PrenotazioneDao.getInstance();
+
+        for (int n : DIMENSIONI) {
+            // SVUOTA TUTTE LE TABELLE per test pulito
+            prenotazioneService.svuotaPrenotazioni();
+            voloService.svuotaVoli();
+            passeggeroService.svuotaPasseggeri();
+            aeroportoService.svuotaAeroporti();
+
+            aeroportoService.aggiungiAeroporto("MXP", "Milano Malpensa", 45.63, 8.72, 4);
+            aeroportoService.aggiungiAeroporto("FCO", "Roma Fiumicino", 41.80, 12.24, 4);
+
+            // Popola n prenotazioni distribuite su n / PRENOTAZIONI_PER_VOLO voli
+            LocalDate data = LocalDate.now();
+            int numeroVoli = Math.max(1, n / PRENOTAZIONI_PER_VOLO);
+            for (int v = 0; v < numeroVoli; v++) {
+                voloService.creaVolo("BM" + v, "MXP", "FCO", LocalTime.of(v % 24, 0), 850, data.plusDays(v / 24));
+            }
+            List<Volo> voli = voloService.getTuttiVoli();
+            for (int i = 0; i < n; i++) {
+                Passeggero p = new Passeggero("Nome" + i, "Cognome" + i, "DOC" + i);
+                passeggeroDao.aggiungiPasseggero(p);
+                prenotazioneDao.aggiungiPrenotazione(new Prenotazione(p, voli.get(i % voli.size())));
+            }
+
+            // Misura
+            long richiestePrima = DBConnection.getStatistiche("aerotrack").richieste();
+            long inizio = System.nanoTime();
+            List<Prenotazione> prenotazioni = prenotazioneDao.getTuttePrenotazioni();
+            long durataMs = (System.nanoTime() - inizio) / 1_000_000;
+            long query = DBConnection.getStatistiche("aerotrack").richieste() - richiestePrima;
+
+            System.out.printf("prenotazioni=%d voli=%d query=%d tempo=%d ms%n",
+                    prenotazioni.size(), numeroVoli, query, durataMs);
+        }
+    }
+}
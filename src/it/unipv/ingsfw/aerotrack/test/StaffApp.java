@@ -5,9 +5,19 @@ import javax.swing.*;
 
 /**
  * Avvio dell'applicazione AeroTrack.
+ * Con -Daerotrack.avvioDiProva=true l'applicazione si chiude appena mostrata la finestra:
+ * serve all'esecuzione di addestramento che crea l'archivio CDS (mvn package -Pcds).
  */
 public class StaffApp {
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(StaffFrame::new);
+        SwingUtilities.invokeLater(() -> {
+            StaffFrame frame = new StaffFrame();
+            if (Boolean.getBoolean("aerotrack.avvioDiProva")) {
+                SwingUtilities.invokeLater(() -> {
+                    frame.dispose();
+                    System.exit(0);
+                });
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -43,10 +43,7 @@ public class TestFacade {
         // Ricerca volo per codice e stampa dettagli con conteggio prenotazioni
         System.out.println("\nDettaglio volo IT500:");
         Volo v = facade.trovaVolo("IT500");
-        long numPrenotazioni = facade.getPrenotazioni()
-                .stream()
-                .filter(p -> p.getVolo() != null && p.getVolo().getCodice().equals(v.getCodice()))
-                .count();
+        long numPrenotazioni = facade.getPrenotazioniVolo(v.getCodice()).size();
             System.out.println("Volo " + v.getCodice() + ": " + v.getPartenza().getCodice() + " -> " + v.getDestinazione().getCodice()
                 + ", Partenza: " + v.getOrarioPartenza() + ", Data: " + v.getDataVolo() + ", Passeggeri: " + numPrenotazioni);
         }
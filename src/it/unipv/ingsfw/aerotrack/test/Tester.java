@@ -21,9 +21,6 @@ public class Tester {
 
         // SVUOTA LA TABELLA PRIMA DEL TEST 
         prenotazioneService.svuotaPrenotazioni();
-        
-        // INIZIALIZZA IL CONTATORE DEI CODICI PRENOTAZIONE!
-        prenotazioneService.getTuttePrenotazioni();
 
         // Inizializza aeroporti e voli
         aeroportoService.aggiungiAeroporto("LIN", "Milano Linate", 45.45, 9.27, 1);
@@ -0,0 +1,93 @@
+package it.unipv.ingsfw.aerotrack.test.benchmark;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera dati sintetici per i benchmark: aeroporti, voli, passeggeri e prenotazioni.
+ * Con lo stesso seme genera sempre gli stessi dati, così i risultati di esecuzioni diverse
+ * sono confrontabili. Non usa il database.
+ */
+public class GeneratoreDati {
+
+    /** Data dei voli generati. */
+    public static final LocalDate DATA = LocalDate.of(2025, 7, 11);
+
+    private final Random random;
+
+    public GeneratoreDati(long seme) {
+        this.random = new Random(seme);
+    }
+
+    /**
+     * Aeroporti con codici di tre lettere (AAA, AAB, ...), coordinate casuali e da 1 a 4 piste.
+     *
+     * @param n numero di aeroporti, al più 17.576
+     */
+    public List<Aeroporto> aeroporti(int n) {
+        if (n > 26 * 26 * 26) throw new IllegalArgumentException("Al più 17576 aeroporti");
+        List<Aeroporto> aeroporti = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String codice = "" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            aeroporti.add(new Aeroporto(codice, "Aeroporto " + i,
+                    -60 + random.nextDouble() * 130, -180 + random.nextDouble() * 360, 1 + random.nextInt(4)));
+        }
+        return aeroporti;
+    }
+
+    /** Orari di partenza casuali, al minuto. */
+    public LocalTime[] orari(int n) {
+        LocalTime[] orari = new LocalTime[n];
+        for (int i = 0; i < n; i++) {
+            orari[i] = LocalTime.of(random.nextInt(24), random.nextInt(60));
+        }
+        return orari;
+    }
+
+    /**
+     * Voli tra coppie casuali di aeroporti distinti, ricostruiti come se letti dal database:
+     * pista e ritardo sono casuali e gli aeroporti non vengono modificati.
+     */
+    public List<Volo> voli(List<Aeroporto> aeroporti, int n) {
+        List<Volo> voli = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Aeroporto partenza = aeroporti.get(random.nextInt(aeroporti.size()));
+            Aeroporto destinazione;
+            do {
+                destinazione = aeroporti.get(random.nextInt(aeroporti.size()));
+            } while (destinazione == partenza && aeroporti.size() > 1);
+            LocalTime ritardo = random.nextInt(4) == 0 ? LocalTime.of(0, random.nextInt(60)) : null;
+            voli.add(Volo.ripristina("BM" + i, partenza, destinazione,
+                    LocalTime.of(random.nextInt(24), random.nextInt(60)), 700 + random.nextInt(250), DATA,
+                    random.nextInt(partenza.getNumeroPiste()), ritardo, null));
+        }
+        return voli;
+    }
+
+    /** Passeggeri con documenti distinti (DOC0, DOC1, ...). */
+    public List<Passeggero> passeggeri(int n) {
+        List<Passeggero> passeggeri = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            passeggeri.add(new Passeggero("Nome" + i, "Cognome" + random.nextInt(1000), "DOC" + i));
+        }
+        return passeggeri;
+    }
+
+    /**
+     * Prenotazioni di passeggeri casuali su voli casuali. Le prenotazioni non vengono
+     * aggiunte ai voli.
+     */
+    public List<Prenotazione> prenotazioni(List<Passeggero> passeggeri, List<Volo> voli, int n) {
+        List<Prenotazione> prenotazioni = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            prenotazioni.add(new Prenotazione("PR" + i, passeggeri.get(random.nextInt(passeggeri.size())),
+                    voli.get(random.nextInt(voli.size())), false));
+        }
+        return prenotazioni;
+    }
+}
@@ -0,0 +1,176 @@
+package it.unipv.ingsfw.aerotrack.test.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Esegue un benchmark con iterazioni di riscaldamento e di misura, alla maniera di JMH:
+ * ogni iterazione prepara i dati (fuori dalla misura), esegue l'operazione e registra
+ * il tempo medio per singola operazione. Il risultato dell'operazione viene accumulato
+ * in un campo volatile, così la JIT non può eliminare il calcolo.
+ * Tutti i benchmark girano nella stessa JVM: per misure isolate c'è la versione JMH
+ * (test.benchmark.jmh.BenchmarkModello).
+ */
+public class Misura {
+
+    /**
+     * Risultato di un benchmark, in nanosecondi per operazione.
+     *
+     * @param nome        nome del benchmark
+     * @param parametri   parametri del benchmark (dimensioni dei dati), in ordine di nome
+     * @param operazioni  operazioni eseguite da ogni iterazione
+     * @param iterazioni  iterazioni misurate
+     * @param mediaNs     media sulle iterazioni misurate
+     * @param minNs       iterazione più veloce
+     * @param maxNs       iterazione più lenta
+     * @param deviazioneNs deviazione standard sulle iterazioni misurate
+     */
+    public record Risultato(String nome, Map<String, Object> parametri, long operazioni, int iterazioni,
+                            double mediaNs, double minNs, double maxNs, double deviazioneNs) {
+
+        /** Operazioni al secondo corrispondenti al tempo medio. */
+        public double operazioniAlSecondo() {
+            return mediaNs > 0 ? 1e9 / mediaNs : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-32s %-28s %12.1f ns/op  +/-%8.1f  (min %.1f, max %.1f, %d iter. x %d op)",
+                    nome, parametri, mediaNs, deviazioneNs, minNs, maxNs, iterazioni, operazioni);
+        }
+    }
+
+    // Accumula i risultati delle operazioni
+    private static volatile long pozzo;
+
+    private final int riscaldamento;
+    private final int iterazioni;
+
+    /**
+     * @param riscaldamento iterazioni eseguite e scartate prima della misura
+     * @param iterazioni iterazioni misurate
+     */
+    public Misura(int riscaldamento, int iterazioni) {
+        if (riscaldamento < 0 || iterazioni <= 0)
+            throw new IllegalArgumentException("Numero di iterazioni non valido");
+        this.riscaldamento = riscaldamento;
+        this.iterazioni = iterazioni;
+    }
+
+    /**
+     * Esegue il benchmark.
+     *
+     * @param nome nome del benchmark
+     * @param parametri parametri del benchmark, riportati nel risultato
+     * @param operazioni numero di operazioni eseguite da una chiamata dell'operazione
+     * @param prepara crea i dati di un'iterazione (non misurato)
+     * @param operazione esegue le operazioni sui dati; restituisce un valore qualsiasi che dipende dal calcolo
+     */
+    public <S> Risultato esegui(String nome, Map<String, Object> parametri, long operazioni,
+                                Supplier<S> prepara, ToLongFunction<S> operazione) {
+        for (int i = 0; i < riscaldamento; i++) {
+            S dati = prepara.get();
+            pozzo += operazione.applyAsLong(dati);
+        }
+        double[] tempi = new double[iterazioni];
+        for (int i = 0; i < iterazioni; i++) {
+            S dati = prepara.get();
+            long inizio = System.nanoTime();
+            pozzo += operazione.applyAsLong(dati);
+            tempi[i] = (System.nanoTime() - inizio) / (double) operazioni;
+        }
+
+        double somma = 0, min = Double.MAX_VALUE, max = 0;
+        for (double t : tempi) {
+            somma += t;
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+        }
+        double media = somma / iterazioni;
+        double scarti = 0;
+        for (double t : tempi) {
+            scarti += (t - media) * (t - media);
+        }
+        double deviazione = iterazioni > 1 ? Math.sqrt(scarti / (iterazioni - 1)) : 0;
+        return new Risultato(nome, new TreeMap<>(parametri), operazioni, iterazioni, media, min, max, deviazione);
+    }
+
+    /**
+     * Risultati in formato JSON, per confrontarli tra esecuzioni diverse.
+     *
+     * @param ambiente informazioni sull'esecuzione (versione di Java, processori, ...)
+     */
+    public static String json(List<Risultato> risultati, Map<String, Object> ambiente) {
+        StringBuilder sb = new StringBuilder("{\n  \"ambiente\": ");
+        oggetto(sb, ambiente);
+        sb.append(",\n  \"risultati\": [");
+        for (int i = 0; i < risultati.size(); i++) {
+            Risultato r = risultati.get(i);
+            Map<String, Object> campi = new LinkedHashMap<>();
+            campi.put("nome", r.nome());
+            campi.put("parametri", r.parametri());
+            campi.put("unita", "ns/op");
+            campi.put("media", r.mediaNs());
+            campi.put("min", r.minNs());
+            campi.put("max", r.maxNs());
+            campi.put("deviazione", r.deviazioneNs());
+            campi.put("operazioniAlSecondo", r.operazioniAlSecondo());
+            campi.put("operazioni", r.operazioni());
+            campi.put("iterazioni", r.iterazioni());
+            sb.append(i == 0 ? "\n    " : ",\n    ");
+            oggetto(sb, campi);
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    private static void oggetto(StringBuilder sb, Map<String, Object> campi) {
+        sb.append('{');
+        boolean primo = true;
+        for (Map.Entry<String, Object> campo : campi.entrySet()) {
+            if (!primo) sb.append(", ");
+            primo = false;
+            stringa(sb, campo.getKey());
+            sb.append(": ");
+            valore(sb, campo.getValue());
+        }
+        sb.append('}');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void valore(StringBuilder sb, Object valore) {
+        if (valore == null) {
+            sb.append("null");
+        } else if (valore instanceof Map) {
+            oggetto(sb, (Map<String, Object>) valore);
+        } else if (valore instanceof Double || valore instanceof Float) {
+            double d = ((Number) valore).doubleValue();
+            sb.append(Double.isFinite(d) ? String.format(Locale.ROOT, "%.3f", d) : "null");
+        } else if (valore instanceof Number || valore instanceof Boolean) {
+            sb.append(valore);
+        } else {
+            stringa(sb, valore.toString());
+        }
+    }
+
+    private static void stringa(StringBuilder sb, String s) {
+        sb.append('"');
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
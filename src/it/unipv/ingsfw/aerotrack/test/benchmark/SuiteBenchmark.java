@@ -0,0 +1,263 @@
+package it.unipv.ingsfw.aerotrack.test.benchmark;
+
+import it.unipv.ingsfw.aerotrack.models.*;
+import it.unipv.ingsfw.aerotrack.services.*;
+import it.unipv.ingsfw.aerotrack.utils.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark del modello e dei servizi, eseguibili da riga di comando con risultati in JSON
+ * per confrontare le prestazioni tra versioni diverse.
+ *
+ * Uso: {@code java it.unipv.ingsfw.aerotrack.test.benchmark.SuiteBenchmark [opzioni]}
+ * <ul>
+ *   <li>{@code --json FILE}: scrive i risultati in JSON nel file ({@code -} per l'output standard)</li>
+ *   <li>{@code --filtro TESTO}: esegue solo i benchmark il cui nome contiene il testo</li>
+ *   <li>{@code --scala ridotta}: dati dieci volte più piccoli, per una verifica veloce</li>
+ *   <li>{@code --riscaldamento N}, {@code --iterazioni N}: iterazioni di riscaldamento e di misura</li>
+ *   <li>{@code --database}: aggiunge i benchmark dei servizi, che leggono (senza modificarli)
+ *       i dati del database configurato</li>
+ * </ul>
+ * Tutti gli altri benchmark usano dati sintetici generati con un seme fisso ({@link GeneratoreDati})
+ * e non accedono al database.
+ *
+ * Gli stessi benchmark, esclusi quelli sul database, sono misurati con JMH (JVM separate, Blackhole,
+ * risultati nel formato di JMH) da test.benchmark.jmh.BenchmarkModello nel modulo Maven aerotrack-bench:
+ * questa suite resta per una verifica veloce, anche dall'IDE, e per i servizi sul database.
+ */
+public class SuiteBenchmark {
+
+    private static final long SEME = 42;
+
+    private final Misura misura;
+    private final int scala;
+    private final String filtro;
+    private final List<Misura.Risultato> risultati = new ArrayList<>();
+
+    private SuiteBenchmark(Misura misura, int scala, String filtro) {
+        this.misura = misura;
+        this.scala = scala;
+        this.filtro = filtro;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String json = null;
+        String filtro = "";
+        int scala = 1;
+        int riscaldamento = 5;
+        int iterazioni = 10;
+        boolean database = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--json": json = args[++i]; break;
+                case "--filtro": filtro = args[++i]; break;
+                case "--scala": scala = args[++i].equals("ridotta") ? 10 : 1; break;
+                case "--riscaldamento": riscaldamento = Integer.parseInt(args[++i]); break;
+                case "--iterazioni": iterazioni = Integer.parseInt(args[++i]); break;
+                case "--database": database = true; break;
+                default:
+                    System.err.println("Opzione sconosciuta: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        System.out.println("=== BENCHMARK MODELLO E SERVIZI ===");
+        SuiteBenchmark suite = new SuiteBenchmark(new Misura(riscaldamento, iterazioni), scala, filtro);
+        suite.costruzioneVoli();
+        suite.calcolaStato();
+        suite.calcolaDistanza();
+        suite.importaAeroporti();
+        suite.aggiungiPrenotazioni();
+        suite.filtroPrenotazioni();
+        if (database) suite.servizi();
+
+        if (json != null) {
+            Map<String, Object> ambiente = new LinkedHashMap<>();
+            ambiente.put("data", LocalDateTime.now().withNano(0).toString());
+            ambiente.put("java", System.getProperty("java.version"));
+            ambiente.put("vm", System.getProperty("java.vm.name"));
+            ambiente.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+            ambiente.put("processori", Runtime.getRuntime().availableProcessors());
+            ambiente.put("memoriaMassimaMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+            ambiente.put("scala", scala == 1 ? "realistica" : "ridotta");
+            ambiente.put("riscaldamento", riscaldamento);
+            ambiente.put("iterazioni", iterazioni);
+            String testo = Misura.json(suite.risultati, ambiente);
+            if (json.equals("-")) {
+                System.out.print(testo);
+            } else {
+                Files.writeString(Path.of(json), testo, StandardCharsets.UTF_8);
+                System.out.println("Risultati scritti in " + json);
+            }
+        }
+    }
+
+    /** Costruzione di voli con assegnazione della pista su aeroporti sempre più occupati. */
+    private void costruzioneVoli() {
+        int aeroporti = 50;
+        int voli = 20_000 / scala;
+        // Aeroporti nuovi a ogni iterazione: le piste si occupano man mano che i voli vengono creati
+        record Dati(List<Aeroporto> aeroporti, LocalTime[] orari) {}
+        esegui("volo.costruzione", Map.of("aeroporti", aeroporti, "voli", voli), voli, () -> {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            return new Dati(generatore.aeroporti(aeroporti), generatore.orari(voli));
+        }, dati -> {
+            List<Aeroporto> elenco = dati.aeroporti();
+            LocalTime[] orari = dati.orari();
+            long controllo = 0;
+            for (int i = 0; i < orari.length; i++) {
+                Aeroporto partenza = elenco.get(i % elenco.size());
+                Aeroporto destinazione = elenco.get((i * 7 + 1) % elenco.size());
+                if (partenza == destinazione) destinazione = elenco.get((i + 1) % elenco.size());
+                Volo v = new Volo("BM" + i, partenza, destinazione, orari[i], 850, GeneratoreDati.DATA);
+                controllo += v.getPistaAssegnata();
+            }
+            return controllo;
+        });
+    }
+
+    /** Calcolo dello stato di voli con ritardi diversi a orari casuali. */
+    private void calcolaStato() {
+        if (!abilitato("volo.calcolaStato")) return;
+        int n = 100_000 / scala;
+        GeneratoreDati generatore = new GeneratoreDati(SEME);
+        List<Volo> voli = generatore.voli(generatore.aeroporti(500), n);
+        LocalTime[] orari = generatore.orari(n);
+        esegui("volo.calcolaStato", Map.of("voli", n), n, () -> orari, o -> {
+            long controllo = 0;
+            for (int i = 0; i < o.length; i++) {
+                controllo += voli.get(i).calcolaStato(o[i]).ordinal();
+            }
+            return controllo;
+        });
+    }
+
+    /** Distanze tra tutte le coppie di un insieme di aeroporti. */
+    private void calcolaDistanza() {
+        if (!abilitato("distanza.calcolaDistanza")) return;
+        int n = scala == 1 ? 1_000 : 300;
+        List<Aeroporto> aeroporti = new GeneratoreDati(SEME).aeroporti(n);
+        esegui("distanza.calcolaDistanza", Map.of("aeroporti", n), (long) n * n, () -> aeroporti, elenco -> {
+            double controllo = 0;
+            for (Aeroporto a1 : elenco) {
+                for (Aeroporto a2 : elenco) {
+                    controllo += CalcolaDistanza.calcolaDistanza(a1, a2);
+                }
+            }
+            return (long) controllo;
+        });
+    }
+
+    /** Importazione di un file CSV di aeroporti. */
+    private void importaAeroporti() throws IOException {
+        if (!abilitato("csv.importaAeroporti")) return;
+        int n = 10_000 / scala;
+        Path file = Files.createTempFile("aerotrack-benchmark-aeroporti", ".csv");
+        file.toFile().deleteOnExit();
+        CSVUtils.esportaAeroporti(new GeneratoreDati(SEME).aeroporti(n), file.toString());
+        esegui("csv.importaAeroporti", Map.of("righe", n), n, () -> file, f -> {
+            try {
+                return CSVUtils.importaAeroporti(f.toString()).size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Aggiunta delle prenotazioni a un volo, con il controllo dei duplicati. */
+    private void aggiungiPrenotazioni() {
+        int n = 5_000 / scala;
+        esegui("volo.aggiungiPrenotazione", Map.of("prenotazioni", n), n, () -> {
+            GeneratoreDati generatore = new GeneratoreDati(SEME);
+            List<Volo> voli = generatore.voli(generatore.aeroporti(2), 1);
+            return generatore.prenotazioni(generatore.passeggeri(n), voli, n);
+        }, prenotazioni -> {
+            Volo volo = prenotazioni.get(0).getVolo();
+            for (Prenotazione p : prenotazioni) {
+                volo.aggiungiPrenotazione(p);
+            }
+            return volo.getPrenotazioni().size();
+        });
+    }
+
+    /**
+     * Ricerca delle prenotazioni di un documento tra quelle caricate, con lo stesso filtro
+     * di {@link PrenotazioneService#trovaPrenotazioniPerDocumento}.
+     */
+    private void filtroPrenotazioni() {
+        if (!abilitato("prenotazioni.filtroDocumento")) return;
+        int n = 1_000_000 / scala;
+        int ricerche = 10;
+        GeneratoreDati generatore = new GeneratoreDati(SEME);
+        List<Passeggero> passeggeri = generatore.passeggeri(n / 5);
+        List<Prenotazione> prenotazioni = generatore.prenotazioni(passeggeri,
+                generatore.voli(generatore.aeroporti(500), n / 200), n);
+        esegui("prenotazioni.filtroDocumento", Map.of("prenotazioni", n), ricerche, () -> prenotazioni, elenco -> {
+            long controllo = 0;
+            for (int i = 0; i < ricerche; i++) {
+                String documento = passeggeri.get(i * 997 % passeggeri.size()).getDocumento();
+                controllo += elenco.stream()
+                        .filter(p -> p.getPasseggero().getDocumento().equalsIgnoreCase(documento))
+                        .collect(Collectors.toList()).size();
+            }
+            return controllo;
+        });
+    }
+
+    /** Ricerche dei servizi sui dati del database configurato (sola lettura). */
+    private void servizi() {
+        AeroportoService aeroportoService = AeroportoService.getInstance();
+        VoloService voloService = VoloService.getInstance();
+        PrenotazioneService prenotazioneService = PrenotazioneService.getInstance();
+
+        List<Aeroporto> aeroporti = aeroportoService.getTuttiAeroporti();
+        if (aeroporti.isEmpty()) {
+            System.out.println("Database senza aeroporti: benchmark dei servizi saltati");
+            return;
+        }
+        String aeroporto = aeroporti.get(0).getCodice();
+        int pagina = VoloService.DIMENSIONE_MASSIMA_PAGINA;
+        CriteriRicercaVoli criteri = CriteriRicercaVoli.tutti().conPartenza(aeroporto);
+        esegui("servizio.cercaVoli", Map.of("partenza", aeroporto, "pagina", pagina), 1, () -> criteri,
+                c -> voloService.cercaVoli(c, null, pagina).voli().size());
+        esegui("servizio.trovaVoliPerPartenza", Map.of("partenza", aeroporto), 1, () -> aeroporto,
+                a -> voloService.trovaVoliPerPartenza(a).size());
+
+        List<Prenotazione> prime = prenotazioneService.cercaPrenotazioni(null, null, 1);
+        if (prime.isEmpty()) {
+            System.out.println("Database senza prenotazioni: benchmark delle prenotazioni saltati");
+            return;
+        }
+        String documento = prime.get(0).getPasseggero().getDocumento();
+        esegui("servizio.trovaPrenotazioniPerDocumento", Map.of("documento", documento), 1, () -> documento,
+                d -> prenotazioneService.trovaPrenotazioniPerDocumento(d).size());
+        esegui("servizio.cercaPrenotazioni", Map.of("testo", documento, "pagina", pagina), 1, () -> documento,
+                d -> prenotazioneService.cercaPrenotazioni(d, null, pagina).size());
+    }
+
+    private boolean abilitato(String nome) {
+        return nome.contains(filtro);
+    }
+
+    private <S> void esegui(String nome, Map<String, Object> parametri, long operazioni,
+                            Supplier<S> prepara, ToLongFunction<S> operazione) {
+        if (!abilitato(nome)) return;
+        Misura.Risultato r = misura.esegui(nome, parametri, operazioni, prepara, operazione);
+        risultati.add(r);
+        System.out.println(r);
+    }
+}
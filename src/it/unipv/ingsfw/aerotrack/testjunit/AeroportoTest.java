@@ -3,6 +3,11 @@ package it.unipv.ingsfw.aerotrack.testjunit;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 
 
 public class AeroportoTest {
@@ -35,4 +40,39 @@ public class AeroportoTest {
         Aeroporto a2 = new Aeroporto("MXP", "Malpensa2", 45.63, 8.73, 3);
         assertEquals(a1, a2); // stesso codice = equals true
     }
+
+    @Test
+    public void testRicostruisciOccupazioneNonDuplica() {
+        Aeroporto mxp = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto fco = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 1);
+        LocalDate data = LocalDate.of(2025, 7, 11);
+        List<Volo> voli = List.of(
+                Volo.ripristina("AZ1", mxp, fco, LocalTime.of(10, 0), 800, data, 1, null, null),
+                Volo.ripristina("AZ2", fco, mxp, LocalTime.of(8, 0), 800, data, 0, null, null));
+
+        mxp.ricostruisciOccupazione(voli);
+        mxp.ricostruisciOccupazione(voli);
+
+        assertEquals(1, mxp.getVoliInPartenza().size());
+        assertEquals(1, mxp.getVoliInArrivo().size());
+        assertTrue(mxp.getPiste()[1].contains(voli.get(0)));
+        // L'arrivo (circa 9:06) occupa la prima pista libera
+        assertTrue(mxp.getPiste()[0].contains(voli.get(1)));
+    }
+
+    @Test
+    public void testIndicePisteOccupazioneERimozione() {
+        Aeroporto mxp = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 1);
+        Aeroporto fco = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        LocalDate data = LocalDate.of(2025, 7, 11);
+        Volo v = new Volo("AZ1", mxp, fco, LocalTime.of(10, 0), 800, data);
+
+        assertEquals(-1, mxp.cercaPistaLibera(data, 10 * 60 + 30));
+        assertEquals(0, mxp.cercaPistaLibera(data, 10 * 60 + 31));
+        assertEquals(0, mxp.cercaPistaLibera(data.plusDays(1), 10 * 60));
+        assertEquals(10 * 60 + 31, mxp.cercaPrimoSlotLibero(data, 10 * 60).minuto());
+
+        assertTrue(mxp.rimuoviVolo(v));
+        assertEquals(0, mxp.cercaPistaLibera(data, 10 * 60));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package it.unipv.ingsfw.aerotrack.testjunit;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.CSVUtils;
+import it.unipv.ingsfw.aerotrack.utils.LetturaCSVParallela;
+import org.junit.jupiter.api.Test;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVUtilsTest {
+
+    @Test
+    public void testDividiRigaSemplice() {
+        assertEquals(List.of("MXP", "Milano Malpensa", "45.63", "8.72", "4"),
+                CSVUtils.dividiRiga("MXP,Milano Malpensa,45.63,8.72,4"));
+    }
+
+    @Test
+    public void testDividiRigaCampiVuoti() {
+        assertEquals(List.of("", "a", "", ""), CSVUtils.dividiRiga(",a,,"));
+    }
+
+    @Test
+    public void testDividiRigaVirgolette() {
+        assertEquals(List.of("1", "Aeroporto \"Nord\", Roma", "", "x"),
+                CSVUtils.dividiRiga("1,\"Aeroporto \"\"Nord\"\", Roma\",\"\",x"));
+    }
+
+    @Test
+    public void testCampoRiletto() {
+        String nome = "Aeroporto \"Nord\", Roma";
+        assertEquals(List.of(nome, "FCO"), CSVUtils.dividiRiga(CSVUtils.campo(nome) + "," + CSVUtils.campo("FCO")));
+    }
+
+    @Test
+    public void testLetturaParallelaOrdineERighe() throws Exception {
+        Path file = Files.createTempFile("voli", ".csv");
+        Files.writeString(file, "velocita,codice\n800,AZ1\n\nabc,AZ2\n900,\"AZ,3\"\n");
+        List<String> codici = new ArrayList<>();
+        List<Long> righe = new ArrayList<>();
+        List<Long> errori = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // Blocchi di un byte: ogni riga finisce in un blocco diverso
+            LetturaCSVParallela.<String>leggi(file.toString(), List.of("codice", "velocita"), riga -> {
+                riga.decimale(1);
+                return riga.testo(0);
+            }, blocco -> {
+                for (int i = 0; i < blocco.elementi().size(); i++) {
+                    codici.add(blocco.elementi().get(i));
+                    righe.add(blocco.riga(i));
+                }
+                blocco.errori().forEach(e -> errori.add(e.riga()));
+            }, pool, 1);
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+        assertEquals(List.of("AZ1", "AZ,3"), codici);
+        assertEquals(List.of(2L, 5L), righe);
+        assertEquals(List.of(4L), errori);
+    }
+
+    @Test
+    public void testEsportaImportaAeroporti() throws Exception {
+        Path file = Files.createTempFile("aeroporti", ".csv");
+        try {
+            CSVUtils.esportaAeroporti(List.of(
+                    new Aeroporto("MXP", "Milano, Malpensa", 45.630606, 8.728111, 4),
+                    new Aeroporto("FCO", "Roma Fiumicino", -41.8, -12.25, 3)), file.toString());
+            List<Aeroporto> letti = CSVUtils.importaAeroporti(file.toString());
+            assertEquals(2, letti.size());
+            assertEquals("Milano, Malpensa", letti.get(0).getNome());
+            assertEquals(45.630606, letti.get(0).getLatitudine());
+            assertEquals(8.728111, letti.get(0).getLongitudine());
+            assertEquals(-41.8, letti.get(1).getLatitudine());
+            assertEquals(3, letti.get(1).getNumeroPiste());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package it.unipv.ingsfw.aerotrack.testjunit;
+
+import it.unipv.ingsfw.aerotrack.utils.CacheLRU;
+import it.unipv.ingsfw.aerotrack.utils.StatisticheCache;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheLRUTest {
+
+    private final List<String> caricate = new ArrayList<>();
+
+    private String carica(String chiave) {
+        caricate.add(chiave);
+        return chiave.equals("assente") ? null : new String("valore " + chiave);
+    }
+
+    @Test
+    public void testSfrattaQuellaUsataMenoDiRecente() {
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 2, null, this::carica, null);
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c"); // elimina b
+        cache.get("a");
+        cache.get("b");
+        assertEquals(List.of("a", "b", "c", "b"), caricate);
+        StatisticheCache statistiche = cache.statistiche();
+        assertEquals(2, statistiche.dimensione());
+        assertEquals(2, statistiche.trovati());
+        assertEquals(4, statistiche.mancati());
+        assertEquals(2, statistiche.sfrattate());
+    }
+
+    @Test
+    public void testScritturaEInvalidazione() {
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 10, null, this::carica, null);
+        cache.put("a", "scritto");
+        assertEquals("scritto", cache.get("a"));
+        cache.invalida("a");
+        assertEquals("valore a", cache.get("a"));
+        assertEquals(List.of("a"), caricate);
+    }
+
+    @Test
+    public void testValoreAssenteNonMemorizzato() {
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 10, null, this::carica, null);
+        assertNull(cache.get("assente"));
+        assertNull(cache.get("assente"));
+        assertEquals(2, caricate.size());
+    }
+
+    @Test
+    public void testScadenzaTieneLaStessaIstanza() throws InterruptedException {
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 10, Duration.ofMillis(20), this::carica, String::equals);
+        String primo = cache.get("a");
+        Thread.sleep(40);
+        String secondo = cache.get("a");
+        assertEquals(2, caricate.size());
+        assertSame(primo, secondo);
+    }
+
+    @Test
+    public void testLetturaSuperataNonMemorizzata() {
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 10, null, this::carica, null);
+        long versione = cache.versione();
+        cache.put("a", "scritto");
+        assertEquals("scritto", cache.unisci("a", "letto prima", versione));
+        cache.invalida("b");
+        assertEquals("letto prima", cache.unisci("b", "letto prima", versione));
+        assertNull(cache.getSePresente("b"));
+    }
+
+    @Test
+    public void testCaricamentoUnicoPerChiave() throws Exception {
+        AtomicInteger caricamenti = new AtomicInteger();
+        CountDownLatch inCaricamento = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        CacheLRU<String, String> cache = new CacheLRU<>("test", 10, null, chiave -> {
+            caricamenti.incrementAndGet();
+            inCaricamento.countDown();
+            try {
+                sblocca.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new String("valore " + chiave);
+        }, null);
+
+        ExecutorService thread = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> risultati = new ArrayList<>();
+            risultati.add(thread.submit(() -> cache.get("a")));
+            assertTrue(inCaricamento.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                risultati.add(thread.submit(() -> cache.get("a")));
+            }
+            Thread.sleep(50);
+            sblocca.countDown();
+            String primo = risultati.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<String> r : risultati) {
+                assertSame(primo, r.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            thread.shutdownNow();
+        }
+        assertEquals(1, caricamenti.get());
+        assertEquals(1, cache.statistiche().caricamenti());
+    }
+}
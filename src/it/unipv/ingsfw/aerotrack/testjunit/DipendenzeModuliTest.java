@@ -0,0 +1,73 @@
+package it.unipv.ingsfw.aerotrack.testjunit;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica sugli import dei sorgenti che i package rispettino la suddivisione in moduli
+ * descritta nel README: il nucleo (models, utils) non dipende dalla persistenza, la persistenza
+ * (dao) non dipende dai servizi, e solo l'interfaccia grafica usa Swing e AWT.
+ */
+public class DipendenzeModuliTest {
+
+    private static final Path SORGENTI = Path.of("src", "it", "unipv", "ingsfw", "aerotrack");
+    private static final Pattern IMPORT = Pattern.compile("^import\\s+(?:static\\s+)?([\\w.]+)", Pattern.MULTILINE);
+    private static final String PROGETTO = "it.unipv.ingsfw.aerotrack.";
+
+    @Test
+    public void testNucleoIndipendente() throws IOException {
+        verifica("models", Set.of("models", "utils"));
+        verifica("utils", Set.of("models", "utils"));
+    }
+
+    @Test
+    public void testPersistenzaNonDipendeDaiServizi() throws IOException {
+        verifica("dao", Set.of("dao", "models", "utils"));
+    }
+
+    @Test
+    public void testServiziSenzaInterfacciaGrafica() throws IOException {
+        verifica("services", Set.of("services", "dao", "models", "utils"));
+        verifica("controller", Set.of("controller", "services", "models", "utils"));
+        verifica("facade", Set.of("facade", "services", "models", "utils"));
+    }
+
+    @Test
+    public void testInterfacciaGraficaNonUsaIDao() throws IOException {
+        verifica("view", Set.of("view", "controller", "services", "models", "utils"));
+    }
+
+    /**
+     * Controlla che i sorgenti del package importino solo i package del progetto consentiti
+     * e, salvo l'interfaccia grafica, né Swing né AWT.
+     */
+    private static void verifica(String pacchetto, Set<String> consentiti) throws IOException {
+        List<String> violazioni = new ArrayList<>();
+        Path cartella = SORGENTI.resolve(pacchetto);
+        assertTrue(Files.isDirectory(cartella), "Package inesistente: " + pacchetto);
+        try (Stream<Path> file = Files.list(cartella)) {
+            for (Path sorgente : (Iterable<Path>) file.filter(p -> p.toString().endsWith(".java"))::iterator) {
+                Matcher m = IMPORT.matcher(Files.readString(sorgente));
+                while (m.find()) {
+                    String importato = m.group(1);
+                    boolean grafica = importato.startsWith("javax.swing") || importato.startsWith("java.awt");
+                    boolean vietato = importato.startsWith(PROGETTO)
+                            && !consentiti.contains(importato.substring(PROGETTO.length()).split("\\.")[0]);
+                    if (vietato || (grafica && !pacchetto.equals("view"))) {
+                        violazioni.add(sorgente.getFileName() + " importa " + importato);
+                    }
+                }
+            }
+        }
+        assertTrue(violazioni.isEmpty(), pacchetto + ": " + violazioni);
+    }
+}
@@ -0,0 +1,92 @@
+package it.unipv.ingsfw.aerotrack.testjunit;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.utils.MappaIdentita;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappaIdentitaTest {
+
+    // Righe del "database": codice -> numero di piste
+    private final Map<String, Integer> righe = new TreeMap<>();
+
+    private Aeroporto leggi(String codice) {
+        Integer piste = righe.get(codice);
+        return piste != null ? new Aeroporto(codice, "Aeroporto " + codice, 45, 9, piste) : null;
+    }
+
+    private List<Aeroporto> leggiTutti() {
+        List<Aeroporto> aeroporti = new ArrayList<>();
+        for (String codice : righe.keySet()) {
+            aeroporti.add(leggi(codice));
+        }
+        return aeroporti;
+    }
+
+    private MappaIdentita<String, Aeroporto> crea(Duration durata) {
+        return new MappaIdentita<>("aeroporti", durata, this::leggi, this::leggiTutti, Aeroporto::getCodice,
+                (a, b) -> a.getNumeroPiste() == b.getNumeroPiste());
+    }
+
+    @Test
+    public void testElencoERicercaStessaIstanza() throws InterruptedException {
+        // Nessun limite di dimensione; le voci lette per codice scadono in momenti diversi dall'elenco
+        for (int i = 0; i < 500; i++) {
+            righe.put(String.format("%c%cX", 'A' + i / 26, 'A' + i % 26), 1 + i % 3);
+        }
+        MappaIdentita<String, Aeroporto> aeroporti = crea(Duration.ofMillis(30));
+        Aeroporto primo = aeroporti.get(righe.keySet().iterator().next());
+        List<Aeroporto> elenco = aeroporti.tutti();
+        assertEquals(500, elenco.size());
+        assertSame(primo, elenco.get(0));
+
+        Thread.sleep(40);
+        for (Aeroporto a : elenco) {
+            assertSame(a, aeroporti.get(a.getCodice()));
+        }
+        Thread.sleep(40);
+        List<Aeroporto> riletto = aeroporti.tutti();
+        for (int i = 0; i < elenco.size(); i++) {
+            assertSame(elenco.get(i), riletto.get(i));
+        }
+    }
+
+    @Test
+    public void testRigheModificateERimosse() {
+        righe.put("MXP", 2);
+        righe.put("FCO", 3);
+        MappaIdentita<String, Aeroporto> aeroporti = crea(null);
+        Aeroporto mxp = aeroporti.get("MXP");
+        assertEquals(2, aeroporti.tutti().size());
+
+        // Stessi dati: resta l'istanza; dati diversi: nuova istanza, anche nell'elenco
+        aeroporti.invalida("MXP");
+        assertSame(mxp, aeroporti.get("MXP"));
+        righe.put("MXP", 4);
+        aeroporti.invalida("MXP");
+        Aeroporto modificato = aeroporti.get("MXP");
+        assertNotSame(mxp, modificato);
+        assertSame(modificato, aeroporti.tutti().get(1));
+
+        righe.remove("FCO");
+        aeroporti.invalidaTutto();
+        assertEquals(List.of(modificato), aeroporti.tutti());
+        assertSame(modificato, aeroporti.tutti().get(0));
+    }
+
+    @Test
+    public void testScritturaTieneLIstanzaConGliStessiDati() {
+        righe.put("MXP", 2);
+        MappaIdentita<String, Aeroporto> aeroporti = crea(null);
+        Aeroporto mxp = aeroporti.get("MXP");
+        aeroporti.put("MXP", new Aeroporto("MXP", "Malpensa", 45, 9, 2));
+        assertSame(mxp, aeroporti.get("MXP"));
+        aeroporti.rimuovi("MXP");
+        assertNotSame(mxp, aeroporti.get("MXP"));
+    }
+}
@@ -1,13 +1,21 @@
 package it.unipv.ingsfw.aerotrack.testjunit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import it.unipv.ingsfw.aerotrack.models.Passeggero;
 import it.unipv.ingsfw.aerotrack.models.Volo;
 import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class PrenotazioneTest {
+
+    @BeforeAll
+    public static void generatoreCodici() {
+        // Nessun DAO nei test del modello: i codici delle nuove prenotazioni vengono da un contatore
+        Prenotazione.setGeneratoreCodici(new AtomicLong(1000)::getAndIncrement);
+    }
 	  
 	// Test creazione prenotazione
     @Test
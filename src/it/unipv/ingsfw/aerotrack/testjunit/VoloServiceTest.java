@@ -0,0 +1,108 @@
+package it.unipv.ingsfw.aerotrack.testjunit;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.Volo;
+import it.unipv.ingsfw.aerotrack.services.AeroportoService;
+import it.unipv.ingsfw.aerotrack.services.PianoVolo;
+import it.unipv.ingsfw.aerotrack.services.VoloService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test della pianificazione in blocco dei voli, sui DAO del profilo memoria.
+ */
+public class VoloServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2025, 7, 11);
+
+    private VoloService voloService;
+    private AeroportoService aeroportoService;
+
+    @BeforeAll
+    public static void profiloMemoria() {
+        System.setProperty("db.profilo", "memoria");
+    }
+
+    @BeforeEach
+    public void svuota() {
+        voloService = VoloService.getInstance();
+        aeroportoService = AeroportoService.getInstance();
+        voloService.svuotaVoli();
+        aeroportoService.svuotaAeroporti();
+    }
+
+    @Test
+    public void testPianificaGiornataComePianificaInParallelo() {
+        // Due copie degli stessi aeroporti, con una sola pista: ogni pianificazione usa la sua
+        String[] primi = {"AAA", "AAB", "AAC"};
+        String[] secondi = {"BBA", "BBB", "BBC"};
+        double[][] posizioni = {{45.63, 8.72}, {41.80, 12.24}, {48.35, 11.78}};
+        for (int i = 0; i < posizioni.length; i++) {
+            aeroportoService.aggiungiAeroporto(primi[i], "Aeroporto " + primi[i], posizioni[i][0], posizioni[i][1], 1);
+            aeroportoService.aggiungiAeroporto(secondi[i], "Aeroporto " + secondi[i], posizioni[i][0], posizioni[i][1], 1);
+        }
+
+        List<String> giornata = descrivi(voloService.pianificaGiornata(DATA, piano(primi)), primi);
+        voloService.svuotaVoli();
+        List<String> parallelo = descrivi(voloService.pianificaInParallelo(Map.of(DATA, piano(secondi))), secondi);
+
+        assertEquals(giornata, parallelo);
+        assertTrue(giornata.stream().anyMatch(riga -> riga.contains("IN_RITARDO")));
+    }
+
+    @Test
+    public void testArriviInOrdineDiArrivo() {
+        aeroportoService.aggiungiAeroporto("LON", "Lontano", 0, 0, 1);
+        aeroportoService.aggiungiAeroporto("VIC", "Vicino", 0, 5, 1);
+        aeroportoService.aggiungiAeroporto("DST", "Destinazione", 0, 6, 1);
+
+        // Il volo lento parte prima ma atterra dopo quello veloce, a meno della separazione tra le piste
+        List<Volo> voli = voloService.pianificaGiornata(DATA, List.of(
+                new PianoVolo("LENTO", "LON", "DST", LocalTime.of(10, 0), 800),
+                new PianoVolo("VELOCE", "VIC", "DST", LocalTime.of(10, 30), 600)));
+        Volo lento = voli.get(0);
+        Volo veloce = voli.get(1);
+        assertTrue(veloce.getMinutoArrivo() < lento.getMinutoArrivo());
+
+        List<Volo> pista = veloce.getDestinazione().getPiste()[0];
+        assertTrue(pista.contains(veloce));
+        assertFalse(pista.contains(lento));
+    }
+
+    /** Piano di 40 voli tra gli aeroporti indicati, con orari vicini e velocità diverse. */
+    private static List<PianoVolo> piano(String[] aeroporti) {
+        List<PianoVolo> piano = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int partenza = i % 3;
+            int destinazione = (partenza + 1 + (i / 3) % 2) % 3;
+            piano.add(new PianoVolo(String.format("T%03d", i), aeroporti[partenza], aeroporti[destinazione],
+                    LocalTime.of(6, 0).plusMinutes(i * 7 % 120), 300 + i * 137 % 600));
+        }
+        return piano;
+    }
+
+    /** Pista, ritardo e stato di ogni volo e voli di ogni pista degli aeroporti, per confrontare due pianificazioni. */
+    private List<String> descrivi(List<Volo> voli, String[] aeroporti) {
+        List<String> righe = new ArrayList<>();
+        for (Volo v : voli) {
+            righe.add(v.getCodice() + " " + v.getPistaAssegnata() + " " + v.getRitardo() + " " + v.getStato());
+        }
+        for (int i = 0; i < aeroporti.length; i++) {
+            Aeroporto a = aeroportoService.cercaAeroporto(aeroporti[i]);
+            for (List<Volo> pista : a.getPiste()) {
+                TreeSet<String> codici = new TreeSet<>();
+                pista.forEach(v -> codici.add(v.getCodice()));
+                righe.add(i + ": " + codici);
+            }
+        }
+        return righe;
+    }
+}
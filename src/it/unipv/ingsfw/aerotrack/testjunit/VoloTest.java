@@ -2,13 +2,23 @@ package it.unipv.ingsfw.aerotrack.testjunit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import it.unipv.ingsfw.aerotrack.models.*;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class VoloTest {
 
+    @BeforeAll
+    public static void generatoreCodici() {
+        // Nessun DAO nei test del modello: i codici delle nuove prenotazioni vengono da un contatore
+        Prenotazione.setGeneratoreCodici(new AtomicLong(1000)::getAndIncrement);
+    }
+
     @Test
     public void testGetCodice() {
         Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
@@ -33,5 +43,93 @@ public class VoloTest {
 
         v.aggiungiPrenotazione(pr);
         assertTrue(v.getPrenotazioni().contains(pr));
+        assertThrows(UnsupportedOperationException.class, () -> v.getPrenotazioni().clear());
+    }
+
+    @Test
+    public void testRipristinaNonModificaAeroporti() {
+        Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto destinazione = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        LocalDate dataVolo = LocalDate.of(2025, 7, 11);
+        Volo v = Volo.ripristina("AZ123", origine, destinazione, LocalTime.of(10, 0), 800, dataVolo,
+                1, LocalTime.of(0, 15), Volo.StatoVolo.IN_RITARDO);
+
+        assertEquals(1, v.getPistaAssegnata());
+        assertEquals(LocalTime.of(0, 15), v.getRitardo());
+        assertEquals(Volo.StatoVolo.IN_RITARDO, v.getStato());
+        assertTrue(origine.getVoliInPartenza().isEmpty());
+        assertTrue(destinazione.getVoliInArrivo().isEmpty());
+        assertTrue(origine.getPiste()[1].isEmpty());
+    }
+
+    @Test
+    public void testRitardoSePisteOccupate() {
+        Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto destinazione = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        LocalDate dataVolo = LocalDate.of(2025, 7, 11);
+        Volo v1 = new Volo("AZ1", origine, destinazione, LocalTime.of(10, 0), 800, dataVolo);
+        Volo v2 = new Volo("AZ2", origine, destinazione, LocalTime.of(10, 0), 800, dataVolo);
+        Volo v3 = new Volo("AZ3", origine, destinazione, LocalTime.of(10, 0), 800, dataVolo);
+
+        assertEquals(0, v1.getPistaAssegnata());
+        assertEquals(1, v2.getPistaAssegnata());
+        assertEquals(Volo.StatoVolo.IN_RITARDO, v3.getStato());
+        assertEquals(LocalTime.of(0, 31), v3.getRitardo());
+        assertEquals(0, v3.getPistaAssegnata());
+    }
+
+    @Test
+    public void testSetRitardoAggiornaMinuti() {
+        Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto destinazione = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        Volo v = Volo.ripristina("AZ123", origine, destinazione, LocalTime.of(10, 0), 800, LocalDate.of(2025, 7, 11),
+                0, null, null);
+        int arrivo = v.getMinutoArrivo();
+        assertEquals(600, v.getMinutoPartenzaEffettivo());
+        assertEquals(600 + 30 + v.calcolaTempo(), arrivo);
+
+        v.setRitardo(LocalTime.of(0, 45));
+        assertEquals(645, v.getMinutoPartenzaEffettivo());
+        assertEquals(arrivo + 45, v.getMinutoArrivo());
+        assertEquals(Volo.StatoVolo.IN_ATTESA, v.calcolaStato(LocalTime.of(10, 30)));
+        assertEquals(Volo.StatoVolo.IN_PARTENZA, v.calcolaStato(LocalTime.of(10, 45)));
+
+        v.setRitardo(LocalTime.of(2, 1));
+        assertEquals(Volo.StatoVolo.CANCELLATO, v.calcolaStato(LocalTime.of(10, 30)));
+    }
+
+    @Test
+    public void testCalcolaStatoNonModificaLoStatoSalvato() {
+        Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto destinazione = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        Volo v = Volo.ripristina("AZ123", origine, destinazione, LocalTime.of(10, 0), 800, LocalDate.of(2025, 7, 11),
+                0, LocalTime.of(0, 15), Volo.StatoVolo.IN_ATTESA);
+        assertEquals(Volo.StatoVolo.PROGRAMMATO, v.calcolaStato(LocalTime.of(9, 0)));
+        assertEquals(Volo.StatoVolo.IN_ATTESA, v.getStato());
+    }
+
+    @Test
+    public void testProssimoCambioStato() {
+        Aeroporto origine = new Aeroporto("MXP", "Malpensa", 45.63, 8.72, 2);
+        Aeroporto destinazione = new Aeroporto("FCO", "Fiumicino", 41.80, 12.24, 4);
+        Volo v = Volo.ripristina("AZ123", origine, destinazione, LocalTime.of(10, 0), 800, LocalDate.of(2025, 7, 11),
+                0, LocalTime.of(0, 15), null);
+        long tempo = v.calcolaTempo();
+
+        // Seguendo i cambi restituiti si attraversano tutti gli stati della giornata
+        LocalTime adesso = LocalTime.of(9, 0);
+        List<Volo.StatoVolo> stati = new ArrayList<>();
+        stati.add(v.calcolaStato(adesso));
+        for (LocalTime cambio = v.prossimoCambioStato(adesso); cambio != null; cambio = v.prossimoCambioStato(cambio)) {
+            assertNotEquals(stati.get(stati.size() - 1), v.calcolaStato(cambio));
+            stati.add(v.calcolaStato(cambio));
+        }
+        assertEquals(List.of(Volo.StatoVolo.PROGRAMMATO, Volo.StatoVolo.IN_ATTESA, Volo.StatoVolo.IN_PARTENZA,
+                Volo.StatoVolo.IN_VOLO, Volo.StatoVolo.ATTERRATO), stati);
+        assertEquals(LocalTime.of(10, 45).plusMinutes(tempo).plusNanos(1),
+                v.prossimoCambioStato(LocalTime.of(11, 0)));
+
+        v.setRitardo(LocalTime.of(2, 1));
+        assertNull(v.prossimoCambioStato(adesso));
     }
-}
\ No newline at end of file
+}
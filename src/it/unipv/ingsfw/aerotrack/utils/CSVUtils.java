@@ -1,16 +1,39 @@
 package it.unipv.ingsfw.aerotrack.utils;
 
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.Passeggero;
+import it.unipv.ingsfw.aerotrack.models.Prenotazione;
+import it.unipv.ingsfw.aerotrack.models.Volo;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * Utility per importazione/esportazione Aeroporti in formato CSV.
+ * Utility per importazione/esportazione in formato CSV.
+ * Per gli aeroporti importazione ed esportazione sono complete; per voli, passeggeri
+ * e prenotazioni la classe definisce colonne e righe dei file, letti con
+ * {@link LetturaCSVParallela}.
  */
 public class CSVUtils {
 
+    /** Colonne dei file dei voli. Pista (da 1, 0 = non assegnata), ritardo e stato sono solo esportati. */
+    public static final List<String> COLONNE_VOLI =
+            List.of("codice", "partenza", "destinazione", "data", "orario", "velocita", "pista", "ritardo", "stato");
+
+    /** Colonne dei file dei passeggeri. */
+    public static final List<String> COLONNE_PASSEGGERI = List.of("documento", "nome", "cognome");
+
+    /** Colonne dei file delle prenotazioni (codice vuoto = nuovo codice all'importazione). */
+    public static final List<String> COLONNE_PRENOTAZIONI =
+            List.of("codice", "documento", "nome", "cognome", "volo", "cancellata");
+
     /**
      * Esporta una lista di aeroporti in formato CSV.
      * 
@@ -22,14 +45,16 @@ public class CSVUtils {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
             writer.println("codice,nome,latitudine,longitudine,numeroPiste");
             for (Aeroporto a : aeroporti) {
-                writer.printf("%s,%s,%.6f,%.6f,%d%n",
-                        a.getCodice(), a.getNome(), a.getLatitudine(), a.getLongitudine(), a.getNumeroPiste());
+                writer.printf(Locale.ROOT, "%s,%s,%.6f,%.6f,%d%n",
+                        campo(a.getCodice()), campo(a.getNome()), a.getLatitudine(), a.getLongitudine(), a.getNumeroPiste());
             }
         }
     }
 
     /**
      * Importa una lista di aeroporti da un file CSV.
+     * Il file è letto mappato in memoria ({@link LettoreCSVMappato}): coordinate e piste
+     * sono convertite direttamente dai byte.
      * 
      * @param filePath percorso del file CSV
      * @return lista di aeroporti importati
@@ -37,19 +62,121 @@ public class CSVUtils {
      */
     public static List<Aeroporto> importaAeroporti(String filePath) throws IOException {
         List<Aeroporto> aeroporti = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line = reader.readLine(); // skip header
-            while ((line = reader.readLine()) != null) {
-                String[] campi = line.split(",");
-                if(campi.length < 5) continue;
-                String codice = campi[0];
-                String nome = campi[1];
-                double lat = Double.parseDouble(campi[2]);
-                double lon = Double.parseDouble(campi[3]);
-                int piste = Integer.parseInt(campi[4]);
-                aeroporti.add(new Aeroporto(codice, nome, lat, lon, piste));
+        LettoreCSVMappato.leggi(filePath, null, riga -> {
+            if (riga.numeroCampi() < 5) return;
+            aeroporti.add(new Aeroporto(riga.testo(0), riga.testo(1), riga.decimale(2), riga.decimale(3), riga.intero(4)));
+        });
+        return aeroporti;
+    }
+
+    /**
+     * Divide una riga CSV nei suoi campi, senza espressioni regolari.
+     * I campi possono essere racchiusi tra virgolette (e contenere virgole);
+     * una virgoletta dentro un campo tra virgolette si scrive raddoppiata ("").
+     * Non sono gestiti i campi che vanno a capo.
+     *
+     * @param riga riga da dividere
+     * @return i campi della riga, nell'ordine
+     */
+    public static List<String> dividiRiga(String riga) {
+        List<String> campi = new ArrayList<>();
+        int lunghezza = riga.length();
+        int i = 0;
+        while (true) {
+            if (i < lunghezza && riga.charAt(i) == '"') {
+                // Campo tra virgolette: si copia carattere per carattere solo se contiene ""
+                StringBuilder campo = null;
+                int inizio = ++i;
+                while (i < lunghezza) {
+                    char c = riga.charAt(i);
+                    if (c == '"') {
+                        if (i + 1 < lunghezza && riga.charAt(i + 1) == '"') {
+                            if (campo == null) campo = new StringBuilder();
+                            campo.append(riga, inizio, i + 1);
+                            i += 2;
+                            inizio = i;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                String fine = riga.substring(inizio, Math.min(i, lunghezza));
+                campi.add(campo == null ? fine : campo.append(fine).toString());
+                i++; // virgoletta di chiusura
+                // Eventuali caratteri tra la virgoletta di chiusura e la virgola vengono ignorati
+                while (i < lunghezza && riga.charAt(i) != ',') i++;
+            } else {
+                int virgola = riga.indexOf(',', i);
+                int fine = virgola < 0 ? lunghezza : virgola;
+                campi.add(riga.substring(Math.min(i, lunghezza), fine));
+                i = fine;
             }
+            if (i >= lunghezza) return campi;
+            i++; // virgola
         }
-        return aeroporti;
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce il valore pronto da scrivere in un campo CSV: tra virgolette
+     * (con le virgolette interne raddoppiate) se contiene virgole, virgolette o a capo.
+     */
+    public static String campo(String valore) {
+        if (valore == null) return "";
+        for (int i = 0; i < valore.length(); i++) {
+            char c = valore.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + valore.replace("\"", "\"\"") + '"';
+            }
+        }
+        return valore;
+    }
+
+    /** Sorgente che passa gli elementi da esportare uno alla volta (es. un cursore sul database). */
+    @FunctionalInterface
+    public interface Sorgente<T> {
+        /** @return true se tutti gli elementi sono stati passati, false in caso di errore */
+        boolean perOgni(Consumer<T> azione);
+    }
+
+    /**
+     * Esporta in formato CSV gli elementi della sorgente, scrivendo ogni riga appena ricevuta:
+     * gli elementi non vengono raccolti in memoria.
+     *
+     * @param filePath percorso del file CSV
+     * @param colonne colonne dell'intestazione
+     * @param sorgente sorgente degli elementi
+     * @param riga converte un elemento nella sua riga CSV
+     * @throws IOException in caso di errori di scrittura o di lettura dalla sorgente
+     */
+    public static <T> void esporta(String filePath, List<String> colonne, Sorgente<T> sorgente,
+                                   Function<T, String> riga) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(filePath), StandardCharsets.UTF_8))) {
+            writer.println(String.join(",", colonne));
+            boolean letti = sorgente.perOgni(elemento -> writer.println(riga.apply(elemento)));
+            if (!letti) throw new IOException("Errore nella lettura dei dati da esportare");
+            if (writer.checkError()) throw new IOException("Errore di scrittura su " + filePath);
+        }
+    }
+
+    /** Restituisce la riga CSV di un volo, nell'ordine di {@link #COLONNE_VOLI}. */
+    public static String rigaVolo(Volo v) {
+        return String.join(",", campo(v.getCodice()), campo(v.getPartenza().getCodice()),
+                campo(v.getDestinazione().getCodice()), v.getDataVolo().toString(), v.getOrarioPartenza().toString(),
+                Double.toString(v.getVelocita()), Integer.toString(v.getPistaAssegnata() + 1),
+                v.getRitardo().toString(), v.getStato() != null ? v.getStato().name() : "PROGRAMMATO");
+    }
+
+    /** Restituisce la riga CSV di un passeggero, nell'ordine di {@link #COLONNE_PASSEGGERI}. */
+    public static String rigaPasseggero(Passeggero p) {
+        return String.join(",", campo(p.getDocumento()), campo(p.getNome()), campo(p.getCognome()));
+    }
+
+    /** Restituisce la riga CSV di una prenotazione, nell'ordine di {@link #COLONNE_PRENOTAZIONI}. */
+    public static String rigaPrenotazione(Prenotazione p) {
+        Passeggero passeggero = p.getPasseggero();
+        return String.join(",", campo(p.getCodicePrenotazione()), campo(passeggero.getDocumento()),
+                campo(passeggero.getNome()), campo(passeggero.getCognome()),
+                p.getVolo() != null ? campo(p.getVolo().getCodice()) : "", Boolean.toString(p.isCancellata()));
+    }
+}
@@ -0,0 +1,327 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache in memoria a lettura passante (read-through), limitata nel numero di voci e con scadenza.
+ *
+ * - Ogni voce ricorda quando è stata usata l'ultima volta: superata la dimensione massima vengono
+ *   eliminate quelle usate meno di recente (LRU approssimato, vedi sotto).
+ * - Una voce più vecchia della durata indicata non viene più restituita e viene ricaricata;
+ *   dopo i tre quarti della durata la prima richiesta la restituisce comunque e ne chiede
+ *   il ricaricamento in background (refresh-ahead), così le voci usate spesso non scadono mai
+ *   durante una richiesta.
+ * - Quando un ricaricamento trova gli stessi dati (secondo il predicato stessiDati) viene tenuta
+ *   l'istanza già in cache: chi la conserva continua a vedere lo stato che ci ha registrato sopra.
+ * - Chi scrive sul database aggiorna la cache con {@link #put} o la invalida con {@link #invalida}:
+ *   un caricamento partito prima di una scrittura non sovrascrive il valore scritto.
+ *
+ * Le voci sono in una ConcurrentHashMap, quindi le letture non prendono lock. Il caricatore è
+ * chiamato fuori da ogni lock e una sola volta per chiave: le richieste contemporanee della stessa
+ * chiave mancante aspettano il caricamento in corso, quelle di chiavi diverse procedono in parallelo.
+ * Il caricatore non deve leggere dalla stessa cache la chiave che sta caricando.
+ * Un caricatore che restituisce null indica un valore inesistente, che non viene memorizzato.
+ *
+ * L'eliminazione è fatta da un solo thread alla volta, a blocchi: quando la dimensione massima
+ * viene superata vengono eliminate le voci meno usate fino a scendere di un sedicesimo sotto
+ * il massimo, così l'ordinamento non si ripete a ogni inserimento. Durante un'eliminazione
+ * la cache può superare di poco la dimensione massima. Per lo stesso motivo l'istante di accesso
+ * di una voce tra le più recenti non viene aggiornato a ogni lettura.
+ * Tutti i metodi sono thread-safe.
+ *
+ * @param <K> tipo delle chiavi
+ * @param <V> tipo dei valori
+ */
+public class CacheLRU<K, V> {
+
+    /** Thread condiviso dalle cache per i ricaricamenti in background. */
+    private static final ExecutorService AGGIORNAMENTI = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "aerotrack-cache-aggiornamento");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String nome;
+    private final int dimensioneMassima;
+    // Voci eliminate in più a ogni eliminazione, e accessi entro cui una voce conta come recente
+    private final int margine;
+    private final long durataNanos;
+    private final long aggiornamentoNanos;
+    private final Function<K, V> caricatore;
+    private final BiPredicate<V, V> stessiDati;
+    private final ConcurrentHashMap<K, Voce<V>> voci = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inCaricamento = new ConcurrentHashMap<>();
+    private final Set<K> inAggiornamento = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock eliminazione = new ReentrantLock();
+    // Contatore degli accessi, usato come orologio per l'ordine LRU
+    private final AtomicLong accessi = new AtomicLong();
+    // Incrementata da ogni scrittura o invalidazione
+    private final AtomicLong versione = new AtomicLong();
+
+    private final LongAdder trovati = new LongAdder();
+    private final LongAdder mancati = new LongAdder();
+    private final LongAdder caricamenti = new LongAdder();
+    private final LongAdder aggiornamentiAnticipati = new LongAdder();
+    private final LongAdder sfrattate = new LongAdder();
+    private final LongAdder invalidate = new LongAdder();
+
+    private static final class Voce<V> {
+        final V valore;
+        final long caricata;
+        volatile long ultimoAccesso;
+
+        Voce(V valore, long caricata, long ultimoAccesso) {
+            this.valore = valore;
+            this.caricata = caricata;
+            this.ultimoAccesso = ultimoAccesso;
+        }
+    }
+
+    private record Candidata<K, V>(K chiave, Voce<V> voce, long accesso) {}
+
+    /**
+     * @param nome nome della cache, usato nelle statistiche
+     * @param dimensioneMassima numero massimo di voci (almeno 1)
+     * @param durata durata di una voce; null o zero per voci senza scadenza
+     * @param caricatore carica il valore di una chiave, null se non esiste
+     * @param stessiDati true se due valori rappresentano gli stessi dati; null per sostituire sempre
+     */
+    public CacheLRU(String nome, int dimensioneMassima, Duration durata, Function<K, V> caricatore,
+                    BiPredicate<V, V> stessiDati) {
+        if (dimensioneMassima < 1) throw new IllegalArgumentException("La dimensione della cache deve essere positiva");
+        if (caricatore == null) throw new IllegalArgumentException("Il caricatore non può essere null");
+        this.nome = nome;
+        this.dimensioneMassima = dimensioneMassima;
+        this.margine = dimensioneMassima / 16;
+        this.durataNanos = durata != null && !durata.isNegative() ? durata.toNanos() : 0;
+        this.aggiornamentoNanos = durataNanos / 4 * 3;
+        this.caricatore = caricatore;
+        this.stessiDati = stessiDati != null ? stessiDati : (a, b) -> false;
+    }
+
+    /**
+     * Restituisce il valore della chiave, caricandolo se non è in cache o è scaduto.
+     *
+     * @return valore, null se il caricatore non lo trova
+     */
+    public V get(K chiave) {
+        long ora = System.nanoTime();
+        Voce<V> voce = voci.get(chiave);
+        if (voce != null && !scaduta(voce, ora)) {
+            trovati.increment();
+            usata(voce);
+            if (durataNanos > 0 && ora - voce.caricata >= aggiornamentoNanos) aggiornaInBackground(chiave);
+            return voce.valore;
+        }
+        mancati.increment();
+        return carica(chiave);
+    }
+
+    /**
+     * Restituisce il valore della chiave se è in cache e non è scaduto, senza caricarlo
+     * e senza contarlo nelle statistiche.
+     */
+    public V getSePresente(K chiave) {
+        Voce<V> voce = voci.get(chiave);
+        if (voce == null || scaduta(voce, System.nanoTime())) return null;
+        usata(voce);
+        return voce.valore;
+    }
+
+    /**
+     * Memorizza il valore appena scritto sul database (write-through).
+     */
+    public void put(K chiave, V valore) {
+        if (valore == null) throw new IllegalArgumentException("Il valore non può essere null");
+        versione.incrementAndGet();
+        voci.put(chiave, new Voce<>(valore, System.nanoTime(), accessi.incrementAndGet()));
+        eliminaSeNecessario();
+    }
+
+    /**
+     * Sostituisce il valore in cache della chiave con quello calcolato dalla funzione,
+     * senza cambiarne la scadenza. Non fa nulla se la chiave non è in cache o è scaduta.
+     * La funzione è chiamata con il lock della voce e deve essere veloce.
+     */
+    public void aggiornaSePresente(K chiave, UnaryOperator<V> aggiornamento) {
+        voci.computeIfPresent(chiave, (k, voce) -> {
+            if (scaduta(voce, System.nanoTime())) return voce;
+            versione.incrementAndGet();
+            V valore = aggiornamento.apply(voce.valore);
+            return valore != null ? new Voce<>(valore, voce.caricata, voce.ultimoAccesso) : null;
+        });
+    }
+
+    /**
+     * Elimina la chiave dalla cache: la prossima richiesta la rileggerà.
+     */
+    public void invalida(K chiave) {
+        versione.incrementAndGet();
+        if (voci.remove(chiave) != null) invalidate.increment();
+    }
+
+    /**
+     * Svuota la cache.
+     */
+    public void invalidaTutto() {
+        versione.incrementAndGet();
+        for (K chiave : voci.keySet()) {
+            if (voci.remove(chiave) != null) invalidate.increment();
+        }
+    }
+
+    /**
+     * Restituisce la versione corrente della cache, da passare a {@link #unisci} quando si
+     * inseriscono valori letti dal database fuori dal caricatore (ad esempio in una lettura di massa).
+     * Va chiesta prima di iniziare la lettura.
+     */
+    public long versione() {
+        return versione.get();
+    }
+
+    /**
+     * Inserisce un valore letto dal database fuori dal caricatore.
+     * Se in cache c'è già un valore con gli stessi dati viene restituito quello; se dopo la versione
+     * indicata ci sono state scritture o invalidazioni il valore letto potrebbe essere superato
+     * e non viene memorizzato.
+     *
+     * @param versione versione restituita da {@link #versione()} prima della lettura
+     * @return istanza da usare per la chiave
+     */
+    public V unisci(K chiave, V valore, long versione) {
+        return memorizza(chiave, valore, versione);
+    }
+
+    /** Fotografia delle statistiche della cache. */
+    public StatisticheCache statistiche() {
+        return new StatisticheCache(nome, voci.size(), dimensioneMassima, trovati.sum(), mancati.sum(),
+                caricamenti.sum(), aggiornamentiAnticipati.sum(), sfrattate.sum(), invalidate.sum());
+    }
+
+    // Metodi interni
+
+    /**
+     * Carica la chiave, oppure aspetta il caricamento già in corso da parte di un altro thread.
+     */
+    private V carica(K chiave) {
+        CompletableFuture<V> mio = new CompletableFuture<>();
+        CompletableFuture<V> inCorso = inCaricamento.putIfAbsent(chiave, mio);
+        if (inCorso != null) {
+            try {
+                return inCorso.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException r) throw r;
+                throw e;
+            }
+        }
+        try {
+            long versioneInizio = versione.get();
+            caricamenti.increment();
+            V valore = caricatore.apply(chiave);
+            if (valore == null) {
+                voci.computeIfPresent(chiave, (k, voce) -> scaduta(voce, System.nanoTime()) ? null : voce);
+            } else {
+                valore = memorizza(chiave, valore, versioneInizio);
+            }
+            mio.complete(valore);
+            return valore;
+        } catch (RuntimeException e) {
+            mio.completeExceptionally(e);
+            throw e;
+        } finally {
+            inCaricamento.remove(chiave, mio);
+        }
+    }
+
+    private V memorizza(K chiave, V valore, long versioneInizio) {
+        List<V> risultato = new ArrayList<>(1);
+        voci.compute(chiave, (k, attuale) -> {
+            long ora = System.nanoTime();
+            boolean valida = attuale != null && !scaduta(attuale, ora);
+            if (versioneInizio != versione.get()) {
+                // Scritture durante la lettura: vale quanto è stato scritto in cache nel frattempo
+                risultato.add(valida ? attuale.valore : valore);
+                return valida ? attuale : null;
+            }
+            V daTenere = attuale != null && stessiDati.test(attuale.valore, valore) ? attuale.valore : valore;
+            risultato.add(daTenere);
+            return new Voce<>(daTenere, ora, accessi.incrementAndGet());
+        });
+        eliminaSeNecessario();
+        return risultato.get(0);
+    }
+
+    /** Registra l'accesso alla voce, se non è già tra quelle usate più di recente. */
+    private void usata(Voce<V> voce) {
+        if (accessi.get() - voce.ultimoAccesso > margine) {
+            voce.ultimoAccesso = accessi.incrementAndGet();
+        }
+    }
+
+    /**
+     * Se la dimensione massima è superata elimina le voci usate meno di recente, scendendo
+     * di {@link #margine} voci sotto il massimo. Se un altro thread sta già eliminando non fa nulla.
+     */
+    private void eliminaSeNecessario() {
+        if (voci.size() <= dimensioneMassima || !eliminazione.tryLock()) return;
+        try {
+            int daEliminare = voci.size() - dimensioneMassima;
+            if (daEliminare <= 0) return;
+            daEliminare += margine;
+            // Gli accessi vanno fotografati: le letture continuano ad aggiornarli durante l'ordinamento
+            List<Candidata<K, V>> candidate = new ArrayList<>(voci.size());
+            for (Map.Entry<K, Voce<V>> e : voci.entrySet()) {
+                candidate.add(new Candidata<>(e.getKey(), e.getValue(), e.getValue().ultimoAccesso));
+            }
+            candidate.sort(Comparator.comparingLong(Candidata::accesso));
+            for (int i = 0; i < candidate.size() && daEliminare > 0; i++) {
+                Candidata<K, V> c = candidate.get(i);
+                if (voci.remove(c.chiave(), c.voce())) {
+                    sfrattate.increment();
+                    daEliminare--;
+                }
+            }
+        } finally {
+            eliminazione.unlock();
+        }
+    }
+
+    private void aggiornaInBackground(K chiave) {
+        if (!inAggiornamento.add(chiave)) return;
+        try {
+            AGGIORNAMENTI.execute(() -> {
+                try {
+                    aggiornamentiAnticipati.increment();
+                    carica(chiave);
+                } catch (RuntimeException e) {
+                    System.err.println("Errore aggiornamento cache " + nome + ": " + e.getMessage());
+                } finally {
+                    inAggiornamento.remove(chiave);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inAggiornamento.remove(chiave);
+        }
+    }
+
+    private boolean scaduta(Voce<V> voce, long ora) {
+        return durataNanos > 0 && ora - voce.caricata >= durataNanos;
+    }
+}
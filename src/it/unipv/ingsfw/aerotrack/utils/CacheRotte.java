@@ -0,0 +1,78 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache delle distanze tra coppie di aeroporti.
+ *
+ * È una matrice delle distanze riempita su richiesta e di dimensione limitata:
+ * ogni coppia (non ordinata) di aeroporti, identificata dagli id delle istanze,
+ * ha una sola posizione possibile nella tabella; una nuova coppia che cade nella
+ * stessa posizione sostituisce la precedente. Memoria occupata e costo di una
+ * ricerca sono quindi costanti, qualunque sia il numero di aeroporti.
+ * La cache è thread-safe e non usa lock: le voci sono immutabili.
+ */
+public final class CacheRotte {
+
+    /** Numero di posizioni della tabella (potenza di 2). */
+    public static final int CAPACITA = 1 << 16;
+    private static final int BIT = Integer.numberOfTrailingZeros(CAPACITA);
+
+    private static final AtomicReferenceArray<Voce> tabella = new AtomicReferenceArray<>(CAPACITA);
+    private static final LongAdder trovate = new LongAdder();
+    private static final LongAdder calcolate = new LongAdder();
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private CacheRotte() {}
+
+    /**
+     * Restituisce la distanza in chilometri tra due aeroporti, calcolandola con
+     * {@link CalcolaDistanza#calcolaDistanza(Aeroporto, Aeroporto)} solo se non è in cache.
+     *
+     * @throws IllegalArgumentException se uno degli aeroporti è null
+     */
+    public static double distanzaKm(Aeroporto a1, Aeroporto a2) {
+        if (a1 == null || a2 == null) {
+            throw new IllegalArgumentException("Gli aeroporti non possono essere null");
+        }
+        // La distanza è simmetrica: la chiave non dipende dall'ordine degli aeroporti
+        int id1 = Math.min(a1.getId(), a2.getId());
+        int id2 = Math.max(a1.getId(), a2.getId());
+        long chiave = ((long) id1 << 32) | id2;
+        int posizione = (int) ((chiave * 0x9E3779B97F4A7C15L) >>> (64 - BIT));
+
+        Voce voce = tabella.get(posizione);
+        if (voce != null && voce.chiave() == chiave) {
+            trovate.increment();
+            return voce.km();
+        }
+        calcolate.increment();
+        double km = CalcolaDistanza.calcolaDistanza(a1, a2);
+        tabella.set(posizione, new Voce(chiave, km));
+        return km;
+    }
+
+    /** Numero di distanze restituite dalla cache. */
+    public static long getTrovate() {
+        return trovate.sum();
+    }
+
+    /** Numero di distanze calcolate perché assenti dalla cache. */
+    public static long getCalcolate() {
+        return calcolate.sum();
+    }
+
+    /** Svuota la cache e azzera i contatori. */
+    public static void svuota() {
+        for (int i = 0; i < CAPACITA; i++) {
+            tabella.set(i, null);
+        }
+        trovate.reset();
+        calcolate.reset();
+    }
+
+    private record Voce(long chiave, double km) {}
+}
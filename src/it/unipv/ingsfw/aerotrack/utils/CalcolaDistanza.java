@@ -38,12 +38,11 @@ public class CalcolaDistanza {
             throw new IllegalArgumentException("Il secondo aeroporto non può essere null");
         }
         
-        // Estrazione delle coordinate geografiche dei due aeroporti
-        // Conversione delle coordinate da gradi a radianti
-		double lat1 = Math.toRadians(a1.getLatitudine());
-		double lon1 = Math.toRadians(a1.getLongitudine());
-		double lat2 = Math.toRadians(a2.getLatitudine());
-		double lon2 = Math.toRadians(a2.getLongitudine());
+        // Coordinate geografiche dei due aeroporti in radianti (precalcolate dall'aeroporto)
+		double lat1 = a1.getLatitudineRad();
+		double lon1 = a1.getLongitudineRad();
+		double lat2 = a2.getLatitudineRad();
+		double lon2 = a2.getLongitudineRad();
 		
 		// Calcolo delle differenze di latitudine e longitudine
 		double dLat = lat2 - lat1;
@@ -52,7 +51,7 @@ public class CalcolaDistanza {
 		// Applicazione della formula di Haversine
 		// a = sin²(Δlat/2) + cos lat1 ⋅ cos lat2 ⋅ sin²(Δlon/2)
 		double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-				Math.cos(lat1) * Math.cos(lat2) *
+				a1.getCosLatitudine() * a2.getCosLatitudine() *
 				Math.sin(dLon/2) * Math.sin(dLon/2);
 		
 		// Calcolo dell'angolo centrale in radianti
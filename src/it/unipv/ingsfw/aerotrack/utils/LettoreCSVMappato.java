@@ -0,0 +1,131 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Lettura di file CSV mappati in memoria con {@link FileChannel#map}.
+ *
+ * Il file viene mappato a finestre di {@link #DIMENSIONE_FINESTRA} byte allineate all'inizio
+ * di una riga (una mappatura non può superare i 2 GB) e i separatori vengono cercati
+ * direttamente sui byte: non c'è decodifica dei caratteri né una stringa per riga o per campo.
+ * Ogni riga è passata come {@link RigaCSV}, che converte i campi numerici dai byte.
+ * Le righe vuote vengono saltate (ma contate nella numerazione); non sono gestiti i campi
+ * che vanno a capo. Il file deve essere in UTF-8 (o ASCII).
+ *
+ * Usato da {@link LetturaCSVParallela} per i singoli blocchi e da
+ * {@link CSVUtils#importaAeroporti(String)}.
+ */
+public final class LettoreCSVMappato {
+
+    /** Dimensione indicativa di una finestra mappata nella lettura sequenziale, in byte. */
+    public static final int DIMENSIONE_FINESTRA = 64 << 20;
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private LettoreCSVMappato() {}
+
+    /**
+     * Legge le righe di dati del file, in ordine.
+     *
+     * @param filePath percorso del file CSV, con intestazione
+     * @param colonne nomi delle colonne a cui si riferiscono i campi di {@link RigaCSV}
+     *        (maiuscole/minuscole indifferenti); null per usare le posizioni nella riga
+     * @param azione riceve ogni riga di dati; la riga non va conservata dopo la chiamata
+     * @return numero di righe di dati lette
+     * @throws IOException se il file non può essere letto o manca una colonna
+     */
+    public static long leggi(String filePath, List<String> colonne, Consumer<RigaCSV> azione) throws IOException {
+        try (FileChannel canale = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long dimensione = canale.size();
+            long inizioDati = fineRiga(canale, 0);
+            if (inizioDati == 0) throw new IOException("File vuoto");
+            RigaCSV riga = new RigaCSV(colonne != null ? indiciColonne(canale, inizioDati, colonne) : null);
+
+            long[] lette = {0};
+            Consumer<RigaCSV> conteggio = r -> {
+                lette[0]++;
+                azione.accept(r);
+            };
+            long numero = 2;
+            long da = inizioDati;
+            while (da < dimensione) {
+                long a = da + DIMENSIONE_FINESTRA >= dimensione ? dimensione : fineRiga(canale, da + DIMENSIONE_FINESTRA - 1);
+                numero += scorri(canale, da, a, riga, numero, conteggio);
+                da = a;
+            }
+            return lette[0];
+        }
+    }
+
+    /**
+     * Mappa le righe comprese tra due posizioni allineate all'inizio di una riga e le passa all'azione.
+     *
+     * @param primaRiga numero della prima riga
+     * @return numero di righe fisiche (comprese quelle vuote) tra le due posizioni
+     */
+    static long scorri(FileChannel canale, long da, long a, RigaCSV riga, long primaRiga, Consumer<RigaCSV> azione)
+            throws IOException {
+        if (a <= da) return 0;
+        MappedByteBuffer buffer = canale.map(FileChannel.MapMode.READ_ONLY, da, Math.toIntExact(a - da));
+        int limite = buffer.limit();
+        long numero = primaRiga;
+        int inizio = 0;
+        while (inizio < limite) {
+            int fine = riga.imposta(buffer, inizio, limite, numero);
+            if (!riga.isVuota()) azione.accept(riga);
+            numero++;
+            inizio = fine + 1;
+        }
+        return numero - primaRiga;
+    }
+
+    /**
+     * Restituisce la posizione nella riga di intestazione di ogni colonna richiesta.
+     *
+     * @param inizioDati posizione successiva alla riga di intestazione
+     * @throws IOException se manca una colonna
+     */
+    static int[] indiciColonne(FileChannel canale, long inizioDati, List<String> colonne) throws IOException {
+        List<String> nomi = new ArrayList<>();
+        RigaCSV intestazione = new RigaCSV(null);
+        scorri(canale, 0, inizioDati, intestazione, 1, r -> {
+            for (int i = 0; i < r.numeroCampi(); i++) {
+                String nome = r.testo(i).toLowerCase(Locale.ROOT);
+                nomi.add(i == 0 && nome.startsWith("\uFEFF") ? nome.substring(1) : nome);
+            }
+        });
+        int[] indici = new int[colonne.size()];
+        for (int i = 0; i < indici.length; i++) {
+            indici[i] = nomi.indexOf(colonne.get(i).toLowerCase(Locale.ROOT));
+            if (indici[i] < 0) throw new IOException("Colonna mancante nel file: " + colonne.get(i));
+        }
+        return indici;
+    }
+
+    /**
+     * Restituisce la posizione successiva al primo '\n' a partire da posizione (compresa),
+     * o la dimensione del file se non ce ne sono.
+     */
+    static long fineRiga(FileChannel canale, long posizione) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long dimensione = canale.size();
+        while (posizione < dimensione) {
+            buffer.clear();
+            int letti = canale.read(buffer, posizione);
+            if (letti <= 0) break;
+            for (int i = 0; i < letti; i++) {
+                if (buffer.get(i) == '\n') return posizione + i + 1;
+            }
+            posizione += letti;
+        }
+        return dimensione;
+    }
+}
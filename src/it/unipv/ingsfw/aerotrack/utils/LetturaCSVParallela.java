@@ -0,0 +1,189 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lettura di file CSV di grandi dimensioni, convertiti in parallelo.
+ *
+ * Il file viene diviso in blocchi di circa {@link #DIMENSIONE_BLOCCO} byte, allineati
+ * all'inizio di una riga. Ogni blocco viene mappato in memoria e convertito da un thread
+ * del pool con {@link LettoreCSVMappato}; i blocchi convertiti sono consegnati alla destinazione nell'ordine
+ * del file, nel thread chiamante, mentre il pool converte i successivi.
+ * I blocchi in memoria sono al massimo il doppio dei thread del pool.
+ *
+ * Le colonne sono cercate per nome nell'intestazione: la conversione riceve una {@link RigaCSV}
+ * i cui campi sono nell'ordine delle colonne richieste, qualunque sia l'ordine nel file.
+ * Una riga la cui conversione lancia IllegalArgumentException o DateTimeException viene scartata e
+ * riportata tra gli errori del blocco, con il suo numero di riga.
+ * Non sono gestiti i campi che vanno a capo.
+ */
+public final class LetturaCSVParallela {
+
+    /** Dimensione indicativa di un blocco, in byte. */
+    public static final int DIMENSIONE_BLOCCO = 4 << 20;
+
+    /** Riga scartata: numero di riga nel file (1 = intestazione) e motivo. */
+    public record Errore(long riga, String motivo) {}
+
+    /**
+     * Blocco di righe convertite, nell'ordine del file.
+     */
+    public static final class Blocco<T> {
+        private final List<T> elementi;
+        private final long[] righe;
+        private final int righeLette;
+        private final List<Errore> errori;
+
+        private Blocco(List<T> elementi, long[] righe, int righeLette, List<Errore> errori) {
+            this.elementi = elementi;
+            this.righe = righe;
+            this.righeLette = righeLette;
+            this.errori = errori;
+        }
+
+        /** Elementi convertiti, nell'ordine del file. */
+        public List<T> elementi() {
+            return elementi;
+        }
+
+        /** Numero di riga nel file dell'elemento in posizione indice. */
+        public long riga(int indice) {
+            return righe[indice];
+        }
+
+        /** Numero di righe di dati (non vuote) del blocco, convertite o scartate. */
+        public int righeLette() {
+            return righeLette;
+        }
+
+        /** Righe scartate dalla conversione. */
+        public List<Errore> errori() {
+            return errori;
+        }
+    }
+
+    // Costruttore privato: la classe non deve essere istanziata
+    private LetturaCSVParallela() {}
+
+    /**
+     * Legge il file con il pool comune e blocchi di {@link #DIMENSIONE_BLOCCO} byte.
+     *
+     * @see #leggi(String, List, Function, Consumer, ForkJoinPool, int)
+     */
+    public static <T> void leggi(String filePath, List<String> colonne, Function<RigaCSV, T> conversione,
+                                 Consumer<Blocco<T>> destinazione) throws IOException {
+        leggi(filePath, colonne, conversione, destinazione, ForkJoinPool.commonPool(), DIMENSIONE_BLOCCO);
+    }
+
+    /**
+     * Legge il file convertendo le righe in parallelo.
+     *
+     * @param filePath percorso del file CSV (UTF-8, con intestazione)
+     * @param colonne nomi delle colonne da passare alla conversione (maiuscole/minuscole indifferenti)
+     * @param conversione converte i campi di una riga; viene chiamata da più thread
+     * @param destinazione riceve i blocchi convertiti nell'ordine del file, nel thread chiamante
+     * @param pool pool che esegue le conversioni
+     * @param dimensioneBlocco dimensione indicativa di un blocco in byte
+     * @throws IOException se il file non può essere letto o manca una colonna
+     */
+    public static <T> void leggi(String filePath, List<String> colonne, Function<RigaCSV, T> conversione,
+                                 Consumer<Blocco<T>> destinazione, ForkJoinPool pool, int dimensioneBlocco)
+            throws IOException {
+        if (dimensioneBlocco <= 0) throw new IllegalArgumentException("La dimensione del blocco deve essere maggiore di 0");
+        try (FileChannel canale = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long dimensione = canale.size();
+            long inizioDati = LettoreCSVMappato.fineRiga(canale, 0);
+            if (inizioDati == 0) throw new IOException("File vuoto");
+            int[] indici = LettoreCSVMappato.indiciColonne(canale, inizioDati, colonne);
+
+            Deque<Future<Parziale<T>>> inCorso = new ArrayDeque<>();
+            int massimoInCorso = 2 * pool.getParallelism();
+            long inizio = inizioDati;
+            long primaRiga = 2;
+            try {
+                while (inizio < dimensione || !inCorso.isEmpty()) {
+                    while (inizio < dimensione && inCorso.size() < massimoInCorso) {
+                        long fine = inizio + dimensioneBlocco >= dimensione
+                                ? dimensione : LettoreCSVMappato.fineRiga(canale, inizio + dimensioneBlocco - 1);
+                        long da = inizio;
+                        inCorso.add(pool.submit(() -> converti(canale, da, fine, indici, conversione)));
+                        inizio = fine;
+                    }
+                    primaRiga = consegna(attendi(inCorso.poll()), primaRiga, destinazione);
+                }
+            } finally {
+                for (Future<Parziale<T>> f : inCorso) f.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Consegna un blocco convertito. I numeri di riga calcolati dal pool sono relativi al blocco:
+     * diventano assoluti ora che sono note le righe dei blocchi precedenti.
+     *
+     * @return numero di riga della prima riga del blocco successivo
+     */
+    private static <T> long consegna(Parziale<T> parziale, long primaRiga, Consumer<Blocco<T>> destinazione) {
+        long[] righe = new long[parziale.righe().length];
+        for (int i = 0; i < righe.length; i++) righe[i] = primaRiga + parziale.righe()[i];
+        List<Errore> errori = new ArrayList<>(parziale.errori().size());
+        for (Errore e : parziale.errori()) errori.add(new Errore(primaRiga + e.riga(), e.motivo()));
+        destinazione.accept(new Blocco<>(parziale.elementi(), righe, parziale.righeLette(), errori));
+        return primaRiga + parziale.righeFisiche();
+    }
+
+    private static <T> Parziale<T> attendi(Future<Parziale<T>> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lettura interrotta", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** Blocco convertito dal pool, con i numeri di riga relativi al blocco (a partire da 0). */
+    private record Parziale<T>(List<T> elementi, long[] righe, int righeLette, List<Errore> errori, long righeFisiche) {}
+
+    /**
+     * Converte le righe comprese tra due posizioni allineate all'inizio di una riga,
+     * mappandole in memoria con {@link LettoreCSVMappato}.
+     */
+    private static <T> Parziale<T> converti(FileChannel canale, long da, long a, int[] indici,
+                                            Function<RigaCSV, T> conversione) throws IOException {
+        List<T> elementi = new ArrayList<>();
+        List<Errore> errori = new ArrayList<>();
+        long[][] righe = {new long[64]};
+        int[] righeLette = {0};
+        long righeFisiche = LettoreCSVMappato.scorri(canale, da, a, new RigaCSV(indici), 0, riga -> {
+            righeLette[0]++;
+            try {
+                T elemento = conversione.apply(riga);
+                if (elementi.size() == righe[0].length) righe[0] = Arrays.copyOf(righe[0], righe[0].length * 2);
+                righe[0][elementi.size()] = riga.numero();
+                elementi.add(elemento);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                // Comprende NumberFormatException e DateTimeParseException
+                errori.add(new Errore(riga.numero(), e.getMessage()));
+            }
+        });
+        return new Parziale<>(elementi, Arrays.copyOf(righe[0], elementi.size()), righeLette[0], errori, righeFisiche);
+    }
+}
@@ -0,0 +1,249 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Mappa d'identità a lettura passante: per ogni chiave tiene una sola istanza del valore, senza limite
+ * di dimensione, e restituisce la stessa istanza sia nelle ricerche per chiave sia nell'elenco completo.
+ * È pensata per dati di riferimento poco numerosi le cui istanze conservano uno stato in memoria
+ * (ad esempio gli aeroporti, con l'occupazione delle piste): a differenza di {@link CacheLRU} non elimina
+ * mai una voce per fare spazio, quindi chi conserva un'istanza non si ritrova con una copia diversa
+ * da quella data agli altri.
+ *
+ * - Una voce più vecchia della durata indicata viene riletta alla richiesta successiva; lo stesso vale
+ *   per l'elenco completo, riletto con un solo caricamento. Se i dati riletti sono gli stessi (secondo
+ *   il predicato stessiDati) resta l'istanza già presente.
+ * - Le chiavi che non esistono più vengono tolte quando l'elenco completo riletto non le contiene.
+ * - Chi scrive sul database aggiorna la mappa con {@link #put}, segnala le righe da rileggere con
+ *   {@link #invalida} e quelle eliminate con {@link #rimuovi}: un caricamento partito prima di una
+ *   scrittura non sovrascrive il valore scritto.
+ *
+ * Le ricerche per chiave non prendono lock; l'elenco completo viene riletto da un solo thread alla volta.
+ * Tutti i metodi sono thread-safe.
+ *
+ * @param <K> tipo delle chiavi, che determina l'ordine dell'elenco completo
+ * @param <V> tipo dei valori
+ */
+public class MappaIdentita<K extends Comparable<? super K>, V> {
+
+    private final String nome;
+    private final long durataNanos;
+    private final Function<K, V> caricatore;
+    private final Supplier<List<V>> caricatoreTutti;
+    private final Function<V, K> chiaveDi;
+    private final BiPredicate<V, V> stessiDati;
+    private final ConcurrentSkipListMap<K, Voce<V>> voci = new ConcurrentSkipListMap<>();
+    private final Object lockElenco = new Object();
+    // Istante dell'ultimo caricamento completo, null se l'elenco va riletto
+    private volatile Long elencoCaricato;
+    // Incrementata da ogni scrittura o invalidazione
+    private final AtomicLong versione = new AtomicLong();
+
+    private final LongAdder trovati = new LongAdder();
+    private final LongAdder mancati = new LongAdder();
+    private final LongAdder caricamenti = new LongAdder();
+    private final LongAdder invalidate = new LongAdder();
+
+    private record Voce<V>(V valore, long caricata, boolean valida) {}
+
+    /**
+     * @param nome nome della mappa, usato nelle statistiche
+     * @param durata durata di una voce e dell'elenco completo; null o zero per non rileggerli mai
+     * @param caricatore carica il valore di una chiave, null se non esiste o in caso di errore
+     * @param caricatoreTutti carica tutti i valori, null in caso di errore
+     * @param chiaveDi restituisce la chiave di un valore
+     * @param stessiDati true se due valori rappresentano gli stessi dati; null per sostituire sempre
+     */
+    public MappaIdentita(String nome, Duration durata, Function<K, V> caricatore, Supplier<List<V>> caricatoreTutti,
+                         Function<V, K> chiaveDi, BiPredicate<V, V> stessiDati) {
+        if (caricatore == null || caricatoreTutti == null || chiaveDi == null) {
+            throw new IllegalArgumentException("I caricatori e la funzione delle chiavi non possono essere null");
+        }
+        this.nome = nome;
+        this.durataNanos = durata != null && !durata.isNegative() ? durata.toNanos() : 0;
+        this.caricatore = caricatore;
+        this.caricatoreTutti = caricatoreTutti;
+        this.chiaveDi = chiaveDi;
+        this.stessiDati = stessiDati != null ? stessiDati : (a, b) -> false;
+    }
+
+    /**
+     * Restituisce l'istanza della chiave, caricandola se non è presente, è scaduta o è stata invalidata.
+     *
+     * @return valore, null se il caricatore non lo trova
+     */
+    public V get(K chiave) {
+        Voce<V> voce = voci.get(chiave);
+        if (voce != null && !daRileggere(voce, System.nanoTime())) {
+            trovati.increment();
+            return voce.valore();
+        }
+        mancati.increment();
+        long versioneInizio = versione.get();
+        caricamenti.increment();
+        V letto = caricatore.apply(chiave);
+        // Un valore non trovato non toglie l'istanza: potrebbe essere un errore di lettura,
+        // le chiavi eliminate vengono tolte dal prossimo caricamento completo
+        return letto != null ? unisci(chiave, letto, versioneInizio) : null;
+    }
+
+    /**
+     * Restituisce tutti i valori ordinati per chiave, rileggendoli se l'elenco è scaduto o invalidato.
+     *
+     * @return lista dei valori (una copia, modificabile dal chiamante), vuota se il caricamento fallisce
+     */
+    public List<V> tutti() {
+        if (daRileggere(elencoCaricato)) {
+            synchronized (lockElenco) {
+                if (daRileggere(elencoCaricato)) {
+                    mancati.increment();
+                    if (!caricaTutti()) return new ArrayList<>();
+                } else {
+                    trovati.increment();
+                }
+            }
+        } else {
+            trovati.increment();
+        }
+        List<V> elenco = new ArrayList<>(voci.size());
+        for (Voce<V> voce : voci.values()) {
+            elenco.add(voce.valore());
+        }
+        return elenco;
+    }
+
+    /**
+     * Memorizza il valore appena scritto sul database (write-through). Se è presente un'istanza
+     * con gli stessi dati resta quella.
+     */
+    public void put(K chiave, V valore) {
+        if (valore == null) throw new IllegalArgumentException("Il valore non può essere null");
+        versione.incrementAndGet();
+        voci.compute(chiave, (k, attuale) -> new Voce<>(
+                attuale != null && stessiDati.test(attuale.valore(), valore) ? attuale.valore() : valore,
+                System.nanoTime(), true));
+    }
+
+    /**
+     * Segnala che la riga della chiave è cambiata sul database: la prossima richiesta la rileggerà,
+     * tenendo l'istanza presente se i dati non sono cambiati. Anche l'elenco completo verrà riletto,
+     * perché la chiave potrebbe essere nuova.
+     */
+    public void invalida(K chiave) {
+        versione.incrementAndGet();
+        elencoCaricato = null;
+        if (voci.computeIfPresent(chiave, (k, voce) -> new Voce<>(voce.valore(), voce.caricata(), false)) != null) {
+            invalidate.increment();
+        }
+    }
+
+    /**
+     * Invalida tutte le voci e l'elenco completo (vedi {@link #invalida}).
+     */
+    public void invalidaTutto() {
+        versione.incrementAndGet();
+        elencoCaricato = null;
+        for (K chiave : voci.keySet()) {
+            if (voci.computeIfPresent(chiave, (k, voce) -> new Voce<>(voce.valore(), voce.caricata(), false)) != null) {
+                invalidate.increment();
+            }
+        }
+    }
+
+    /**
+     * Toglie la chiave, eliminata dal database.
+     */
+    public void rimuovi(K chiave) {
+        versione.incrementAndGet();
+        voci.remove(chiave);
+    }
+
+    /**
+     * Toglie tutte le chiavi, eliminate dal database.
+     */
+    public void svuota() {
+        versione.incrementAndGet();
+        elencoCaricato = null;
+        voci.clear();
+    }
+
+    /** Fotografia delle statistiche della mappa (senza dimensione massima). */
+    public StatisticheCache statistiche() {
+        return new StatisticheCache(nome, voci.size(), 0, trovati.sum(), mancati.sum(),
+                caricamenti.sum(), 0, 0, invalidate.sum());
+    }
+
+    // Metodi interni
+
+    /**
+     * Rilegge l'elenco completo e lo unisce alle istanze presenti; toglie le chiavi lette prima
+     * del caricamento che l'elenco non contiene più. Chiamato con il lock dell'elenco.
+     *
+     * @return true se caricato, false in caso di errore
+     */
+    private boolean caricaTutti() {
+        long versioneInizio = versione.get();
+        long inizio = System.nanoTime();
+        caricamenti.increment();
+        List<V> letti = caricatoreTutti.get();
+        if (letti == null) return false;
+
+        Set<K> presenti = new HashSet<>();
+        for (V valore : letti) {
+            K chiave = chiaveDi.apply(valore);
+            presenti.add(chiave);
+            unisci(chiave, valore, versioneInizio);
+        }
+        for (Map.Entry<K, Voce<V>> e : voci.entrySet()) {
+            // Le voci scritte dopo l'inizio del caricamento sono più recenti dell'elenco letto
+            if (!presenti.contains(e.getKey()) && e.getValue().caricata() - inizio < 0) {
+                voci.remove(e.getKey(), e.getValue());
+            }
+        }
+        if (versioneInizio == versione.get()) {
+            elencoCaricato = inizio;
+        }
+        return true;
+    }
+
+    /**
+     * Unisce un valore letto alla voce della chiave.
+     * Se in mappa c'è già un valore con gli stessi dati resta quello; se dopo la versione indicata
+     * ci sono state scritture o invalidazioni il valore letto potrebbe essere superato: resta
+     * l'istanza presente o, se non c'è, il valore letto viene restituito senza memorizzarlo.
+     *
+     * @return istanza da usare per la chiave
+     */
+    private V unisci(K chiave, V letto, long versioneInizio) {
+        List<V> risultato = new ArrayList<>(1);
+        voci.compute(chiave, (k, attuale) -> {
+            if (versioneInizio != versione.get()) {
+                risultato.add(attuale != null ? attuale.valore() : letto);
+                return attuale;
+            }
+            V valore = attuale != null && stessiDati.test(attuale.valore(), letto) ? attuale.valore() : letto;
+            risultato.add(valore);
+            return new Voce<>(valore, System.nanoTime(), true);
+        });
+        return risultato.get(0);
+    }
+
+    private boolean daRileggere(Voce<V> voce, long ora) {
+        return !voce.valida() || (durataNanos > 0 && ora - voce.caricata() >= durataNanos);
+    }
+
+    private boolean daRileggere(Long caricato) {
+        return caricato == null || (durataNanos > 0 && System.nanoTime() - caricato >= durataNanos);
+    }
+}
@@ -0,0 +1,215 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Riga di un file CSV letta da {@link LettoreCSVMappato}, vista direttamente sui byte del file.
+ *
+ * La riga conosce solo le posizioni dei campi nel buffer: i campi numerici vengono convertiti
+ * leggendo i byte, senza creare stringhe, e le stringhe vengono create solo per i campi richiesti
+ * con {@link #testo(int)}. Lo stesso oggetto viene riusato per tutte le righe di una lettura,
+ * quindi è valido solo durante la chiamata che lo riceve e non va conservato.
+ *
+ * I campi sono indicati con la loro posizione tra le colonne richieste alla lettura
+ * (o nella riga, se non sono state richieste colonne); gli spazi iniziali e finali sono ignorati
+ * e un campo assente equivale a un campo vuoto. Le regole sulle virgolette sono quelle
+ * di {@link CSVUtils#dividiRiga(String)}.
+ */
+public final class RigaCSV {
+
+    /** Potenze di 10 rappresentabili esattamente come double. */
+    private static final double[] POTENZE_10 = new double[23];
+    static {
+        POTENZE_10[0] = 1;
+        for (int i = 1; i < POTENZE_10.length; i++) POTENZE_10[i] = POTENZE_10[i - 1] * 10;
+    }
+
+    private final int[] colonne;
+    private ByteBuffer buffer;
+    private int[] inizi = new int[16];
+    private int[] fini = new int[16];
+    private boolean[] doppieVirgolette = new boolean[16];
+    private int campi;
+    private long numero;
+
+    /**
+     * @param colonne posizione nella riga di ogni colonna richiesta, null per usare le posizioni della riga
+     */
+    RigaCSV(int[] colonne) {
+        this.colonne = colonne;
+    }
+
+    /**
+     * Divide in campi la riga che inizia in da, senza copiarla.
+     *
+     * @return posizione del '\n' che chiude la riga, o limite se la riga finisce con il buffer
+     */
+    int imposta(ByteBuffer buffer, int da, int limite, long numero) {
+        this.buffer = buffer;
+        this.numero = numero;
+        campi = 0;
+        int i = da;
+        while (true) {
+            if (i < limite && buffer.get(i) == '"') {
+                int inizio = ++i;
+                boolean doppie = false;
+                byte b;
+                while (i < limite && (b = buffer.get(i)) != '\n') {
+                    if (b == '"') {
+                        if (i + 1 < limite && buffer.get(i + 1) == '"') {
+                            doppie = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                aggiungi(inizio, i, doppie);
+                if (i < limite && buffer.get(i) == '"') i++; // virgoletta di chiusura
+                // Eventuali caratteri tra la virgoletta di chiusura e la virgola vengono ignorati
+                while (i < limite && (b = buffer.get(i)) != ',' && b != '\n') i++;
+            } else {
+                int inizio = i;
+                byte b;
+                while (i < limite && (b = buffer.get(i)) != ',' && b != '\n') i++;
+                aggiungi(inizio, i, false);
+            }
+            if (i >= limite || buffer.get(i) == '\n') return i;
+            i++; // virgola
+        }
+    }
+
+    private void aggiungi(int inizio, int fine, boolean doppie) {
+        if (campi == inizi.length) {
+            inizi = Arrays.copyOf(inizi, campi * 2);
+            fini = Arrays.copyOf(fini, campi * 2);
+            doppieVirgolette = Arrays.copyOf(doppieVirgolette, campi * 2);
+        }
+        // Gli spazi (compreso il '\r' di fine riga) sono esclusi dal campo
+        while (inizio < fine && buffer.get(inizio) <= ' ' && buffer.get(inizio) >= 0) inizio++;
+        while (fine > inizio && buffer.get(fine - 1) <= ' ' && buffer.get(fine - 1) >= 0) fine--;
+        inizi[campi] = inizio;
+        fini[campi] = fine;
+        doppieVirgolette[campi] = doppie;
+        campi++;
+    }
+
+    /** True se la riga non contiene dati (solo spazi). */
+    boolean isVuota() {
+        return campi == 1 && inizi[0] == fini[0];
+    }
+
+    /** Numero di campi presenti nella riga. */
+    public int numeroCampi() {
+        return campi;
+    }
+
+    /** Numero di riga nel file. */
+    public long numero() {
+        return numero;
+    }
+
+    /** True se il campo è vuoto o assente. */
+    public boolean isVuoto(int campo) {
+        int c = posizione(campo);
+        return c < 0 || inizi[c] == fini[c];
+    }
+
+    /**
+     * Restituisce il campo come stringa (UTF-8, con le virgolette raddoppiate ridotte a una).
+     */
+    public String testo(int campo) {
+        int c = posizione(campo);
+        if (c < 0) return "";
+        byte[] byteCampo = new byte[fini[c] - inizi[c]];
+        buffer.get(inizi[c], byteCampo);
+        String testo = new String(byteCampo, StandardCharsets.UTF_8);
+        return doppieVirgolette[c] ? testo.replace("\"\"", "\"") : testo;
+    }
+
+    /**
+     * Converte il campo in double leggendo direttamente i byte. Il risultato è identico
+     * a quello di Double.parseDouble: i valori con più di 15 cifre significative, esponenti
+     * grandi o forme particolari (NaN, esadecimale...) sono convertiti da Double.parseDouble.
+     *
+     * @throws NumberFormatException se il campo non è un numero
+     */
+    public double decimale(int campo) {
+        int c = posizione(campo);
+        if (c < 0) throw new NumberFormatException("empty String");
+        int i = inizi[c];
+        int fine = fini[c];
+        boolean negativo = i < fine && buffer.get(i) == '-';
+        if (i < fine && (negativo || buffer.get(i) == '+')) i++;
+
+        long mantissa = 0;
+        int cifreSignificative = 0;
+        int esponente = 0;
+        boolean cifre = false;
+        boolean punto = false;
+        for (; i < fine; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                cifre = true;
+                if (mantissa != 0 || b != '0') cifreSignificative++;
+                if (cifreSignificative > 15) return Double.parseDouble(testo(campo));
+                mantissa = mantissa * 10 + (b - '0');
+                if (punto) esponente--;
+            } else if (b == '.' && !punto) {
+                punto = true;
+            } else {
+                break;
+            }
+        }
+        if (i < fine && (buffer.get(i) == 'e' || buffer.get(i) == 'E') && cifre) {
+            i++;
+            boolean esponenteNegativo = i < fine && buffer.get(i) == '-';
+            if (i < fine && (esponenteNegativo || buffer.get(i) == '+')) i++;
+            int valore = 0;
+            int inizioEsponente = i;
+            for (; i < fine && buffer.get(i) >= '0' && buffer.get(i) <= '9' && valore < 1000; i++) {
+                valore = valore * 10 + (buffer.get(i) - '0');
+            }
+            if (i == inizioEsponente) return Double.parseDouble(testo(campo));
+            esponente += esponenteNegativo ? -valore : valore;
+        }
+        if (!cifre || i != fine || esponente < -22 || esponente > 22) {
+            return Double.parseDouble(testo(campo));
+        }
+        // Mantissa e potenza di 10 sono esatte: una sola operazione, un solo arrotondamento
+        double valore = esponente >= 0 ? mantissa * POTENZE_10[esponente] : mantissa / POTENZE_10[-esponente];
+        return negativo ? -valore : valore;
+    }
+
+    /**
+     * Converte il campo in int leggendo direttamente i byte.
+     *
+     * @throws NumberFormatException se il campo non è un intero
+     */
+    public int intero(int campo) {
+        int c = posizione(campo);
+        if (c < 0) throw new NumberFormatException("empty String");
+        int i = inizi[c];
+        int fine = fini[c];
+        boolean negativo = i < fine && buffer.get(i) == '-';
+        if (i < fine && (negativo || buffer.get(i) == '+')) i++;
+        // Oltre 9 cifre il valore potrebbe non stare in un int: lo controlla Integer.parseInt
+        if (i == fine || fine - i > 9) return Integer.parseInt(testo(campo));
+        int valore = 0;
+        for (; i < fine; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') return Integer.parseInt(testo(campo));
+            valore = valore * 10 + (b - '0');
+        }
+        return negativo ? -valore : valore;
+    }
+
+    /** Posizione del campo nella riga, -1 se assente. */
+    private int posizione(int campo) {
+        int c = colonne != null ? colonne[campo] : campo;
+        return c < campi ? c : -1;
+    }
+}
@@ -0,0 +1,39 @@
+package it.unipv.ingsfw.aerotrack.utils;
+
+/**
+ * Fotografia dello stato di una {@link CacheLRU} o di una {@link MappaIdentita}.
+ *
+ * @param nome                 nome della cache
+ * @param dimensione           voci attualmente in cache
+ * @param dimensioneMassima    numero massimo di voci, 0 se senza limite
+ * @param trovati              richieste servite dalla memoria
+ * @param mancati              richieste che hanno richiesto un caricamento
+ * @param caricamenti          caricamenti eseguiti (compresi gli aggiornamenti anticipati)
+ * @param aggiornamentiAnticipati voci ricaricate in background prima della scadenza
+ * @param sfrattate            voci eliminate per rispettare la dimensione massima
+ * @param invalidate           voci eliminate da un'invalidazione esplicita
+ */
+public record StatisticheCache(
+        String nome,
+        int dimensione,
+        int dimensioneMassima,
+        long trovati,
+        long mancati,
+        long caricamenti,
+        long aggiornamentiAnticipati,
+        long sfrattate,
+        long invalidate) {
+
+    /** Percentuale delle richieste servite dalla memoria (0 se non ci sono state richieste). */
+    public double percentualeTrovati() {
+        long richieste = trovati + mancati;
+        return richieste == 0 ? 0 : 100.0 * trovati / richieste;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache[%s] voci=%d max=%s trovati=%d mancati=%d (%.1f%%) caricamenti=%d anticipati=%d sfrattate=%d invalidate=%d",
+                nome, dimensione, dimensioneMassima > 0 ? String.valueOf(dimensioneMassima) : "-", trovati, mancati, percentualeTrovati(), caricamenti,
+                aggiornamentiAnticipati, sfrattate, invalidate);
+    }
+}
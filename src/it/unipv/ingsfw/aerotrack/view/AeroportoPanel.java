@@ -2,12 +2,12 @@ package it.unipv.ingsfw.aerotrack.view;
 
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
 import it.unipv.ingsfw.aerotrack.services.AeroportoService;
+import it.unipv.ingsfw.aerotrack.services.EsitoImportazione;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Pannello Swing per la gestione degli aeroporti, con import/export CSV.
@@ -16,6 +16,7 @@ public class AeroportoPanel extends JPanel {
     private final AeroportoService aeroportoService;
     private final DefaultTableModel tableModel;
     private final JTable table;
+    private final CaricatoreTabella<Aeroporto> caricatore;
 
     public AeroportoPanel() {
         this.aeroportoService = AeroportoService.getInstance();
@@ -28,6 +29,9 @@ public class AeroportoPanel extends JPanel {
             public boolean isCellEditable(int row, int column) { return false; }
         };
         table = new JTable(tableModel);
+        caricatore = new CaricatoreTabella<>(this, tableModel, a -> new Object[]{
+            a.getCodice(), a.getNome(), a.getLatitudine(), a.getLongitudine(), a.getNumeroPiste()
+        });
         JScrollPane scrollPane = new JScrollPane(table);
         add(scrollPane, BorderLayout.CENTER);
 
@@ -113,8 +117,12 @@ public class AeroportoPanel extends JPanel {
             JFileChooser fileChooser = new JFileChooser();
             if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
                 try {
-                    aeroportoService.importaAeroportiCSV(fileChooser.getSelectedFile().getAbsolutePath());
-                    JOptionPane.showMessageDialog(this, "Importazione completata!");
+                    EsitoImportazione esito = aeroportoService.importaAeroportiCSV(fileChooser.getSelectedFile().getAbsolutePath());
+                    StringBuilder messaggio = new StringBuilder("Importazione completata!\n").append(esito);
+                    for (String errore : esito.messaggi().subList(0, Math.min(10, esito.messaggi().size()))) {
+                        messaggio.append("\n").append(errore);
+                    }
+                    JOptionPane.showMessageDialog(this, messaggio.toString());
                     aggiornaTabella();
                 } catch (IOException ex) {
                     JOptionPane.showMessageDialog(this, "Errore importazione: " + ex.getMessage());
@@ -125,14 +133,8 @@ public class AeroportoPanel extends JPanel {
         aggiornaTabella();
     }
 
-    /** Aggiorna la tabella con gli aeroporti attuali */
+    /** Aggiorna la tabella con gli aeroporti attuali, caricandoli in background */
     private void aggiornaTabella() {
-        tableModel.setRowCount(0);
-        List<Aeroporto> aeroporti = aeroportoService.getTuttiAeroporti();
-        for (Aeroporto a : aeroporti) {
-            tableModel.addRow(new Object[]{
-                a.getCodice(), a.getNome(), a.getLatitudine(), a.getLongitudine(), a.getNumeroPiste()
-            });
-        }
+        caricatore.carica(azione -> aeroportoService.getTuttiAeroporti().forEach(azione));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package it.unipv.ingsfw.aerotrack.view;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Carica in background le righe di una tabella, senza bloccare l'Event Dispatch Thread.
+ *
+ * La sorgente viene eseguita da uno SwingWorker e gli elementi che produce vengono aggiunti
+ * alla tabella a blocchi (al più {@link #DIMENSIONE_BLOCCO} righe o ogni {@link #INTERVALLO_MS} ms),
+ * quindi le prime righe compaiono mentre le altre sono ancora in lettura.
+ * Un nuovo caricamento annulla quello in corso: le righe del caricamento superato vengono scartate
+ * e la sorgente viene interrotta al primo elemento successivo.
+ *
+ * Tutti i metodi vanno chiamati dall'Event Dispatch Thread.
+ *
+ * @param <T> tipo degli elementi mostrati, uno per riga
+ */
+class CaricatoreTabella<T> {
+
+    /** Numero massimo di righe aggiunte alla tabella con un solo aggiornamento. */
+    static final int DIMENSIONE_BLOCCO = 500;
+    /** Intervallo massimo tra due aggiornamenti della tabella durante un caricamento, in millisecondi. */
+    static final long INTERVALLO_MS = 100;
+
+    /** Produce gli elementi da mostrare, passandoli all'azione; viene eseguita in background. */
+    interface Sorgente<T> {
+        void perOgni(Consumer<T> azione) throws Exception;
+    }
+
+    private final JComponent componente;
+    private final DefaultTableModel modello;
+    private final Function<T, Object[]> riga;
+    private final List<T> elementi = new ArrayList<>();
+    private Caricamento corrente;
+
+    /**
+     * @param componente componente su cui mostrare il cursore di attesa e gli errori
+     * @param modello modello della tabella, svuotato a ogni caricamento
+     * @param riga converte un elemento nei valori della riga (chiamato sull'Event Dispatch Thread)
+     */
+    CaricatoreTabella(JComponent componente, DefaultTableModel modello, Function<T, Object[]> riga) {
+        this.componente = componente;
+        this.modello = modello;
+        this.riga = riga;
+    }
+
+    /**
+     * Svuota la tabella e avvia il caricamento, annullando quello in corso.
+     */
+    void carica(Sorgente<T> sorgente) {
+        carica(sorgente, null);
+    }
+
+    /**
+     * Svuota la tabella e avvia il caricamento, annullando quello in corso.
+     *
+     * @param alTermine eseguito sull'Event Dispatch Thread dopo l'ultima riga, solo se il caricamento
+     *        non è stato annullato e non è fallito; può essere null
+     */
+    void carica(Sorgente<T> sorgente, Runnable alTermine) {
+        annulla();
+        elementi.clear();
+        modello.setRowCount(0);
+        corrente = new Caricamento(sorgente, alTermine);
+        componente.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        corrente.execute();
+    }
+
+    /** Annulla il caricamento in corso, lasciando nella tabella le righe già mostrate. */
+    void annulla() {
+        if (corrente != null) {
+            corrente.cancel(false);
+            corrente = null;
+            componente.setCursor(null);
+        }
+    }
+
+    /** True se è in corso un caricamento. */
+    boolean isInCorso() {
+        return corrente != null;
+    }
+
+    /** Elemento mostrato nella riga indicata del modello. */
+    T elemento(int rigaModello) {
+        return elementi.get(rigaModello);
+    }
+
+    /** Elementi mostrati finora, nell'ordine delle righe (vista non modificabile). */
+    List<T> elementi() {
+        return Collections.unmodifiableList(elementi);
+    }
+
+    /** Aggiunge un blocco di righe con un solo evento della tabella. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void aggiungi(List<T> blocco) {
+        int prima = modello.getRowCount();
+        Vector dati = modello.getDataVector();
+        for (T e : blocco) {
+            elementi.add(e);
+            dati.add(new Vector<>(Arrays.asList(riga.apply(e))));
+        }
+        modello.fireTableRowsInserted(prima, modello.getRowCount() - 1);
+    }
+
+    private class Caricamento extends SwingWorker<Void, Void> {
+        private final Sorgente<T> sorgente;
+        private final Runnable alTermine;
+        // Usati solo dal thread in background
+        private List<T> blocco = new ArrayList<>();
+        private long ultimoInvio = System.nanoTime();
+
+        Caricamento(Sorgente<T> sorgente, Runnable alTermine) {
+            this.sorgente = sorgente;
+            this.alTermine = alTermine;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            sorgente.perOgni(e -> {
+                if (isCancelled()) throw new CancellationException();
+                blocco.add(e);
+                if (blocco.size() >= DIMENSIONE_BLOCCO || System.nanoTime() - ultimoInvio >= INTERVALLO_MS * 1_000_000) {
+                    invia();
+                }
+            });
+            invia();
+            return null;
+        }
+
+        /**
+         * Passa il blocco all'Event Dispatch Thread. I blocchi vengono accodati prima della chiamata
+         * a done(), quindi sono aggiunti alla tabella tutti prima di alTermine.
+         */
+        private void invia() {
+            if (blocco.isEmpty()) return;
+            List<T> daAggiungere = blocco;
+            blocco = new ArrayList<>();
+            ultimoInvio = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                if (corrente == this) aggiungi(daAggiungere);
+            });
+        }
+
+        @Override
+        protected void done() {
+            if (corrente != this) return;
+            corrente = null;
+            componente.setCursor(null);
+            try {
+                get();
+                if (alTermine != null) alTermine.run();
+            } catch (CancellationException | InterruptedException e) {
+                // Caricamento superato da uno più recente
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                JOptionPane.showMessageDialog(componente, "Errore durante il caricamento: " + causa.getMessage(),
+                        "Errore", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+}
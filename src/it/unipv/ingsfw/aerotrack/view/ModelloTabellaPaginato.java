@@ -0,0 +1,234 @@
+package it.unipv.ingsfw.aerotrack.view;
+
+import it.unipv.ingsfw.aerotrack.models.IndicePagine;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * Modello di tabella per elenchi molto grandi: le righe non vengono caricate tutte, ma lette
+ * a pagine di {@link #DIMENSIONE_PAGINA} solo quando la tabella le deve disegnare.
+ *
+ * All'apertura la sorgente restituisce soltanto il numero di righe, così la barra di scorrimento
+ * ha subito la dimensione finale. Quando la tabella chiede una cella di una pagina non ancora letta,
+ * la pagina (insieme a quelle adiacenti) viene letta in background e nel frattempo la riga mostra
+ * un segnaposto. Le pagine lette restano in memoria al più {@link #PAGINE_IN_MEMORIA} alla volta,
+ * scartando quelle usate meno di recente; le richieste di pagine ormai lontane dalla zona visibile
+ * (scorrimento rapido) vengono saltate.
+ * I valori delle celle sono calcolati a ogni disegno, quindi solo per le righe visibili.
+ *
+ * Tutti i metodi vanno chiamati dall'Event Dispatch Thread.
+ *
+ * @param <T> tipo degli elementi mostrati, uno per riga
+ */
+class ModelloTabellaPaginato<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Righe lette con una sola richiesta alla sorgente. */
+    static final int DIMENSIONE_PAGINA = 200;
+    /** Numero massimo di pagine tenute in memoria. */
+    static final int PAGINE_IN_MEMORIA = 50;
+    /** Pagine lette in anticipo prima e dopo quella visibile. */
+    static final int MARGINE_PAGINE = 1;
+    /** Valore della prima colonna delle righe non ancora lette. */
+    static final String SEGNAPOSTO = "…";
+
+    /** Fornisce le righe a pagine; i metodi vengono eseguiti in background. */
+    interface Sorgente<T> {
+        /**
+         * Prepara la lettura.
+         *
+         * @return numero di righe
+         */
+        int apri(int dimensionePagina) throws Exception;
+
+        /** Elementi della pagina indicata, a partire da 0. */
+        List<T> pagina(int indice) throws Exception;
+    }
+
+    /** Calcola il valore di una cella a partire dall'elemento della riga. */
+    interface Celle<T> {
+        Object valore(T elemento, int colonna);
+    }
+
+    private final JComponent componente;
+    private final String[] colonne;
+    private final Celle<T> celle;
+    private final ExecutorService esecutore;
+
+    // Pagine lette, in ordine di accesso
+    private final Map<Integer, List<T>> pagine = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > PAGINE_IN_MEMORIA;
+        }
+    };
+    // Pagine in lettura o la cui lettura è fallita (non più richieste fino al prossimo caricamento)
+    private final Set<Integer> richieste = new HashSet<>();
+    private Sorgente<T> sorgente;
+    private int righe;
+    // Letti anche dal thread in background
+    private volatile int generazione;
+    private volatile int paginaVisibile;
+
+    /**
+     * @param componente componente su cui mostrare il cursore di attesa e gli errori
+     * @param colonne nomi delle colonne
+     * @param celle calcola i valori delle celle (chiamato sull'Event Dispatch Thread)
+     */
+    ModelloTabellaPaginato(JComponent componente, String[] colonne, Celle<T> celle) {
+        this.componente = componente;
+        this.colonne = colonne.clone();
+        this.celle = celle;
+        this.esecutore = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "aerotrack-tabella-pagine");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Sorgente che legge le pagine con keyset pagination: all'apertura calcola l'indice delle pagine,
+     * poi legge ogni pagina a partire dal cursore di inizio indicato dall'indice.
+     *
+     * @param indicizza calcola l'indice a partire dalla dimensione della pagina
+     * @param leggi legge una pagina dato il cursore di inizio (null per la prima) e la dimensione
+     */
+    static <T, C> Sorgente<T> conIndice(IntFunction<IndicePagine<C>> indicizza, BiFunction<C, Integer, List<T>> leggi) {
+        return new Sorgente<>() {
+            private volatile IndicePagine<C> indice;
+
+            @Override
+            public int apri(int dimensionePagina) {
+                indice = indicizza.apply(dimensionePagina);
+                return indice.righe();
+            }
+
+            @Override
+            public List<T> pagina(int n) {
+                return leggi.apply(indice.inizio(n), indice.dimensionePagina());
+            }
+        };
+    }
+
+    /**
+     * Svuota la tabella e apre la sorgente in background; le righe precedenti e le letture
+     * ancora in coda vengono scartate.
+     *
+     * @param alTermine eseguito sull'Event Dispatch Thread quando è noto il numero di righe,
+     *        solo se l'apertura è riuscita e non è stata superata da un nuovo caricamento; può essere null
+     */
+    void carica(Sorgente<T> nuova, Runnable alTermine) {
+        int gen = ++generazione;
+        sorgente = nuova;
+        pagine.clear();
+        richieste.clear();
+        righe = 0;
+        paginaVisibile = 0;
+        fireTableDataChanged();
+        componente.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        esecutore.execute(() -> {
+            if (gen != generazione) return;
+            try {
+                int n = nuova.apri(DIMENSIONE_PAGINA);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen != generazione) return;
+                    componente.setCursor(null);
+                    righe = n;
+                    fireTableDataChanged();
+                    if (alTermine != null) alTermine.run();
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (gen != generazione) return;
+                    componente.setCursor(null);
+                    JOptionPane.showMessageDialog(componente, "Errore durante il caricamento: " + e.getMessage(),
+                            "Errore", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+    }
+
+    /**
+     * Elemento della riga indicata del modello.
+     *
+     * @return l'elemento, oppure null se la sua pagina non è ancora stata letta
+     */
+    T elemento(int riga) {
+        List<T> pagina = pagine.get(riga / DIMENSIONE_PAGINA);
+        int posizione = riga % DIMENSIONE_PAGINA;
+        return pagina != null && posizione < pagina.size() ? pagina.get(posizione) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return righe;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colonne.length;
+    }
+
+    @Override
+    public String getColumnName(int colonna) {
+        return colonne[colonna];
+    }
+
+    @Override
+    public Object getValueAt(int riga, int colonna) {
+        int indice = riga / DIMENSIONE_PAGINA;
+        paginaVisibile = indice;
+        for (int p = indice - MARGINE_PAGINE; p <= indice + MARGINE_PAGINE; p++) {
+            richiedi(p);
+        }
+        List<T> pagina = pagine.get(indice);
+        if (pagina == null) {
+            return colonna == 0 ? SEGNAPOSTO : null;
+        }
+        int posizione = riga % DIMENSIONE_PAGINA;
+        // Pagina più corta del previsto: righe rimosse dopo il calcolo dell'indice
+        return posizione < pagina.size() ? celle.valore(pagina.get(posizione), colonna) : null;
+    }
+
+    /** Accoda la lettura della pagina, se esiste e non è già in memoria o richiesta. */
+    private void richiedi(int indice) {
+        if (indice < 0 || indice * DIMENSIONE_PAGINA >= righe) return;
+        if (pagine.containsKey(indice) || !richieste.add(indice)) return;
+        int gen = generazione;
+        Sorgente<T> s = sorgente;
+        esecutore.execute(() -> {
+            if (gen != generazione) return;
+            if (Math.abs(indice - paginaVisibile) > MARGINE_PAGINE + 1) {
+                // La tabella è già stata scorsa altrove: la pagina sarà richiesta di nuovo se serve
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generazione) richieste.remove(indice);
+                });
+                return;
+            }
+            try {
+                List<T> elementi = s.pagina(indice);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen != generazione) return;
+                    richieste.remove(indice);
+                    pagine.put(indice, elementi);
+                    int prima = indice * DIMENSIONE_PAGINA;
+                    int ultima = Math.min(righe, prima + DIMENSIONE_PAGINA) - 1;
+                    if (ultima >= prima) fireTableRowsUpdated(prima, ultima);
+                });
+            } catch (Exception e) {
+                System.err.println("Errore lettura pagina " + indice + ": " + e.getMessage());
+            }
+        });
+    }
+}
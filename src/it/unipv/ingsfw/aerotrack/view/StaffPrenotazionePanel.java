@@ -3,28 +3,24 @@ package it.unipv.ingsfw.aerotrack.view;
 import it.unipv.ingsfw.aerotrack.models.Prenotazione;
 import it.unipv.ingsfw.aerotrack.services.PrenotazioneService;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class StaffPrenotazionePanel extends JPanel {
     private final PrenotazioneService prenotazioneService;
-    private final DefaultTableModel model;
+    private final ModelloTabellaPaginato<Prenotazione> model;
     private final JTable table;
     private final JTextField searchField;
+    // Ritarda la ricerca finché l'utente non smette di scrivere
+    private final Timer ritardoRicerca;
 
     public StaffPrenotazionePanel() {
         setLayout(new BorderLayout());
         prenotazioneService = PrenotazioneService.getInstance();
 
-        model = new DefaultTableModel(
-            new Object[]{"Codice Prenotazione", "Nome", "Cognome", "Codice Fiscale", "Codice Volo", "Stato"}, 0
-        ) {
-            @Override
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
+        model = new ModelloTabellaPaginato<>(this,
+            new String[]{"Codice Prenotazione", "Nome", "Cognome", "Codice Fiscale", "Codice Volo", "Stato"},
+            StaffPrenotazionePanel::valore);
 
         table = new JTable(model);
         add(new JScrollPane(table), BorderLayout.CENTER);
@@ -42,9 +38,11 @@ public class StaffPrenotazionePanel extends JPanel {
         buttonPanel.add(aggiornaBtn);
         add(buttonPanel, BorderLayout.SOUTH);
 
+        ritardoRicerca = new Timer(200, e -> aggiornaTabella());
+        ritardoRicerca.setRepeats(false);
         searchField.addKeyListener(new KeyAdapter() {
             @Override
-            public void keyReleased(KeyEvent e) { aggiornaTabella(); }
+            public void keyReleased(KeyEvent e) { ritardoRicerca.restart(); }
         });
         
         // Listener aggiorna
@@ -53,25 +51,26 @@ public class StaffPrenotazionePanel extends JPanel {
         aggiornaTabella();
     }
 
+    /**
+     * Mostra le prenotazioni che corrispondono alla ricerca: il filtro è applicato dal database
+     * e vengono lette solo le pagine che la tabella deve disegnare.
+     */
     private void aggiornaTabella() {
-        String q = searchField.getText().toLowerCase();
-        model.setRowCount(0);
-        List<Prenotazione> prenotazioni = prenotazioneService.getTuttePrenotazioni().stream()
-            .filter(p -> p.getCodicePrenotazione().toLowerCase().contains(q)
-                || p.getPasseggero().getNome().toLowerCase().contains(q)
-                || p.getPasseggero().getCognome().toLowerCase().contains(q)
-                || p.getPasseggero().getDocumento().toLowerCase().contains(q)
-                || (p.getVolo()!=null && p.getVolo().getCodice().toLowerCase().contains(q)))
-            .collect(Collectors.toList());
-        for (Prenotazione p : prenotazioni) {
-            model.addRow(new Object[]{
-                p.getCodicePrenotazione(),
-                p.getPasseggero().getNome(),
-                p.getPasseggero().getCognome(),
-                p.getPasseggero().getDocumento(),
-                (p.getVolo()!=null ? p.getVolo().getCodice() : ""),
-                p.isCancellata() ? "CANCELLATA" : "ATTIVA"
-            });
+        ritardoRicerca.stop();
+        String q = searchField.getText().trim();
+        model.carica(ModelloTabellaPaginato.conIndice(
+            dimensione -> prenotazioneService.indicizzaPrenotazioni(q, dimensione),
+            (dopo, dimensione) -> prenotazioneService.cercaPrenotazioni(q, dopo, dimensione)), null);
+    }
+
+    private static Object valore(Prenotazione p, int colonna) {
+        switch (colonna) {
+            case 0: return p.getCodicePrenotazione();
+            case 1: return p.getPasseggero().getNome();
+            case 2: return p.getPasseggero().getCognome();
+            case 3: return p.getPasseggero().getDocumento();
+            case 4: return p.getVolo() != null ? p.getVolo().getCodice() : "";
+            default: return p.isCancellata() ? "CANCELLATA" : "ATTIVA";
         }
     }
 }
\ No newline at end of file
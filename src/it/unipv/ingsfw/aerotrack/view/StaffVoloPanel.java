@@ -1,23 +1,21 @@
 package it.unipv.ingsfw.aerotrack.view;
 
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
+import it.unipv.ingsfw.aerotrack.models.CriteriRicercaVoli;
 import it.unipv.ingsfw.aerotrack.models.Volo;
-import it.unipv.ingsfw.aerotrack.models.Volo.StatoVolo;
 import it.unipv.ingsfw.aerotrack.services.AeroportoService;
 import it.unipv.ingsfw.aerotrack.services.VoloService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
 
 public class StaffVoloPanel extends JPanel {
     private final VoloService voloService;
     private final AeroportoService aeroportoService;
-    private final DefaultTableModel model;
+    private final ModelloTabellaPaginato<Volo> model;
     private final JTable table;
 
     public StaffVoloPanel() {
@@ -25,19 +23,17 @@ public class StaffVoloPanel extends JPanel {
         voloService = VoloService.getInstance();
         aeroportoService = AeroportoService.getInstance();
 
-        model = new DefaultTableModel(
-                new Object[]{"Codice", "Partenza", "Destinazione", "Orario", "Data", "Ritardo", "Pista", "Stato"}, 0
-        ) {
-            @Override
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
+        model = new ModelloTabellaPaginato<>(this,
+                new String[]{"Codice", "Partenza", "Destinazione", "Orario", "Data", "Ritardo", "Pista", "Stato"},
+                StaffVoloPanel::valore);
 
         table = new JTable(model) {
             @Override
             public Component prepareRenderer(javax.swing.table.TableCellRenderer renderer, int row, int col) {
                 Component c = super.prepareRenderer(renderer, row, col);
+                // Le righe non ancora lette (pista null) non sono evidenziate
                 Object pistaObj = getValueAt(row, 6);
-                if (pistaObj == null || pistaObj.toString().equals("-1"))
+                if (pistaObj != null && pistaObj.toString().equals("-"))
                     c.setBackground(new Color(255, 130, 130));
                 else
                     c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(240, 240, 255));
@@ -103,7 +99,12 @@ public class StaffVoloPanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Seleziona un volo da eliminare.");
                 return;
             }
-            String codice = model.getValueAt(row, 0).toString();
+            Volo selezionato = model.elemento(row);
+            if (selezionato == null) {
+                JOptionPane.showMessageDialog(this, "Attendere il caricamento del volo selezionato.");
+                return;
+            }
+            String codice = selezionato.getCodice();
             int conf = JOptionPane.showConfirmDialog(this, "Sicuro di eliminare il volo " + codice + "?", "Conferma", JOptionPane.YES_NO_OPTION);
             if (conf == JOptionPane.YES_OPTION) {
                 if (voloService.rimuoviVolo(codice)) {
@@ -122,7 +123,12 @@ public class StaffVoloPanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Seleziona un volo.");
                 return;
             }
-            String codice = model.getValueAt(row, 0).toString();
+            Volo selezionato = model.elemento(row);
+            if (selezionato == null) {
+                JOptionPane.showMessageDialog(this, "Attendere il caricamento del volo selezionato.");
+                return;
+            }
+            String codice = selezionato.getCodice();
             Volo v;
             try {
                 v = voloService.cercaVolo(codice);
@@ -163,7 +169,12 @@ public class StaffVoloPanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Seleziona un volo.");
                 return;
             }
-            String codice = model.getValueAt(row, 0).toString();
+            Volo selezionato = model.elemento(row);
+            if (selezionato == null) {
+                JOptionPane.showMessageDialog(this, "Attendere il caricamento del volo selezionato.");
+                return;
+            }
+            String codice = selezionato.getCodice();
             JTextArea msg = new JTextArea(6, 40);
             int res = JOptionPane.showConfirmDialog(this, new JScrollPane(msg), "Messaggio da inviare agli utenti del volo " + codice, JOptionPane.OK_CANCEL_OPTION);
             if (res == JOptionPane.OK_OPTION) {
@@ -171,25 +182,41 @@ public class StaffVoloPanel extends JPanel {
             }
         });
 
+        // La tabella non legge più tutti i voli: l'occupazione delle piste, usata per assegnare
+        // la pista ai nuovi voli, viene ricostruita una volta in background
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                voloService.ricostruisciOccupazionePiste();
+                return null;
+            }
+        }.execute();
+
         aggiornaTabella();
     }
 
+    /**
+     * Aggiorna la tabella con tutti i voli: vengono letti dal database solo quelli
+     * delle pagine che la tabella deve disegnare.
+     */
     private void aggiornaTabella() {
-        model.setRowCount(0);
-        for (Volo v : voloService.getTuttiVoli()) {
-        	StatoVolo stato = StatoVolo.ATTERRATO;
-        	if(v.getDataVolo().isEqual(LocalDate.now())) stato = v.calcolaStato(LocalTime.now());
-        	if(v.getDataVolo().isAfter(LocalDate.now())) stato = StatoVolo.PROGRAMMATO;
-            model.addRow(new Object[]{
-                v.getCodice(),
-                v.getPartenza().getCodice(),
-                v.getDestinazione().getCodice(),
-                v.getOrarioPartenza(),
-                v.getDataVolo(),
-                v.getRitardo().toSecondOfDay() > 0 ? (v.getRitardo().toSecondOfDay() / 60) + "'" : "-",
-                (v.getPistaAssegnata() >= 0 ? v.getPistaAssegnata(): "-"),
-                stato
-            });
+        CriteriRicercaVoli criteri = CriteriRicercaVoli.tutti();
+        model.carica(ModelloTabellaPaginato.conIndice(
+                dimensione -> voloService.indicizzaVoli(criteri, dimensione),
+                (dopo, dimensione) -> voloService.cercaVoli(criteri, dopo, dimensione).voli()), null);
+    }
+
+    /** Valore di una cella: lo stato viene calcolato solo per le righe disegnate. */
+    private static Object valore(Volo v, int colonna) {
+        switch (colonna) {
+            case 0: return v.getCodice();
+            case 1: return v.getPartenza().getCodice();
+            case 2: return v.getDestinazione().getCodice();
+            case 3: return v.getOrarioPartenza();
+            case 4: return v.getDataVolo();
+            case 5: return v.getRitardo().toSecondOfDay() > 0 ? (v.getRitardo().toSecondOfDay() / 60) + "'" : "-";
+            case 6: return v.getPistaAssegnata() >= 0 ? v.getPistaAssegnata() + 1 : "-";
+            default: return TabellonePartenze.stato(v, LocalDate.now(), LocalTime.now());
         }
     }
-}
\ No newline at end of file
+}
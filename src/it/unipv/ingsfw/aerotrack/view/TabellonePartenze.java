@@ -0,0 +1,135 @@
+package it.unipv.ingsfw.aerotrack.view;
+
+import it.unipv.ingsfw.aerotrack.models.Volo;
+import it.unipv.ingsfw.aerotrack.models.Volo.StatoVolo;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Tiene aggiornata la colonna dello stato di una tabella di voli mentre è visibile,
+ * senza ricaricare né ricalcolare tutte le righe.
+ *
+ * Per ogni volo di oggi viene calcolato l'orario del prossimo cambio di stato
+ * ({@link Volo#prossimoCambioStato}); gli orari sono tenuti in una coda con priorità e un unico
+ * timer scatta al più vicino. A ogni scatto vengono ricalcolati solo i voli il cui stato cambia
+ * (costo O(log n) per cambio) e la tabella viene avvisata solo per le celle modificate.
+ * A mezzanotte tutti gli stati vengono ricalcolati, perché cambia il giorno di riferimento.
+ *
+ * Tutti i metodi vanno chiamati dall'Event Dispatch Thread.
+ */
+class TabellonePartenze {
+
+    /** Prossimo cambio di stato del volo mostrato in una riga. */
+    private record Cambio(long istante, int riga) {}
+
+    private final DefaultTableModel modello;
+    private final int colonnaStato;
+    private final PriorityQueue<Cambio> cambi = new PriorityQueue<>(Comparator.comparingLong(Cambio::istante));
+    private final Timer timer;
+    private List<Volo> voli = List.of();
+    private LocalDate giorno;
+
+    /**
+     * @param modello modello della tabella, con un volo per riga
+     * @param colonnaStato colonna in cui è mostrato lo stato
+     */
+    TabellonePartenze(DefaultTableModel modello, int colonnaStato) {
+        this.modello = modello;
+        this.colonnaStato = colonnaStato;
+        this.timer = new Timer(0, e -> aggiorna());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Stato da mostrare per un volo: atterrato se di un giorno passato, programmato se di un giorno
+     * futuro, calcolato sull'orario indicato se di oggi.
+     */
+    static StatoVolo stato(Volo v, LocalDate oggi, LocalTime adesso) {
+        if (v.getDataVolo().isBefore(oggi)) return StatoVolo.ATTERRATO;
+        if (v.getDataVolo().isAfter(oggi)) return StatoVolo.PROGRAMMATO;
+        return v.calcolaStato(adesso);
+    }
+
+    /**
+     * Avvia l'aggiornamento della tabella, sostituendo i voli seguiti finora.
+     *
+     * @param voli voli mostrati, nell'ordine delle righe del modello
+     */
+    void avvia(List<Volo> voli) {
+        this.voli = new ArrayList<>(voli);
+        ricalcolaTutto();
+    }
+
+    /** Ferma l'aggiornamento, ad esempio prima di ricaricare la tabella. */
+    void ferma() {
+        timer.stop();
+        cambi.clear();
+        voli = List.of();
+    }
+
+    /** Ricalcola lo stato di tutte le righe e ricostruisce la coda dei cambi. */
+    private void ricalcolaTutto() {
+        timer.stop();
+        giorno = LocalDate.now();
+        LocalTime adesso = LocalTime.now();
+        List<Cambio> prossimi = new ArrayList<>();
+        for (int riga = 0; riga < voli.size(); riga++) {
+            mostra(riga, adesso);
+            Cambio c = prossimo(riga, adesso);
+            if (c != null) prossimi.add(c);
+        }
+        cambi.clear();
+        cambi.addAll(prossimi);
+        pianifica();
+    }
+
+    /** Aggiorna le righe i cui cambi di stato sono scaduti. */
+    private void aggiorna() {
+        if (!LocalDate.now().equals(giorno)) {
+            ricalcolaTutto();
+            return;
+        }
+        LocalTime adesso = LocalTime.now();
+        long ora = adesso.toNanoOfDay();
+        while (!cambi.isEmpty() && cambi.peek().istante() <= ora) {
+            int riga = cambi.poll().riga();
+            mostra(riga, adesso);
+            Cambio c = prossimo(riga, adesso);
+            if (c != null) cambi.add(c);
+        }
+        pianifica();
+    }
+
+    /** Imposta il timer sul prossimo cambio, o sulla mezzanotte se non ce ne sono altri oggi. */
+    private void pianifica() {
+        LocalTime adesso = LocalTime.now();
+        long attesa = cambi.isEmpty()
+                ? Duration.between(adesso, LocalTime.MAX).toMillis() + 1
+                : Duration.ofNanos(cambi.peek().istante() - adesso.toNanoOfDay()).toMillis() + 1;
+        timer.setInitialDelay((int) Math.max(1, Math.min(Integer.MAX_VALUE, attesa)));
+        timer.restart();
+    }
+
+    /** Mostra lo stato del volo della riga, avvisando la tabella solo se è cambiato. */
+    private void mostra(int riga, LocalTime adesso) {
+        if (riga >= modello.getRowCount()) return;
+        StatoVolo stato = stato(voli.get(riga), giorno, adesso);
+        if (stato != modello.getValueAt(riga, colonnaStato)) {
+            modello.setValueAt(stato, riga, colonnaStato);
+        }
+    }
+
+    private Cambio prossimo(int riga, LocalTime adesso) {
+        Volo v = voli.get(riga);
+        if (!v.getDataVolo().equals(giorno)) return null;
+        LocalTime cambio = v.prossimoCambioStato(adesso);
+        return cambio != null ? new Cambio(cambio.toNanoOfDay(), riga) : null;
+    }
+}
@@ -12,6 +12,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,6 +23,7 @@ public class UserPrenotazionePanel extends JPanel {
     private final VoloService voloService;
     private final DefaultTableModel tableModel;
     private final JTable table;
+    private final CaricatoreTabella<Prenotazione> caricatore;
     private final String codiceFiscaleUtente;
 
     // COSTRUTTORE CHE ACCETTA CODICE FISCALE
@@ -39,6 +41,13 @@ public class UserPrenotazionePanel extends JPanel {
             	return false; }
         };
         table = new JTable(tableModel);
+        caricatore = new CaricatoreTabella<>(this, tableModel, p -> new Object[]{
+            p.getCodicePrenotazione(),
+            p.getPasseggero().getNomeCompleto(),
+            p.getPasseggero().getDocumento(),
+            p.getVolo() != null ? p.getVolo().getCodice() : "",
+            p.isCancellata() ? "CANCELLATA" : "ATTIVA"
+        });
         add(new JScrollPane(table), BorderLayout.CENTER);
 
         // Bottoni CRUD + Export + Stampa
@@ -99,11 +108,8 @@ public class UserPrenotazionePanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Seleziona una prenotazione da cancellare.");
                 return;
             }
-            String codicePrenotazione = (String) tableModel.getValueAt(row, 0);
-            List<Prenotazione> prenotazioni = prenotazioneService.getTuttePrenotazioni();
-            Prenotazione prenotazione = prenotazioni.stream()
-                    .filter(p -> p.getCodicePrenotazione().equals(codicePrenotazione))
-                    .findFirst().orElse(null);
+            // La prenotazione mostrata nella riga, senza rileggere tutte le prenotazioni
+            Prenotazione prenotazione = caricatore.elemento(row);
 
             if (prenotazione == null) {
                 JOptionPane.showMessageDialog(this, "Prenotazione non trovata.", "Errore", JOptionPane.ERROR_MESSAGE);
@@ -154,11 +160,8 @@ public class UserPrenotazionePanel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Seleziona una prenotazione da stampare!");
                 return;
             }
-            String codicePrenotazione = (String) tableModel.getValueAt(row, 0);
-            List<Prenotazione> prenotazioni = prenotazioneService.getTuttePrenotazioni();
-            Prenotazione prenotazione = prenotazioni.stream()
-                    .filter(p -> p.getCodicePrenotazione().equals(codicePrenotazione))
-                    .findFirst().orElse(null);
+            // La prenotazione mostrata nella riga, senza rileggere tutte le prenotazioni
+            Prenotazione prenotazione = caricatore.elemento(row);
 
             if (prenotazione == null) {
                 JOptionPane.showMessageDialog(this, "Prenotazione non trovata.", "Errore", JOptionPane.ERROR_MESSAGE);
@@ -176,7 +179,7 @@ public class UserPrenotazionePanel extends JPanel {
                 ticket.append("Partenza: ").append(volo.getPartenza().getCodice()).append("\n");
                 ticket.append("Destinazione: ").append(volo.getDestinazione().getCodice()).append("\n");
                 ticket.append("Orario: ").append(volo.getOrarioPartenza()).append("\n");
-                ticket.append("Pista: ").append(volo.getPistaAssegnata() >= 0 ? volo.getPistaAssegnata() : "Non assegnata").append("\n");
+                ticket.append("Pista: ").append(volo.getPistaAssegnata() >= 0 ? volo.getPistaAssegnata() + 1 : "Non assegnata").append("\n");
                 ticket.append("Stato: ").append(prenotazione.isCancellata() ? "CANCELLATA" : "ATTIVA").append("\n");
             }
             ticket.append("------------------------------\n");
@@ -190,39 +193,33 @@ public class UserPrenotazionePanel extends JPanel {
         aggiornaTabella();
     }
 
+    /**
+     * Mostra le prenotazioni di oggi dell'utente, caricandole in background.
+     * Al termine avvisa l'utente dei voli in ritardo o cancellati.
+     */
     public void aggiornaTabella() {
-        tableModel.setRowCount(0);
-        List<Prenotazione> prenotazioni = prenotazioneService.getTuttePrenotazioni();
-        for (Prenotazione p : prenotazioni) {
-        	// FILTRO: solo le prenotazioni del codice fiscale utente (cioè del documento)
-            if (!p.getVolo().getDataVolo().equals(LocalDate.now())) continue;
-            if (p.getPasseggero().getDocumento().equalsIgnoreCase(codiceFiscaleUtente)) {
-            	// Notifica utente se il volo è in ritardo o cancellato
-            	if (p.getVolo() != null) {
-            		Volo volo = p.getVolo();
-            		if (volo.getRitardo().isAfter(LocalTime.of(0, 0))) {
-                        JOptionPane.showMessageDialog(this,
-                            "Attenzione: il volo " + volo.getCodice() + " ha un ritardo di " + volo.getRitardo() + " minuti.",
-                            "Ritardo volo", JOptionPane.WARNING_MESSAGE);
-                    }
-                
-                    if (volo.getStato().equals("CANCELLATO")) {
-                	    JOptionPane.showMessageDialog(this,
-                	    	"Attenzione: il volo " + volo.getCodice() + " è stato cancellato.",
-                			"Volo cancellato", JOptionPane.ERROR_MESSAGE);
-                    }
+        record Avviso(String messaggio, String titolo, int tipo) {}
+        LocalDate oggi = LocalDate.now();
+        List<Avviso> avvisi = new ArrayList<>();
+        caricatore.carica(azione -> {
+            for (Prenotazione p : prenotazioneService.trovaPrenotazioniPerDocumento(codiceFiscaleUtente)) {
+                if (p.getVolo() == null || !p.getVolo().getDataVolo().equals(oggi)) continue;
+                // Notifica utente se il volo è in ritardo o cancellato
+                Volo volo = p.getVolo();
+                if (volo.getRitardo().isAfter(LocalTime.of(0, 0))) {
+                    avvisi.add(new Avviso("Attenzione: il volo " + volo.getCodice() + " ha un ritardo di " + volo.getRitardo() + " minuti.",
+                            "Ritardo volo", JOptionPane.WARNING_MESSAGE));
                 }
-            	
-            	tableModel.addRow(new Object[]{
-            		p.getCodicePrenotazione(),
-            	    p.getPasseggero().getNomeCompleto(),
-                    p.getPasseggero().getDocumento(),
-                    p.getVolo() != null ? p.getVolo().getCodice() : "",
-                    p.isCancellata() ? "CANCELLATA" : "ATTIVA"
-                });
+                if (volo.getStato() == Volo.StatoVolo.CANCELLATO) {
+                    avvisi.add(new Avviso("Attenzione: il volo " + volo.getCodice() + " è stato cancellato.",
+                            "Volo cancellato", JOptionPane.ERROR_MESSAGE));
+                }
+                azione.accept(p);
+            }
+        }, () -> {
+            for (Avviso avviso : avvisi) {
+                JOptionPane.showMessageDialog(this, avviso.messaggio(), avviso.titolo(), avviso.tipo());
             }
-        }
+        });
     }
 }
-         
-  
@@ -3,6 +3,9 @@ package it.unipv.ingsfw.aerotrack.view;
 import it.unipv.ingsfw.aerotrack.models.Aeroporto;
 
 
+import it.unipv.ingsfw.aerotrack.models.CriteriRicercaVoli;
+import it.unipv.ingsfw.aerotrack.models.CursoreVoli;
+import it.unipv.ingsfw.aerotrack.models.PaginaVoli;
 import it.unipv.ingsfw.aerotrack.models.Volo;
 import it.unipv.ingsfw.aerotrack.models.Volo.StatoVolo;
 import it.unipv.ingsfw.aerotrack.services.*;
@@ -11,7 +14,7 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.*;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class UserVoloPanel extends JPanel {
     private final PrenotazioneService prenotazioneService;
@@ -20,6 +23,9 @@ public class UserVoloPanel extends JPanel {
 
     private final DefaultTableModel tableModel;
     private final JTable table;
+    private final CaricatoreTabella<Volo> caricatore;
+    // Aggiorna lo stato dei voli mostrati quando cambia, senza ricaricare la tabella
+    private final TabellonePartenze tabellone;
     private final UserPrenotazionePanel prenotazionePanel;
     private final String codiceFiscaleUtente;
 
@@ -38,6 +44,8 @@ public class UserVoloPanel extends JPanel {
             public boolean isCellEditable(int row, int column) { return false; }
         };
         table = new JTable(tableModel);
+        caricatore = new CaricatoreTabella<>(this, tableModel, UserVoloPanel::riga);
+        tabellone = new TabellonePartenze(tableModel, 6);
         add(new JScrollPane(table), BorderLayout.CENTER);
 
         // Bottoni
@@ -152,52 +160,40 @@ public class UserVoloPanel extends JPanel {
             LocalTime finalOrario = orario;
             LocalDate finalData = data;
 
-            List<Volo> risultati = voloService.getTuttiVoli().stream()
-            	    .filter(v -> {
-            	        if (partenza != null && !partenza.isEmpty() && !v.getPartenza().getCodice().equals(partenza)) {
-            	            return false;
-            	        }
-            	        if (destinazione != null && !destinazione.isEmpty() && !v.getDestinazione().getCodice().equals(destinazione)) {
-            	            return false;
-            	        }
-
-            	        if (finalOrario != null && finalData != null) {
-            	            LocalDateTime riferimento = LocalDateTime.of(finalData, finalOrario);
-            	            LocalDateTime partenzaReale = LocalDateTime.of(v.getDataVolo(), v.getOrarioPartenza())
-            	                .plusMinutes(v.getRitardo().toSecondOfDay() / 60);
-            	            LocalDateTime fineAtterraggio = partenzaReale.plusMinutes(30 + v.calcolaTempo() + 30);
-
-            	            if (riferimento.isAfter(fineAtterraggio)) {
-            	                return false;
-            	            }
-            	        }
-
-            	        return true;
-            	    })
-            	    .toList();
-
-            tableModel.setRowCount(0);
-
-            for (Volo v : risultati) {
-            	StatoVolo stato = StatoVolo.ATTERRATO;
-            	
-            	if(v.getDataVolo().isEqual(LocalDate.now())) stato = v.calcolaStato(LocalTime.now());
-            	if(v.getDataVolo().isAfter(LocalDate.now())) stato = StatoVolo.PROGRAMMATO;
-
-                tableModel.addRow(new Object[]{
-                    v.getCodice(),
-                    v.getPartenza().getCodice(),
-                    v.getDestinazione().getCodice(),
-                    v.getOrarioPartenza(),
-                    v.getDataVolo(),
-                    v.getRitardo().toSecondOfDay() > 0 ? (v.getRitardo().toSecondOfDay() / 60) + "'" : "-",
-                    stato
-                });
-            }
-
-            if (tableModel.getRowCount() == 0) {
-                JOptionPane.showMessageDialog(this, "Nessun volo trovato con i criteri selezionati.");
-            }
+            // Partenza, destinazione e data filtrate dal database
+            CriteriRicercaVoli criteri = CriteriRicercaVoli.tutti();
+            if (partenza != null && !partenza.isEmpty()) criteri = criteri.conPartenza(partenza);
+            if (destinazione != null && !destinazione.isEmpty()) criteri = criteri.conDestinazione(destinazione);
+            // Dal giorno prima: un volo serale può atterrare dopo l'orario di riferimento
+            if (finalOrario != null && finalData != null) criteri = criteri.conDate(finalData.minusDays(1), null);
+
+            // Ricerca in background: la tabella si riempie al termine della query
+            CriteriRicercaVoli criteriFinali = criteri;
+            AtomicBoolean altriRisultati = new AtomicBoolean();
+            tabellone.ferma();
+            caricatore.carica(azione -> {
+                PaginaVoli pagina = voloService.cercaVoli(criteriFinali, null, VoloService.DIMENSIONE_MASSIMA_PAGINA);
+                altriRisultati.set(pagina.haSuccessiva());
+                for (Volo v : pagina.voli()) {
+                    if (finalOrario != null && finalData != null) {
+                        LocalDateTime riferimento = LocalDateTime.of(finalData, finalOrario);
+                        LocalDateTime partenzaReale = LocalDateTime.of(v.getDataVolo(), v.getOrarioPartenza())
+                            .plusMinutes(v.getRitardo().toSecondOfDay() / 60);
+                        LocalDateTime fineAtterraggio = partenzaReale.plusMinutes(30 + v.calcolaTempo() + 30);
+
+                        if (riferimento.isAfter(fineAtterraggio)) continue;
+                    }
+                    azione.accept(v);
+                }
+            }, () -> {
+                tabellone.avvia(caricatore.elementi());
+                if (tableModel.getRowCount() == 0) {
+                    JOptionPane.showMessageDialog(this, "Nessun volo trovato con i criteri selezionati.");
+                } else if (altriRisultati.get()) {
+                    JOptionPane.showMessageDialog(this, "Mostrati solo i primi " + VoloService.DIMENSIONE_MASSIMA_PAGINA
+                            + " voli: restringi i criteri di ricerca.");
+                }
+            });
         });
 
 
@@ -207,40 +203,48 @@ public class UserVoloPanel extends JPanel {
         aggiornaTabella();
     }
     
+    /**
+     * Mostra i voli non ancora conclusi, da oggi in poi. I voli sono letti in background
+     * a pagine e ogni pagina compare nella tabella appena letta; al termine lo stato dei voli
+     * viene aggiornato automaticamente a ogni cambio.
+     */
     private void aggiornaTabella() {
         LocalDate oggi = LocalDate.now();
         LocalTime adesso = LocalTime.now();
 
-        tableModel.setRowCount(0);
-
-        for (Volo v : voloService.getTuttiVoli()) {
-            StatoVolo stato = StatoVolo.PROGRAMMATO;
-            LocalDate dataVolo = v.getDataVolo();
-            LocalTime partenza = v.getOrarioPartenza().plusMinutes(v.getRitardo().toSecondOfDay() / 60);
-            LocalTime fineAtterraggio = partenza.plusMinutes(30 + v.calcolaTempo() + 30); // 30 taxi out + tempo volo + 30 taxi in
-
-            // SE il volo è di un giorno precedente → SKIP
-            if (dataVolo.isBefore(oggi)) continue;
-
-            // SE il volo è oggi ma già atterrato da più di 30 min → SKIP
-            if (dataVolo.isEqual(oggi) && adesso.isAfter(fineAtterraggio)) continue;
-
-            // Altrimenti → mostralo
-            if (dataVolo.isEqual(oggi)) {
-                stato = v.calcolaStato(adesso);
-            }
-
-            tableModel.addRow(new Object[]{
-                v.getCodice(),
-                v.getPartenza().getCodice(),
-                v.getDestinazione().getCodice(),
-                v.getOrarioPartenza(),
-                v.getDataVolo(),
-                v.getRitardo().toSecondOfDay() > 0 ? (v.getRitardo().toSecondOfDay() / 60) + "'" : "-",
-                stato
-            });
-        }
+        // I voli dei giorni precedenti sono esclusi direttamente dalla query
+        CriteriRicercaVoli criteri = CriteriRicercaVoli.tutti().conDate(oggi, null);
+        tabellone.ferma();
+        caricatore.carica(azione -> {
+            CursoreVoli cursore = null;
+            do {
+                PaginaVoli pagina = voloService.cercaVoli(criteri, cursore, VoloService.DIMENSIONE_MASSIMA_PAGINA);
+                for (Volo v : pagina.voli()) {
+                    LocalTime partenza = v.getOrarioPartenza().plusMinutes(v.getRitardo().toSecondOfDay() / 60);
+                    LocalTime fineAtterraggio = partenza.plusMinutes(30 + v.calcolaTempo() + 30); // 30 taxi out + tempo volo + 30 taxi in
+
+                    // SE il volo è oggi ma già atterrato da più di 30 min → SKIP
+                    if (v.getDataVolo().isEqual(oggi) && adesso.isAfter(fineAtterraggio)) continue;
+
+                    azione.accept(v);
+                }
+                cursore = pagina.successivo();
+            } while (cursore != null);
+        }, () -> tabellone.avvia(caricatore.elementi()));
     }
 
-
+    /** Riga della tabella per un volo; lo stato è calcolato sull'ora attuale. */
+    private static Object[] riga(Volo v) {
+        StatoVolo stato = TabellonePartenze.stato(v, LocalDate.now(), LocalTime.now());
+
+        return new Object[]{
+            v.getCodice(),
+            v.getPartenza().getCodice(),
+            v.getDestinazione().getCodice(),
+            v.getOrarioPartenza(),
+            v.getDataVolo(),
+            v.getRitardo().toSecondOfDay() > 0 ? (v.getRitardo().toSecondOfDay() / 60) + "'" : "-",
+            stato
+        };
+    }
 }